@@ -60,6 +60,10 @@ public enum STExceptionID {
      * failed to validate database schema version
      */
     DBSTORAGE_INVALID_SCHEMA,
+    /**
+     * failed to migrate database schema to the current version
+     */
+    DBSTORAGE_MIGRATE_SCHEMA,
     /**
      * failed to commit all database changes
      */
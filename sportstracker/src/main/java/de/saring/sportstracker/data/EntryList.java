@@ -1,6 +1,7 @@
 package de.saring.sportstracker.data;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -46,6 +47,28 @@ public class EntryList<T extends Entry> extends IdDateObjectList<T> {
         return foundEntries;
     }
 
+    /**
+     * Returns all entries of the specified date range which are fulfilling the specified filter criteria. Only the
+     * entries of the date range need to be filtered, so it's much faster than getEntriesForFilter() for small date
+     * ranges. The filter will be ignored when it is for another entry type than the entries stored in this list.
+     *
+     * @param dStart start date of the time range (inclusive)
+     * @param dEnd end date of the time range (inclusive)
+     * @param filter the entry filter criteria
+     * @return list of entries in this time range which are valid for the specified filter
+     * @throws PatternSyntaxException thrown on parsing problems of the regular expression for comment searching
+     */
+    public List<T> getEntriesInDateRange(LocalDate dStart, LocalDate dEnd, EntryFilter filter)
+            throws PatternSyntaxException {
+
+        final List<T> entriesInRange = getEntriesInDateRange(dStart, dEnd);
+        if (entriesInRange.isEmpty() || !filter.getEntryType().getEntryClass().isInstance(entriesInRange.get(0))) {
+            return entriesInRange;
+        }
+
+        return entriesInRange.stream().filter(entry -> filterEntry(entry, filter)).toList();
+    }
+
     /**
      * Checks whether the specified entry matches the comment of the filter. It filters the entry date
      * and the entry comment (if present).
@@ -149,164 +149,70 @@ public class StatisticCalculator {
 
     /**
      * Creates a new StatisticCalculator instance. The statistic will be
-     * calculated immediately for the specified exercises. The results can be
-     * retrieved from the class properties.
+     * calculated immediately for the specified exercises in a single pass.
+     * The results can be retrieved from the class properties.
      *
      * @param exercises list of Exercise objects for statistic calculation
      */
     public StatisticCalculator(IdObjectList<Exercise> exercises) {
+        this(exercises.stream().collect(StatisticAccumulator.collector()));
+    }
+
+    /**
+     * Creates a new StatisticCalculator instance for the values of the specified
+     * exercise accumulator.
+     *
+     * @param accumulator the accumulated values of all exercises for the statistic
+     */
+    public StatisticCalculator(StatisticAccumulator accumulator) {
+        this(accumulator.toAggregate(new ExerciseAggregate.Key(null, null)));
+    }
+
+    /**
+     * Creates a new StatisticCalculator instance for the specified exercise aggregate (e.g. calculated by the
+     * database). The results are the same as when calculated for the list of the aggregated exercises.
+     *
+     * @param aggregate the aggregated values of all exercises for the statistic
+     */
+    public StatisticCalculator(ExerciseAggregate aggregate) {
 
-        exerciseCount = exercises.size();
+        exerciseCount = aggregate.getExerciseCount();
         if (exerciseCount == 0) {
             return;
         }
 
-        // compute distance statistics
-        totalDistance = exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .sum();
-
-        minDistance = (float) exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .min()
-                .orElse(0);
-
-        maxDistance = (float) exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .max()
-                .orElse(0);
-
-        avgDistance = (float) exercises.stream()
-                .mapToDouble(it -> it.getDistance())
-                .average()
-                .orElse(0);
-
-        // compute AVG speed statistics
-        minAvgSpeed = (float) exercises.stream()
-                .mapToDouble(it -> it.getAvgSpeed())
-                .min()
-                .orElse(0);
-
-        maxAvgSpeed = (float) exercises.stream()
-                .mapToDouble(it -> it.getAvgSpeed())
-                .max()
-                .orElse(0);
-
-        avgSpeed = (float) exercises.stream()
-                .mapToDouble(it -> it.getAvgSpeed())
-                .average()
-                .orElse(0);
-
-        // compute duration statistics
-        totalDuration = exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .sum();
-
-        minDuration = exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .min()
-                .orElse(0);
-
-        maxDuration = exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .max()
-                .orElse(0);
-
-        avgDuration = (int) exercises.stream()
-                .mapToInt(it -> it.getDuration())
-                .average()
-                .orElse(0);
-
-        // compute ascent statistics (optional values)
-        totalAscent = exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .sum();
-
-        minAscent = exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .min()
-                .orElse(0);
-
-        maxAscent = exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .max()
-                .orElse(0);
-
-        avgAscent = (int) exercises.stream()
-                .filter(it -> it.getAscent() != null)
-                .mapToInt(it -> it.getAscent())
-                .average()
-                .orElse(0);
-
-        // compute descent statistics (optional values)
-        totalDescent = exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .sum();
-
-        minDescent = exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .min()
-                .orElse(0);
-
-        maxDescent = exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .max()
-                .orElse(0);
-
-        avgDescent = (int) exercises.stream()
-                .filter(it -> it.getDescent() != null)
-                .mapToInt(it -> it.getDescent())
-                .average()
-                .orElse(0);
-
-        // compute AVG heartrate statistics (optional values)
-        minAvgHeartRate = exercises.stream()
-                .filter(it -> it.getAvgHeartRate() != null)
-                .mapToInt(it -> it.getAvgHeartRate())
-                .min()
-                .orElse(0);
-
-        maxAvgHeartRate = exercises.stream()
-                .filter(it -> it.getAvgHeartRate() != null)
-                .mapToInt(it -> it.getAvgHeartRate())
-                .max()
-                .orElse(0);
-
-        avgHeartRate = (int) exercises.stream()
-                .filter(it -> it.getAvgHeartRate() != null)
-                .mapToInt(it -> it.getAvgHeartRate())
-                .average()
-                .orElse(0);
-
-        // compute calories statistics (optional values)
-        totalCalories = exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .sum();
-
-        minCalories = exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .min()
-                .orElse(0);
-
-        maxCalories = exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .max()
-                .orElse(0);
-
-        avgCalories = (int) exercises.stream()
-                .filter(it -> it.getCalories() != null)
-                .mapToInt(it -> it.getCalories())
-                .average()
-                .orElse(0);
+        totalDistance = aggregate.getDistance().getSum();
+        minDistance = (float) aggregate.getDistance().getMin();
+        maxDistance = (float) aggregate.getDistance().getMax();
+        avgDistance = (float) aggregate.getDistance().getAverage();
+
+        minAvgSpeed = (float) aggregate.getAvgSpeed().getMin();
+        maxAvgSpeed = (float) aggregate.getAvgSpeed().getMax();
+        avgSpeed = (float) aggregate.getAvgSpeed().getAverage();
+
+        totalDuration = (int) aggregate.getDuration().getSum();
+        minDuration = (int) aggregate.getDuration().getMin();
+        maxDuration = (int) aggregate.getDuration().getMax();
+        avgDuration = (int) aggregate.getDuration().getAverage();
+
+        totalAscent = (int) aggregate.getAscent().getSum();
+        minAscent = (int) aggregate.getAscent().getMin();
+        maxAscent = (int) aggregate.getAscent().getMax();
+        avgAscent = (int) aggregate.getAscent().getAverage();
+
+        totalDescent = (int) aggregate.getDescent().getSum();
+        minDescent = (int) aggregate.getDescent().getMin();
+        maxDescent = (int) aggregate.getDescent().getMax();
+        avgDescent = (int) aggregate.getDescent().getAverage();
+
+        minAvgHeartRate = (int) aggregate.getAvgHeartRate().getMin();
+        maxAvgHeartRate = (int) aggregate.getAvgHeartRate().getMax();
+        avgHeartRate = (int) aggregate.getAvgHeartRate().getAverage();
+
+        totalCalories = (int) aggregate.getCalories().getSum();
+        minCalories = (int) aggregate.getCalories().getMin();
+        maxCalories = (int) aggregate.getCalories().getMax();
+        avgCalories = (int) aggregate.getCalories().getAverage();
     }
 
     public int getAvgAscent() {
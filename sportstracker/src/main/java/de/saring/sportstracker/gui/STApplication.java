@@ -1,10 +1,13 @@
 package de.saring.sportstracker.gui;
 
+import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.saring.exerciseviewer.core.EVOptions;
 import de.saring.exerciseviewer.gui.EVContext;
+import de.saring.exerciseviewer.parser.ExerciseCache;
+import de.saring.exerciseviewer.parser.ExercisePrefetcher;
 import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.gui.update.STUpdateChecker;
 import de.saring.util.gui.javafx.WindowBoundsPersistence;
@@ -24,10 +27,15 @@ public class STApplication extends Application {
 
     private static final Logger LOGGER = Logger.getLogger(STApplication.class.getName());
 
+    /** Name of the exercise cache directory (for the snapshots of the parsed exercise files). */
+    private static final String DIRECTORY_EXERCISE_CACHE = "exercise-cache";
+
     private STDocument document;
     private STContext context;
     private STController controller;
     private STUpdateChecker updateChecker;
+    private ExerciseCache exerciseCache;
+    private ExercisePrefetcher exercisePrefetcher;
 
     private Stage primaryStage;
 
@@ -50,6 +58,12 @@ public class STApplication extends Application {
         var options = document.getOptions();
         easyDI.bindInstance(EVOptions.class, options);
 
+        // the snapshots of the parsed exercise files are stored in the data directory
+        exerciseCache = new ExerciseCache(new File(document.getDataDirectory(), DIRECTORY_EXERCISE_CACHE));
+        easyDI.bindInstance(ExerciseCache.class, exerciseCache);
+        exercisePrefetcher = new ExercisePrefetcher(exerciseCache);
+        easyDI.bindInstance(ExercisePrefetcher.class, exercisePrefetcher);
+
         // initialize the context (set format utils for current configuration)
         context = easyDI.getInstance(STContext.class);
         context.setFormatUtils(new FormatUtils(options.getUnitSystem()));
@@ -75,6 +89,8 @@ public class STApplication extends Application {
         document.getStorage().closeDatabase();
         document.storeOptions();
 
+        exercisePrefetcher.shutdown();
+        LOGGER.info("Exercise cache usage: " + exerciseCache.getStatistics());
         LOGGER.info("Exiting application...");
         super.stop();
     }
@@ -28,6 +28,16 @@ public interface STController extends EntryViewEventHandler {
      */
     void onOpenHrmFile(ActionEvent event);
 
+    /**
+     * Event handler for action "Import all HRM files of a directory as new exercises".
+     */
+    void onImportHrmFiles(ActionEvent event);
+
+    /**
+     * Event handler for action "Import the selected HRM files as new exercises".
+     */
+    void onImportSelectedHrmFiles(ActionEvent event);
+
     /**
      * Event handler for action "Save changes".
      */
@@ -8,8 +8,10 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.storage.db.AbstractRepository;
@@ -33,13 +35,17 @@ import javafx.stage.Stage;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
+import de.saring.exerciseviewer.parser.ExercisePrefetcher;
 import de.saring.sportstracker.core.STOptions;
+import de.saring.sportstracker.data.EntryFilter;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.Note;
 import de.saring.sportstracker.data.SportSubType;
 import de.saring.sportstracker.data.SportType;
 import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.importer.ExerciseFileImporter;
+import de.saring.sportstracker.data.importer.ImportResult;
 import de.saring.sportstracker.gui.dialogs.DialogProvider;
 import de.saring.sportstracker.gui.dialogs.FilterDialogController;
 import de.saring.sportstracker.gui.statusbar.StatusBarController;
@@ -78,6 +84,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
     private WeightListViewController weightListViewController;
     private StatusBarController statusBarController;
     private DialogProvider dialogProvider;
+    private ExercisePrefetcher exercisePrefetcher;
 
     /** The controller of the currently displayed view. */
     private EntryViewController currentViewController;
@@ -175,6 +182,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
      * @param weightListViewController controller of the weight list view
      * @param statusBarController controller of the status bar
      * @param dialogProvider provider of all dialogs
+     * @param exercisePrefetcher prefetcher of the exercise file of the selected exercise
      */
     @Inject
     public STControllerImpl(final STContext context,
@@ -184,7 +192,8 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
                             final NoteListViewController noteListViewController,
                             final WeightListViewController weightListViewController,
                             final StatusBarController statusBarController,
-                            final DialogProvider dialogProvider) {
+                            final DialogProvider dialogProvider,
+                            final ExercisePrefetcher exercisePrefetcher) {
         this.context = context;
         this.document = document;
         this.calendarViewController = calendarViewController;
@@ -193,6 +202,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         this.weightListViewController = weightListViewController;
         this.statusBarController = statusBarController;
         this.dialogProvider = dialogProvider;
+        this.exercisePrefetcher = exercisePrefetcher;
     }
 
     @Override
@@ -262,6 +272,43 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         }
     }
 
+    @Override
+    public void onImportHrmFiles(final ActionEvent event) {
+        if (!checkForExistingSportTypes()) {
+            return;
+        }
+
+        final File selectedDirectory = dialogProvider.prHRMFileOpenDialog.get().selectHRMDirectory(
+                context.getPrimaryStage(), document.getOptions());
+        if (selectedDirectory != null) {
+            startImportTask(new ImportTask(selectedDirectory, null));
+        }
+    }
+
+    @Override
+    public void onImportSelectedHrmFiles(final ActionEvent event) {
+        if (!checkForExistingSportTypes()) {
+            return;
+        }
+
+        final List<File> selectedFiles = dialogProvider.prHRMFileOpenDialog.get().selectHRMFiles(
+                context.getPrimaryStage(), document.getOptions());
+        if (selectedFiles != null) {
+            final List<String> selectedHrmFiles = selectedFiles.stream()
+                    .map(File::getAbsolutePath)
+                    .toList();
+            startImportTask(new ImportTask(null, selectedHrmFiles));
+        }
+    }
+
+    private void startImportTask(final ImportTask importTask) {
+        // display the import progress in the status bar
+        importTask.messageProperty().addListener((observable, oldValue, newValue) -> laStatusBar.setText(newValue));
+
+        context.blockMainWindow(true);
+        new Thread(importTask).start();
+    }
+
     @Override
     public void onSave(final ActionEvent event) {
         context.blockMainWindow(true);
@@ -305,10 +352,13 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         newWeight.setDateTime(Date310Utils.getNoonDateTimeForDate(dateForNewEntries));
 
         // initialize with the weight value of previous entry (if there is some)
-        int weightCount = document.getWeightList().size();
-        if (weightCount > 0) {
-            Weight lastWeight = document.getWeightList().getAt(weightCount - 1);
-            newWeight.setValue(lastWeight.getValue());
+        final LocalDate newWeightDate = newWeight.getDateTime().toLocalDate();
+        Weight previousWeight = document.getWeightList().getLastEntryBefore(newWeightDate.plusDays(1));
+        if (previousWeight == null) {
+            previousWeight = document.getWeightList().getFirstEntryAfter(newWeightDate);
+        }
+        if (previousWeight != null) {
+            newWeight.setValue(previousWeight.getValue());
         }
 
         dialogProvider.prWeightDialogController.get().show(context.getPrimaryStage(), newWeight);
@@ -347,17 +397,21 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
     public void onDeleteEntry(final ActionEvent event) {
         long[] selectedEntryIDs = null;
         AbstractRepository repository = null;
+        EntryFilter.EntryType entryType = null;
 
         // get selected entry IDs and the type of their list
         if (currentViewController.getSelectedExerciseCount() > 0) {
             selectedEntryIDs = currentViewController.getSelectedExerciseIDs();
             repository = document.getStorage().getExerciseRepository();
+            entryType = EntryFilter.EntryType.EXERCISE;
         } else if (currentViewController.getSelectedNoteCount() > 0) {
             selectedEntryIDs = currentViewController.getSelectedNoteIDs();
             repository = document.getStorage().getNoteRepository();
+            entryType = EntryFilter.EntryType.NOTE;
         } else if (currentViewController.getSelectedWeightCount() > 0) {
             selectedEntryIDs = currentViewController.getSelectedWeightIDs();
             repository = document.getStorage().getWeightRepository();
+            entryType = EntryFilter.EntryType.WEIGHT;
         }
 
         if (selectedEntryIDs != null && selectedEntryIDs.length > 0 && repository != null) {
@@ -369,10 +423,8 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 // finally remove the entries
                 try {
-                    for (long id : selectedEntryIDs) {
-                        repository.delete(id);
-                    }
-                    document.updateApplicationData(null);
+                    repository.deleteAll(selectedEntryIDs);
+                    document.removeEntriesFromApplicationData(entryType, selectedEntryIDs);
                 } catch (STException e) {
                     LOGGER.log(Level.SEVERE, "Failed to delete the selected entries!", e);
                 }
@@ -603,13 +655,16 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         actionDeleteEntryDisabled.set(!fDeleteEnabled);
 
         // action 'View HRM File' is only enabled when the selected exercise contains a HRM file
-        boolean fHRMEnabled = false;
+        String selHrmFile = null;
         if (selExerciseCount == 1) {
             final long selExerciseID = currentViewController.getSelectedExerciseIDs()[0];
             final Exercise selExercise = document.getExerciseList().getByID(selExerciseID);
-            fHRMEnabled = StringUtils.getTrimmedTextOrNull(selExercise.getHrmFile()) != null;
+            selHrmFile = StringUtils.getTrimmedTextOrNull(selExercise.getHrmFile());
         }
-        actionViewHrmDisabled.set(!fHRMEnabled);
+        actionViewHrmDisabled.set(selHrmFile == null);
+
+        // parse the HRM file of the selected exercise in background, so it can be viewed without delay
+        exercisePrefetcher.prefetch(selHrmFile);
 
         actionFilterDisableDisabled.set(!document.isFilterEnabled());
 
@@ -636,7 +691,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
                         "st.initial_sporttypes.running.street_run", "st.initial_sporttypes.running.street_race", //
                         "st.initial_sporttypes.running.trail_run", "st.initial_sporttypes.running.trail_race");
 
-                document.updateApplicationData(null);
+                document.reloadApplicationData();
                 context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.INFORMATION, //
                         "common.info", "st.main.info.initial_sporttypes_added");
             } catch (STException e) {
@@ -715,7 +770,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
      * object in the current view, if specified.
      */
     private void registerListenerForDataChanges() {
-        document.registerChangeListener(changedObject -> {
+        document.registerChangeListener((changedObject, removedObjects) -> {
             updateView();
             if (changedObject != null) {
                 currentViewController.selectEntry(changedObject);
@@ -924,6 +979,116 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         }
     }
 
+    /**
+     * This class imports the selected HRM files or all HRM files of the specified directory (incl. subdirectories)
+     * as new exercises inside a background task without blocking the UI thread. The files are parsed concurrently,
+     * all created exercises are stored in one batch and added to the application data without reloading it.
+     * HRM files which are already assigned to an exercise will be skipped.
+     */
+    private class ImportTask extends Task<ImportResult> {
+
+        private final File directory;
+        private final List<String> selectedHrmFiles;
+        private int skippedFileCount;
+        private List<Exercise> createdExercises = List.of();
+
+        /**
+         * Standard c'tor, either the directory or the list of HRM files must be specified.
+         *
+         * @param directory the directory of the HRM files to import (or null)
+         * @param selectedHrmFiles list of the HRM files to import (or null)
+         */
+        public ImportTask(final File directory, final List<String> selectedHrmFiles) {
+            this.directory = directory;
+            this.selectedHrmFiles = selectedHrmFiles;
+        }
+
+        @Override
+        protected ImportResult call() throws Exception {
+            final List<String> allHrmFiles;
+            if (directory != null) {
+                LOGGER.info("Importing HRM files from directory '" + directory + "'...");
+                allHrmFiles = ExerciseFileImporter.findExerciseFiles(directory);
+            } else {
+                LOGGER.info("Importing " + selectedHrmFiles.size() + " selected HRM files...");
+                allHrmFiles = selectedHrmFiles;
+            }
+
+            final Set<String> assignedHrmFiles = document.getExerciseList().stream()
+                    .map(Exercise::getHrmFile)
+                    .filter(hrmFile -> hrmFile != null)
+                    .collect(Collectors.toSet());
+
+            final List<String> newHrmFiles = allHrmFiles.stream()
+                    .filter(hrmFile -> !assignedHrmFiles.contains(hrmFile))
+                    .toList();
+            skippedFileCount = allHrmFiles.size() - newHrmFiles.size();
+
+            // the first sport type is used for all HRM files without a (mappable) FIT sport type
+            final List<SportType> sportTypes = document.getSportTypeList().stream().toList();
+            final ExerciseFileImporter importer = new ExerciseFileImporter(sportTypes, sportTypes.get(0));
+
+            final ImportResult importResult = importer.importFiles(newHrmFiles, (processedCount, totalCount) -> {
+                updateProgress(processedCount, totalCount);
+                updateMessage(context.getResources().getString("st.main.info.import_hrm_files.progress",
+                        processedCount, totalCount));
+            });
+
+            if (!importResult.getExercises().isEmpty()) {
+                createdExercises = document.getStorage().getExerciseRepository().createAll(importResult.getExercises());
+            }
+            return importResult;
+        }
+
+        @Override
+        protected void succeeded() {
+            super.succeeded();
+            context.blockMainWindow(false);
+
+            final ImportResult importResult = getValue();
+            if (!createdExercises.isEmpty()) {
+                document.addExercisesToApplicationData(createdExercises);
+            }
+            updateActionsAndStatusBar();
+            displayImportResult(importResult);
+        }
+
+        @Override
+        protected void failed() {
+            super.failed();
+            context.blockMainWindow(false);
+            updateActionsAndStatusBar();
+
+            LOGGER.log(Level.SEVERE, "Failed to import HRM files!", getException());
+            context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.ERROR, //
+                    "common.error", "st.main.error.import_hrm_files");
+        }
+
+        private void displayImportResult(final ImportResult importResult) {
+            final int importedCount = importResult.getExercises().size();
+
+            if (importResult.getFailedFiles().isEmpty()) {
+                context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.INFORMATION, //
+                        "common.info", "st.main.info.import_hrm_files", importedCount, skippedFileCount);
+            } else {
+                final StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < importResult.getFailedFiles().size(); i++) {
+                    if (i > 15) {
+                        sb.append("...\n");
+                        break;
+                    }
+
+                    sb.append(importResult.getFailedFiles().get(i).getFilename());
+                    sb.append("\n");
+                }
+
+                context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.WARNING, //
+                        "common.warning", "st.main.error.import_hrm_files.failed_files", importedCount,
+                        skippedFileCount, sb.toString());
+            }
+        }
+    }
+
     /**
      * This class executes the save action inside a background task without blocking the UI thread.
      */
@@ -14,6 +14,7 @@ import de.saring.sportstracker.data.NoteList;
 import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.Weight;
 import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.data.statistic.ExerciseRollup;
 import de.saring.sportstracker.storage.db.DbStorage;
 import de.saring.util.data.IdObject;
 import de.saring.util.unitcalc.SpeedMode;
@@ -39,6 +40,8 @@ public interface STDocument {
 
     WeightList getWeightList();
 
+    ExerciseRollup getExerciseRollup();
+
     DbStorage getStorage();
 
     STOptions getOptions();
@@ -134,15 +137,44 @@ public interface STDocument {
      */
     boolean importApplicationDataFromXml() throws STException;
 
+    /**
+     * Updates the application data after the specified object has been added or modified by one of the storage
+     * repositories. Exercises, notes and weights will be read from the storage and updated in their list only. All other
+     * changes (e.g. of sport types, they can affect many exercises) will reload all application data.
+     * After update all registered {@link ApplicationDataChangeListener} will be notified.
+     *
+     * @param changedObject the added / changed object (or null when all objects were changed)
+     * @throws STException thrown on read problems
+     */
+    void updateApplicationData(IdObject changedObject) throws STException;
+
+    /**
+     * Adds the specified exercises to the application data after they have been created by the exercise repository
+     * (e.g. by the import of HRM files). The exercises must reference the sport type objects of the current sport
+     * type list, they are not read from the storage again. After adding all registered
+     * {@link ApplicationDataChangeListener} will be notified once.
+     *
+     * @param exercises the created exercises (with their IDs)
+     */
+    void addExercisesToApplicationData(List<Exercise> exercises);
+
+    /**
+     * Removes the specified entries from the application data after they have been deleted by one of the storage
+     * repositories. After removal all registered {@link ApplicationDataChangeListener} will be notified.
+     *
+     * @param entryType type of the removed entries
+     * @param entryIds IDs of the removed entries
+     */
+    void removeEntriesFromApplicationData(EntryFilter.EntryType entryType, long[] entryIds);
+
     /**
      * Reloads all application data (notes, weights, exercises, sport types) from the storage. Needs to be called
-     * whenever some application data has been modified by one of the storage repositories.
+     * whenever the application data has been modified by the storage in a way which can't be updated incrementally.
      * After reload all registered {@link ApplicationDataChangeListener} will be notified.
      *
-     * @param changedObject the added / changed object (or null when removed or all objects changed)
      * @throws STException thrown on read problems
      */
-    void updateApplicationData(IdObject changedObject) throws STException;
+    void reloadApplicationData() throws STException;
 
     /**
      * Checks all exercises for the existence of the attached exercise files
@@ -18,15 +18,18 @@ import jakarta.inject.Singleton;
 import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.core.STExceptionID;
 import de.saring.sportstracker.core.STOptions;
+import de.saring.sportstracker.data.Entry;
 import de.saring.sportstracker.data.EntryFilter;
 import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.ExerciseList;
 import de.saring.sportstracker.data.Note;
 import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportType;
 import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.Weight;
 import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.data.statistic.ExerciseRollup;
 import de.saring.util.XmlBeanStorage;
 import de.saring.util.data.IdObject;
 import de.saring.util.unitcalc.SpeedMode;
@@ -73,6 +76,11 @@ public class STDocumentImpl implements STDocument {
      */
     private WeightList weightList;
 
+    /**
+     * The rollup of the summed values of all exercises, it's updated on each exercise change.
+     */
+    private final ExerciseRollup exerciseRollup = new ExerciseRollup();
+
     /**
      * List of listeners which will be notified on each application data change.
      */
@@ -145,6 +153,11 @@ public class STDocumentImpl implements STDocument {
         return weightList;
     }
 
+    @Override
+    public ExerciseRollup getExerciseRollup() {
+        return exerciseRollup;
+    }
+
     @Override
     public DbStorage getStorage() {
         return dbStorage;
@@ -306,6 +319,7 @@ public class STDocumentImpl implements STDocument {
 
         var dbExercises = dbStorage.getExerciseRepository().readAll(dbSportTypes);
         exerciseList.clearAndAddAll(dbExercises);
+        exerciseRollup.rebuild(dbExercises);
 
         var dbNotes = dbStorage.getNoteRepository().readAll();
         noteList.clearAndAddAll(dbNotes);
@@ -363,11 +377,72 @@ public class STDocumentImpl implements STDocument {
     @Override
     public void updateApplicationData(IdObject changedObject) throws STException {
         LOGGER.info("Updating application data");
+
+        IdObject updatedObject;
+        if (changedObject instanceof Exercise) {
+            // the exercise needs to reference the sport type objects of the current sport type list
+            final List<SportType> sportTypes = sportTypeList.stream().toList();
+            updatedObject = dbStorage.getExerciseRepository().readById(changedObject.getId(), sportTypes);
+            exerciseList.set((Exercise) updatedObject);
+            exerciseRollup.update((Exercise) updatedObject);
+        } else if (changedObject instanceof Note) {
+            updatedObject = dbStorage.getNoteRepository().readById(changedObject.getId());
+            noteList.set((Note) updatedObject);
+        } else if (changedObject instanceof Weight) {
+            updatedObject = dbStorage.getWeightRepository().readById(changedObject.getId());
+            weightList.set((Weight) updatedObject);
+        } else {
+            // all other changes (e.g. of sport types) can affect multiple entries => reload all
+            readListsFromStorage();
+            updatedObject = changedObject;
+        }
+
         dirtyData = true;
+        notifyChangeListeners(updatedObject, List.of());
+    }
+
+    @Override
+    public void addExercisesToApplicationData(List<Exercise> exercises) {
+        LOGGER.info("Adding " + exercises.size() + " exercises to application data");
+
+        for (Exercise exercise : exercises) {
+            exerciseList.set(exercise);
+            exerciseRollup.update(exercise);
+        }
+
+        dirtyData = true;
+        notifyChangeListeners(null, List.of());
+    }
+
+    @Override
+    public void removeEntriesFromApplicationData(EntryFilter.EntryType entryType, long[] entryIds) {
+        LOGGER.info("Removing " + entryIds.length + " entries from application data");
+
+        final EntryList<? extends Entry> entryList = switch (entryType) {
+            case EXERCISE -> exerciseList;
+            case NOTE -> noteList;
+            case WEIGHT -> weightList;
+        };
+
+        final List<IdObject> removedEntries = new ArrayList<>(entryList.removeByIDs(entryIds));
+        if (entryType == EntryFilter.EntryType.EXERCISE) {
+            removedEntries.forEach(entry -> exerciseRollup.remove(entry.getId()));
+        }
+
+        dirtyData = true;
+        notifyChangeListeners(null, removedEntries);
+    }
+
+    @Override
+    public void reloadApplicationData() throws STException {
+        LOGGER.info("Reloading application data");
         readListsFromStorage();
+        dirtyData = true;
+        notifyChangeListeners(null, List.of());
+    }
 
-        // notify all listeners of application data changes
-        changeListeners.forEach(listener -> listener.applicationDataChanged(changedObject));
+    private void notifyChangeListeners(IdObject changedObject, List<IdObject> removedObjects) {
+        changeListeners.forEach(listener -> listener.applicationDataChanged(changedObject, removedObjects));
     }
 
     @Override
@@ -18,8 +18,7 @@ import org.controlsfx.validation.ValidationResult;
 import org.controlsfx.validation.Validator;
 
 import de.saring.exerciseviewer.data.EVExercise;
-import de.saring.exerciseviewer.parser.ExerciseParser;
-import de.saring.exerciseviewer.parser.ExerciseParserFactory;
+import de.saring.exerciseviewer.parser.ExerciseCache;
 import de.saring.sportstracker.data.Equipment;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.Exercise.IntensityType;
@@ -53,6 +52,7 @@ public class ExerciseDialogController extends AbstractDialogController {
 
     private final STDocument document;
     private final DialogProvider dialogProvider;
+    private final ExerciseCache exerciseCache;
 
     @FXML
     private DatePicker dpDate;
@@ -148,12 +148,15 @@ public class ExerciseDialogController extends AbstractDialogController {
      * @param context the SportsTracker UI context
      * @param document the SportsTracker model/document
      * @param dialogProvider provider for the dialogs
+     * @param exerciseCache cache of the parsed exercise files
      */
     @Inject
-    public ExerciseDialogController(final STContext context, final STDocument document, final DialogProvider dialogProvider) {
+    public ExerciseDialogController(final STContext context, final STDocument document,
+                                    final DialogProvider dialogProvider, final ExerciseCache exerciseCache) {
         super(context);
         this.document = document;
         this.dialogProvider = dialogProvider;
+        this.exerciseCache = exerciseCache;
 
         equipmentNone = new Equipment(Long.MAX_VALUE);
         equipmentNone.setName(context.getResources().getString("st.dlg.exercise.equipment.none.text"));
@@ -485,11 +488,10 @@ public class ExerciseDialogController extends AbstractDialogController {
             return;
         }
 
-        // parse exercise file
+        // parse the summary of the exercise file (when not cached), the samples and laps are not needed here
         EVExercise evExercise = null;
         try {
-            ExerciseParser parser = ExerciseParserFactory.INSTANCE.getParser(hrmFile);
-            evExercise = parser.parseExercise(hrmFile);
+            evExercise = exerciseCache.getSummary(hrmFile);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to parse exercise file!", e);
             context.showMessageDialog(getWindow(tfHrmFile), Alert.AlertType.ERROR, "common.error",
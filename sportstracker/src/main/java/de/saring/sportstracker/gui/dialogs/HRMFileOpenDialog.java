@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
 
@@ -56,16 +57,7 @@ public class HRMFileOpenDialog {
             fileChooser.setInitialDirectory(fInitialFile.getParentFile());
         } else {
             // use previous exercise directory as initial directory when available
-            File initialDirectory;
-            String strPreviousExerciseDirectory = options.getPreviousExerciseDirectory();
-
-            if (strPreviousExerciseDirectory != null) {
-                initialDirectory = new File(strPreviousExerciseDirectory);
-            } else {
-                // on first selection: use the user home directory
-                initialDirectory = new File(System.getProperty("user.home"));
-            }
-
+            final File initialDirectory = getInitialDirectory(options);
             if (initialDirectory.exists()) {
                 fileChooser.setInitialDirectory(initialDirectory);
             }
@@ -84,6 +76,72 @@ public class HRMFileOpenDialog {
         return selectedFile;
     }
 
+    /**
+     * Displays the HRM File Open dialog for selecting multiple HRM files to import. It returns the selected files or
+     * null when the user has nothing selected.
+     *
+     * @param parent the parent window
+     * @param options the application options
+     * @return the list of selected files or null when nothing selected
+     */
+    public List<File> selectHRMFiles(final Window parent, final STOptions options) {
+
+        final FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(context.getResources().getString("st.dlg.hrm_files_open.title"));
+        addFileExtensionFilters(fileChooser);
+
+        final File initialDirectory = getInitialDirectory(options);
+        if (initialDirectory.exists()) {
+            fileChooser.setInitialDirectory(initialDirectory);
+        }
+
+        final List<File> selectedFiles = fileChooser.showOpenMultipleDialog(parent);
+        if (selectedFiles == null || selectedFiles.isEmpty()) {
+            return null;
+        }
+
+        options.setPreviousExerciseDirectory(selectedFiles.get(0).getParentFile().getAbsolutePath());
+        return selectedFiles;
+    }
+
+    /**
+     * Displays the directory chooser for selecting the directory of the HRM files to import. It returns the
+     * selected directory or null when the user has nothing selected.
+     *
+     * @param parent the parent window
+     * @param options the application options
+     * @return the selected directory or null when nothing selected
+     */
+    public File selectHRMDirectory(final Window parent, final STOptions options) {
+
+        final DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle(context.getResources().getString("st.dlg.hrm_directory_open.title"));
+
+        final File initialDirectory = getInitialDirectory(options);
+        if (initialDirectory.exists()) {
+            directoryChooser.setInitialDirectory(initialDirectory);
+        }
+
+        final File selectedDirectory = directoryChooser.showDialog(parent);
+        if (selectedDirectory != null) {
+            options.setPreviousExerciseDirectory(selectedDirectory.getAbsolutePath());
+        }
+        return selectedDirectory;
+    }
+
+    /**
+     * Returns the previous exercise directory when available, otherwise the user home directory
+     * (on first selection).
+     *
+     * @param options the application options
+     * @return the initial directory
+     */
+    private File getInitialDirectory(final STOptions options) {
+        final String strPreviousExerciseDirectory = options.getPreviousExerciseDirectory();
+        return strPreviousExerciseDirectory != null ?
+                new File(strPreviousExerciseDirectory) : new File(System.getProperty("user.home"));
+    }
+
     /**
      * Adds the file extension filters for all supported parsers.
      *
@@ -7,7 +7,13 @@ import java.time.temporal.TemporalAdjusters;
 import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import jakarta.inject.Inject;
 
@@ -32,14 +38,17 @@ import org.jfree.data.time.TimeTableXYDataset;
 import org.jfree.data.time.Year;
 import org.jfree.data.xy.XYDataset;
 
+import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.core.STOptions;
 import de.saring.sportstracker.data.EntryFilter;
-import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.data.Equipment;
-import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.SportSubType;
 import de.saring.sportstracker.data.SportType;
 import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.statistic.AggregationCategory;
+import de.saring.sportstracker.data.statistic.AggregationPeriod;
+import de.saring.sportstracker.data.statistic.ExerciseAggregate;
+import de.saring.sportstracker.data.statistic.ExerciseRollup;
 import de.saring.sportstracker.gui.STContext;
 import de.saring.sportstracker.gui.STDocument;
 import de.saring.util.AppResources;
@@ -71,6 +80,8 @@ import javafx.stage.Window;
  */
 public class OverviewDialogController extends AbstractDialogController {
 
+    private static final Logger LOGGER = Logger.getLogger(OverviewDialogController.class.getName());
+
     private final STDocument document;
 
     /** The viewer for the chart. */
@@ -278,8 +289,10 @@ public class OverviewDialogController extends AbstractDialogController {
             lGraphColors = new ArrayList<>();
 
             // create a separate graph for each sport type
+            Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates =
+                    aggregateExercises(timeType, year, null, AggregationCategory.SPORT_TYPE);
             for (SportType sportType : document.getSportTypeList()) {
-                addExerciseTimeSeries(dataset, timeType, year, vType, sportType);
+                addExerciseTimeSeries(dataset, timeType, year, vType, sportType, aggregates);
                 lGraphColors.add(ColorUtils.toAwtColor(sportType.getColor()));
             }
             plot.setDataset(1, dataset);
@@ -388,12 +401,15 @@ public class OverviewDialogController extends AbstractDialogController {
         // which sport type mode is selected by user ?
         if (overviewType != OverviewType.EACH_SPLITTED) {
             // create one graph for sum of all sport types
-            addExerciseTimeSeries(dataset, timeType, year, vType, null);
+            Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates = aggregateExercises(timeType, year, null, null);
+            addExerciseTimeSeries(dataset, timeType, year, vType, null, aggregates);
             graphColors.add(new java.awt.Color(0xff0000));
         } else {
             // create a separate graph for each sport type
+            Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates =
+                    aggregateExercises(timeType, year, null, AggregationCategory.SPORT_TYPE);
             for (SportType sportType : document.getSportTypeList()) {
-                addExerciseTimeSeries(dataset, timeType, year, vType, sportType);
+                addExerciseTimeSeries(dataset, timeType, year, vType, sportType, aggregates);
                 graphColors.add(ColorUtils.toAwtColor(sportType.getColor()));
             }
         }
@@ -410,9 +426,11 @@ public class OverviewDialogController extends AbstractDialogController {
      * @param year the year for calculation
      * @param valueType the type of values needs to be calculated
      * @param sportType the specific sport type to be calculated or null for the sum of all sport types
+     * @param aggregates the aggregated exercises of the time range, grouped by sport type when the sport type is
+     *            specified
      */
     private void addExerciseTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
-            ValueType valueType, SportType sportType) {
+            ValueType valueType, SportType sportType, Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates) {
 
         // create the time series for specified time range and sport type
         String seriesName = sportType != null ? sportType.getName() : context.getResources().getString(
@@ -425,33 +443,21 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
-            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
+            // get aggregated exercises of the time step
             // (add value 0 and skip to next time step when no exercises found)
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-            if (lExercises.size() == 0) {
+            ExerciseRollup.Values aggregate = getAggregateForTimeStep(aggregates, timeType, year, timeStep,
+                    sportType == null ? null : sportType.getId());
+            if (aggregate == null) {
                 dataset.add(timePeriod, 0, seriesName);
                 continue;
             }
 
-            // create sums of all exercises
-            double sumDistance = 0d;
-            double sumDuration = 0d;
-            double sumAscent = 0d;
-            double sumDescent = 0d;
-            double sumCalories = 0d;
-
-            for (Exercise tempExercise : lExercises) {
-                sumDistance += tempExercise.getDistance();
-                sumDuration += tempExercise.getDuration();
-                sumAscent += tempExercise.getAscent() == null ? 0 : tempExercise.getAscent();
-                sumDescent += tempExercise.getDescent() == null ? 0: tempExercise.getDescent();
-                sumCalories += tempExercise.getCalories() == null ? 0 : tempExercise.getCalories();
-            }
+            // get sums of all exercises
+            double sumDistance = aggregate.getDistance();
+            double sumDuration = aggregate.getDuration();
+            double sumAscent = aggregate.getAscent();
+            double sumDescent = aggregate.getDescent();
+            double sumCalories = aggregate.getCalories();
 
             // set value of time step depending on value type
             // (convert to english unit mode when enabled)
@@ -491,7 +497,7 @@ public class OverviewDialogController extends AbstractDialogController {
 
                 case EXERCISES:
                     // set number of exercises
-                    dataset.add(timePeriod, lExercises.size(), seriesName);
+                    dataset.add(timePeriod, aggregate.getCount(), seriesName);
                     break;
 
                 case AVG_SPEED:
@@ -536,8 +542,10 @@ public class OverviewDialogController extends AbstractDialogController {
         SportType sportType = cbSportTypeList.getValue();
 
         // display a graph for each sport subtype
+        Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates =
+                aggregateExercises(timeType, year, sportType, AggregationCategory.SPORT_SUBTYPE);
         for (SportSubType sportSubType : sportType.getSportSubTypeList()) {
-            addSportSubTypeTimeSeries(dataset, timeType, year, sportType, sportSubType);
+            addSportSubTypeTimeSeries(dataset, timeType, year, sportSubType, aggregates);
         }
 
         addCustomGraphColors(graphColors);
@@ -550,11 +558,11 @@ public class OverviewDialogController extends AbstractDialogController {
      * @param dataset the timetable dataset
      * @param timeType time range for calculated values
      * @param year the year for calculation
-     * @param sportType the sport type to be shown
      * @param sportSubType the sport subtype to be shown in this series
+     * @param aggregates the aggregated exercises of the sport type in the time range, grouped by sport subtype
      */
     private void addSportSubTypeTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
-            SportType sportType, SportSubType sportSubType) {
+            SportSubType sportSubType, Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates) {
 
         String seriesName = sportSubType.getName();
 
@@ -565,24 +573,10 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
-            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            filter.setSportSubType(sportSubType);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-
-            // create distance sum of all found exercises
-            double sumDistance = 0d;
-            for (Exercise tempExercise : lExercises) {
-                // sum only exercises with same sport subtype (otherwise conflicts with the merged filter set in the
-                // view)
-                if (sportSubType.equals(tempExercise.getSportSubType())) {
-                    sumDistance += tempExercise.getDistance();
-                }
-            }
+            // get distance sum of all exercises with this sport subtype in the time step
+            ExerciseRollup.Values aggregate =
+                    getAggregateForTimeStep(aggregates, timeType, year, timeStep, sportSubType.getId());
+            double sumDistance = aggregate == null ? 0d : aggregate.getDistance();
 
             // convert to english unit mode when enabled
             if (document.getOptions().getUnitSystem() != UnitSystem.METRIC) {
@@ -610,10 +604,12 @@ public class OverviewDialogController extends AbstractDialogController {
         SportType sportType = cbSportTypeList.getValue();
 
         // display a graph for each equipment and one for not specified equipment
+        Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates =
+                aggregateExercises(timeType, year, sportType, AggregationCategory.EQUIPMENT);
         for (Equipment equipment : sportType.getEquipmentList()) {
-            addEquipmentTimeSeries(dataset, timeType, year, sportType, equipment);
+            addEquipmentTimeSeries(dataset, timeType, year, equipment, aggregates);
         }
-        addEquipmentTimeSeries(dataset, timeType, year, sportType, null);
+        addEquipmentTimeSeries(dataset, timeType, year, null, aggregates);
 
         addCustomGraphColors(graphColors);
     }
@@ -625,12 +621,12 @@ public class OverviewDialogController extends AbstractDialogController {
      * @param dataset the timetable dataset
      * @param timeType time range for calculated values
      * @param year the year for calculation
-     * @param sportType the sport type to be shown
      * @param equipment the equipment to be shown in this series (when null, then calculate exercises with no equipment
      *            assigned only)
+     * @param aggregates the aggregated exercises of the sport type in the time range, grouped by equipment
      */
     private void addEquipmentTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
-            SportType sportType, Equipment equipment) {
+            Equipment equipment, Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates) {
 
         String seriesName = equipment != null ? equipment.getName() : context.getResources().getString(
                 "st.dlg.overview.equipment.not_specified");
@@ -642,24 +638,10 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
-            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            filter.setEquipment(equipment);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-
-            // create distance sum of all found exercises
-            double sumDistance = 0d;
-            for (Exercise tempExercise : lExercises) {
-                // when displaying series for no equipment assigned then skip exercises with assigned equipment
-                if (equipment == null && tempExercise.getEquipment() != null) {
-                    continue;
-                }
-                sumDistance += tempExercise.getDistance();
-            }
+            // get distance sum of all exercises with this equipment (or without equipment) in the time step
+            ExerciseRollup.Values aggregate = getAggregateForTimeStep(aggregates, timeType, year, timeStep,
+                    equipment == null ? null : equipment.getId());
+            double sumDistance = aggregate == null ? 0d : aggregate.getDistance();
 
             // convert to english unit mode when enabled
             if (document.getOptions().getUnitSystem() != UnitSystem.METRIC) {
@@ -700,19 +682,18 @@ public class OverviewDialogController extends AbstractDialogController {
 
         String seriesName = context.getResources().getString("st.dlg.overview.display.weight.text");
 
-        // process value calculation for each step of time range
+        // compute the average weights of all time steps at once
         int timeStepCount = getTimeStepCount(timeType, year);
+        double[] avgWeights = getAverageWeightsForTimeSteps(timeType, year, timeStepCount);
+
+        // process value calculation for each step of time range
         for (int timeStep = 0; timeStep < timeStepCount; timeStep++) {
 
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
-            // (EntryFilter was not made for Weight, but it's also handy to use here :-)
-            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-
             // get average weight for the time range of this step
-            double avgWeight = getAverageWeightInTimeRange(filter);
+            double avgWeight = avgWeights[timeStep];
             if (document.getOptions().getUnitSystem() != UnitSystem.METRIC) {
                 avgWeight = ConvertUtils.convertKilogram2Lbs(avgWeight);
             }
@@ -729,6 +710,85 @@ public class OverviewDialogController extends AbstractDialogController {
         }
     }
 
+    /**
+     * Aggregates the values of all exercises in the whole displayed time range. The aggregates are grouped by the
+     * time period of the time steps and by the specified category. When the exercise filter of the view is enabled,
+     * then it will be merged and the aggregation is done by the database (one query for all time steps). Otherwise
+     * the precalculated values of the exercise rollup are used.
+     *
+     * @param timeType the time range type to be displayed
+     * @param year the year to be displayed
+     * @param sportType the sport type of the exercises or null for all sport types
+     * @param category the category for grouping or null for no grouping by category
+     * @return map of the aggregates by their keys (empty on errors)
+     */
+    private Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregateExercises(TimeRangeType timeType, int year,
+            SportType sportType, AggregationCategory category) {
+
+        AggregationPeriod period = getAggregationPeriod(timeType);
+        boolean weekStartSunday = document.getOptions().isWeekStartSunday();
+        int timeStepCount = getTimeStepCount(timeType, year);
+
+        if (!isExerciseFilterEnabled()) {
+            Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates = new HashMap<>();
+            for (int timeStep = 0; timeStep < timeStepCount; timeStep++) {
+                LocalDate periodStart = createExerciseFilterForTimeStep(timeType, year, timeStep).getDateStart();
+                document.getExerciseRollup()
+                        .getValuesByCategory(period, periodStart, weekStartSunday, category,
+                                sportType == null ? null : sportType.getId())
+                        .forEach((categoryId, values) ->
+                                aggregates.put(new ExerciseAggregate.Key(periodStart, categoryId), values));
+            }
+            return aggregates;
+        }
+
+        EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, 0);
+        filter.setDateEnd(createExerciseFilterForTimeStep(timeType, year, timeStepCount - 1).getDateEnd());
+        filter.setSportType(sportType);
+        mergeExerciseFilterIfEnabled(filter);
+
+        try {
+            return document.getStorage().getExerciseRepository()
+                    .aggregate(filter, document.getSportTypeList().stream().toList(), period, category,
+                            weekStartSunday)
+                    .stream()
+                    .collect(Collectors.toMap(ExerciseAggregate::getKey, ExerciseRollup.Values::of));
+        } catch (STException e) {
+            LOGGER.log(Level.SEVERE, "Failed to aggregate the Exercises for the overview diagram!", e);
+            return Map.of();
+        }
+    }
+
+    /**
+     * Returns the aggregate of the exercises for the specified time step and category.
+     *
+     * @param aggregates map of all aggregates in the time range
+     * @param timeType the time range type to be displayed
+     * @param year the year to be displayed
+     * @param timeStep the current time step in the graph
+     * @param categoryId ID of the category or null
+     * @return the aggregate or null when there are no exercises
+     */
+    private ExerciseRollup.Values getAggregateForTimeStep(Map<ExerciseAggregate.Key, ExerciseRollup.Values> aggregates,
+            TimeRangeType timeType, int year, int timeStep, Long categoryId) {
+        LocalDate periodStart = createExerciseFilterForTimeStep(timeType, year, timeStep).getDateStart();
+        return aggregates.get(new ExerciseAggregate.Key(periodStart, categoryId));
+    }
+
+    /**
+     * Returns the aggregation period for the time steps of the specified time range type.
+     *
+     * @param timeType the time range type to be displayed
+     * @return the aggregation period
+     */
+    private AggregationPeriod getAggregationPeriod(TimeRangeType timeType) {
+        return switch (timeType) {
+            case LAST_12_MONTHS, MONTHS_OF_YEAR -> AggregationPeriod.MONTH;
+            case WEEKS_OF_YEAR -> AggregationPeriod.WEEK;
+            case LAST_10_YEARS -> AggregationPeriod.YEAR;
+        };
+    }
+
     /**
      * Returns the number of displayed time steps in the specified time range type.
      *
@@ -935,25 +995,49 @@ public class OverviewDialogController extends AbstractDialogController {
     }
 
     /**
-     * Returns the average weight value for all Weight entries in the time range
-     * of the specified EntryFilter.
+     * Returns the average weight values of all Weight entries for each time step
+     * of the specified time range. All Weight entries are assigned to their time
+     * step in a single pass.
      *
-     * @param filter the EntryFilter with the time range to be used
-     * @return the average weight value or 0 when no Weight entries found
+     * @param timeType the time range type to be displayed
+     * @param year the year to be displayed
+     * @param timeStepCount number of time steps in the time range
+     * @return array of the average weight values by time step (0 when no Weight entries found)
      */
-    private double getAverageWeightInTimeRange(EntryFilter filter) {
-        java.util.List<Weight> weightsInTimeRange = document.getWeightList().getEntriesInDateRange(
-                filter.getDateStart(), filter.getDateEnd());
+    private double[] getAverageWeightsForTimeSteps(TimeRangeType timeType, int year, int timeStepCount) {
 
-        if (weightsInTimeRange.isEmpty()) {
-            return 0;
+        // create the date ranges of all time steps
+        // (EntryFilter was not made for Weight, but it's also handy to use here :-)
+        TreeMap<LocalDate, Integer> timeStepStarts = new TreeMap<>();
+        LocalDate[] timeStepEnds = new LocalDate[timeStepCount];
+        for (int timeStep = 0; timeStep < timeStepCount; timeStep++) {
+            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
+            timeStepStarts.put(filter.getDateStart(), timeStep);
+            timeStepEnds[timeStep] = filter.getDateEnd();
         }
 
-        double weightSum = 0;
+        // sum up the weights of all time steps
+        double[] weightSums = new double[timeStepCount];
+        int[] weightCounts = new int[timeStepCount];
+        java.util.List<Weight> weightsInTimeRange = document.getWeightList().getEntriesInDateRange(
+                timeStepStarts.firstKey(), timeStepEnds[timeStepCount - 1]);
+
         for (Weight weight : weightsInTimeRange) {
-            weightSum += weight.getValue();
+            LocalDate weightDate = weight.getDateTime().toLocalDate();
+            Map.Entry<LocalDate, Integer> timeStepStart = timeStepStarts.floorEntry(weightDate);
+            if (timeStepStart != null && !weightDate.isAfter(timeStepEnds[timeStepStart.getValue()])) {
+                weightSums[timeStepStart.getValue()] += weight.getValue();
+                weightCounts[timeStepStart.getValue()]++;
+            }
+        }
+
+        double[] avgWeights = new double[timeStepCount];
+        for (int timeStep = 0; timeStep < timeStepCount; timeStep++) {
+            if (weightCounts[timeStep] > 0) {
+                avgWeights[timeStep] = weightSums[timeStep] / (double) weightCounts[timeStep];
+            }
         }
-        return weightSum / (double) weightsInTimeRange.size();
+        return avgWeights;
     }
 
     /**
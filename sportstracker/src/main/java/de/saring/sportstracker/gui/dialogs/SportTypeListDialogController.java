@@ -156,7 +156,7 @@ public class SportTypeListDialogController extends AbstractDialogController {
         // finally delete the sport type
         try {
             document.getStorage().getSportTypeRepository().delete(sportType.getId());
-            document.updateApplicationData(null);
+            document.reloadApplicationData();
         } catch (STException e) {
             LOGGER.log(Level.SEVERE, "Failed to delete the selected SportType '" + sportType.getId() + "'!", e);
         }
@@ -2,9 +2,15 @@ package de.saring.sportstracker.gui.dialogs;
 
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import de.saring.sportstracker.data.EntryFilter;
-import de.saring.sportstracker.data.EntryList;
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.statistic.AggregationCategory;
+import de.saring.sportstracker.data.statistic.ExerciseAggregate;
 import de.saring.util.unitcalc.SpeedMode;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -19,7 +25,6 @@ import javafx.stage.Window;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 
-import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.statistic.StatisticCalculator;
 import de.saring.sportstracker.gui.STContext;
 import de.saring.sportstracker.gui.STDocument;
@@ -32,6 +37,8 @@ import de.saring.util.StringUtils;
  */
 public class StatisticDialogController extends AbstractDialogController {
 
+    private static final Logger LOGGER = Logger.getLogger(StatisticDialogController.class.getName());
+
     private final STDocument document;
     private Provider<FilterDialogController> prFilterDialogController;
     private Provider<StatisticResultDialogController> prStatisticResultDialogController;
@@ -175,38 +182,48 @@ public class StatisticDialogController extends AbstractDialogController {
      */
     private void onCalculate(final ActionEvent event) {
 
-        // search for exercises with the selected filter criteria
-        final EntryList<Exercise> lFoundExercises =
-                document.getExerciseList().getEntriesForFilter(statisticFilter);
+        // aggregate the values of all exercises with the selected filter criteria, grouped by sport type
+        // (done by the database in one query, the sport types are needed for the speed mode)
+        final List<ExerciseAggregate> aggregates;
+        try {
+            aggregates = document.getStorage().getExerciseRepository().aggregate(statisticFilter,
+                    document.getSportTypeList().stream().toList(), null, AggregationCategory.SPORT_TYPE, false);
+        } catch (STException e) {
+            LOGGER.log(Level.SEVERE, "Failed to aggregate the Exercises for the statistic filter!", e);
+            return;
+        }
 
         // make sure that at least one exercise was found
-        if (lFoundExercises.size() == 0) {
+        if (aggregates.isEmpty()) {
             context.showMessageDialog(getWindow(laTimespanValue), Alert.AlertType.INFORMATION,
                     "common.info", "st.dlg.statistic.info.no_exercises_found");
             return;
         }
 
         // calculate statistic
-        final StatisticCalculator statistic = new StatisticCalculator(lFoundExercises);
-        SpeedMode speedMode = getSpeedModeForCalculatedExercises(lFoundExercises);
-
+        final StatisticCalculator statistic = new StatisticCalculator(
+                ExerciseAggregate.mergeAll(aggregates, new ExerciseAggregate.Key(null, null)));
+        SpeedMode speedMode = getSpeedModeForCalculatedExercises(aggregates);
 
         // finally display results in dialog
         prStatisticResultDialogController.get().show(getWindow(laTimespanValue), statistic, speedMode);
     }
 
     /**
-     * Returns the speed mode to be used for displaying the results of the calculated exercises.
+     * Returns the speed mode to be used for displaying the results of the calculated exercises. It's the speed mode
+     * of their sport types when all are using the same, otherwise the preferred speed mode.
      *
-     * @param exercises exercises for calculation
+     * @param aggregates aggregates of the calculated exercises, grouped by sport type
      * @return speed mode for results
      */
-    private SpeedMode getSpeedModeForCalculatedExercises(EntryList<Exercise> exercises) {
+    private SpeedMode getSpeedModeForCalculatedExercises(List<ExerciseAggregate> aggregates) {
 
-        long[] exerciseIds = new long[exercises.size()];
-        for (int i = 0; i < exerciseIds.length; i++) {
-            exerciseIds[i] = exercises.getAt(i).getId();
-        }
-        return document.getSpeedModeForExercises(exerciseIds);
+        final List<SpeedMode> speedModes = aggregates.stream()
+                .map(aggregate -> document.getSportTypeList().getByID(aggregate.getKey().getCategoryId()))
+                .map(SportType::getSpeedMode)
+                .distinct()
+                .toList();
+
+        return speedModes.size() == 1 ? speedModes.get(0) : document.getOptions().getPreferredSpeedMode();
     }
 }
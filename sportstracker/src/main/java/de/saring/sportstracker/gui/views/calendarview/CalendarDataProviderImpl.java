@@ -2,11 +2,17 @@ package de.saring.sportstracker.gui.views.calendarview;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+import de.saring.sportstracker.data.Entry;
+import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.Note;
 import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.statistic.ExerciseRollup;
 import de.saring.sportstracker.gui.STContext;
 import de.saring.sportstracker.gui.STDocument;
 import de.saring.util.AppResources;
@@ -18,6 +24,10 @@ import de.saring.util.unitcalc.TimeUtils;
 
 /**
  * Provides the note, weight and exercise entries to be shown in the calendar.
+ * All entries of the displayed date range are read at once and cached by day together with their formatted
+ * calendar entries. When the view filter is enabled, only the entries of the date range are filtered, not the full
+ * entry lists. The cache needs to be invalidated whenever the data, the filter or the unit options have been
+ * changed.
  *
  * @author Stefan Saring
  */
@@ -26,6 +36,21 @@ public class CalendarDataProviderImpl implements CalendarDataProvider {
     private final STContext context;
     private final STDocument document;
 
+    /** First day of the cached date range (null when nothing is cached). */
+    private LocalDate snapshotDateStart;
+
+    /** Last day of the cached date range (null when nothing is cached). */
+    private LocalDate snapshotDateEnd;
+
+    /** Calendar entries of the cached date range by day, days without entries are not contained. */
+    private final Map<LocalDate, List<CalendarEntry>> snapshotEntries = new HashMap<>();
+
+    /**
+     * Formatted calendar entries of all entries in the cached date range. The entries of the previous date range
+     * are reused when preparing a new range, so only the entries of the new days need to be formatted.
+     */
+    private Map<Entry, CalendarEntry> calendarEntryCache = new IdentityHashMap<>();
+
     /**
      * Standard c'tor for dependency injection.
      *
@@ -37,6 +62,32 @@ public class CalendarDataProviderImpl implements CalendarDataProvider {
         this.document = document;
     }
 
+    /**
+     * Reads the note, weight and exercise entries of the specified date range at once and stores them by day, so
+     * the requests for each day don't need to query the entry lists. Nothing needs to be read when the same date
+     * range is already cached. The formatted calendar entries of the previous date range are reused, all others
+     * are removed from the cache.
+     *
+     * @param dateStart first displayed day
+     * @param dateEnd last displayed day
+     */
+    @Override
+    public void prepareDateRange(final LocalDate dateStart, final LocalDate dateEnd) {
+        if (dateStart.equals(snapshotDateStart) && dateEnd.equals(snapshotDateEnd)) {
+            return;
+        }
+
+        final Map<Entry, CalendarEntry> previousCalendarEntries = calendarEntryCache;
+        calendarEntryCache = new IdentityHashMap<>();
+        snapshotEntries.clear();
+
+        addToSnapshot(getEntriesInDateRange(document.getNoteList(), dateStart, dateEnd), previousCalendarEntries);
+        addToSnapshot(getEntriesInDateRange(document.getWeightList(), dateStart, dateEnd), previousCalendarEntries);
+        addToSnapshot(getEntriesInDateRange(document.getExerciseList(), dateStart, dateEnd), previousCalendarEntries);
+        snapshotDateStart = dateStart;
+        snapshotDateEnd = dateEnd;
+    }
+
     /**
      * Provides the note, weight and exercise entries to be shown in the calendar for the specified date.
      *
@@ -45,24 +96,50 @@ public class CalendarDataProviderImpl implements CalendarDataProvider {
      */
     @Override
     public List<CalendarEntry> getCalendarEntriesForDate(final LocalDate date) {
+        if (!isInSnapshot(date, date)) {
+            prepareDateRange(date, date);
+        }
+        return snapshotEntries.getOrDefault(date, List.of());
+    }
 
-        final List<CalendarEntry> calendarEntries = new ArrayList<>();
-        final List<Note> notes = document.getFilterableNoteList().getEntriesInDateRange(date, date);
-        calendarEntries.addAll(notes.stream()
-                .map(note -> createCalendarEntryForNote(note))
-                .toList());
+    /**
+     * Invalidates all cached entries, they will be read again on the next request. Needs to be called whenever
+     * the data, the filter or the unit options have been changed.
+     */
+    public void invalidate() {
+        snapshotDateStart = null;
+        snapshotDateEnd = null;
+        snapshotEntries.clear();
+        calendarEntryCache.clear();
+    }
 
-        final List<Weight> weights = document.getFilterableWeightList().getEntriesInDateRange(date, date);
-        calendarEntries.addAll(weights.stream()
-                .map(weight -> createCalendarEntryForWeight(weight))
-                .toList());
+    /**
+     * Returns the entries of the list in the specified date range, they are filtered when the view filter is enabled.
+     */
+    private <T extends Entry> List<T> getEntriesInDateRange(final EntryList<T> entryList, final LocalDate dateStart,
+            final LocalDate dateEnd) {
+        return document.isFilterEnabled() && document.getCurrentFilter() != null
+                ? entryList.getEntriesInDateRange(dateStart, dateEnd, document.getCurrentFilter())
+                : entryList.getEntriesInDateRange(dateStart, dateEnd);
+    }
 
-        final List<Exercise> exercises = document.getFilterableExerciseList().getEntriesInDateRange(date, date);
-        calendarEntries.addAll(exercises.stream()
-                .map(exercise -> createCalendarEntryForExercise(exercise))
-                .toList());
+    private void addToSnapshot(final List<? extends Entry> entries,
+            final Map<Entry, CalendarEntry> previousCalendarEntries) {
+        // the entries of each day keep their list order, notes, weights and exercises are added in this order
+        for (Entry entry : entries) {
+            CalendarEntry calendarEntry = previousCalendarEntries.get(entry);
+            if (calendarEntry == null) {
+                calendarEntry = createCalendarEntry(entry);
+            }
+            calendarEntryCache.put(entry, calendarEntry);
+            snapshotEntries.computeIfAbsent(entry.getDateTime().toLocalDate(), date -> new ArrayList<>())
+                    .add(calendarEntry);
+        }
+    }
 
-        return calendarEntries;
+    private boolean isInSnapshot(final LocalDate dateStart, final LocalDate dateEnd) {
+        return snapshotDateStart != null && !dateStart.isBefore(snapshotDateStart)
+                && !dateEnd.isAfter(snapshotDateEnd);
     }
 
     @Override
@@ -70,27 +147,61 @@ public class CalendarDataProviderImpl implements CalendarDataProvider {
         final List<String> summaryLines = new ArrayList<>();
 
         // calculate summary distance and duration for all exercises in range
-        final List<Exercise> exersisesInRange = document.getFilterableExerciseList().getEntriesInDateRange( //
-                dateStart, dateEnd);
+        // (the precalculated rollup can be used when the exercises are not filtered)
+        int exerciseCount;
+        double summaryDistance = 0;
+        long summaryDuration = 0;
 
-        if (exersisesInRange.size() > 0) {
-            float summaryDistance = 0;
-            int summaryDuration = 0;
+        if (document.isFilterEnabled() && document.getCurrentFilter() != null) {
+            // get the filtered exercises from the cached entries if possible, filtering the full list is expensive
+            final List<Exercise> exersisesInRange = isInSnapshot(dateStart, dateEnd)
+                    ? getSnapshotExercises(dateStart, dateEnd)
+                    : getEntriesInDateRange(document.getExerciseList(), dateStart, dateEnd);
 
+            exerciseCount = exersisesInRange.size();
             for (Exercise exercise : exersisesInRange) {
                 summaryDistance += exercise.getDistance();
                 summaryDuration += exercise.getDuration();
             }
+        } else {
+            final ExerciseRollup.Values valuesInRange = document.getExerciseRollup().getValues(dateStart, dateEnd);
+            exerciseCount = valuesInRange.getCount();
+            summaryDistance = valuesInRange.getDistance();
+            summaryDuration = valuesInRange.getDuration();
+        }
 
+        if (exerciseCount > 0) {
             // add formatted distance and duration strings
             final FormatUtils formatUtils = context.getFormatUtils();
             summaryLines.add(formatUtils.distanceToString(summaryDistance, 2));
-            summaryLines.add(TimeUtils.seconds2TimeString(summaryDuration));
+            summaryLines.add(TimeUtils.seconds2TimeString((int) summaryDuration));
         }
 
         return summaryLines;
     }
 
+    private List<Exercise> getSnapshotExercises(final LocalDate dateStart, final LocalDate dateEnd) {
+        final List<Exercise> exercises = new ArrayList<>();
+        for (LocalDate date = dateStart; !date.isAfter(dateEnd); date = date.plusDays(1)) {
+            for (CalendarEntry calendarEntry : snapshotEntries.getOrDefault(date, List.of())) {
+                if (calendarEntry.getEntry() instanceof Exercise exercise) {
+                    exercises.add(exercise);
+                }
+            }
+        }
+        return exercises;
+    }
+
+    private CalendarEntry createCalendarEntry(final Entry entry) {
+        if (entry instanceof Note note) {
+            return createCalendarEntryForNote(note);
+        } else if (entry instanceof Weight weight) {
+            return createCalendarEntryForWeight(weight);
+        } else {
+            return createCalendarEntryForExercise((Exercise) entry);
+        }
+    }
+
     private CalendarEntry createCalendarEntryForNote(final Note note) {
         final StringBuilder sbText = new StringBuilder();
         sbText.append(context.getResources().getString("st.calview.note_short")) //
@@ -51,6 +51,8 @@ public class CalendarViewController extends AbstractEntryViewController {
 
     private CalendarControl calendarControl;
 
+    private CalendarDataProviderImpl calendarDataProvider;
+
     /**
      * The current displayed month.
      */
@@ -80,8 +82,9 @@ public class CalendarViewController extends AbstractEntryViewController {
 
     @Override
     public void updateView() {
-        calendarControl.updateCalendar(displayedYear.get(), displayedMonth.get(), //
-                getDocument().getOptions().isWeekStartSunday());
+        // the data, filter or options might have been changed => the cached calendar data is invalid
+        calendarDataProvider.invalidate();
+        updateCalendar();
     }
 
     @Override
@@ -121,7 +124,7 @@ public class CalendarViewController extends AbstractEntryViewController {
             // set calendar to month/year of the entry
             displayedYear.set(dateEntry.getDateTime().getYear());
             displayedMonth.set(dateEntry.getDateTime().getMonthValue());
-            updateView();
+            updateCalendar();
 
             calendarControl.selectEntry(dateEntry);
         }
@@ -154,7 +157,8 @@ public class CalendarViewController extends AbstractEntryViewController {
 
     private void setupCalendarControl() {
         calendarControl = new CalendarControl();
-        calendarControl.setCalendarDataProvider(new CalendarDataProviderImpl(getContext(), getDocument()));
+        calendarDataProvider = new CalendarDataProviderImpl(getContext(), getDocument());
+        calendarControl.setCalendarDataProvider(calendarDataProvider);
         spCalendar.getChildren().addAll(calendarControl);
 
         // set localized column header names
@@ -272,7 +276,7 @@ public class CalendarViewController extends AbstractEntryViewController {
             displayedMonth.set(12);
             displayedYear.set(displayedYear.get() - 1);
         }
-        updateView();
+        updateCalendar();
     }
 
     /**
@@ -286,7 +290,7 @@ public class CalendarViewController extends AbstractEntryViewController {
             displayedMonth.set(1);
             displayedYear.set(displayedYear.get() + 1);
         }
-        updateView();
+        updateCalendar();
     }
 
     /**
@@ -295,7 +299,7 @@ public class CalendarViewController extends AbstractEntryViewController {
     @FXML
     private void onPreviousYear(final ActionEvent event) {
         displayedYear.set(displayedYear.get() - 1);
-        updateView();
+        updateCalendar();
     }
 
     /**
@@ -304,7 +308,7 @@ public class CalendarViewController extends AbstractEntryViewController {
     @FXML
     private void onNextYear(final ActionEvent event) {
         displayedYear.set(displayedYear.get() + 1);
-        updateView();
+        updateCalendar();
     }
 
     /**
@@ -315,7 +319,15 @@ public class CalendarViewController extends AbstractEntryViewController {
         final LocalDate today = LocalDate.now();
         displayedMonth.set(today.getMonthValue());
         displayedYear.set(today.getYear());
-        updateView();
+        updateCalendar();
+    }
+
+    /**
+     * Updates the calendar for the displayed month, the cached calendar data can be reused.
+     */
+    private void updateCalendar() {
+        calendarControl.updateCalendar(displayedYear.get(), displayedMonth.get(), //
+                getDocument().getOptions().isWeekStartSunday());
     }
 
     /**
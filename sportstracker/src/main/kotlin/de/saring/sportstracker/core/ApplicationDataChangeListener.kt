@@ -11,9 +11,13 @@ interface ApplicationDataChangeListener {
 
     /**
      * This method will be called anytime when some application data (Exercises, Notes, etc) was modified. The passed
-     * changedObject is the added or updated IdObject.
+     * changedObject is the added or updated IdObject, the passed removedObjects are the removed entries. When multiple
+     * objects were added or all application data has been reloaded, then there's no changedObject and the list of
+     * removedObjects is empty.
      *
-     * @param changedObject the added / changed object (or null when object was removed or all objects were changed)
+     * @param changedObject the added / changed object (or null when objects were removed, multiple objects were added
+     * or all objects were changed)
+     * @param removedObjects list of the removed objects (empty when no objects were removed)
      */
-    fun applicationDataChanged(changedObject: IdObject?)
+    fun applicationDataChanged(changedObject: IdObject?, removedObjects: List<IdObject>)
 }
@@ -0,0 +1,206 @@
+package de.saring.sportstracker.data.importer
+
+import de.saring.exerciseviewer.core.EVException
+import de.saring.exerciseviewer.data.EVExercise
+import de.saring.exerciseviewer.parser.ExerciseParserFactory
+import de.saring.sportstracker.data.Exercise
+import de.saring.sportstracker.data.SportSubType
+import de.saring.sportstracker.data.SportType
+import java.io.File
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Creates new exercises for a set of exercise files, e.g. for importing the complete exercise archive of a heart rate
+ * monitor. The summaries of the exercise files are parsed concurrently by a bounded thread pool, each file uses its
+ * own parser instance. The created exercises are not stored here, the caller needs to create them in the repository
+ * (in one batch by using ExerciseRepository.createAll()).
+ *
+ * @property sportTypes list of all sport types, the FIT sport types of the exercise files will be mapped to them
+ * @property defaultSportType sport type for all exercise files without a FIT sport type or with an unknown one
+ * @property threadCount maximum number of threads for parsing the exercise files
+ *
+ * @author Stefan Saring
+ */
+class ExerciseFileImporter @JvmOverloads constructor(
+        private val sportTypes: List<SportType>,
+        private val defaultSportType: SportType,
+        private val threadCount: Int = DEFAULT_THREAD_COUNT) {
+
+    /**
+     * Parses all the specified exercise files and creates a new exercise for each of them. The files which can't be
+     * parsed are collected with their errors, the import of all other files continues.
+     *
+     * @param filenames list of the exercise files to import
+     * @param progressListener optional listener, gets called after each processed file (by the calling thread)
+     * @return the result with the created exercises (sorted by date) and the failed files
+     * @throws InterruptedException when the calling thread has been interrupted, the import is cancelled then
+     */
+    @Throws(InterruptedException::class)
+    @JvmOverloads
+    fun importFiles(filenames: List<String>, progressListener: ProgressListener? = null): ImportResult {
+        LOGGER.info("Importing ${filenames.size} exercise files")
+        if (filenames.isEmpty()) {
+            return ImportResult(listOf(), listOf())
+        }
+
+        val executor = Executors.newFixedThreadPool(minOf(threadCount, filenames.size))
+        try {
+            val completionService = ExecutorCompletionService<FileResult>(executor)
+            filenames.forEach { filename -> completionService.submit { importFile(filename) } }
+
+            val exercises = ArrayList<Exercise>(filenames.size)
+            val failedFiles = ArrayList<FailedFile>()
+
+            // collect the results in order of completion, so the progress is updated continuously
+            for (processedCount in 1..filenames.size) {
+                val fileResult = completionService.take().get()
+                fileResult.exercise?.let { exercises.add(it) }
+                fileResult.failedFile?.let { failedFiles.add(it) }
+                progressListener?.onProgress(processedCount, filenames.size)
+            }
+
+            exercises.sortBy { it.dateTime }
+            return ImportResult(exercises, failedFiles)
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * Parses the summary of the specified exercise file and creates the exercise for it. It's executed by the
+     * thread pool, so all errors are returned in the result.
+     */
+    private fun importFile(filename: String): FileResult {
+        try {
+            val parser = ExerciseParserFactory.createParser(filename)
+            val evExercise = parser.parseSummary(filename)
+            return FileResult(createExercise(filename, evExercise), null)
+        } catch (e: Exception) {
+            LOGGER.log(Level.WARNING, "Failed to import exercise file '$filename'!", e)
+            return FileResult(null, FailedFile(filename, e))
+        }
+    }
+
+    /**
+     * Creates the exercise for the parsed exercise file, the values are imported the same way as in the Exercise
+     * dialog.
+     */
+    private fun createExercise(filename: String, evExercise: EVExercise): Exercise {
+        val exercise = Exercise(null)
+        exercise.dateTime = evExercise.dateTime
+                ?: throw EVException("The exercise file '$filename' does not contain the date and time!")
+        exercise.intensity = Exercise.IntensityType.NORMAL
+        exercise.hrmFile = filename
+
+        mapSportTypes(exercise, evExercise)
+
+        exercise.duration = (evExercise.duration ?: 0) / 10
+        evExercise.speed?.let { speed ->
+            if (exercise.sportType.isRecordDistance) {
+                exercise.distance = speed.distance / 1000.0
+                exercise.avgSpeed = speed.speedAvg.toDouble()
+            }
+        }
+
+        // optional values which are not available are stored as null
+        exercise.avgHeartRate = evExercise.heartRateAVG?.toInt()?.takeIf { it > 0 }
+        exercise.calories = evExercise.energy?.takeIf { it > 0 }
+        exercise.ascent = evExercise.altitude?.ascent?.takeIf { it > 0 }
+        exercise.descent = evExercise.altitude?.descent?.takeIf { it > 0 }
+        return exercise
+    }
+
+    /**
+     * Maps the optional Garmin FIT sport type and subtype of the parsed exercise to the SportsTracker equivalents.
+     * The default sport type and its first subtype will be used when there is no mapping.
+     */
+    private fun mapSportTypes(exercise: Exercise, evExercise: EVExercise) {
+        val sportTypeFit = evExercise.sportTypeFit
+        val mappedSportType = sportTypeFit?.let { fit ->
+            sportTypes.find { it.fitId == fit.sportTypeId }
+        }
+
+        exercise.sportType = mappedSportType ?: defaultSportType
+        exercise.sportSubType = mappedSportType?.let { sportType ->
+            sportTypeFit?.sportSubTypeId?.let { fitSubTypeId ->
+                sportType.sportSubTypeList.find { it.fitId == fitSubTypeId }
+            }
+        } ?: getFirstSportSubType(exercise.sportType)
+    }
+
+    private fun getFirstSportSubType(sportType: SportType): SportSubType {
+        if (sportType.sportSubTypeList.size() == 0) {
+            throw EVException("The sport type '${sportType.name}' does not contain any sport subtypes!")
+        }
+        return sportType.sportSubTypeList.getAt(0)
+    }
+
+    /**
+     * Result of the import of a single exercise file, it contains either the created exercise or the failed file.
+     */
+    private class FileResult(val exercise: Exercise?, val failedFile: FailedFile?)
+
+    companion object {
+        private val LOGGER = Logger.getLogger(ExerciseFileImporter::class.java.name)
+
+        /** Default thread count for parsing, the parsing is CPU bound (the file reading is much faster). */
+        val DEFAULT_THREAD_COUNT = maxOf(1, minOf(Runtime.getRuntime().availableProcessors(), 8))
+
+        /**
+         * Returns all exercise files in the specified directory and all its subdirectories which are supported by
+         * one of the exercise parsers.
+         *
+         * @param directory the directory to search in
+         * @return list of the absolute paths of the exercise files, sorted by path
+         */
+        @JvmStatic
+        fun findExerciseFiles(directory: File): List<String> {
+            val suffixes = ExerciseParserFactory.exerciseParserInfos
+                    .flatMap { it.suffixes }
+                    .map { ".$it" }
+
+            return directory.walkTopDown()
+                    .filter { file -> file.isFile && suffixes.any { file.name.endsWith(it) } }
+                    .map { it.absolutePath }
+                    .sorted()
+                    .toList()
+        }
+    }
+}
+
+/**
+ * Listener for the progress of the exercise file import.
+ */
+fun interface ProgressListener {
+
+    /**
+     * Gets called after each processed exercise file.
+     *
+     * @param processedCount number of processed exercise files
+     * @param totalCount total number of exercise files to import
+     */
+    fun onProgress(processedCount: Int, totalCount: Int)
+}
+
+/**
+ * Result of the import of multiple exercise files.
+ *
+ * @property exercises list of the created exercises, sorted by date (not stored yet, the IDs are missing)
+ * @property failedFiles list of the exercise files which could not be imported
+ */
+class ImportResult(
+        val exercises: List<Exercise>,
+        val failedFiles: List<FailedFile>)
+
+/**
+ * Exercise file which could not be imported.
+ *
+ * @property filename name of the exercise file
+ * @property error the error of the import
+ */
+class FailedFile(
+        val filename: String,
+        val error: Exception)
@@ -22,27 +22,44 @@ object EquipmentUsageCalculator {
      * @return map of equipment usages, grouped by sport types
      */
     fun calculateEquipmentUsage(exerciseList: ExerciseList, sportTypeList: SportTypeList): EquipmentUsages {
+        val exerciseRollup = ExerciseRollup()
+        exerciseRollup.rebuild(exerciseList)
+        return calculateEquipmentUsage(exerciseRollup, sportTypeList)
+    }
+
+    /**
+     * Calculates the usage of equipment from the rollup of all exercises, so the exercises don't need to be
+     * processed. The usage will be calculated for all equipments defined in the passed sport types, also when it
+     * has not been used.
+     *
+     * @param exerciseRollup rollup of all Exercises
+     * @param sportTypeList list of all SportTypes
+     * @return map of equipment usages, grouped by sport types
+     */
+    fun calculateEquipmentUsage(exerciseRollup: ExerciseRollup, sportTypeList: SportTypeList): EquipmentUsages {
 
         val equipmentUsages = createInitialEquipmentUsages(sportTypeList)
 
-        exerciseList.forEach { exercise ->
-            exercise.equipment?.let { equipment ->
+        // the day cells are sorted by date, so the first and last usage can be set in order
+        exerciseRollup.forEachDayCell { date, cell, values ->
+            cell.equipmentId?.let { equipmentId ->
 
-                val eqUsagesInSportType = equipmentUsages.sportTypeMap[exercise.sportType]
-                        ?: error("Not found for SportType with ID ${exercise.sportType.id}!")
+                val sportType = sportTypeList.getByID(cell.sportTypeId!!)
+                        ?: error("Not found for SportType with ID ${cell.sportTypeId}!")
+                val eqUsagesInSportType = equipmentUsages.sportTypeMap[sportType]
+                        ?: error("Not found for SportType with ID ${cell.sportTypeId}!")
+                val equipment = sportType.equipmentList.getByID(equipmentId)
+                        ?: error("Not found for Equipment with ID $equipmentId!")
                 val equipmentUsage: EquipmentUsage = eqUsagesInSportType.equipmentMap[equipment]
-                        ?: error("Not found for Equipment with ID ${equipment.id}!")
+                        ?: error("Not found for Equipment with ID $equipmentId!")
 
-                equipmentUsage.distance += exercise.distance
-                equipmentUsage.duration += exercise.duration
+                equipmentUsage.distance += values.distance
+                equipmentUsage.duration += values.duration
 
-                val exerciseDate = exercise.dateTime.toLocalDate()
-                if (equipmentUsage.firstUsage == null || exerciseDate.isBefore(equipmentUsage.firstUsage)) {
-                    equipmentUsage.firstUsage = exerciseDate
-                }
-                if (equipmentUsage.lastUsage == null || exerciseDate.isAfter(equipmentUsage.lastUsage)) {
-                    equipmentUsage.lastUsage = exerciseDate
+                if (equipmentUsage.firstUsage == null) {
+                    equipmentUsage.firstUsage = date
                 }
+                equipmentUsage.lastUsage = date
             }
         }
 
@@ -0,0 +1,179 @@
+package de.saring.sportstracker.data.statistic
+
+import de.saring.sportstracker.data.Exercise
+import java.time.DayOfWeek
+import java.time.LocalDate
+import java.time.temporal.TemporalAdjusters
+
+/**
+ * Time periods for grouping the aggregated exercise values.
+ */
+enum class AggregationPeriod {
+    DAY, WEEK, MONTH, YEAR;
+
+    /**
+     * Returns the first day of the period which contains the specified date.
+     *
+     * @param date the date
+     * @param weekStartSunday flag whether the weeks start on Sunday (otherwise on Monday)
+     * @return the first day of the period
+     */
+    fun getPeriodStart(date: LocalDate, weekStartSunday: Boolean): LocalDate = when (this) {
+        DAY -> date
+        WEEK -> date.with(TemporalAdjusters.previousOrSame(if (weekStartSunday) DayOfWeek.SUNDAY else DayOfWeek.MONDAY))
+        MONTH -> date.withDayOfMonth(1)
+        YEAR -> date.withDayOfYear(1)
+    }
+}
+
+/**
+ * Categories for grouping the aggregated exercise values.
+ */
+enum class AggregationCategory {
+    SPORT_TYPE, SPORT_SUBTYPE, EQUIPMENT;
+
+    /**
+     * Returns the ID of the category object of the specified exercise (null for exercises without equipment).
+     */
+    fun getCategoryId(exercise: Exercise): Long? = when (this) {
+        SPORT_TYPE -> exercise.sportType.id
+        SPORT_SUBTYPE -> exercise.sportSubType.id
+        EQUIPMENT -> exercise.equipment?.id
+    }
+}
+
+/**
+ * Aggregation of a single (optional) exercise value. Only existing values are aggregated, the minimum, maximum and
+ * average are 0 when there are no values. Instances can be merged, so the aggregation can be done for parts.
+ *
+ * @property count number of aggregated values
+ * @property sum sum of all values
+ * @property min minimum value
+ * @property max maximum value
+ */
+data class AggregatedValue(
+    val count: Int,
+    val sum: Double,
+    val min: Double,
+    val max: Double
+) {
+
+    /** Average of all values. */
+    val average: Double
+        get() = if (count == 0) 0.0 else sum / count
+
+    /**
+     * Returns a new aggregation containing the values of this and the specified aggregation.
+     */
+    fun merge(other: AggregatedValue): AggregatedValue = when {
+        count == 0 -> other
+        other.count == 0 -> this
+        else -> AggregatedValue(count + other.count, sum + other.sum, minOf(min, other.min), maxOf(max, other.max))
+    }
+
+    companion object {
+        /** Aggregation without any values. */
+        @JvmField
+        val EMPTY = AggregatedValue(0, 0.0, 0.0, 0.0)
+    }
+}
+
+/**
+ * Aggregated values (sums, counts, minimums, maximums and averages) of all exercises in one group. The group is
+ * defined by the key, its properties are null when not grouped by period or category.
+ *
+ * @property key the key of the group
+ * @property exerciseCount number of exercises
+ * @property distance aggregated distance in kilometers
+ * @property avgSpeed aggregated average speed in kilometers/hour
+ * @property duration aggregated duration in seconds
+ * @property ascent aggregated ascent in meters
+ * @property descent aggregated descent in meters
+ * @property avgHeartRate aggregated average heartrate in beats per minute
+ * @property calories aggregated calorie consumption in kCal
+ *
+ * @author Stefan Saring
+ */
+data class ExerciseAggregate(
+    val key: Key,
+    val exerciseCount: Int,
+    val distance: AggregatedValue,
+    val avgSpeed: AggregatedValue,
+    val duration: AggregatedValue,
+    val ascent: AggregatedValue,
+    val descent: AggregatedValue,
+    val avgHeartRate: AggregatedValue,
+    val calories: AggregatedValue
+) {
+
+    /**
+     * Key of an aggregated exercise group.
+     *
+     * @property periodStart first day of the time period (null when not grouped by time period)
+     * @property categoryId ID of the sport type, subtype or equipment (null when not grouped by category or for
+     * exercises without equipment)
+     */
+    data class Key(val periodStart: LocalDate?, val categoryId: Long?)
+
+    /**
+     * Returns a new aggregate containing the values of this and the specified aggregate.
+     *
+     * @param other the aggregate to merge
+     * @param key the key of the merged aggregate
+     * @return the merged aggregate
+     */
+    fun merge(other: ExerciseAggregate, key: Key): ExerciseAggregate = ExerciseAggregate(
+        key,
+        exerciseCount + other.exerciseCount,
+        distance.merge(other.distance),
+        avgSpeed.merge(other.avgSpeed),
+        duration.merge(other.duration),
+        ascent.merge(other.ascent),
+        descent.merge(other.descent),
+        avgHeartRate.merge(other.avgHeartRate),
+        calories.merge(other.calories)
+    )
+
+    companion object {
+
+        /**
+         * Aggregates the specified exercises in memory, the result is the same as of the database aggregation.
+         *
+         * @param exercises the exercises to aggregate
+         * @param period time period for grouping (null for no grouping by time)
+         * @param category category for grouping (null for no grouping by category)
+         * @param weekStartSunday flag whether the weeks start on Sunday (otherwise on Monday)
+         * @return list of the aggregates, sorted by period start and category ID
+         */
+        @JvmStatic
+        fun ofExercises(
+            exercises: List<Exercise>,
+            period: AggregationPeriod?,
+            category: AggregationCategory?,
+            weekStartSunday: Boolean
+        ): List<ExerciseAggregate> {
+            val accumulators = mutableMapOf<Key, StatisticAccumulator>()
+            exercises.forEach { exercise ->
+                val key = Key(period?.getPeriodStart(exercise.dateTime.toLocalDate(), weekStartSunday),
+                    category?.getCategoryId(exercise))
+                accumulators.getOrPut(key) { StatisticAccumulator() }.add(exercise)
+            }
+
+            return accumulators
+                .map { (key, accumulator) -> accumulator.toAggregate(key) }
+                .sortedWith(compareBy<ExerciseAggregate, LocalDate?>(nullsFirst()) { it.key.periodStart }
+                    .thenBy(nullsFirst()) { it.key.categoryId })
+        }
+
+        /**
+         * Merges all specified aggregates to one aggregate with the specified key.
+         *
+         * @param aggregates the aggregates to merge
+         * @param key key of the merged aggregate
+         * @return the merged aggregate (contains no exercises when the list is empty)
+         */
+        @JvmStatic
+        fun mergeAll(aggregates: List<ExerciseAggregate>, key: Key): ExerciseAggregate =
+            aggregates.fold(StatisticAccumulator().toAggregate(key)) { merged, aggregate -> merged.merge(aggregate, key) }
+    }
+}
@@ -0,0 +1,278 @@
+package de.saring.sportstracker.data.statistic
+
+import de.saring.sportstracker.data.Exercise
+import java.time.LocalDate
+import java.util.EnumMap
+import java.util.TreeMap
+
+/**
+ * In-memory rollup of the summed exercise values (count, distance, duration, ascent, descent and calories). The sums
+ * are stored in cells per day and per sport type, subtype and equipment. The derived levels for weeks, months and
+ * years are maintained together with the days, so the values of each period can be read without processing the
+ * exercises.
+ *
+ * The rollup needs to be updated incrementally on each exercise change (see [update] and [remove]) or rebuilt
+ * completely when all exercises have been changed.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseRollup {
+
+    /** Cells of the day level, sorted by date for date range queries. */
+    private val dayLevel = TreeMap<LocalDate, MutableMap<Cell, Values>>()
+
+    /** Cells of the derived week, month and year levels, the key is the first day of the period. */
+    private val periodLevels = EnumMap<AggregationPeriod, MutableMap<LocalDate, MutableMap<Cell, Values>>>(
+        AggregationPeriod::class.java
+    )
+
+    /** Contributions of all added exercises by their ID, needed for removing the exercises. */
+    private val contributions = HashMap<Long, Contribution>()
+
+    /** Flag whether the weeks of the week level start on Sunday (otherwise on Monday). */
+    private var weekStartSunday = false
+
+    init {
+        DERIVED_PERIODS.forEach { periodLevels[it] = HashMap() }
+    }
+
+    /** Number of exercises contained in this rollup. */
+    val exerciseCount: Int
+        get() = contributions.size
+
+    /**
+     * Rebuilds the complete rollup for the specified exercises.
+     *
+     * @param exercises all exercises to be contained
+     */
+    fun rebuild(exercises: Iterable<Exercise>) {
+        dayLevel.clear()
+        periodLevels.values.forEach { it.clear() }
+        contributions.clear()
+        exercises.forEach { add(it) }
+    }
+
+    /**
+     * Adds the specified exercise or replaces the values of a previously added exercise with the same ID.
+     *
+     * @param exercise the added or changed exercise
+     */
+    fun update(exercise: Exercise) {
+        remove(getExerciseId(exercise))
+        add(exercise)
+    }
+
+    /**
+     * Removes the values of the exercise with the specified ID, nothing happens when it was not added.
+     *
+     * @param exerciseId ID of the removed exercise
+     */
+    fun remove(exerciseId: Long) {
+        contributions.remove(exerciseId)?.let { contribution ->
+            applyContribution(contribution, -1)
+        }
+    }
+
+    /**
+     * Returns the sum of all values in the specified date range.
+     *
+     * @param dateStart first day of the range (inclusive)
+     * @param dateEnd last day of the range (inclusive)
+     * @return the summed values
+     */
+    fun getValues(dateStart: LocalDate, dateEnd: LocalDate): Values {
+        val values = Values()
+        if (!dateStart.isAfter(dateEnd)) {
+            dayLevel.subMap(dateStart, true, dateEnd, true).values
+                .forEach { cells -> cells.values.forEach { values.add(it, 1) } }
+        }
+        return values
+    }
+
+    /**
+     * Returns the summed values of the specified period, grouped by the specified category.
+     *
+     * @param period the type of the period
+     * @param periodStart the first day of the period
+     * @param weekStartSunday flag whether the weeks start on Sunday (otherwise on Monday)
+     * @param category category for grouping (null for no grouping, the values are stored with key null then)
+     * @param sportTypeId ID of the sport type for summing only its values (null for all sport types)
+     * @return map of the summed values by the category ID (empty when there are no matching exercises)
+     */
+    fun getValuesByCategory(
+        period: AggregationPeriod,
+        periodStart: LocalDate,
+        weekStartSunday: Boolean,
+        category: AggregationCategory?,
+        sportTypeId: Long?
+    ): Map<Long?, Values> {
+        val valuesByCategory = mutableMapOf<Long?, Values>()
+        getCells(period, periodStart, weekStartSunday).forEach { (cell, cellValues) ->
+            if (sportTypeId == null || sportTypeId == cell.sportTypeId) {
+                valuesByCategory.getOrPut(cell.getCategoryId(category)) { Values() }.add(cellValues, 1)
+            }
+        }
+        return valuesByCategory
+    }
+
+    /**
+     * Performs the specified action for all cells of the day level, sorted by date.
+     *
+     * @param action the action to perform for the date, the cell and its values
+     */
+    fun forEachDayCell(action: (LocalDate, Cell, Values) -> Unit) {
+        dayLevel.forEach { (date, cells) -> cells.forEach { (cell, values) -> action(date, cell, values) } }
+    }
+
+    private fun getCells(period: AggregationPeriod, periodStart: LocalDate, weekStartSunday: Boolean): Map<Cell, Values> {
+        if (period == AggregationPeriod.DAY) {
+            return dayLevel[periodStart] ?: emptyMap()
+        }
+        if (period == AggregationPeriod.WEEK && weekStartSunday != this.weekStartSunday) {
+            rebuildWeekLevel(weekStartSunday)
+        }
+        return periodLevels[period]!![periodStart] ?: emptyMap()
+    }
+
+    private fun rebuildWeekLevel(weekStartSunday: Boolean) {
+        this.weekStartSunday = weekStartSunday
+        val weekLevel = periodLevels[AggregationPeriod.WEEK]!!
+        weekLevel.clear()
+        forEachDayCell { date, cell, values ->
+            addToLevel(weekLevel, AggregationPeriod.WEEK.getPeriodStart(date, weekStartSunday), cell, values, 1)
+        }
+    }
+
+    private fun add(exercise: Exercise) {
+        val contribution = Contribution(
+            exercise.dateTime.toLocalDate(),
+            Cell(exercise.sportType?.id, exercise.sportSubType?.id, exercise.equipment?.id),
+            Values.of(exercise)
+        )
+        contributions[getExerciseId(exercise)] = contribution
+        applyContribution(contribution, 1)
+    }
+
+    private fun getExerciseId(exercise: Exercise): Long =
+        exercise.id ?: throw IllegalArgumentException("The exercise needs to be persisted before (no ID)!")
+
+    private fun applyContribution(contribution: Contribution, sign: Int) {
+        addToLevel(dayLevel, contribution.date, contribution.cell, contribution.values, sign)
+        DERIVED_PERIODS.forEach { period ->
+            addToLevel(periodLevels[period]!!, period.getPeriodStart(contribution.date, weekStartSunday),
+                contribution.cell, contribution.values, sign)
+        }
+    }
+
+    private fun addToLevel(
+        level: MutableMap<LocalDate, MutableMap<Cell, Values>>,
+        periodStart: LocalDate,
+        cell: Cell,
+        values: Values,
+        sign: Int
+    ) {
+        val cells = level.getOrPut(periodStart) { HashMap() }
+        val cellValues = cells.getOrPut(cell) { Values() }
+        cellValues.add(values, sign)
+
+        // remove empty cells and periods, so no rounding errors of the removed values remain
+        if (cellValues.count == 0) {
+            cells.remove(cell)
+            if (cells.isEmpty()) {
+                level.remove(periodStart)
+            }
+        }
+    }
+
+    /**
+     * Key of a rollup cell.
+     *
+     * @property sportTypeId ID of the sport type
+     * @property sportSubTypeId ID of the sport subtype
+     * @property equipmentId ID of the equipment (null for exercises without equipment)
+     */
+    data class Cell(val sportTypeId: Long?, val sportSubTypeId: Long?, val equipmentId: Long?) {
+
+        /**
+         * Returns the ID of the specified category of this cell (null when no category is specified).
+         */
+        fun getCategoryId(category: AggregationCategory?): Long? = when (category) {
+            AggregationCategory.SPORT_TYPE -> sportTypeId
+            AggregationCategory.SPORT_SUBTYPE -> sportSubTypeId
+            AggregationCategory.EQUIPMENT -> equipmentId
+            null -> null
+        }
+    }
+
+    /**
+     * Summed exercise values. Missing optional values of exercises are summed as 0.
+     *
+     * @property count number of exercises
+     * @property distance total distance in kilometers
+     * @property duration total duration in seconds
+     * @property ascent total ascent in meters
+     * @property descent total descent in meters
+     * @property calories total calorie consumption in kCal
+     */
+    class Values {
+        var count = 0
+            private set
+        var distance = 0.0
+            private set
+        var duration = 0L
+            private set
+        var ascent = 0L
+            private set
+        var descent = 0L
+            private set
+        var calories = 0L
+            private set
+
+        /**
+         * Adds (sign 1) or subtracts (sign -1) the specified values.
+         */
+        fun add(other: Values, sign: Int) {
+            count += sign * other.count
+            distance += sign * other.distance
+            duration += sign * other.duration
+            ascent += sign * other.ascent
+            descent += sign * other.descent
+            calories += sign * other.calories
+        }
+
+        companion object {
+
+            /**
+             * Creates the values of the specified single exercise.
+             */
+            @JvmStatic
+            fun of(exercise: Exercise) = Values().apply {
+                count = 1
+                distance = exercise.distance
+                duration = exercise.duration.toLong()
+                ascent = exercise.ascent?.toLong() ?: 0
+                descent = exercise.descent?.toLong() ?: 0
+                calories = exercise.calories?.toLong() ?: 0
+            }
+
+            /**
+             * Creates the summed values of the specified exercise aggregate.
+             */
+            @JvmStatic
+            fun of(aggregate: ExerciseAggregate) = Values().apply {
+                count = aggregate.exerciseCount
+                distance = aggregate.distance.sum
+                duration = aggregate.duration.sum.toLong()
+                ascent = aggregate.ascent.sum.toLong()
+                descent = aggregate.descent.sum.toLong()
+                calories = aggregate.calories.sum.toLong()
+            }
+        }
+    }
+
+    private class Contribution(val date: LocalDate, val cell: Cell, val values: Values)
+
+    private companion object {
+        val DERIVED_PERIODS = listOf(AggregationPeriod.WEEK, AggregationPeriod.MONTH, AggregationPeriod.YEAR)
+    }
+}
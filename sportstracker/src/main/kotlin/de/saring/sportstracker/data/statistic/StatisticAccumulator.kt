@@ -0,0 +1,201 @@
+package de.saring.sportstracker.data.statistic
+
+import de.saring.sportstracker.data.Exercise
+import java.util.stream.Collector
+import kotlin.math.abs
+
+/**
+ * Mutable accumulator of all exercise values needed for statistics, the values are collected in a single pass.
+ * Accumulators of parts of the exercises can be combined, so it can be used as a [Collector] for parallel streams.
+ * Exercises can also be added or removed incrementally, e.g. when one exercise has been changed.
+ *
+ * The optional values (ascent, descent, heartrate and calories) are only accumulated when they exist, so their
+ * minimum, maximum and average is calculated for the exercises containing these values only.
+ *
+ * @author Stefan Saring
+ */
+class StatisticAccumulator {
+
+    /** Number of accumulated exercises. */
+    var exerciseCount = 0
+        private set
+
+    val distance = ValueAccumulator()
+    val avgSpeed = ValueAccumulator()
+    val duration = ValueAccumulator()
+    val ascent = ValueAccumulator()
+    val descent = ValueAccumulator()
+    val avgHeartRate = ValueAccumulator()
+    val calories = ValueAccumulator()
+
+    /**
+     * Adds the values of the specified exercise.
+     */
+    fun add(exercise: Exercise) {
+        exerciseCount++
+        distance.add(exercise.distance)
+        avgSpeed.add(exercise.avgSpeed)
+        duration.add(exercise.duration.toDouble())
+        exercise.ascent?.let { ascent.add(it.toDouble()) }
+        exercise.descent?.let { descent.add(it.toDouble()) }
+        exercise.avgHeartRate?.let { avgHeartRate.add(it.toDouble()) }
+        exercise.calories?.let { calories.add(it.toDouble()) }
+    }
+
+    /**
+     * Removes the values of the specified exercise, it must have been added before with the same values. The counts,
+     * sums and averages are always correct afterwards. But the minimum or maximum can't be determined anymore when
+     * the removed exercise contained the minimum or maximum of a value, then this accumulator needs to be recreated.
+     *
+     * @param exercise the exercise to remove
+     * @return true when all results are still valid, false when this accumulator needs to be recreated
+     */
+    fun remove(exercise: Exercise): Boolean {
+        exerciseCount--
+        // all values must be removed, so no short-circuit evaluation
+        return distance.remove(exercise.distance) and
+                avgSpeed.remove(exercise.avgSpeed) and
+                duration.remove(exercise.duration.toDouble()) and
+                (exercise.ascent?.let { ascent.remove(it.toDouble()) } ?: true) and
+                (exercise.descent?.let { descent.remove(it.toDouble()) } ?: true) and
+                (exercise.avgHeartRate?.let { avgHeartRate.remove(it.toDouble()) } ?: true) and
+                (exercise.calories?.let { calories.remove(it.toDouble()) } ?: true)
+    }
+
+    /**
+     * Adds all values of the specified accumulator to this accumulator.
+     *
+     * @param other the accumulator to combine with
+     * @return this accumulator
+     */
+    fun combine(other: StatisticAccumulator): StatisticAccumulator {
+        exerciseCount += other.exerciseCount
+        distance.combine(other.distance)
+        avgSpeed.combine(other.avgSpeed)
+        duration.combine(other.duration)
+        ascent.combine(other.ascent)
+        descent.combine(other.descent)
+        avgHeartRate.combine(other.avgHeartRate)
+        calories.combine(other.calories)
+        return this
+    }
+
+    /**
+     * Creates the (immutable) aggregate of the accumulated values.
+     *
+     * @param key the key of the aggregate
+     * @return the created aggregate
+     */
+    fun toAggregate(key: ExerciseAggregate.Key) = ExerciseAggregate(
+        key,
+        exerciseCount,
+        distance.toAggregatedValue(),
+        avgSpeed.toAggregatedValue(),
+        duration.toAggregatedValue(),
+        ascent.toAggregatedValue(),
+        descent.toAggregatedValue(),
+        avgHeartRate.toAggregatedValue(),
+        calories.toAggregatedValue()
+    )
+
+    /**
+     * Mutable accumulator of a single value (count, sum, minimum and maximum) without boxing. The sum is calculated
+     * by compensated summation (Kahan-Babuska), so the rounding errors don't add up for many exercises, like for
+     * DoubleStream.sum().
+     */
+    class ValueAccumulator {
+        var count = 0
+            private set
+        var min = 0.0
+            private set
+        var max = 0.0
+            private set
+
+        /** The uncompensated sum and the sum of its rounding errors. */
+        private var simpleSum = 0.0
+        private var compensation = 0.0
+
+        val sum: Double
+            get() = simpleSum + compensation
+
+        fun add(value: Double) {
+            if (count == 0) {
+                min = value
+                max = value
+            } else {
+                min = minOf(min, value)
+                max = maxOf(max, value)
+            }
+            count++
+            addToSum(value)
+        }
+
+        /**
+         * Removes the specified value.
+         *
+         * @return false when the removed value was the minimum or maximum (they are unknown now)
+         */
+        fun remove(value: Double): Boolean {
+            count--
+            addToSum(-value)
+            if (count == 0) {
+                simpleSum = 0.0
+                compensation = 0.0
+                min = 0.0
+                max = 0.0
+                return true
+            }
+            return value > min && value < max
+        }
+
+        fun combine(other: ValueAccumulator) {
+            if (other.count == 0) {
+                return
+            }
+            if (count == 0) {
+                min = other.min
+                max = other.max
+            } else {
+                min = minOf(min, other.min)
+                max = maxOf(max, other.max)
+            }
+            count += other.count
+            addToSum(other.simpleSum)
+            addToSum(other.compensation)
+        }
+
+        fun toAggregatedValue() =
+            if (count == 0) AggregatedValue.EMPTY else AggregatedValue(count, sum, min, max)
+
+        private fun addToSum(value: Double) {
+            val newSum = simpleSum + value
+            compensation += if (abs(simpleSum) >= abs(value)) (simpleSum - newSum) + value
+                else (value - newSum) + simpleSum
+            simpleSum = newSum
+        }
+    }
+
+    companion object {
+
+        /**
+         * Creates the accumulator for all the specified exercises.
+         */
+        @JvmStatic
+        fun of(exercises: Iterable<Exercise>): StatisticAccumulator {
+            val accumulator = StatisticAccumulator()
+            exercises.forEach { accumulator.add(it) }
+            return accumulator
+        }
+
+        /**
+         * Returns a collector of exercises into an accumulator, it also supports parallel streams.
+         */
+        @JvmStatic
+        fun collector(): Collector<Exercise, StatisticAccumulator, StatisticAccumulator> = Collector.of(
+            { StatisticAccumulator() },
+            { accumulator, exercise -> accumulator.add(exercise) },
+            { accumulator1, accumulator2 -> accumulator1.combine(accumulator2) },
+            Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED
+        )
+    }
+}
@@ -68,7 +68,7 @@ class EquipmentUsageDialogController(
 
     override fun setupDialogControls() {
         this.equipmentUsages = EquipmentUsageCalculator.calculateEquipmentUsage(
-                document.exerciseList, document.sportTypeList)
+                document.exerciseRollup, document.sportTypeList)
 
         setupSportTypeSelection()
         setupEquipmentUsagesTable()
@@ -0,0 +1,159 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.sportstracker.core.STException
+import de.saring.sportstracker.core.STExceptionID
+import de.saring.sportstracker.data.Entry
+import de.saring.sportstracker.data.EntryFilter
+import de.saring.sportstracker.data.EntryList
+import de.saring.sportstracker.storage.db.RepositoryUtil.dateTimeToString
+import java.sql.Connection
+import java.sql.ResultSet
+import java.sql.SQLException
+import java.util.regex.PatternSyntaxException
+
+/**
+ * Abstract base class for the repositories of all Entry subclasses (date and comment based). It provides the
+ * filtering of the entries by an [EntryFilter] in the database, so only the matching entries need to be read.
+ *
+ * @property connection database connection
+ * @property statementCache cache of prepared statements for this database connection
+ *
+ * @author Stefan Saring
+ */
+abstract class AbstractEntryRepository<T : Entry>(
+    connection: Connection,
+    statementCache: StatementCache
+) : AbstractRepository<T>(connection, statementCache) {
+
+    /**
+     * Returns all entries which are fulfilling the specified filter criteria, sorted by date and ID. The filter
+     * semantics are the same as in [EntryList.getEntriesForFilter], it will be ignored when it is for another
+     * entry type.
+     * All criteria are evaluated by the database, except the comment search in regular expression mode or with
+     * non-ASCII characters (SQLite compares them case sensitive). These are filtered afterwards in memory.
+     * The subclasses provide the public find methods, because reading some entry types needs additional data.
+     *
+     * @param filter the entry filter criteria
+     * @param offset number of matching entries to skip (for paging)
+     * @param limit maximum number of entries to return (for paging), [NO_LIMIT] for all
+     * @param readEntry function for reading an entry from the ResultSet
+     * @return list of the found entries
+     * @throws PatternSyntaxException thrown on parsing problems of the regular expression for comment searching
+     */
+    @Throws(STException::class)
+    protected fun findByFilter(filter: EntryFilter, offset: Int, limit: Int, readEntry: (ResultSet) -> T): List<T> {
+        logger.info("Reading $entityName entries by filter")
+
+        val query = createFilterQuery(filter)
+
+        // paging can only be done by the database when no filtering is needed afterwards
+        val postFilterRequired = query.postFilterRequired
+        val sqlLimit = if (postFilterRequired) NO_LIMIT else limit
+        val sqlOffset = if (postFilterRequired) 0 else offset
+
+        // the statement is not cached, the WHERE clause depends on the filter criteria
+        val entries = mutableListOf<T>()
+        try {
+            connection.prepareStatement(
+                "SELECT * FROM $tableName${query.createWhereClause()} ORDER BY DATE_TIME, ID LIMIT ? OFFSET ?"
+            ).use { statement ->
+                query.parameters.forEachIndexed { index, parameter -> statement.setObject(index + 1, parameter) }
+                statement.setInt(query.parameters.size + 1, sqlLimit)
+                statement.setInt(query.parameters.size + 2, sqlOffset)
+
+                statement.executeQuery().use { rs ->
+                    while (rs.next()) {
+                        entries.add(readEntry(rs))
+                    }
+                }
+            }
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_READ_ALL, "Failed to read $entityName entries by filter!", e)
+        }
+
+        if (!postFilterRequired) {
+            return entries
+        }
+
+        val entryList = EntryList<T>()
+        entryList.clearAndAddAll(entries)
+        return entryList.getEntriesForFilter(filter).stream()
+            .skip(offset.toLong())
+            .limit(if (limit < 0) Long.MAX_VALUE else limit.toLong())
+            .toList()
+    }
+
+    /** The entry type of the filters to be applied to this repository. */
+    protected abstract val entryType: EntryFilter.EntryType
+
+    /**
+     * Creates the query with the SQL criteria for the specified filter, it will be empty when the filter is for
+     * another entry type.
+     */
+    protected fun createFilterQuery(filter: EntryFilter): FilterQuery {
+        val query = FilterQuery()
+        if (filter.entryType == entryType) {
+            addFilterCriteria(filter, query)
+        }
+        return query
+    }
+
+    /**
+     * Adds the SQL criteria for the specified filter to the query. By default the date range and the comment
+     * criteria are added, subclasses can add entity specific criteria.
+     */
+    protected open fun addFilterCriteria(filter: EntryFilter, query: FilterQuery) {
+        filter.dateStart?.let {
+            query.addCondition("DATE_TIME >= ?", dateTimeToString(it.atStartOfDay()))
+        }
+        filter.dateEnd?.let {
+            query.addCondition("DATE_TIME < ?", dateTimeToString(it.plusDays(1).atStartOfDay()))
+        }
+
+        val commentSubString = filter.commentSubString
+        if (commentSubString.isNullOrEmpty()) {
+            return
+        }
+
+        // the normal search can contain multiple words, each of them needs to be contained in the comment,
+        // SQLite LIKE is case insensitive only for ASCII characters, all other searches are done in memory
+        val filterWords = commentSubString.trim().split(WHITESPACE_REGEX)
+        if (!filter.isRegularExpressionMode && filterWords.all { word -> word.all { it.code < 128 } }) {
+            query.addCondition("COMMENT <> ''")
+            filterWords.forEach { query.addCondition("COMMENT LIKE ? ESCAPE '\\'", "%${escapeLikePattern(it)}%") }
+        } else {
+            query.postFilterRequired = true
+        }
+    }
+
+    private fun escapeLikePattern(text: String) = text
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_")
+
+    /**
+     * Container of the SQL conditions and their parameters for filtering the entries.
+     */
+    protected class FilterQuery {
+        private val conditions = mutableListOf<String>()
+        val parameters = mutableListOf<Any>()
+
+        /** Flag whether the filter can't be handled completely by the SQL conditions (comment search). */
+        var postFilterRequired = false
+
+        fun addCondition(condition: String, vararg conditionParameters: Any) {
+            conditions.add(condition)
+            parameters.addAll(conditionParameters)
+        }
+
+        fun createWhereClause() =
+            if (conditions.isEmpty()) "" else conditions.joinToString(" AND ", prefix = " WHERE ")
+    }
+
+    companion object {
+        /** Limit value for reading all entries without paging. */
+        const val NO_LIMIT = -1
+
+        private val WHITESPACE_REGEX = Regex("\\s+")
+    }
+}
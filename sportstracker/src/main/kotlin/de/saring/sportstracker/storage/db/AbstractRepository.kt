@@ -4,6 +4,7 @@ import de.saring.sportstracker.core.STException
 import de.saring.sportstracker.core.STExceptionID
 import de.saring.util.data.IdObject
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.sql.ResultSet
 import java.sql.SQLException
 import java.util.logging.Logger
@@ -12,11 +13,13 @@ import java.util.logging.Logger
  * Abstract base class for all IdObject based entity repositories.
  *
  * @property connection database connection
+ * @property statementCache cache of prepared statements for this database connection
  *
  * @author Stefan Saring
  */
 abstract class AbstractRepository<T : IdObject>(
-    protected val connection: Connection
+    protected val connection: Connection,
+    protected val statementCache: StatementCache
 ) {
 
     @Throws(STException::class)
@@ -25,8 +28,7 @@ abstract class AbstractRepository<T : IdObject>(
         val entries = mutableListOf<T>()
 
         try {
-            connection.prepareStatement("SELECT * FROM $tableName").use { statement ->
-                val rs: ResultSet = statement.executeQuery()
+            statementCache.prepareStatement("SELECT * FROM $tableName").executeQuery().use { rs ->
                 while (rs.next()) {
                     entries.add(readFromResultSet(rs))
                 }
@@ -42,9 +44,9 @@ abstract class AbstractRepository<T : IdObject>(
         logger.info("Reading $entityName with ID '$entryId'")
 
         try {
-            connection.prepareStatement("SELECT * FROM $tableName WHERE ID = ?").use { statement ->
-                statement.setLong(1, entryId)
-                val rs: ResultSet = statement.executeQuery()
+            val statement = statementCache.prepareStatement("SELECT * FROM $tableName WHERE ID = ?")
+            statement.setLong(1, entryId)
+            statement.executeQuery().use { rs ->
                 rs.next()
                 return readFromResultSet(rs)
             }
@@ -64,6 +66,23 @@ abstract class AbstractRepository<T : IdObject>(
         }
     }
 
+    /**
+     * Creates all the specified entries. The cached insert statement will be reused for all entries.
+     *
+     * @param entries list of new entries to create
+     * @return list of the created entries (incl. generated IDs), in the same order as the specified entries
+     */
+    @Throws(STException::class)
+    fun createAll(entries: List<T>): List<T> {
+        logger.info("Creating ${entries.size} new $entityName entries")
+
+        try {
+            return executeCreateAll(entries)
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_CREATE_ENTRY, "Failed to create ${entries.size} new $entityName entries!", e)
+        }
+    }
+
     @Throws(STException::class)
     fun update(entry: T) {
         logger.info("Updating $entityName with ID '${entry.id}'")
@@ -75,6 +94,22 @@ abstract class AbstractRepository<T : IdObject>(
         }
     }
 
+    /**
+     * Updates all the specified entries. The updates are executed in batches of [BATCH_SIZE] entries.
+     *
+     * @param entries list of existing entries to update
+     */
+    @Throws(STException::class)
+    fun updateAll(entries: List<T>) {
+        logger.info("Updating ${entries.size} $entityName entries")
+
+        try {
+            executeUpdateAll(entries)
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_UPDATE_ENTRY, "Failed to update ${entries.size} $entityName entries!", e)
+        }
+    }
+
     @Throws(STException::class)
     fun delete(entryId: Long) {
         logger.info("Deleting $entityName with ID '$entryId'")
@@ -86,20 +121,129 @@ abstract class AbstractRepository<T : IdObject>(
         }
     }
 
+    /**
+     * Deletes all entries with the specified IDs. The entries are deleted in chunks of [BATCH_SIZE] IDs.
+     *
+     * @param entryIds IDs of the entries to delete
+     */
+    @Throws(STException::class)
+    fun deleteAll(entryIds: LongArray) {
+        logger.info("Deleting ${entryIds.size} $entityName entries")
+
+        try {
+            executeDeleteAll(entryIds)
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_DELETE_ENTRY, "Failed to delete ${entryIds.size} $entityName entries!", e)
+        }
+    }
+
     protected abstract val entityName: String
     protected abstract val tableName: String
 
     protected abstract val logger: Logger
 
+    /** SQL statement for inserting a new entry, the parameters are set by [setCreateParameters]. */
+    protected abstract val sqlCreate: String
+
+    /** SQL statement for updating an existing entry, the parameters are set by [setUpdateParameters]. */
+    protected abstract val sqlUpdate: String
+
     protected abstract fun readFromResultSet(rs: ResultSet): T
 
-    protected abstract fun executeCreate(entry: T): T
-    protected abstract fun executeUpdate(entry: T)
+    protected abstract fun setCreateParameters(statement: PreparedStatement, entry: T)
+    protected abstract fun setUpdateParameters(statement: PreparedStatement, entry: T)
+
+    protected open fun executeCreate(entry: T): T {
+        val statement = statementCache.prepareStatementWithGeneratedKeys(sqlCreate)
+        return readById(executeInsert(statement, entry))
+    }
+
+    protected open fun executeCreateAll(entries: List<T>): List<T> {
+        val statement = statementCache.prepareStatementWithGeneratedKeys(sqlCreate)
+        val createdIds = entries.map { executeInsert(statement, it) }
+        return readByIds(createdIds)
+    }
+
+    protected open fun executeUpdate(entry: T) {
+        val statement = statementCache.prepareStatement(sqlUpdate)
+        setUpdateParameters(statement, entry)
+        statement.executeUpdate()
+    }
+
+    protected open fun executeUpdateAll(entries: List<T>) {
+        val statement = statementCache.prepareStatement(sqlUpdate)
+        entries.chunked(BATCH_SIZE).forEach { chunk ->
+            chunk.forEach { entry ->
+                setUpdateParameters(statement, entry)
+                statement.addBatch()
+            }
+            statement.executeBatch()
+        }
+    }
 
     protected open fun executeDelete(entryId: Long) {
-        connection.prepareStatement("DELETE FROM $tableName WHERE ID = ?").use { statement ->
-            statement.setLong(1, entryId)
-            statement.executeUpdate()
+        val statement = statementCache.prepareStatement("DELETE FROM $tableName WHERE ID = ?")
+        statement.setLong(1, entryId)
+        statement.executeUpdate()
+    }
+
+    /**
+     * Deletes the entries in chunks. The statements are not cached, because the number of parameters depends on the
+     * chunk size.
+     */
+    protected open fun executeDeleteAll(entryIds: LongArray) {
+        entryIds.asList().chunked(BATCH_SIZE).forEach { chunk ->
+            connection.prepareStatement("DELETE FROM $tableName WHERE ID IN (${createSqlParameters(chunk.size)})")
+                .use { statement ->
+                    chunk.forEachIndexed { index, entryId -> statement.setLong(index + 1, entryId) }
+                    statement.executeUpdate()
+                }
+        }
+    }
+
+    /**
+     * Inserts the specified entry by using the passed statement (prepared for [sqlCreate] with generated keys).
+     *
+     * @return the generated ID of the new entry
+     */
+    private fun executeInsert(statement: PreparedStatement, entry: T): Long {
+        setCreateParameters(statement, entry)
+        statement.executeUpdate()
+
+        statement.generatedKeys.use { rs ->
+            rs.next()
+            return rs.getLong(1)
+        }
+    }
+
+    /**
+     * Reads the entries with the specified IDs in chunks of [BATCH_SIZE] IDs (statements are not cached, see
+     * [executeDeleteAll]).
+     *
+     * @return list of the entries, in the same order as the specified IDs
+     */
+    private fun readByIds(entryIds: List<Long>): List<T> {
+        val entryMap = HashMap<Long, T>()
+
+        entryIds.chunked(BATCH_SIZE).forEach { chunk ->
+            connection.prepareStatement("SELECT * FROM $tableName WHERE ID IN (${createSqlParameters(chunk.size)})")
+                .use { statement ->
+                    chunk.forEachIndexed { index, entryId -> statement.setLong(index + 1, entryId) }
+                    statement.executeQuery().use { rs ->
+                        while (rs.next()) {
+                            val entry = readFromResultSet(rs)
+                            entryMap[entry.id!!] = entry
+                        }
+                    }
+                }
         }
+        return entryIds.map { entryMap[it]!! }
+    }
+
+    private fun createSqlParameters(count: Int) = List(count) { "?" }.joinToString(", ")
+
+    companion object {
+        /** Maximum number of entries processed in one batch or in one SQL IN clause. */
+        const val BATCH_SIZE = 500
     }
-}
\ No newline at end of file
+}
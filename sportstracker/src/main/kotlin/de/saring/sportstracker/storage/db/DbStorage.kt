@@ -25,6 +25,9 @@ class DbStorage {
     lateinit var exerciseRepository: ExerciseRepository private set
     lateinit var sportTypeRepository: SportTypeRepository private set
 
+    /** Cache of the prepared statements used by all repositories, it's bound to the current database connection. */
+    lateinit var statementCache: StatementCache private set
+
     private lateinit var connection: Connection
 
     @Throws(STException::class)
@@ -42,22 +45,32 @@ class DbStorage {
             throw STException(STExceptionID.DBSTORAGE_OPEN_DATABASE, "Failed to open SQLite database '$jdbcUrl'!", e)
         }
 
-        // create database schema if new database or validate schema version for an existing database
-        if (isNewDatabase()) {
+        // create database schema if new database or validate schema version for an existing database,
+        // then migrate the schema to the current version when needed
+        val schemaMigrator = SchemaMigrator(connection)
+        val schemaVersion = if (isNewDatabase()) {
             createSchema()
+            SchemaMigrator.INITIAL_SCHEMA_VERSION
         } else {
-            validateSchemaVersion()
+            validateSchemaVersion(schemaMigrator.latestVersion)
         }
+        schemaMigrator.migrate(schemaVersion)
 
-        noteRepository = NoteRepository(connection)
-        weightRepository = WeightRepository(connection)
-        exerciseRepository = ExerciseRepository(connection)
-        sportTypeRepository = SportTypeRepository(connection)
+        statementCache = StatementCache(connection)
+        noteRepository = NoteRepository(connection, statementCache)
+        weightRepository = WeightRepository(connection, statementCache)
+        exerciseRepository = ExerciseRepository(connection, statementCache)
+        sportTypeRepository = SportTypeRepository(connection, statementCache)
     }
 
     fun closeDatabase() {
         LOGGER.info("Closing database")
 
+        // the cached statements must be closed before the connection
+        if (this::statementCache.isInitialized) {
+            statementCache.close()
+        }
+
         // connection might be null on application exit when opening the database has failed
         connection?.let {
             try {
@@ -105,7 +118,13 @@ class DbStorage {
         }
     }
 
-    private fun validateSchemaVersion() {
+    /**
+     * Validates the schema version of an existing database, older versions can be migrated.
+     *
+     * @param latestVersion the latest supported schema version
+     * @return the schema version of the database
+     */
+    private fun validateSchemaVersion(latestVersion: Int): Int {
         LOGGER.info("Validating existing database schema")
 
         try {
@@ -113,12 +132,13 @@ class DbStorage {
                 val rs = statement.executeQuery()
                 rs.next()
                 val schemaVersion = rs.getInt("SCHEMA_VERSION")
-                if (schemaVersion != SCHEMA_VERSION) {
+                if (schemaVersion < SchemaMigrator.INITIAL_SCHEMA_VERSION || schemaVersion > latestVersion) {
                     throw STException(
                         STExceptionID.DBSTORAGE_INVALID_SCHEMA,
-                        "DB schema version is invalid! Expected version $SCHEMA_VERSION, found version $schemaVersion."
+                        "DB schema version is invalid! Expected version $latestVersion or lower, found version $schemaVersion."
                     )
                 }
+                return schemaVersion
             }
         } catch (e: SQLException) {
             throw STException(STExceptionID.DBSTORAGE_INVALID_SCHEMA, "Failed to read DB schema version!", e)
@@ -142,6 +162,5 @@ class DbStorage {
         private val LOGGER = Logger.getLogger(NoteRepository::class.java.name)
 
         private const val SCHEMA_FILE = "/sql/st-schema.sql";
-        private const val SCHEMA_VERSION = 1
     }
 }
\ No newline at end of file
@@ -2,8 +2,13 @@ package de.saring.sportstracker.storage.db
 
 import de.saring.sportstracker.core.STException
 import de.saring.sportstracker.core.STExceptionID
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Exercise
 import de.saring.sportstracker.data.SportType
+import de.saring.sportstracker.data.statistic.AggregatedValue
+import de.saring.sportstracker.data.statistic.AggregationCategory
+import de.saring.sportstracker.data.statistic.AggregationPeriod
+import de.saring.sportstracker.data.statistic.ExerciseAggregate
 import de.saring.sportstracker.storage.db.RepositoryUtil.getEquipmentById
 import de.saring.sportstracker.storage.db.RepositoryUtil.getIntegerOrNull
 import de.saring.sportstracker.storage.db.RepositoryUtil.getLongOrNull
@@ -12,22 +17,25 @@ import de.saring.sportstracker.storage.db.RepositoryUtil.getSportTypeById
 import de.saring.util.Date310Utils.dateToLocalDateTime
 import java.lang.UnsupportedOperationException
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.sql.ResultSet
 import java.sql.SQLException
-import java.sql.Statement
 import java.sql.Types
+import java.time.LocalDate
 import java.util.logging.Logger
 
 /**
  * Database repository for the Exercise data.
  *
  * @property connection database connection
+ * @property statementCache cache of prepared statements for this database connection
  *
  * @author Stefan Saring
  */
 class ExerciseRepository(
-    connection: Connection
-) : AbstractRepository<Exercise>(connection) {
+    connection: Connection,
+    statementCache: StatementCache
+) : AbstractEntryRepository<Exercise>(connection, statementCache) {
 
     @Throws(STException::class)
     fun readAll(sportTypes: List<SportType>): List<Exercise> {
@@ -35,18 +43,9 @@ class ExerciseRepository(
         val exercises = ArrayList<Exercise>()
 
         try {
-            connection.prepareStatement("SELECT * FROM EXERCISE").use { statement ->
-                val rs = statement.executeQuery()
+            statementCache.prepareStatement("SELECT * FROM EXERCISE").executeQuery().use { rs ->
                 while (rs.next()) {
-                    val exercise = readFromResultSet(rs)
-
-                    val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
-                    exercise.sportType = sportType
-                    exercise.sportSubType = getSportSubTypeById(sportType, rs.getLong("SPORT_SUBTYPE_ID"))
-
-                    val equipmentID = getLongOrNull(rs, "EQUIPMENT_ID")
-                    exercise.equipment = if (equipmentID == null) null else getEquipmentById(sportType, equipmentID)
-                    exercises.add(exercise)
+                    exercises.add(readFromResultSet(rs, sportTypes))
                 }
             }
         } catch (e: SQLException) {
@@ -55,6 +54,98 @@ class ExerciseRepository(
         return exercises
     }
 
+    /**
+     * Reads the Exercise with the specified ID, the referenced sport type, subtype and equipment objects will be
+     * taken from the passed sport type list.
+     *
+     * @param entryId ID of the Exercise
+     * @param sportTypes list of all existing sport types
+     * @return the Exercise with all references
+     */
+    @Throws(STException::class)
+    fun readById(entryId: Long, sportTypes: List<SportType>): Exercise {
+        logger.info("Reading Exercise with ID '$entryId'")
+
+        try {
+            val statement = statementCache.prepareStatement("SELECT * FROM EXERCISE WHERE ID = ?")
+            statement.setLong(1, entryId)
+            statement.executeQuery().use { rs ->
+                rs.next()
+                return readFromResultSet(rs, sportTypes)
+            }
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_READ_ENTRY, "Failed to read Exercise with ID '$entryId'!", e)
+        }
+    }
+
+    /**
+     * Returns all Exercises which are fulfilling the specified filter criteria, see [findByFilter]. The referenced
+     * sport type, subtype and equipment objects will be taken from the passed sport type list.
+     *
+     * @param filter the entry filter criteria
+     * @param sportTypes list of all existing sport types
+     * @param offset number of matching Exercises to skip (for paging)
+     * @param limit maximum number of Exercises to return (for paging), [NO_LIMIT] for all
+     * @return list of the found Exercises with all references
+     */
+    @Throws(STException::class)
+    fun findByFilter(filter: EntryFilter, sportTypes: List<SportType>, offset: Int, limit: Int): List<Exercise> =
+        findByFilter(filter, offset, limit) { rs -> readFromResultSet(rs, sportTypes) }
+
+    /**
+     * Aggregates the values of all Exercises which are fulfilling the specified filter criteria (see [findByFilter]).
+     * The aggregation is done by the database in one query, grouped by time period and / or by category. Only when
+     * the filter requires a comment search in memory, then the matching Exercises are read and aggregated in memory.
+     *
+     * @param filter the entry filter criteria
+     * @param sportTypes list of all existing sport types
+     * @param period time period for grouping (null for no grouping by time)
+     * @param category category for grouping (null for no grouping by category)
+     * @param weekStartSunday flag whether the weeks start on Sunday (otherwise on Monday)
+     * @return list of the aggregates of all groups containing Exercises, sorted by period start and category ID
+     */
+    @Throws(STException::class)
+    fun aggregate(
+        filter: EntryFilter,
+        sportTypes: List<SportType>,
+        period: AggregationPeriod?,
+        category: AggregationCategory?,
+        weekStartSunday: Boolean
+    ): List<ExerciseAggregate> {
+        logger.info("Aggregating Exercises by filter")
+
+        val query = createFilterQuery(filter)
+        if (query.postFilterRequired) {
+            val exercises = findByFilter(filter, sportTypes, 0, NO_LIMIT)
+            return ExerciseAggregate.ofExercises(exercises, period, category, weekStartSunday)
+        }
+
+        val sqlPeriod = if (period == null) "NULL" else getSqlPeriodStart(period, weekStartSunday)
+        val sqlCategory = if (category == null) "NULL" else getSqlCategoryColumn(category)
+        val sqlAggregates = AGGREGATED_COLUMNS.joinToString(", ") { "COUNT($it), TOTAL($it), MIN($it), MAX($it)" }
+
+        // the statement is not cached, the grouping and the WHERE clause depend on the parameters
+        try {
+            connection.prepareStatement(
+                "SELECT $sqlPeriod AS PERIOD_START, $sqlCategory AS CATEGORY_ID, COUNT(*), $sqlAggregates " +
+                        "FROM EXERCISE${query.createWhereClause()} " +
+                        "GROUP BY PERIOD_START, CATEGORY_ID ORDER BY PERIOD_START, CATEGORY_ID"
+            ).use { statement ->
+                query.parameters.forEachIndexed { index, parameter -> statement.setObject(index + 1, parameter) }
+
+                val aggregates = mutableListOf<ExerciseAggregate>()
+                statement.executeQuery().use { rs ->
+                    while (rs.next()) {
+                        aggregates.add(readAggregateFromResultSet(rs))
+                    }
+                }
+                return aggregates
+            }
+        } catch (e: SQLException) {
+            throw STException(STExceptionID.DBSTORAGE_READ_ALL, "Failed to aggregate Exercises by filter!", e)
+        }
+    }
+
     override fun readAll(): List<Exercise> {
         throw UnsupportedOperationException("Use readAll(List<SportType>) for reading all Exercises!")
     }
@@ -63,6 +154,8 @@ class ExerciseRepository(
 
     override val tableName = "EXERCISE"
 
+    override val entryType = EntryFilter.EntryType.EXERCISE
+
     override val logger: Logger = Logger.getLogger(ExerciseRepository::class.java.name)
 
     override fun readFromResultSet(rs: ResultSet): Exercise {
@@ -81,58 +174,99 @@ class ExerciseRepository(
         return exercise
     }
 
-    override fun executeCreate(entry: Exercise): Exercise {
-        connection.prepareStatement("INSERT INTO EXERCISE " +
-                "(DATE_TIME, SPORT_TYPE_ID, SPORT_SUBTYPE_ID, INTENSITY, DURATION, DISTANCE, AVG_SPEED, " +
-                "AVG_HEARTRATE, ASCENT, DESCENT, CALORIES, HRM_FILE, EQUIPMENT_ID, COMMENT) VALUES " +
-                "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setLong(2, entry.sportType.id!!)
-            statement.setLong(3, entry.sportSubType.id!!)
-            statement.setString(4, entry.intensity.name)
-            statement.setInt(5, entry.duration)
-            statement.setDouble(6, entry.distance)
-            statement.setDouble(7, entry.avgSpeed)
-            statement.setObject(8, entry.avgHeartRate, Types.INTEGER)
-            statement.setObject(9, entry.ascent, Types.INTEGER)
-            statement.setObject(10, entry.descent, Types.INTEGER)
-            statement.setObject(11, entry.calories, Types.INTEGER)
-            statement.setString(12, entry.hrmFile)
-            statement.setObject(13, entry.equipment?.id, Types.INTEGER);
-            statement.setString(14, entry.comment)
-            statement.executeUpdate()
-
-            val rs = statement.generatedKeys
-            rs.next()
-            val exerciseId = rs.getLong(1)
-            return readById(exerciseId)
-        }
+    override fun addFilterCriteria(filter: EntryFilter, query: FilterQuery) {
+        super.addFilterCriteria(filter, query)
+
+        filter.sportType?.let { query.addCondition("SPORT_TYPE_ID = ?", it.id!!) }
+        filter.sportSubType?.let { query.addCondition("SPORT_SUBTYPE_ID = ?", it.id!!) }
+        filter.intensity?.let { query.addCondition("INTENSITY = ?", it.name) }
+        filter.equipment?.let { query.addCondition("EQUIPMENT_ID = ?", it.id!!) }
     }
 
-    override fun executeUpdate(entry: Exercise) {
-        connection.prepareStatement("UPDATE EXERCISE SET " +
-                "DATE_TIME = ?, SPORT_TYPE_ID = ?, SPORT_SUBTYPE_ID = ?, INTENSITY = ?, DURATION = ?, " +
-                "DISTANCE = ?, AVG_SPEED = ?, AVG_HEARTRATE = ?, ASCENT = ?, DESCENT = ?, " +
-                "CALORIES = ?, HRM_FILE = ?, EQUIPMENT_ID = ?, COMMENT = ? WHERE ID = ?"
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setLong(2, entry.sportType.id!!)
-            statement.setLong(3, entry.sportSubType.id!!)
-            statement.setString(4, entry.intensity.name)
-            statement.setInt(5, entry.duration)
-            statement.setDouble(6, entry.distance)
-            statement.setDouble(7, entry.avgSpeed)
-            statement.setObject(8, entry.avgHeartRate, Types.INTEGER)
-            statement.setObject(9, entry.ascent, Types.INTEGER)
-            statement.setObject(10, entry.descent, Types.INTEGER)
-            statement.setObject(11, entry.calories, Types.INTEGER)
-            statement.setString(12, entry.hrmFile)
-            statement.setObject(13, entry.equipment?.id, Types.INTEGER);
-            statement.setString(14, entry.comment)
-            statement.setLong(15, entry.id!!)
-            statement.executeUpdate()
+    private fun readAggregateFromResultSet(rs: ResultSet): ExerciseAggregate {
+        val key = ExerciseAggregate.Key(
+            rs.getString("PERIOD_START")?.let { LocalDate.parse(it) },
+            getLongOrNull(rs, "CATEGORY_ID")
+        )
+
+        // the aggregated values of each column are starting at column index 4
+        val values = AGGREGATED_COLUMNS.indices.map { index ->
+            val columnIndex = 4 + index * 4
+            AggregatedValue(
+                rs.getInt(columnIndex),
+                rs.getDouble(columnIndex + 1),
+                rs.getDouble(columnIndex + 2),
+                rs.getDouble(columnIndex + 3)
+            )
         }
+        return ExerciseAggregate(key, rs.getInt(3), values[0], values[1], values[2], values[3], values[4], values[5], values[6])
+    }
+
+    /**
+     * Returns the SQL expression for the start date of the period of the exercise date (format "yyyy-MM-dd").
+     */
+    private fun getSqlPeriodStart(period: AggregationPeriod, weekStartSunday: Boolean) = when (period) {
+        AggregationPeriod.DAY -> "date(DATE_TIME)"
+        // strftime('%w') returns the day of week, starting with 0 for Sunday
+        AggregationPeriod.WEEK -> if (weekStartSunday) "date(DATE_TIME, '-' || strftime('%w', DATE_TIME) || ' days')"
+            else "date(DATE_TIME, '-' || ((CAST(strftime('%w', DATE_TIME) AS INTEGER) + 6) % 7) || ' days')"
+        AggregationPeriod.MONTH -> "strftime('%Y-%m-01', DATE_TIME)"
+        AggregationPeriod.YEAR -> "strftime('%Y-01-01', DATE_TIME)"
+    }
+
+    private fun getSqlCategoryColumn(category: AggregationCategory) = when (category) {
+        AggregationCategory.SPORT_TYPE -> "SPORT_TYPE_ID"
+        AggregationCategory.SPORT_SUBTYPE -> "SPORT_SUBTYPE_ID"
+        AggregationCategory.EQUIPMENT -> "EQUIPMENT_ID"
+    }
+
+    private fun readFromResultSet(rs: ResultSet, sportTypes: List<SportType>): Exercise {
+        val exercise = readFromResultSet(rs)
+
+        val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
+        exercise.sportType = sportType
+        exercise.sportSubType = getSportSubTypeById(sportType, rs.getLong("SPORT_SUBTYPE_ID"))
+
+        val equipmentID = getLongOrNull(rs, "EQUIPMENT_ID")
+        exercise.equipment = if (equipmentID == null) null else getEquipmentById(sportType, equipmentID)
+        return exercise
+    }
+
+    override val sqlCreate = "INSERT INTO EXERCISE " +
+            "(DATE_TIME, SPORT_TYPE_ID, SPORT_SUBTYPE_ID, INTENSITY, DURATION, DISTANCE, AVG_SPEED, " +
+            "AVG_HEARTRATE, ASCENT, DESCENT, CALORIES, HRM_FILE, EQUIPMENT_ID, COMMENT) VALUES " +
+            "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+
+    override val sqlUpdate = "UPDATE EXERCISE SET " +
+            "DATE_TIME = ?, SPORT_TYPE_ID = ?, SPORT_SUBTYPE_ID = ?, INTENSITY = ?, DURATION = ?, " +
+            "DISTANCE = ?, AVG_SPEED = ?, AVG_HEARTRATE = ?, ASCENT = ?, DESCENT = ?, " +
+            "CALORIES = ?, HRM_FILE = ?, EQUIPMENT_ID = ?, COMMENT = ? WHERE ID = ?"
+
+    override fun setCreateParameters(statement: PreparedStatement, entry: Exercise) {
+        statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
+        statement.setLong(2, entry.sportType.id!!)
+        statement.setLong(3, entry.sportSubType.id!!)
+        statement.setString(4, entry.intensity.name)
+        statement.setInt(5, entry.duration)
+        statement.setDouble(6, entry.distance)
+        statement.setDouble(7, entry.avgSpeed)
+        statement.setObject(8, entry.avgHeartRate, Types.INTEGER)
+        statement.setObject(9, entry.ascent, Types.INTEGER)
+        statement.setObject(10, entry.descent, Types.INTEGER)
+        statement.setObject(11, entry.calories, Types.INTEGER)
+        statement.setString(12, entry.hrmFile)
+        statement.setObject(13, entry.equipment?.id, Types.INTEGER);
+        statement.setString(14, entry.comment)
+    }
+
+    override fun setUpdateParameters(statement: PreparedStatement, entry: Exercise) {
+        setCreateParameters(statement, entry)
+        statement.setLong(15, entry.id!!)
+    }
+
+    companion object {
+        /** Columns of the values to be aggregated, in the order of the ExerciseAggregate properties. */
+        private val AGGREGATED_COLUMNS =
+            listOf("DISTANCE", "AVG_SPEED", "DURATION", "ASCENT", "DESCENT", "AVG_HEARTRATE", "CALORIES")
     }
-}
\ No newline at end of file
+}
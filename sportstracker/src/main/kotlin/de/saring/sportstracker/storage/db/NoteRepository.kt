@@ -1,28 +1,46 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.core.STException
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Note
 import de.saring.sportstracker.storage.db.RepositoryUtil.dateTimeToString
 import de.saring.util.Date310Utils.dateToLocalDateTime
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.sql.ResultSet
-import java.sql.Statement
 import java.util.logging.Logger
 
 /**
  * Database repository for the Note data.
  *
  * @property connection database connection
+ * @property statementCache cache of prepared statements for this database connection
  *
  * @author Stefan Saring
  */
 class NoteRepository(
-    connection: Connection
-) : AbstractRepository<Note>(connection) {
+    connection: Connection,
+    statementCache: StatementCache
+) : AbstractEntryRepository<Note>(connection, statementCache) {
+
+    /**
+     * Returns all Notes which are fulfilling the specified filter criteria, see [AbstractEntryRepository.findByFilter].
+     *
+     * @param filter the entry filter criteria
+     * @param offset number of matching Notes to skip (for paging)
+     * @param limit maximum number of Notes to return (for paging), [NO_LIMIT] for all
+     * @return list of the found Notes
+     */
+    @Throws(STException::class)
+    fun findByFilter(filter: EntryFilter, offset: Int, limit: Int): List<Note> =
+        findByFilter(filter, offset, limit) { rs -> readFromResultSet(rs) }
 
     override val entityName = "Note"
 
     override val tableName = "NOTE"
 
+    override val entryType = EntryFilter.EntryType.NOTE
+
     override val logger: Logger = Logger.getLogger(NoteRepository::class.java.name)
 
     override fun readFromResultSet(rs: ResultSet): Note {
@@ -32,28 +50,17 @@ class NoteRepository(
         return note
     }
 
-    override fun executeCreate(entry: Note): Note {
-        connection.prepareStatement("INSERT INTO NOTE (DATE_TIME, COMMENT) VALUES (?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setString(2, entry.comment)
-            statement.executeUpdate()
-
-            val rs = statement.generatedKeys
-            rs.next()
-            val noteId = rs.getLong(1)
-            return readById(noteId)
-        }
+    override val sqlCreate = "INSERT INTO NOTE (DATE_TIME, COMMENT) VALUES (?, ?)"
+
+    override val sqlUpdate = "UPDATE NOTE SET DATE_TIME = ?, COMMENT = ? WHERE ID = ?"
+
+    override fun setCreateParameters(statement: PreparedStatement, entry: Note) {
+        statement.setString(1, dateTimeToString(entry.dateTime))
+        statement.setString(2, entry.comment)
     }
 
-    override fun executeUpdate(entry: Note) {
-        connection.prepareStatement("UPDATE NOTE SET DATE_TIME = ?, COMMENT = ? WHERE ID = ?"
-        ).use { statement ->
-            statement.setString(1, dateTimeToString(entry.dateTime))
-            statement.setString(2, entry.comment)
-            statement.setLong(3, entry.id!!)
-            statement.executeUpdate()
-        }
+    override fun setUpdateParameters(statement: PreparedStatement, entry: Note) {
+        setCreateParameters(statement, entry)
+        statement.setLong(3, entry.id!!)
     }
-}
\ No newline at end of file
+}
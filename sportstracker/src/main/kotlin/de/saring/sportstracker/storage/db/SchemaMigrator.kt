@@ -0,0 +1,105 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.sportstracker.core.STException
+import de.saring.sportstracker.core.STExceptionID
+import java.sql.Connection
+import java.sql.SQLException
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Migrates the schema of an existing database to the current schema version. All pending migrations will be
+ * executed in the order of their version within one transaction, so the database remains unchanged on failures.
+ *
+ * @property connection database connection (AutoCommit must be disabled)
+ * @property migrations list of all available migrations, must be sorted by version
+ *
+ * @author Stefan Saring
+ */
+class SchemaMigrator(
+    private val connection: Connection,
+    private val migrations: List<SchemaMigration> = MIGRATIONS
+) {
+
+    /** The latest schema version provided by the migrations. */
+    val latestVersion: Int
+        get() = migrations.lastOrNull()?.version ?: INITIAL_SCHEMA_VERSION
+
+    /**
+     * Executes all migrations with a version higher than the passed current version and stores the new schema
+     * version in the META table.
+     *
+     * @param currentVersion current schema version of the database
+     * @return the schema version after migration
+     */
+    @Throws(STException::class)
+    fun migrate(currentVersion: Int): Int {
+        val pendingMigrations = migrations.filter { it.version > currentVersion }
+        if (pendingMigrations.isEmpty()) {
+            return currentVersion
+        }
+
+        LOGGER.info("Migrating database schema from version $currentVersion to version ${pendingMigrations.last().version}")
+        try {
+            pendingMigrations.forEachIndexed { index, migration ->
+                LOGGER.info("Executing schema migration ${index + 1} of ${pendingMigrations.size}: " +
+                        "version ${migration.version} (${migration.description})")
+                executeMigration(migration)
+            }
+            connection.commit()
+        } catch (e: Exception) {
+            rollback()
+            throw STException(STExceptionID.DBSTORAGE_MIGRATE_SCHEMA,
+                "Failed to migrate database schema from version $currentVersion!", e)
+        }
+        return pendingMigrations.last().version
+    }
+
+    private fun executeMigration(migration: SchemaMigration) {
+        val migrationSql = SchemaMigrator::class.java.getResource(migration.sqlFile)?.readText()
+            ?: throw IllegalStateException("Migration file '${migration.sqlFile}' not found!")
+
+        connection.createStatement().use { statement ->
+            statement.executeUpdate(migrationSql)
+        }
+        connection.prepareStatement(
+            "UPDATE META SET SCHEMA_VERSION = ?, UPDATE_DATE_TIME = datetime('now','localtime')"
+        ).use { statement ->
+            statement.setInt(1, migration.version)
+            statement.executeUpdate()
+        }
+    }
+
+    private fun rollback() {
+        try {
+            connection.rollback()
+        } catch (e: SQLException) {
+            LOGGER.log(Level.SEVERE, "Failed to rollback the schema migration!", e)
+        }
+    }
+
+    /**
+     * Definition of a single schema migration.
+     *
+     * @property version schema version after executing this migration
+     * @property description short description of the changes
+     * @property sqlFile classpath resource of the SQL script to execute
+     */
+    data class SchemaMigration(
+        val version: Int,
+        val description: String,
+        val sqlFile: String
+    )
+
+    companion object {
+        /** Schema version of the database created by the schema file (without any migrations). */
+        const val INITIAL_SCHEMA_VERSION = 1
+
+        /** List of all schema migrations, sorted by version. */
+        val MIGRATIONS = listOf(
+            SchemaMigration(2, "indexes for date, sport type and equipment queries", "/sql/migration/st-migration-002.sql")
+        )
+
+        private val LOGGER = Logger.getLogger(SchemaMigrator::class.java.name)
+    }
+}
@@ -18,12 +18,14 @@ import java.util.logging.Logger
  * Database repository for the SportType and related data.
  *
  * @property connection database connection
+ * @property statementCache cache of prepared statements for this database connection
  *
  * @author Stefan Saring
  */
 class SportTypeRepository(
-    connection: Connection
-) : AbstractRepository<SportType>(connection) {
+    connection: Connection,
+    statementCache: StatementCache
+) : AbstractRepository<SportType>(connection, statementCache) {
 
     @Throws(STException::class)
     override fun readAll(): List<SportType> {
@@ -52,8 +54,7 @@ class SportTypeRepository(
 
     private fun readAllSportSubTypes(sportTypes: List<SportType>) {
         try {
-            connection.prepareStatement("SELECT * FROM SPORT_SUBTYPE").use { statement ->
-                val rs = statement.executeQuery()
+            statementCache.prepareStatement("SELECT * FROM SPORT_SUBTYPE").executeQuery().use { rs ->
                 while (rs.next()) {
                     val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
                     val sportSubType = SportSubType(rs.getLong("ID"))
@@ -69,8 +70,7 @@ class SportTypeRepository(
 
     private fun readAllEquipments(sportTypes: List<SportType>) {
         try {
-            connection.prepareStatement("SELECT * FROM EQUIPMENT").use { statement ->
-                val rs = statement.executeQuery()
+            statementCache.prepareStatement("SELECT * FROM EQUIPMENT").executeQuery().use { rs ->
                 while (rs.next()) {
                     val sportType = getSportTypeById(sportTypes, rs.getLong("SPORT_TYPE_ID"))
                     val equipment = Equipment(rs.getLong("ID"))
@@ -84,27 +84,28 @@ class SportTypeRepository(
         }
     }
 
-    override fun executeCreate(entry: SportType): SportType {
-        var sportType: SportType
+    override val sqlCreate = "INSERT INTO SPORT_TYPE " +
+            "(NAME, RECORD_DISTANCE, SPEED_MODE, COLOR, ICON, FIT_ID) VALUES (?, ?, ?, ?, ?, ?)"
 
-        connection.prepareStatement(
-            "INSERT INTO SPORT_TYPE " +
-                    "(NAME, RECORD_DISTANCE, SPEED_MODE, COLOR, ICON, FIT_ID) VALUES (?, ?, ?, ?, ?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, entry.getName())
-            statement.setBoolean(2, entry.isRecordDistance)
-            statement.setString(3, entry.speedMode.name)
-            statement.setString(4, if (entry.color == null) null else ColorUtils.toRGBCode(entry.color))
-            statement.setString(5, entry.icon)
-            statement.setObject(6, entry.fitId, Types.INTEGER);
-            statement.executeUpdate()
+    override val sqlUpdate = "UPDATE SPORT_TYPE SET " +
+            "NAME = ?, RECORD_DISTANCE = ?, SPEED_MODE = ?, COLOR = ?, ICON = ?, FIT_ID = ? WHERE ID = ?"
 
-            val rs = statement.generatedKeys
-            rs.next()
-            val sportTypeId = rs.getLong(1)
-            sportType = readById(sportTypeId)
-        }
+    override fun setCreateParameters(statement: PreparedStatement, entry: SportType) {
+        statement.setString(1, entry.getName())
+        statement.setBoolean(2, entry.isRecordDistance)
+        statement.setString(3, entry.speedMode.name)
+        statement.setString(4, if (entry.color == null) null else ColorUtils.toRGBCode(entry.color))
+        statement.setString(5, entry.icon)
+        statement.setObject(6, entry.fitId, Types.INTEGER);
+    }
+
+    override fun setUpdateParameters(statement: PreparedStatement, entry: SportType) {
+        setCreateParameters(statement, entry)
+        statement.setLong(7, entry.id!!);
+    }
+
+    override fun executeCreate(entry: SportType): SportType {
+        val sportType = super.executeCreate(entry)
 
         // persist also all new sport subtypes and equipments
         entry.sportSubTypeList.forEach { createSportSubType(it, sportType) }
@@ -112,38 +113,36 @@ class SportTypeRepository(
         return sportType
     }
 
+    override fun executeCreateAll(entries: List<SportType>): List<SportType> {
+        // each sport type contains its own subtypes and equipments, so batch processing is not possible
+        return entries.map { executeCreate(it) }
+    }
+
     override fun executeUpdate(entry: SportType) {
-        connection.prepareStatement("UPDATE SPORT_TYPE SET " +
-                "NAME = ?, RECORD_DISTANCE = ?, SPEED_MODE = ?, COLOR = ?, ICON = ?, FIT_ID = ? WHERE ID = ?"
-            ).use { statement ->
-            statement.setString(1, entry.getName())
-            statement.setBoolean(2, entry.isRecordDistance)
-            statement.setString(3, entry.speedMode.name)
-            statement.setString(4, if (entry.color == null) null else ColorUtils.toRGBCode(entry.color))
-            statement.setString(5, entry.icon)
-            statement.setObject(6, entry.fitId, Types.INTEGER);
-            statement.setLong(7, entry.id!!);
-            statement.executeUpdate()
-        }
+        super.executeUpdate(entry)
 
         persistSportSubTypesOfExistingSportType(entry)
         persistEquipmentsOfExistingSportType(entry)
     }
 
+    override fun executeUpdateAll(entries: List<SportType>) {
+        entries.forEach { executeUpdate(it) }
+    }
+
     override fun executeDelete(entryId: Long) {
         // SportType might be used in some Exercises, these need to be deleted before (confirmed by the user)
-        connection.prepareStatement("DELETE FROM EXERCISE WHERE SPORT_TYPE_ID = ?").use { statement ->
+        statementCache.prepareStatement("DELETE FROM EXERCISE WHERE SPORT_TYPE_ID = ?").let { statement ->
             statement.setLong(1, entryId)
             statement.executeUpdate()
         }
 
         // delete all equipments of this sport type
-        connection.prepareStatement("DELETE FROM EQUIPMENT WHERE SPORT_TYPE_ID = ?").use { statement ->
+        statementCache.prepareStatement("DELETE FROM EQUIPMENT WHERE SPORT_TYPE_ID = ?").let { statement ->
             statement.setLong(1, entryId)
             statement.executeUpdate()
         }
         // delete all sport subtypes of this sport type
-        connection.prepareStatement("DELETE FROM SPORT_SUBTYPE WHERE SPORT_TYPE_ID = ?").use { statement ->
+        statementCache.prepareStatement("DELETE FROM SPORT_SUBTYPE WHERE SPORT_TYPE_ID = ?").let { statement ->
             statement.setLong(1, entryId)
             statement.executeUpdate()
         }
@@ -151,11 +150,15 @@ class SportTypeRepository(
         super.executeDelete(entryId);
     }
 
+    override fun executeDeleteAll(entryIds: LongArray) {
+        // the referencing exercises, subtypes and equipments need to be deleted for each sport type
+        entryIds.forEach { executeDelete(it) }
+    }
+
     private fun createSportSubType(sportSubType: SportSubType, sportType: SportType) {
-        connection.prepareStatement(
-            "INSERT INTO SPORT_SUBTYPE (SPORT_TYPE_ID, NAME, FIT_ID) VALUES (?, ?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
+        statementCache.prepareStatement(
+            "INSERT INTO SPORT_SUBTYPE (SPORT_TYPE_ID, NAME, FIT_ID) VALUES (?, ?, ?)"
+        ).let { statement ->
             statement.setLong(1, sportType.id!!)
             statement.setString(2, sportSubType.getName())
             statement.setObject(3, sportSubType.fitId, Types.INTEGER);
@@ -164,10 +167,10 @@ class SportTypeRepository(
     }
 
     private fun updateSportSubType(sportSubType: SportSubType) {
-        connection.prepareStatement(
+        statementCache.prepareStatement(
             "UPDATE SPORT_SUBTYPE SET " +
                     "NAME = ?, FIT_ID = ? WHERE ID = ?"
-        ).use { statement ->
+        ).let { statement ->
             statement.setString(1, sportSubType.getName())
             statement.setObject(2, sportSubType.fitId, Types.INTEGER);
             statement.setLong(3, sportSubType.id!!);
@@ -176,10 +179,9 @@ class SportTypeRepository(
     }
 
     private fun createEquipment(equipment: Equipment, sportType: SportType) {
-        connection.prepareStatement(
-            "INSERT INTO EQUIPMENT (SPORT_TYPE_ID, NAME, NOT_IN_USE) VALUES (?, ?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
+        statementCache.prepareStatement(
+            "INSERT INTO EQUIPMENT (SPORT_TYPE_ID, NAME, NOT_IN_USE) VALUES (?, ?, ?)"
+        ).let { statement ->
             statement.setLong(1, sportType.id!!)
             statement.setString(2, equipment.getName())
             statement.setBoolean(3, equipment.isNotInUse);
@@ -188,10 +190,10 @@ class SportTypeRepository(
     }
 
     private fun updateEquipment(equipment: Equipment) {
-        connection.prepareStatement(
+        statementCache.prepareStatement(
             "UPDATE EQUIPMENT SET " +
                     "NAME = ?, NOT_IN_USE = ? WHERE ID = ?"
-        ).use { statement ->
+        ).let { statement ->
             statement.setString(1, equipment.getName())
             statement.setBoolean(2, equipment.isNotInUse);
             statement.setLong(3, equipment.id!!);
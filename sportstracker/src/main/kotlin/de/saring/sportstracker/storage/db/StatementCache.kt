@@ -0,0 +1,112 @@
+package de.saring.sportstracker.storage.db
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
+import java.sql.Statement
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Cache of prepared statements for a single database connection, the statements are identified by their SQL text.
+ * So SQLite needs to parse and plan each SQL statement only once and not for each execution.
+ *
+ * The cached statements are owned by this cache, the users must not close them. Only ResultSets returned by the
+ * statements need to be closed after usage. The cache is bounded, the least recently used statement will be closed
+ * and removed when the maximum size has been reached.
+ * Statements with a variable SQL text (e.g. IN clauses with a variable number of parameters or WHERE clauses
+ * created for filter criteria) should not be cached, they would only displace the other statements.
+ *
+ * @property connection database connection to prepare the statements for
+ * @property maxSize maximum number of cached statements
+ *
+ * @author Stefan Saring
+ */
+class StatementCache(
+    private val connection: Connection,
+    private val maxSize: Int = DEFAULT_MAX_SIZE
+) {
+
+    /** Number of requested statements which were found in the cache. */
+    var hitCount = 0L
+        private set
+
+    /** Number of requested statements which needed to be prepared. */
+    var missCount = 0L
+        private set
+
+    /** Map of the cached statements in access order (key is the SQL text incl. the generated keys flag). */
+    private val statements = object : LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, PreparedStatement>): Boolean {
+            if (size > maxSize) {
+                closeStatement(eldest.value)
+                return true
+            }
+            return false
+        }
+    }
+
+    /** Number of currently cached statements. */
+    val size: Int
+        get() = statements.size
+
+    /**
+     * Returns the cached prepared statement for the specified SQL text, it will be prepared on the first request.
+     *
+     * @param sql SQL statement text
+     * @return the prepared statement
+     */
+    @Throws(SQLException::class)
+    fun prepareStatement(sql: String): PreparedStatement =
+        getOrPrepare(sql) { connection.prepareStatement(sql) }
+
+    /**
+     * Returns the cached prepared statement for the specified SQL text, which returns the generated keys of inserted
+     * entries. It will be prepared on the first request.
+     *
+     * @param sql SQL insert statement text
+     * @return the prepared statement
+     */
+    @Throws(SQLException::class)
+    fun prepareStatementWithGeneratedKeys(sql: String): PreparedStatement =
+        getOrPrepare(PREFIX_GENERATED_KEYS + sql) { connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) }
+
+    /**
+     * Closes and removes all cached statements. Must be called before closing the database connection.
+     */
+    fun close() {
+        LOGGER.info("Closing statement cache ($hitCount hits, $missCount misses)")
+        statements.values.forEach { closeStatement(it) }
+        statements.clear()
+    }
+
+    private fun getOrPrepare(key: String, prepare: () -> PreparedStatement): PreparedStatement {
+        val cachedStatement = statements[key]
+        if (cachedStatement != null && !cachedStatement.isClosed) {
+            hitCount++
+            return cachedStatement
+        }
+
+        missCount++
+        val statement = prepare()
+        statements[key] = statement
+        return statement
+    }
+
+    private fun closeStatement(statement: PreparedStatement) {
+        try {
+            statement.close()
+        } catch (e: SQLException) {
+            LOGGER.log(Level.WARNING, "Failed to close cached statement!", e)
+        }
+    }
+
+    companion object {
+        /** Default maximum number of cached statements, large enough for all static statements of the repositories. */
+        const val DEFAULT_MAX_SIZE = 64
+
+        private val LOGGER = Logger.getLogger(StatementCache::class.java.name)
+
+        private const val PREFIX_GENERATED_KEYS = "[generated keys] "
+    }
+}
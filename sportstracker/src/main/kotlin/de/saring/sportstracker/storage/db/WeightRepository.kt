@@ -1,27 +1,45 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.core.STException
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Weight
 import de.saring.util.Date310Utils.dateToLocalDateTime
 import java.sql.Connection
+import java.sql.PreparedStatement
 import java.sql.ResultSet
-import java.sql.Statement
 import java.util.logging.Logger
 
 /**
  * Database repository for the Weight data.
  *
  * @property connection database connection
+ * @property statementCache cache of prepared statements for this database connection
  *
  * @author Stefan Saring
  */
 class WeightRepository(
-    connection: Connection
-) : AbstractRepository<Weight>(connection) {
+    connection: Connection,
+    statementCache: StatementCache
+) : AbstractEntryRepository<Weight>(connection, statementCache) {
+
+    /**
+     * Returns all Weights which are fulfilling the specified filter criteria, see [AbstractEntryRepository.findByFilter].
+     *
+     * @param filter the entry filter criteria
+     * @param offset number of matching Weights to skip (for paging)
+     * @param limit maximum number of Weights to return (for paging), [NO_LIMIT] for all
+     * @return list of the found Weights
+     */
+    @Throws(STException::class)
+    fun findByFilter(filter: EntryFilter, offset: Int, limit: Int): List<Weight> =
+        findByFilter(filter, offset, limit) { rs -> readFromResultSet(rs) }
 
     override val entityName = "Weight"
 
     override val tableName = "WEIGHT"
 
+    override val entryType = EntryFilter.EntryType.WEIGHT
+
     override val logger: Logger = Logger.getLogger(WeightRepository::class.java.name)
 
     override fun readFromResultSet(rs: ResultSet): Weight {
@@ -32,30 +50,18 @@ class WeightRepository(
         return weight
     }
 
-    override fun executeCreate(entry: Weight): Weight {
-        connection.prepareStatement("INSERT INTO WEIGHT (DATE_TIME, VALUE, COMMENT) VALUES (?, ?, ?)",
-            Statement.RETURN_GENERATED_KEYS
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setDouble(2, entry.value)
-            statement.setString(3, entry.comment)
-            statement.executeUpdate()
-
-            val rs = statement.generatedKeys
-            rs.next()
-            val weightID = rs.getLong(1)
-            return readById(weightID)
-        }
+    override val sqlCreate = "INSERT INTO WEIGHT (DATE_TIME, VALUE, COMMENT) VALUES (?, ?, ?)"
+
+    override val sqlUpdate = "UPDATE WEIGHT SET DATE_TIME = ?, VALUE = ?, COMMENT = ? WHERE ID = ?"
+
+    override fun setCreateParameters(statement: PreparedStatement, entry: Weight) {
+        statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
+        statement.setDouble(2, entry.value)
+        statement.setString(3, entry.comment)
     }
 
-    override fun executeUpdate(entry: Weight) {
-        connection.prepareStatement("UPDATE WEIGHT SET DATE_TIME = ?, VALUE = ?, COMMENT = ? WHERE ID = ?"
-        ).use { statement ->
-            statement.setString(1, RepositoryUtil.dateTimeToString(entry.dateTime))
-            statement.setDouble(2, entry.value)
-            statement.setString(3, entry.comment)
-            statement.setLong(4, entry.id!!)
-            statement.executeUpdate()
-        }
+    override fun setUpdateParameters(statement: PreparedStatement, entry: Weight) {
+        setCreateParameters(statement, entry)
+        statement.setLong(4, entry.id!!)
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+-- Migration of the SportsTracker database schema to version 2:
+-- adds indexes for the queries by date, by sport type / subtype and by equipment.
+
+CREATE INDEX IF NOT EXISTS IDX_EXERCISE_DATE_TIME ON EXERCISE (DATE_TIME);
+CREATE INDEX IF NOT EXISTS IDX_EXERCISE_SPORT_TYPE ON EXERCISE (SPORT_TYPE_ID, SPORT_SUBTYPE_ID);
+CREATE INDEX IF NOT EXISTS IDX_EXERCISE_EQUIPMENT ON EXERCISE (EQUIPMENT_ID);
+CREATE INDEX IF NOT EXISTS IDX_NOTE_DATE_TIME ON NOTE (DATE_TIME);
+CREATE INDEX IF NOT EXISTS IDX_WEIGHT_DATE_TIME ON WEIGHT (DATE_TIME);
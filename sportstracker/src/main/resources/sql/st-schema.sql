@@ -1,4 +1,5 @@
--- SQLite schema definition for the SportsTracker database.
+-- SQLite schema definition for the SportsTracker database (schema version 1).
+-- Later schema changes are not done here, they are defined in the migration scripts (see SchemaMigrator).
 
 -- All date-time values are stored as an TEXT with format "yyyy-MM-dd HH:mm:ss"
 -- All boolean values are stored as an INTEGER, 0 is false, 1 is true.
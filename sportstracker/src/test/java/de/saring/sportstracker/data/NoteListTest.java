@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.regex.PatternSyntaxException;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -255,4 +256,30 @@ public class NoteListTest {
         assertEquals(1, entryList.size());
         assertEquals("Dummy note 3", entryList.getAt(0).getComment());
     }
+
+    /**
+     * Tests for getEntriesInDateRange() with filter: only the notes of the date range which are valid for the filter
+     * must be found, the filter must be ignored when it is for another entry type.
+     */
+    @Test
+    public void testGetEntriesInDateRangeForFilter() {
+
+        EntryFilter filter = new EntryFilter();
+        filter.setDateStart(LocalDate.of(2003, 1, 1));
+        filter.setDateEnd(LocalDate.of(2003, 12, 31));
+        filter.setEntryType(EntryFilter.EntryType.NOTE);
+        filter.setCommentSubString("note 3");
+        filter.setRegularExpressionMode(false);
+
+        List<Note> notes = list.getEntriesInDateRange(LocalDate.of(2003, 9, 1), LocalDate.of(2003, 9, 30), filter);
+        assertEquals(1, notes.size());
+        assertEquals(3L, notes.get(0).getId());
+
+        assertEquals(0, list.getEntriesInDateRange(
+                LocalDate.of(2003, 8, 1), LocalDate.of(2003, 8, 31), filter).size());
+
+        filter.setEntryType(EntryFilter.EntryType.WEIGHT);
+        assertEquals(2, list.getEntriesInDateRange(
+                LocalDate.of(2003, 9, 1), LocalDate.of(2003, 9, 30), filter).size());
+    }
 }
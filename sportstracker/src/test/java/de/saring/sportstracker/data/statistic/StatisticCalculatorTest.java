@@ -95,8 +95,23 @@ public class StatisticCalculatorTest {
     public void testStatisticCalculator() {
         // calculate statistics
         StatisticCalculator calculator = new StatisticCalculator(lExercises);
+        assertStatisticResults(calculator);
+    }
+
+    /**
+     * Tests the calculation for the aggregate of the exercises, the results must be the same.
+     */
+    @Test
+    public void testStatisticCalculatorForAggregate() {
+        // calculate statistics
+        ExerciseAggregate.Key key = new ExerciseAggregate.Key(null, null);
+        ExerciseAggregate aggregate = ExerciseAggregate.mergeAll(
+                ExerciseAggregate.ofExercises(lExercises.stream().toList(), null, null, false), key);
+        StatisticCalculator calculator = new StatisticCalculator(aggregate);
+        assertStatisticResults(calculator);
+    }
 
-        // check statistic results
+    private void assertStatisticResults(StatisticCalculator calculator) {
         assertEquals(4, calculator.getExerciseCount());
         assertEquals(57d, calculator.getTotalDistance(), 0.01f);
         assertEquals(19307, calculator.getTotalDuration());
@@ -1,16 +1,26 @@
 package de.saring.sportstracker.gui;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import de.saring.sportstracker.data.EntryFilter;
 import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.Note;
 import de.saring.sportstracker.data.SportType;
 import de.saring.sportstracker.storage.db.DbStorage;
+import de.saring.sportstracker.storage.db.ExerciseRepository;
+import de.saring.sportstracker.storage.db.NoteRepository;
+import de.saring.util.data.IdObject;
 import de.saring.util.unitcalc.SpeedMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,13 +34,15 @@ import org.junit.jupiter.api.Test;
 public class STDocumentTest {
 
     private STDocument document;
+    private DbStorage dbStorageMock;
     private long nextEntityId = 1;
 
     @BeforeEach
     public void setUp() {
         // STContext needs to be mocked
         STContext contextMock = mock(STContext.class);
-        document = new STDocumentImpl(contextMock, mock(DbStorage.class));
+        dbStorageMock = mock(DbStorage.class);
+        document = new STDocumentImpl(contextMock, dbStorageMock);
         document.loadOptions();
         nextEntityId = 1;
     }
@@ -94,6 +106,115 @@ public class STDocumentTest {
         assertEquals(document.getOptions().getPreferredSpeedMode(), speedMode);
     }
 
+    /**
+     * Test of method updateApplicationData(): a changed note must be read from the storage and replaced in the note
+     * list, the listeners must be notified with the stored note.
+     */
+    @Test
+    public void testUpdateApplicationDataForNote() throws Exception {
+        final Note note = new Note(nextEntityId++);
+        note.setComment("Original");
+        document.getNoteList().set(note);
+
+        final Note storedNote = new Note(note.getId());
+        storedNote.setComment("Changed");
+        final NoteRepository noteRepositoryMock = mock(NoteRepository.class);
+        when(noteRepositoryMock.readById(note.getId())).thenReturn(storedNote);
+        when(dbStorageMock.getNoteRepository()).thenReturn(noteRepositoryMock);
+
+        final List<IdObject> changedObjects = new ArrayList<>();
+        document.registerChangeListener((changedObject, removedObjects) -> changedObjects.add(changedObject));
+        document.updateApplicationData(note);
+
+        assertEquals(1, document.getNoteList().size());
+        assertSame(storedNote, document.getNoteList().getByID(note.getId()));
+        assertEquals(List.of(storedNote), changedObjects);
+        assertTrue(document.isDirtyData());
+    }
+
+    /**
+     * Test of method updateApplicationData(): a changed exercise must be read from the storage and replaced in the
+     * exercise list and in the exercise rollup.
+     */
+    @Test
+    public void testUpdateApplicationDataForExercise() throws Exception {
+        final long exerciseId = appendExerciseWithSpeedMode(SpeedMode.SPEED);
+        final Exercise storedExercise = new Exercise(exerciseId);
+        storedExercise.setDateTime(LocalDateTime.of(2023, 6, 1, 10, 0));
+        storedExercise.setSportType(document.getExerciseList().getByID(exerciseId).getSportType());
+        storedExercise.setDistance(25);
+
+        final ExerciseRepository exerciseRepositoryMock = mock(ExerciseRepository.class);
+        when(exerciseRepositoryMock.readById(exerciseId, List.of())).thenReturn(storedExercise);
+        when(dbStorageMock.getExerciseRepository()).thenReturn(exerciseRepositoryMock);
+        document.updateApplicationData(storedExercise);
+
+        assertSame(storedExercise, document.getExerciseList().getByID(exerciseId));
+        assertEquals(1, document.getExerciseRollup().getExerciseCount());
+        assertEquals(25, document.getExerciseRollup().getValues(
+                LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 1)).getDistance(), 0.0001);
+
+        document.removeEntriesFromApplicationData(EntryFilter.EntryType.EXERCISE, new long[]{exerciseId});
+        assertEquals(0, document.getExerciseRollup().getExerciseCount());
+    }
+
+    /**
+     * Test of method removeEntriesFromApplicationData(): the specified exercises must be removed from the exercise
+     * list, the listeners must be notified with the removed exercises.
+     */
+    @Test
+    public void testRemoveEntriesFromApplicationData() {
+        final long exerciseId1 = appendExerciseWithSpeedMode(SpeedMode.PACE);
+        final long exerciseId2 = appendExerciseWithSpeedMode(SpeedMode.PACE);
+        final long exerciseId3 = appendExerciseWithSpeedMode(SpeedMode.PACE);
+        final Exercise exercise3 = document.getExerciseList().getByID(exerciseId3);
+
+        final List<IdObject> notifiedRemovedObjects = new ArrayList<>();
+        document.registerChangeListener((changedObject, removedObjects) -> {
+            assertNull(changedObject);
+            notifiedRemovedObjects.addAll(removedObjects);
+        });
+        document.removeEntriesFromApplicationData(EntryFilter.EntryType.EXERCISE, new long[]{exerciseId1, exerciseId3});
+
+        assertEquals(1, document.getExerciseList().size());
+        assertEquals(exerciseId2, document.getExerciseList().getAt(0).getId());
+        assertEquals(2, notifiedRemovedObjects.size());
+        assertSame(exercise3, notifiedRemovedObjects.get(1));
+        assertTrue(document.isDirtyData());
+    }
+
+    /**
+     * Test of method addExercisesToApplicationData(): the created exercises must be added to the exercise list and
+     * to the exercise rollup, the listeners must be notified once.
+     */
+    @Test
+    public void testAddExercisesToApplicationData() {
+        final SportType sportType = new SportType(nextEntityId++);
+        final List<Exercise> exercises = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final Exercise exercise = new Exercise(nextEntityId++);
+            exercise.setDateTime(LocalDateTime.of(2023, 6, 1 + i, 10, 0));
+            exercise.setSportType(sportType);
+            exercise.setDistance(10);
+            exercises.add(exercise);
+        }
+
+        final List<IdObject> notifiedChangedObjects = new ArrayList<>();
+        document.registerChangeListener((changedObject, removedObjects) -> {
+            assertTrue(removedObjects.isEmpty());
+            notifiedChangedObjects.add(changedObject);
+        });
+        document.addExercisesToApplicationData(exercises);
+
+        assertEquals(2, document.getExerciseList().size());
+        assertSame(exercises.get(1), document.getExerciseList().getByID(exercises.get(1).getId()));
+        assertEquals(20, document.getExerciseRollup().getValues(
+                LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 2)).getDistance(), 0.0001);
+        assertEquals(1, notifiedChangedObjects.size());
+        assertNull(notifiedChangedObjects.get(0));
+        assertTrue(document.isDirtyData());
+    }
+
     private long appendExerciseWithSpeedMode(SpeedMode speedMode) {
         final Exercise exercise = new Exercise(nextEntityId++);
         exercise.setDateTime(LocalDateTime.now());
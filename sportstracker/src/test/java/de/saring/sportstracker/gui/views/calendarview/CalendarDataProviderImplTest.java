@@ -0,0 +1,132 @@
+package de.saring.sportstracker.gui.views.calendarview;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportSubType;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.gui.STContext;
+import de.saring.sportstracker.gui.STDocument;
+import de.saring.util.AppResources;
+import de.saring.util.gui.javafx.control.calendar.CalendarEntry;
+import de.saring.util.unitcalc.FormatUtils;
+import de.saring.util.unitcalc.UnitSystem;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of class CalendarDataProviderImpl. The context and document are mocked via Mockito.
+ *
+ * @author Stefan Saring
+ */
+public class CalendarDataProviderImplTest {
+
+    private static final LocalDate DATE_START = LocalDate.of(2023, 5, 29);
+    private static final LocalDate DATE_END = DATE_START.plusDays(41);
+
+    private STDocument documentMock;
+    private CalendarDataProviderImpl dataProvider;
+
+    private Note note;
+    private Weight weight;
+    private Exercise exercise;
+
+    @BeforeEach
+    public void setUp() {
+        final AppResources resourcesMock = mock(AppResources.class);
+        when(resourcesMock.getString(anyString())).thenReturn("text");
+        final STContext contextMock = mock(STContext.class);
+        when(contextMock.getResources()).thenReturn(resourcesMock);
+        when(contextMock.getFormatUtils()).thenReturn(new FormatUtils(UnitSystem.METRIC));
+
+        note = new Note(1L);
+        note.setDateTime(LocalDateTime.of(2023, 6, 1, 10, 0));
+        note.setComment("Note");
+        final NoteList noteList = new NoteList();
+        noteList.set(note);
+
+        weight = new Weight(2L);
+        weight.setDateTime(LocalDateTime.of(2023, 6, 1, 8, 0));
+        weight.setValue(72.5f);
+        final WeightList weightList = new WeightList();
+        weightList.set(weight);
+
+        final SportType sportType = new SportType(1L);
+        sportType.setName("Cycling");
+        sportType.setColor(Color.BLUE);
+        final SportSubType sportSubType = new SportSubType(1L);
+        sportSubType.setName("Road");
+
+        exercise = new Exercise(3L);
+        exercise.setDateTime(LocalDateTime.of(2023, 6, 1, 18, 0));
+        exercise.setSportType(sportType);
+        exercise.setSportSubType(sportSubType);
+        exercise.setDuration(3600);
+        final ExerciseList exerciseList = new ExerciseList();
+        exerciseList.set(exercise);
+
+        documentMock = mock(STDocument.class);
+        when(documentMock.getNoteList()).thenReturn(noteList);
+        when(documentMock.getWeightList()).thenReturn(weightList);
+        when(documentMock.getExerciseList()).thenReturn(exerciseList);
+
+        dataProvider = new CalendarDataProviderImpl(contextMock, documentMock);
+    }
+
+    /**
+     * Test of getCalendarEntriesForDate(): all entries of the prepared date range must be provided by day without
+     * querying the entry lists again, the order is notes, weights and exercises.
+     */
+    @Test
+    public void testGetCalendarEntriesForPreparedDateRange() {
+        dataProvider.prepareDateRange(DATE_START, DATE_END);
+
+        final List<CalendarEntry> entries = dataProvider.getCalendarEntriesForDate(LocalDate.of(2023, 6, 1));
+        assertEquals(List.of(note, weight, exercise), entries.stream().map(CalendarEntry::getEntry).toList());
+        assertTrue(dataProvider.getCalendarEntriesForDate(LocalDate.of(2023, 6, 2)).isEmpty());
+
+        // preparing the same date range again must not query the entry lists
+        dataProvider.prepareDateRange(DATE_START, DATE_END);
+        verify(documentMock, times(1)).getExerciseList();
+    }
+
+    /**
+     * Test of prepareDateRange(): the formatted calendar entries must be reused for overlapping date ranges until the
+     * cache has been invalidated. Entries out of the prepared date range must be removed from the cache.
+     */
+    @Test
+    public void testCalendarEntryCacheAndInvalidate() {
+        dataProvider.prepareDateRange(DATE_START, DATE_END);
+        final CalendarEntry noteEntry = dataProvider.getCalendarEntriesForDate(LocalDate.of(2023, 6, 1)).get(0);
+
+        dataProvider.prepareDateRange(DATE_START.minusDays(7), DATE_END.minusDays(7));
+        assertSame(noteEntry, dataProvider.getCalendarEntriesForDate(LocalDate.of(2023, 6, 1)).get(0));
+
+        dataProvider.prepareDateRange(DATE_START.plusDays(7), DATE_END.plusDays(7));
+        dataProvider.prepareDateRange(DATE_START, DATE_END);
+        assertNotSame(noteEntry, dataProvider.getCalendarEntriesForDate(LocalDate.of(2023, 6, 1)).get(0));
+        final CalendarEntry newNoteEntry = dataProvider.getCalendarEntriesForDate(LocalDate.of(2023, 6, 1)).get(0);
+
+        dataProvider.invalidate();
+        dataProvider.prepareDateRange(DATE_START, DATE_END);
+        assertNotSame(newNoteEntry, dataProvider.getCalendarEntriesForDate(LocalDate.of(2023, 6, 1)).get(0));
+    }
+}
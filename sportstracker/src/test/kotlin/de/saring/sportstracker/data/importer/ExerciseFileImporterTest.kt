@@ -0,0 +1,110 @@
+package de.saring.sportstracker.data.importer
+
+import de.saring.sportstracker.data.SportSubType
+import de.saring.sportstracker.data.SportType
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.io.File
+import java.time.LocalDateTime
+
+/**
+ * This class contains all unit tests for the [ExerciseFileImporter] class.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseFileImporterTest {
+
+    private val importDirectory = File("misc/testdata/exercise-import")
+
+    private val stCycling = SportType(1).apply {
+        setName("Cycling")
+        fitId = 2
+        isRecordDistance = true
+        sportSubTypeList.set(SportSubType(1).apply { setName("MTB") })
+    }
+
+    private val sstStreetRun = SportSubType(2).apply {
+        setName("Street Run")
+        fitId = 0
+    }
+
+    private val stRunning = SportType(2).apply {
+        setName("Running")
+        fitId = 1
+        isRecordDistance = true
+        sportSubTypeList.set(SportSubType(1).apply {
+            setName("Trail Run")
+            fitId = 3
+        })
+        sportSubTypeList.set(sstStreetRun)
+    }
+
+    private val importer = ExerciseFileImporter(listOf(stCycling, stRunning), stCycling, 2)
+
+    /**
+     * Test of findExerciseFiles(): all supported exercise files in the directory and its subdirectories must be found.
+     */
+    @Test
+    fun testFindExerciseFiles() {
+        val filenames = ExerciseFileImporter.findExerciseFiles(importDirectory)
+
+        assertEquals(3, filenames.size)
+        assertTrue(filenames[0].endsWith("Garmin_Fenix_6S_Pro-Running.fit"))
+        assertTrue(filenames[1].endsWith("Garmin_Fenix_6-Running.fit"))
+        assertTrue(filenames[2].endsWith("invalid.gpx"))
+    }
+
+    /**
+     * Test of importFiles(): the valid files must be imported with mapped sport types and sorted by date, the
+     * invalid file must be reported as failed. The progress must be reported for each file.
+     */
+    @Test
+    fun testImportFiles() {
+        val filenames = ExerciseFileImporter.findExerciseFiles(importDirectory)
+        val progress = ArrayList<Int>()
+
+        val result = importer.importFiles(filenames) { processedCount, totalCount ->
+            assertEquals(3, totalCount)
+            progress.add(processedCount)
+        }
+
+        assertEquals(listOf(1, 2, 3), progress)
+        assertEquals(2, result.exercises.size)
+        assertEquals(1, result.failedFiles.size)
+        assertTrue(result.failedFiles[0].filename.endsWith("invalid.gpx"))
+
+        // generic FIT sport type is not mapped => default sport type and its first subtype
+        val exercise1 = result.exercises[0]
+        assertNull(exercise1.id)
+        assertEquals(LocalDateTime.of(2019, 12, 12, 20, 0, 1), exercise1.dateTime)
+        assertTrue(exercise1.hrmFile.endsWith("Garmin_Fenix_6-Running.fit"))
+        assertEquals(stCycling, exercise1.sportType)
+        assertEquals(stCycling.sportSubTypeList.getAt(0), exercise1.sportSubType)
+        assertEquals(123, exercise1.duration)
+        assertEquals(0.193, exercise1.distance, 0.001)
+        assertEquals(5.6, exercise1.avgSpeed, 0.01)
+        assertEquals(120, exercise1.avgHeartRate)
+        assertEquals(23, exercise1.calories)
+        assertEquals(1, exercise1.ascent)
+
+        // FIT sport type running and subtype generic are mapped
+        val exercise2 = result.exercises[1]
+        assertEquals(LocalDateTime.of(2021, 2, 6, 12, 3, 55), exercise2.dateTime)
+        assertEquals(314, exercise2.duration)
+        assertEquals(stRunning, exercise2.sportType)
+        assertEquals(sstStreetRun, exercise2.sportSubType)
+    }
+
+    /**
+     * Test of importFiles() for an empty list of files.
+     */
+    @Test
+    fun testImportFilesEmpty() {
+        val result = importer.importFiles(listOf())
+
+        assertTrue(result.exercises.isEmpty())
+        assertTrue(result.failedFiles.isEmpty())
+    }
+}
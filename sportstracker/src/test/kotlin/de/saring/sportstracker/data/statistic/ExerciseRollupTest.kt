@@ -0,0 +1,171 @@
+package de.saring.sportstracker.data.statistic
+
+import de.saring.sportstracker.data.Equipment
+import de.saring.sportstracker.data.Exercise
+import de.saring.sportstracker.data.SportSubType
+import de.saring.sportstracker.data.SportType
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.time.LocalDate
+import java.time.LocalDateTime
+
+/**
+ * This class contains all unit tests for the [ExerciseRollup] class.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseRollupTest {
+
+    private val eqRoadBike = Equipment(1)
+    private val sstRoad = SportSubType(1)
+    private val sstMTB = SportSubType(2)
+
+    private val stCycling = SportType(1).apply {
+        sportSubTypeList.set(sstRoad)
+        sportSubTypeList.set(sstMTB)
+        equipmentList.set(eqRoadBike)
+    }
+
+    private val stRunning = SportType(2).apply {
+        sportSubTypeList.set(SportSubType(3))
+    }
+
+    // Thursday 2023-06-01 until Sunday 2023-06-04 and Monday 2023-07-03
+    private val exercises = listOf(
+        createExercise(1, LocalDateTime.of(2023, 6, 1, 10, 0), stCycling, sstRoad, eqRoadBike, 40.0, 5400),
+        createExercise(2, LocalDateTime.of(2023, 6, 1, 18, 0), stCycling, sstMTB, null, 20.0, 3600),
+        createExercise(3, LocalDateTime.of(2023, 6, 4, 9, 0), stRunning, stRunning.sportSubTypeList.first(), null,
+            10.0, 3000),
+        createExercise(4, LocalDateTime.of(2023, 7, 3, 9, 0), stCycling, sstRoad, eqRoadBike, 50.0, 6000)
+    )
+
+    /**
+     * Test of getValues(): needs to provide the sums of all exercises in the date range.
+     */
+    @Test
+    fun testGetValuesForDateRange() {
+        val rollup = createRollup()
+
+        assertValues(rollup.getValues(LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 4)), 3, 70.0, 12000)
+        assertValues(rollup.getValues(LocalDate.of(2023, 6, 2), LocalDate.of(2023, 7, 2)), 1, 10.0, 3000)
+        assertValues(rollup.getValues(LocalDate.of(2023, 8, 1), LocalDate.of(2023, 8, 31)), 0, 0.0, 0)
+        assertEquals(4, rollup.exerciseCount)
+    }
+
+    /**
+     * Test of getValuesByCategory(): needs to provide the sums of the derived period levels grouped by category.
+     */
+    @Test
+    fun testGetValuesByCategory() {
+        val rollup = createRollup()
+
+        val monthValues = rollup.getValuesByCategory(
+            AggregationPeriod.MONTH, LocalDate.of(2023, 6, 1), false, AggregationCategory.SPORT_TYPE, null)
+        assertEquals(setOf(1L, 2L), monthValues.keys)
+        assertValues(monthValues[1L]!!, 2, 60.0, 9000)
+        assertValues(monthValues[2L]!!, 1, 10.0, 3000)
+
+        val yearValues = rollup.getValuesByCategory(
+            AggregationPeriod.YEAR, LocalDate.of(2023, 1, 1), false, AggregationCategory.EQUIPMENT, stCycling.id)
+        assertEquals(setOf(1L, null), yearValues.keys)
+        assertValues(yearValues[1L]!!, 2, 90.0, 11400)
+        assertValues(yearValues[null]!!, 1, 20.0, 3600)
+
+        val dayValues = rollup.getValuesByCategory(
+            AggregationPeriod.DAY, LocalDate.of(2023, 6, 1), false, AggregationCategory.SPORT_SUBTYPE, stCycling.id)
+        assertEquals(setOf(1L, 2L), dayValues.keys)
+    }
+
+    /**
+     * Test of getValuesByCategory(): the week level needs to be provided for weeks starting on Monday and on Sunday.
+     */
+    @Test
+    fun testGetValuesByCategoryForWeeks() {
+        val rollup = createRollup()
+
+        val mondayWeekValues = rollup.getValuesByCategory(
+            AggregationPeriod.WEEK, LocalDate.of(2023, 5, 29), false, null, null)
+        assertValues(mondayWeekValues[null]!!, 3, 70.0, 12000)
+
+        val sundayWeekValues = rollup.getValuesByCategory(
+            AggregationPeriod.WEEK, LocalDate.of(2023, 5, 28), true, null, null)
+        assertValues(sundayWeekValues[null]!!, 2, 60.0, 9000)
+        val nextSundayWeekValues = rollup.getValuesByCategory(
+            AggregationPeriod.WEEK, LocalDate.of(2023, 6, 4), true, null, null)
+        assertValues(nextSundayWeekValues[null]!!, 1, 10.0, 3000)
+    }
+
+    /**
+     * Test of update() and remove(): the changed and removed exercises needs to be updated in all levels.
+     */
+    @Test
+    fun testUpdateAndRemove() {
+        val rollup = createRollup()
+
+        // move exercise 1 to July and change distance
+        rollup.update(createExercise(1, LocalDateTime.of(2023, 7, 5, 10, 0), stCycling, sstRoad, eqRoadBike,
+            45.0, 5400))
+        rollup.remove(3)
+        rollup.remove(99)
+
+        assertEquals(3, rollup.exerciseCount)
+        assertValues(rollup.getValues(LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 30)), 1, 20.0, 3600)
+        assertValues(rollup.getValuesByCategory(AggregationPeriod.MONTH, LocalDate.of(2023, 7, 1), false,
+            null, null)[null]!!, 2, 95.0, 11400)
+        assertTrue(rollup.getValuesByCategory(AggregationPeriod.DAY, LocalDate.of(2023, 6, 4), false,
+            null, null).isEmpty())
+
+        // no empty cells or periods must remain after removing all exercises
+        rollup.remove(2)
+        rollup.remove(4)
+        rollup.remove(1)
+        assertEquals(0, rollup.exerciseCount)
+        assertTrue(rollup.getValuesByCategory(AggregationPeriod.YEAR, LocalDate.of(2023, 1, 1), false,
+            null, null).isEmpty())
+    }
+
+    /**
+     * Test of forEachDayCell(): needs to provide all cells sorted by date.
+     */
+    @Test
+    fun testForEachDayCell() {
+        val dates = mutableListOf<LocalDate>()
+        createRollup().forEachDayCell { date, cell, _ ->
+            dates.add(date)
+            if (date == LocalDate.of(2023, 6, 4)) {
+                assertEquals(2L, cell.sportTypeId)
+                assertNull(cell.equipmentId)
+            }
+        }
+        assertEquals(listOf(LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 4),
+            LocalDate.of(2023, 7, 3)), dates)
+    }
+
+    private fun createRollup() = ExerciseRollup().apply { rebuild(exercises) }
+
+    private fun assertValues(values: ExerciseRollup.Values, count: Int, distance: Double, duration: Long) {
+        assertEquals(count, values.count)
+        assertEquals(distance, values.distance, 0.0001)
+        assertEquals(duration, values.duration)
+    }
+
+    private fun createExercise(
+        id: Long,
+        dateTime: LocalDateTime,
+        sportType: SportType,
+        sportSubType: SportSubType,
+        equipment: Equipment?,
+        distance: Double,
+        duration: Int
+    ) = Exercise(id).apply {
+        this.dateTime = dateTime
+        this.sportType = sportType
+        this.sportSubType = sportSubType
+        this.equipment = equipment
+        this.distance = distance
+        this.duration = duration
+        ascent = 100
+    }
+}
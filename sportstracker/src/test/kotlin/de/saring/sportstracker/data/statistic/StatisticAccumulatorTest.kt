@@ -0,0 +1,109 @@
+package de.saring.sportstracker.data.statistic
+
+import de.saring.sportstracker.data.Exercise
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.time.LocalDateTime
+
+/**
+ * This class contains all unit tests for the [StatisticAccumulator] class.
+ *
+ * @author Stefan Saring
+ */
+class StatisticAccumulatorTest {
+
+    private val key = ExerciseAggregate.Key(null, null)
+
+    private val exercises = (1..100).map { index ->
+        createExercise(index.toLong(), index * 1.5, if (index % 3 == 0) null else 100 + index)
+    }
+
+    /**
+     * Test of add(): the values needs to be accumulated, missing optional values must be ignored.
+     */
+    @Test
+    fun testAdd() {
+        val accumulator = StatisticAccumulator.of(exercises.take(3))
+
+        assertEquals(3, accumulator.exerciseCount)
+        assertEquals(AggregatedValue(3, 9.0, 1.5, 4.5), accumulator.distance.toAggregatedValue())
+        assertEquals(AggregatedValue(2, 203.0, 101.0, 102.0), accumulator.avgHeartRate.toAggregatedValue())
+        assertEquals(AggregatedValue.EMPTY, accumulator.calories.toAggregatedValue())
+    }
+
+    /**
+     * Test of add() and remove(): the sum must be compensated, so the rounding errors don't add up.
+     */
+    @Test
+    fun testCompensatedSum() {
+        val value = StatisticAccumulator.ValueAccumulator()
+        repeat(10) { value.add(0.1) }
+        assertEquals(1.0, value.sum)
+
+        value.add(1e100)
+        value.remove(1e100)
+        assertEquals(1.0, value.sum)
+    }
+
+    /**
+     * Test of collector(): the results of a parallel stream must be the same as of a sequential stream.
+     */
+    @Test
+    fun testCollectorParallel() {
+        val sequential = exercises.stream().collect(StatisticAccumulator.collector()).toAggregate(key)
+        val parallel = exercises.parallelStream().collect(StatisticAccumulator.collector()).toAggregate(key)
+
+        assertEquals(sequential, parallel)
+        assertEquals(100, parallel.exerciseCount)
+        assertEquals(AggregatedValue(67, 67 * 100.0 + 3367, 101.0, 200.0), parallel.avgHeartRate)
+    }
+
+    /**
+     * Test of combine(): combining with an empty accumulator must not change the results.
+     */
+    @Test
+    fun testCombineEmpty() {
+        val expected = StatisticAccumulator.of(exercises).toAggregate(key)
+
+        assertEquals(expected, StatisticAccumulator.of(exercises).combine(StatisticAccumulator()).toAggregate(key))
+        assertEquals(expected, StatisticAccumulator().combine(StatisticAccumulator.of(exercises)).toAggregate(key))
+    }
+
+    /**
+     * Test of remove(): the results must be the same as without the removed exercise, unless the removed exercise
+     * contained a minimum or maximum value.
+     */
+    @Test
+    fun testRemove() {
+        val accumulator = StatisticAccumulator.of(exercises)
+
+        assertTrue(accumulator.remove(exercises[50]))
+        assertEquals(StatisticAccumulator.of(exercises - exercises[50]).toAggregate(key), accumulator.toAggregate(key))
+
+        assertFalse(accumulator.remove(exercises[0]))
+        assertEquals(98, accumulator.exerciseCount)
+        assertEquals(exercises.sumOf { it.distance } - exercises[0].distance - exercises[50].distance,
+            accumulator.distance.sum, 0.0001)
+    }
+
+    /**
+     * Test of remove(): removing the last exercise must result in an empty accumulator.
+     */
+    @Test
+    fun testRemoveLast() {
+        val accumulator = StatisticAccumulator.of(exercises.take(1))
+
+        assertTrue(accumulator.remove(exercises[0]))
+        assertEquals(StatisticAccumulator().toAggregate(key), accumulator.toAggregate(key))
+    }
+
+    private fun createExercise(id: Long, distance: Double, avgHeartRate: Int?) = Exercise(id).apply {
+        dateTime = LocalDateTime.of(2023, 5, 1, 10, 0).plusDays(id)
+        this.distance = distance
+        avgSpeed = 20.0 + id % 7
+        duration = (distance * 180).toInt()
+        this.avgHeartRate = avgHeartRate
+    }
+}
@@ -1,8 +1,13 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.core.STException
+import de.saring.sportstracker.core.STExceptionID
 import de.saring.sportstracker.data.Note
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Path
+import java.sql.DriverManager
 import java.time.LocalDateTime
 
 /**
@@ -30,4 +35,45 @@ class DbStorageTest : DbStorageTestBase() {
         Assertions.assertEquals(1, notes.size)
         Assertions.assertEquals("FooBar", notes[0].comment)
     }
-}
\ No newline at end of file
+
+    /**
+     * Test of openDatabase(): a database with a newer schema version than supported must be rejected, a database
+     * with an older schema version must be migrated.
+     */
+    @Test
+    fun testOpenDatabaseWithOtherSchemaVersion(@TempDir tempDir: Path) {
+        val dbFilename = tempDir.resolve("test.sqlite").toString()
+        DbStorage().apply {
+            openDatabase(dbFilename)
+            closeDatabase()
+        }
+
+        setSchemaVersion(dbFilename, 99)
+        val invalidDbStorage = DbStorage()
+        val exception = Assertions.assertThrows(STException::class.java) { invalidDbStorage.openDatabase(dbFilename) }
+        Assertions.assertEquals(STExceptionID.DBSTORAGE_INVALID_SCHEMA, exception.id)
+        invalidDbStorage.closeDatabase()
+
+        setSchemaVersion(dbFilename, 1)
+        DbStorage().apply {
+            openDatabase(dbFilename)
+            closeDatabase()
+        }
+        Assertions.assertEquals(2, getSchemaVersion(dbFilename))
+    }
+
+    private fun setSchemaVersion(dbFilename: String, schemaVersion: Int) {
+        DriverManager.getConnection("jdbc:sqlite:$dbFilename").use { connection ->
+            connection.createStatement().use { it.executeUpdate("UPDATE META SET SCHEMA_VERSION = $schemaVersion") }
+        }
+    }
+
+    private fun getSchemaVersion(dbFilename: String): Int =
+        DriverManager.getConnection("jdbc:sqlite:$dbFilename").use { connection ->
+            connection.createStatement().use { statement ->
+                val rs = statement.executeQuery("SELECT SCHEMA_VERSION FROM META")
+                rs.next()
+                rs.getInt(1)
+            }
+        }
+}
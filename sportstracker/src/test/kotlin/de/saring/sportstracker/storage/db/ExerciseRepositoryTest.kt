@@ -1,13 +1,19 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Equipment
 import de.saring.sportstracker.data.Exercise
 import de.saring.sportstracker.data.SportSubType
 import de.saring.sportstracker.data.SportType
+import de.saring.sportstracker.data.statistic.AggregatedValue
+import de.saring.sportstracker.data.statistic.AggregationCategory
+import de.saring.sportstracker.data.statistic.AggregationPeriod
+import de.saring.sportstracker.data.statistic.ExerciseAggregate
 import de.saring.util.unitcalc.SpeedMode
 import javafx.scene.paint.Color
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.Test
+import java.time.LocalDate
 import java.time.LocalDateTime
 
 /**
@@ -78,6 +84,22 @@ class ExerciseRepositoryTest : DbStorageTestBase() {
         Assertions.assertEquals(exercise1.comment, exercise.comment)
     }
 
+    /**
+     * Test of readById() with sport types: needs to provide a existing exercise including the referenced sport type,
+     * subtype and equipment.
+     */
+    @Test
+    fun testReadByIdWithSportTypes() {
+        val exercise = dbStorage.exerciseRepository.readById(exercise2.id!!, sportTypes)
+
+        Assertions.assertEquals(exercise2.id, exercise.id)
+        Assertions.assertEquals(exercise2.dateTime, exercise.dateTime)
+        Assertions.assertSame(sportType2, exercise.sportType)
+        Assertions.assertSame(sportType2.sportSubTypeList.first(), exercise.sportSubType)
+        Assertions.assertSame(sportType2.equipmentList.first(), exercise.equipment)
+        Assertions.assertEquals(exercise2.comment, exercise.comment)
+    }
+
     /**
      * Test of update(): needs to update an existing exercise, will be verified by reading the exercise.
      */
@@ -112,6 +134,171 @@ class ExerciseRepositoryTest : DbStorageTestBase() {
         Assertions.assertEquals(exercise2.id, exercises[0].id)
     }
 
+    /**
+     * Test of deleteAll(): needs to delete all specified exercises, will be verified by reading all exercises.
+     */
+    @Test
+    fun testDeleteAll() {
+        dbStorage.exerciseRepository.deleteAll(longArrayOf(exercise1.id!!, exercise2.id!!))
+
+        val exercises = dbStorage.exerciseRepository.readAll(sportTypes)
+        Assertions.assertTrue(exercises.isEmpty())
+    }
+
+    /**
+     * Test of findByFilter(): needs to provide all exercises for the sport type, subtype, intensity and equipment
+     * criteria.
+     */
+    @Test
+    fun testFindByFilterExerciseCriteria() {
+        val filter = createExerciseFilter()
+        Assertions.assertEquals(listOf(exercise1.id, exercise2.id), findIdsByFilter(filter))
+
+        filter.sportType = sportType2
+        filter.sportSubType = sportType2.sportSubTypeList.first()
+        filter.equipment = sportType2.equipmentList.first()
+        val exercises = dbStorage.exerciseRepository.findByFilter(filter, sportTypes, 0, AbstractEntryRepository.NO_LIMIT)
+        Assertions.assertEquals(1, exercises.size)
+        Assertions.assertEquals(exercise2.id, exercises[0].id)
+        Assertions.assertEquals(sportType2, exercises[0].sportType)
+
+        filter.intensity = Exercise.IntensityType.LOW
+        Assertions.assertTrue(findIdsByFilter(filter).isEmpty())
+    }
+
+    /**
+     * Test of findByFilter(): needs to provide all exercises in the date range only.
+     */
+    @Test
+    fun testFindByFilterDateRange() {
+        val filter = createExerciseFilter()
+        filter.dateEnd = LocalDate.now().minusDays(1)
+        Assertions.assertTrue(findIdsByFilter(filter).isEmpty())
+
+        filter.dateStart = LocalDate.now()
+        filter.dateEnd = LocalDate.now()
+        Assertions.assertEquals(listOf(exercise1.id, exercise2.id), findIdsByFilter(filter))
+    }
+
+    /**
+     * Test of findByFilter(): needs to filter the comment in normal mode (case insensitive, all words) and in regular
+     * expression mode (case sensitive).
+     */
+    @Test
+    fun testFindByFilterComment() {
+        val filter = createExerciseFilter()
+        filter.commentSubString = " 2  COMMENT "
+        Assertions.assertEquals(listOf(exercise2.id), findIdsByFilter(filter))
+
+        filter.commentSubString = "comment 3"
+        Assertions.assertTrue(findIdsByFilter(filter).isEmpty())
+
+        filter.isRegularExpressionMode = true
+        filter.commentSubString = "^Comment \\d$"
+        Assertions.assertEquals(listOf(exercise1.id, exercise2.id), findIdsByFilter(filter))
+
+        filter.commentSubString = "comment"
+        Assertions.assertTrue(findIdsByFilter(filter).isEmpty())
+    }
+
+    /**
+     * Test of findByFilter(): needs to provide only the requested page of the found exercises, also when the comment
+     * is filtered in memory.
+     */
+    @Test
+    fun testFindByFilterPaging() {
+        val filter = createExerciseFilter()
+        Assertions.assertEquals(listOf(exercise2.id), findIdsByFilter(filter, 1, 5))
+        Assertions.assertEquals(listOf(exercise1.id), findIdsByFilter(filter, 0, 1))
+
+        filter.isRegularExpressionMode = true
+        filter.commentSubString = "Comment"
+        Assertions.assertEquals(listOf(exercise2.id), findIdsByFilter(filter, 1, 1))
+    }
+
+    /**
+     * Test of aggregate(): needs to provide the sums, counts, minimums and maximums grouped by the sport type, without
+     * grouping by time period.
+     */
+    @Test
+    fun testAggregateBySportType() {
+        val aggregates = dbStorage.exerciseRepository.aggregate(
+            createExerciseFilter(), sportTypes, null, AggregationCategory.SPORT_TYPE, false)
+
+        Assertions.assertEquals(2, aggregates.size)
+        Assertions.assertEquals(ExerciseAggregate.Key(null, sportType1.id), aggregates[0].key)
+        Assertions.assertEquals(ExerciseAggregate.Key(null, sportType2.id), aggregates[1].key)
+        Assertions.assertEquals(1, aggregates[0].exerciseCount)
+        Assertions.assertEquals(AggregatedValue(1, 120.0, 120.0, 120.0), aggregates[0].distance)
+        Assertions.assertEquals(AggregatedValue(1, 2345.0, 2345.0, 2345.0), aggregates[1].calories)
+    }
+
+    /**
+     * Test of aggregate(): the grouping by time period must provide the same results as the in-memory aggregation,
+     * also for missing optional values (they are not counted).
+     */
+    @Test
+    fun testAggregateByPeriod() {
+        exercise2.avgHeartRate = null
+        exercise2.calories = null
+        exercise2.distance = 80.0
+        dbStorage.exerciseRepository.update(exercise2)
+
+        val expected = ExerciseAggregate.ofExercises(
+            listOf(exercise1, exercise2), AggregationPeriod.MONTH, null, false)
+        val aggregates = dbStorage.exerciseRepository.aggregate(
+            createExerciseFilter(), sportTypes, AggregationPeriod.MONTH, null, false)
+
+        Assertions.assertEquals(expected, aggregates)
+        Assertions.assertEquals(LocalDate.now().withDayOfMonth(1), aggregates[0].key.periodStart)
+        Assertions.assertEquals(2, aggregates[0].exerciseCount)
+        Assertions.assertEquals(AggregatedValue(2, 200.0, 80.0, 120.0), aggregates[0].distance)
+        Assertions.assertEquals(AggregatedValue(1, 123.0, 123.0, 123.0), aggregates[0].avgHeartRate)
+    }
+
+    /**
+     * Test of aggregate(): the weeks must start on the configured day and the comment search in regular expression
+     * mode must also be supported (aggregation is done in memory then).
+     */
+    @Test
+    fun testAggregateByWeekWithCommentFilter() {
+        val filter = createExerciseFilter()
+        filter.isRegularExpressionMode = true
+        filter.commentSubString = "Comment 2"
+
+        for (weekStartSunday in listOf(false, true)) {
+            val aggregates = dbStorage.exerciseRepository.aggregate(
+                filter, sportTypes, AggregationPeriod.WEEK, AggregationCategory.EQUIPMENT, weekStartSunday)
+
+            val expectedPeriodStart = AggregationPeriod.WEEK.getPeriodStart(LocalDate.now(), weekStartSunday)
+            Assertions.assertEquals(
+                listOf(ExerciseAggregate.Key(expectedPeriodStart, sportType2.equipmentList.first().id)),
+                aggregates.map { it.key })
+        }
+
+        filter.isRegularExpressionMode = false
+        filter.commentSubString = ""
+        for (weekStartSunday in listOf(false, true)) {
+            val aggregates = dbStorage.exerciseRepository.aggregate(
+                filter, sportTypes, AggregationPeriod.WEEK, null, weekStartSunday)
+            Assertions.assertEquals(
+                AggregationPeriod.WEEK.getPeriodStart(LocalDate.now(), weekStartSunday), aggregates[0].key.periodStart)
+        }
+    }
+
+    private fun createExerciseFilter(): EntryFilter {
+        val filter = EntryFilter.createDefaultExerciseFilter()
+        filter.dateStart = LocalDate.now().minusDays(10)
+        filter.dateEnd = LocalDate.now().plusDays(10)
+        return filter
+    }
+
+    private fun findIdsByFilter(
+        filter: EntryFilter,
+        offset: Int = 0,
+        limit: Int = AbstractEntryRepository.NO_LIMIT
+    ): List<Long?> = dbStorage.exerciseRepository.findByFilter(filter, sportTypes, offset, limit).map { it.id }
+
     private fun createExercise(
         sportType: SportType,
         sportSubType: SportSubType,
@@ -1,8 +1,10 @@
 package de.saring.sportstracker.storage.db
 
+import de.saring.sportstracker.data.EntryFilter
 import de.saring.sportstracker.data.Note
 import org.junit.jupiter.api.Assertions
 import org.junit.jupiter.api.Test
+import java.time.LocalDate
 import java.time.LocalDateTime
 
 /**
@@ -67,6 +69,90 @@ class NoteRepositoryTest : DbStorageTestBase() {
         Assertions.assertEquals(note2.id, notes[0].id)
     }
 
+    /**
+     * Test of createAll(): needs to create all notes and return them with generated IDs in the same order.
+     */
+    @Test
+    fun testCreateAll() {
+        val newNotes = listOf("Note 3", "Note 4", "Note 5").map { comment ->
+            Note(null).apply {
+                dateTime = LocalDateTime.now()
+                this.comment = comment
+            }
+        }
+
+        val createdNotes = dbStorage.noteRepository.createAll(newNotes)
+        Assertions.assertEquals(3, createdNotes.size)
+        Assertions.assertEquals(listOf("Note 3", "Note 4", "Note 5"), createdNotes.map { it.comment })
+        Assertions.assertTrue(createdNotes.all { it.id != null })
+        Assertions.assertEquals(5, dbStorage.noteRepository.readAll().size)
+    }
+
+    /**
+     * Test of updateAll(): needs to update all specified notes, will be verified by reading the notes.
+     */
+    @Test
+    fun testUpdateAll() {
+        note1.comment = "Foo"
+        note2.comment = "Bar"
+        dbStorage.noteRepository.updateAll(listOf(note1, note2))
+
+        Assertions.assertEquals("Foo", dbStorage.noteRepository.readById(note1.id!!).comment)
+        Assertions.assertEquals("Bar", dbStorage.noteRepository.readById(note2.id!!).comment)
+    }
+
+    /**
+     * Test of deleteAll(): needs to delete all specified notes, will be verified by reading all notes.
+     */
+    @Test
+    fun testDeleteAll() {
+        val note3 = createNote("Note 3")
+        dbStorage.noteRepository.deleteAll(longArrayOf(note1.id!!, note3.id!!))
+
+        val notes = dbStorage.noteRepository.readAll()
+        Assertions.assertEquals(1, notes.size)
+        Assertions.assertEquals(note2.id, notes[0].id)
+    }
+
+    /**
+     * Test of findByFilter(): needs to filter the comment, also for search strings containing LIKE wildcards or
+     * non-ASCII characters.
+     */
+    @Test
+    fun testFindByFilter() {
+        val note3 = createNote("Finished 50% of the Übung")
+        val filter = EntryFilter.createDefaultExerciseFilter()
+        filter.entryType = EntryFilter.EntryType.NOTE
+        filter.dateStart = LocalDate.now()
+        filter.dateEnd = LocalDate.now()
+
+        Assertions.assertEquals(listOf(note1.id, note2.id, note3.id), findIdsByFilter(filter))
+
+        filter.commentSubString = "0%"
+        Assertions.assertEquals(listOf(note3.id), findIdsByFilter(filter))
+
+        filter.commentSubString = "e_1"
+        Assertions.assertTrue(findIdsByFilter(filter).isEmpty())
+
+        filter.commentSubString = "übung"
+        Assertions.assertEquals(listOf(note3.id), findIdsByFilter(filter))
+    }
+
+    /**
+     * Test of findByFilter(): the filter criteria must be ignored when the filter is for another entry type.
+     */
+    @Test
+    fun testFindByFilterOtherEntryType() {
+        val filter = EntryFilter.createDefaultExerciseFilter()
+        filter.dateStart = LocalDate.now().minusDays(10)
+        filter.dateEnd = LocalDate.now().minusDays(5)
+
+        Assertions.assertEquals(listOf(note1.id, note2.id), findIdsByFilter(filter))
+    }
+
+    private fun findIdsByFilter(filter: EntryFilter): List<Long?> =
+        dbStorage.noteRepository.findByFilter(filter, 0, AbstractEntryRepository.NO_LIMIT).map { it.id }
+
     private fun createNote(comment: String): Note {
         val note = Note(null)
         note.dateTime = LocalDateTime.now()
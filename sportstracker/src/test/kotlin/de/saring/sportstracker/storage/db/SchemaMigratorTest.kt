@@ -0,0 +1,104 @@
+package de.saring.sportstracker.storage.db
+
+import de.saring.sportstracker.core.STException
+import de.saring.sportstracker.core.STExceptionID
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.sql.Connection
+import java.sql.DriverManager
+
+/**
+ * Unit tests of the [SchemaMigrator] class, they are using a SQLite in-memory database with the initial schema.
+ *
+ * @author Stefan Saring
+ */
+class SchemaMigratorTest {
+
+    private lateinit var connection: Connection
+
+    @BeforeEach
+    fun setUp() {
+        connection = DriverManager.getConnection("jdbc:sqlite:" + DbStorage.IN_MEMORY_FILENAME)
+        connection.autoCommit = false
+
+        val schemaText = SchemaMigratorTest::class.java.getResource("/sql/st-schema.sql")!!.readText()
+        connection.createStatement().use { it.executeUpdate(schemaText) }
+        connection.commit()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        connection.close()
+    }
+
+    /**
+     * Test of migrate(): the initial schema must be migrated to the latest version incl. all indexes.
+     */
+    @Test
+    fun testMigrateFromInitialVersion() {
+        val schemaMigrator = SchemaMigrator(connection)
+
+        Assertions.assertEquals(2, schemaMigrator.migrate(SchemaMigrator.INITIAL_SCHEMA_VERSION))
+        Assertions.assertEquals(2, readSchemaVersion())
+        Assertions.assertEquals(
+            listOf(
+                "IDX_EXERCISE_DATE_TIME", "IDX_EXERCISE_EQUIPMENT", "IDX_EXERCISE_SPORT_TYPE",
+                "IDX_NOTE_DATE_TIME", "IDX_WEIGHT_DATE_TIME"
+            ),
+            readIndexNames()
+        )
+    }
+
+    /**
+     * Test of migrate(): nothing must be done when the schema has already the latest version.
+     */
+    @Test
+    fun testMigrateLatestVersion() {
+        val schemaMigrator = SchemaMigrator(connection)
+
+        Assertions.assertEquals(2, schemaMigrator.migrate(2))
+        Assertions.assertEquals(1, readSchemaVersion())
+        Assertions.assertTrue(readIndexNames().isEmpty())
+    }
+
+    /**
+     * Test of migrate(): when a migration fails, then all migrations must be rolled back.
+     */
+    @Test
+    fun testMigrateFailedWithRollback() {
+        val schemaMigrator = SchemaMigrator(
+            connection, listOf(
+                SchemaMigrator.MIGRATIONS[0],
+                SchemaMigrator.SchemaMigration(3, "missing file", "/sql/migration/foo.sql")
+            )
+        )
+
+        val exception = Assertions.assertThrows(STException::class.java) {
+            schemaMigrator.migrate(SchemaMigrator.INITIAL_SCHEMA_VERSION)
+        }
+        Assertions.assertEquals(STExceptionID.DBSTORAGE_MIGRATE_SCHEMA, exception.id)
+        Assertions.assertEquals(1, readSchemaVersion())
+        Assertions.assertTrue(readIndexNames().isEmpty())
+    }
+
+    private fun readSchemaVersion(): Int =
+        connection.prepareStatement("SELECT SCHEMA_VERSION FROM META").use { statement ->
+            val rs = statement.executeQuery()
+            rs.next()
+            rs.getInt(1)
+        }
+
+    private fun readIndexNames(): List<String> =
+        connection.prepareStatement(
+            "SELECT NAME FROM sqlite_master WHERE TYPE = 'index' AND NAME LIKE 'IDX_%' ORDER BY NAME"
+        ).use { statement ->
+            val rs = statement.executeQuery()
+            val names = mutableListOf<String>()
+            while (rs.next()) {
+                names.add(rs.getString(1))
+            }
+            names
+        }
+}
@@ -0,0 +1,92 @@
+package de.saring.sportstracker.storage.db
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.sql.Connection
+import java.sql.DriverManager
+
+/**
+ * Unit tests of the [StatementCache] class, they are using a SQLite in-memory database.
+ *
+ * @author Stefan Saring
+ */
+class StatementCacheTest {
+
+    private lateinit var connection: Connection
+    private lateinit var statementCache: StatementCache
+
+    @BeforeEach
+    fun setUp() {
+        connection = DriverManager.getConnection("jdbc:sqlite:" + DbStorage.IN_MEMORY_FILENAME)
+        statementCache = StatementCache(connection, 2)
+    }
+
+    @AfterEach
+    fun tearDown() {
+        statementCache.close()
+        connection.close()
+    }
+
+    /**
+     * Test of prepareStatement(): the same statement needs to be returned for the same SQL text.
+     */
+    @Test
+    fun testPrepareStatementCached() {
+        val statement1 = statementCache.prepareStatement("SELECT 1")
+        val statement2 = statementCache.prepareStatement("SELECT 1")
+        val statement3 = statementCache.prepareStatement("SELECT 2")
+
+        Assertions.assertSame(statement1, statement2)
+        Assertions.assertNotSame(statement1, statement3)
+        Assertions.assertEquals(1, statementCache.hitCount)
+        Assertions.assertEquals(2, statementCache.missCount)
+        Assertions.assertEquals(2, statementCache.size)
+    }
+
+    /**
+     * Test of prepareStatementWithGeneratedKeys(): it needs to use a different cache entry than the same SQL text
+     * without generated keys.
+     */
+    @Test
+    fun testPrepareStatementWithGeneratedKeys() {
+        val statement1 = statementCache.prepareStatement("SELECT 1")
+        val statement2 = statementCache.prepareStatementWithGeneratedKeys("SELECT 1")
+
+        Assertions.assertNotSame(statement1, statement2)
+        Assertions.assertSame(statement2, statementCache.prepareStatementWithGeneratedKeys("SELECT 1"))
+        Assertions.assertEquals(1, statementCache.hitCount)
+        Assertions.assertEquals(2, statementCache.missCount)
+    }
+
+    /**
+     * Test of the size limit: the least recently used statement needs to be closed and removed.
+     */
+    @Test
+    fun testEvictLeastRecentlyUsed() {
+        val statement1 = statementCache.prepareStatement("SELECT 1")
+        val statement2 = statementCache.prepareStatement("SELECT 2")
+        statementCache.prepareStatement("SELECT 1")
+        statementCache.prepareStatement("SELECT 3")
+
+        Assertions.assertEquals(2, statementCache.size)
+        Assertions.assertFalse(statement1.isClosed)
+        Assertions.assertTrue(statement2.isClosed)
+        Assertions.assertNotSame(statement2, statementCache.prepareStatement("SELECT 2"))
+    }
+
+    /**
+     * Test of close(): all cached statements needs to be closed and removed.
+     */
+    @Test
+    fun testClose() {
+        val statement1 = statementCache.prepareStatement("SELECT 1")
+        val statement2 = statementCache.prepareStatement("SELECT 2")
+        statementCache.close()
+
+        Assertions.assertEquals(0, statementCache.size)
+        Assertions.assertTrue(statement1.isClosed)
+        Assertions.assertTrue(statement2.isClosed)
+    }
+}
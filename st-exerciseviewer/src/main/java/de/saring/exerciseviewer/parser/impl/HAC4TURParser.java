@@ -2,8 +2,6 @@ package de.saring.exerciseviewer.parser.impl;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import de.saring.exerciseviewer.core.EVException;
@@ -11,6 +9,7 @@ import de.saring.exerciseviewer.data.EVExercise;
 import de.saring.exerciseviewer.data.ExerciseAltitude;
 import de.saring.exerciseviewer.data.ExerciseCadence;
 import de.saring.exerciseviewer.data.ExerciseSample;
+import de.saring.exerciseviewer.data.ExerciseSampleColumns;
 import de.saring.exerciseviewer.data.ExerciseSpeed;
 import de.saring.exerciseviewer.data.ExerciseTemperature;
 import de.saring.exerciseviewer.data.HeartRateLimit;
@@ -21,6 +20,7 @@ import de.saring.exerciseviewer.data.LapTemperature;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
+import de.saring.exerciseviewer.parser.UnsignedByteReader;
 
 /**
  * This class implements a parser for the .TUR files which are created with CicloSport HACTronic software.
@@ -60,133 +60,83 @@ public class HAC4TURParser extends AbstractExerciseParser {
     }
 
     /**
-     * Private inner class which is used for reading samples from the file.
+     * Private inner class which is used for reading samples from the file. The values are read directly from
+     * the sample bytes in the file content.
      */
     private static class Sample {
-        private int[] contents = new int[20];
-        private int distance = 0;
-        private int altitude;
-        private int heartRate;
-        private int cadence;
-        private int temperature;
-        private long time;
+        private static final int SIZE = 20;
+
+        private final UnsignedByteReader bytes;
+        private final int offset;
 
         /**
-         * Construct a new sample with the sample bytes. This will initialize
-         * all sample values.
+         * Construct a new sample for the sample bytes at the specified offset.
          */
-        public Sample(int[] contents) throws EVException {
-            if (contents.length != 20) {
+        public Sample(UnsignedByteReader bytes, int offset) throws EVException {
+            if (offset + SIZE > bytes.getSize()) {
                 throw new EVException("Length of a sample should be 20 bytes!");
             }
-            this.contents = contents;
-            initializeValues();
+            this.bytes = bytes;
+            this.offset = offset;
         }
 
         /**
          * distance in kilometers
          */
         public int getDistance() {
-            return distance;
+            return (int) bytes.u32le(offset + 8);
         }
 
         /**
          * altitude in meters
          */
         public int getAltitude() {
-            return altitude;
+            return bytes.u16le(offset + 12);
         }
 
         /**
          * heart rate
          */
         public int getHeartRate() {
-            return heartRate;
+            return bytes.u8(offset + 14);
         }
 
         /**
          * cadence
          */
         public int getCadence() {
-            return cadence;
+            return bytes.u8(offset + 15);
         }
 
         /**
          * time
          */
         public long getTime() {
-            return time;
+            return bytes.u32le(offset);
         }
 
         /**
          * temperature in degrees celcius
          */
         public int getTemperature() {
-            return temperature;
-        }
-
-        private void initializeValues() {
-            this.distance = calculateDistance();
-            this.altitude = calculateAltitude();
-            this.heartRate = calculateHeartRate();
-            this.cadence = calculateCadence();
-            this.temperature = calculateTemperature();
-            this.time = calculateTime();
-        }
-
-        private long calculateTime() {
-            int[] timeBytes = Arrays.copyOfRange(contents, 0, 0 + 4);
-            return (timeBytes[0] & 0xff)
-                    + ((timeBytes[1] << 8) & 0xff00)
-                    + ((timeBytes[2] << 16) & 0xff0000)
-                    + ((timeBytes[3] << 24) & 0xff000000);
-        }
-
-        private int calculateDistance() {
-            int[] distanceBytes = Arrays.copyOfRange(contents, 8, 8 + 4);
-            int distance = 0;
-            for (int theByte = 0; theByte < distanceBytes.length; theByte++) {
-                distance += distanceBytes[theByte] * (int) Math.pow(2, theByte * 8);
-            }
-            return distance;
-        }
-
-        private int calculateAltitude() {
-            int[] altitudeBytes = Arrays.copyOfRange(contents, 12, 12 + 2);
-            int altitude = 0;
-            for (int theByte = 0; theByte < altitudeBytes.length; theByte++) {
-                altitude += altitudeBytes[theByte] * (int) Math.pow(2, theByte * 8);
-            }
-            return altitude;
-        }
-
-        private int calculateHeartRate() {
-            return contents[14];
-        }
-
-        private int calculateCadence() {
-            return contents[15];
-        }
-
-        private int calculateTemperature() {
-            return contents[16];
+            return bytes.u8(offset + 16);
         }
 
         @Override
         public String toString() {
             StringBuilder builder = new StringBuilder();
-            builder.append("distance = ").append(distance).append(", ");
-            builder.append("altitude = ").append(altitude).append(", ");
-            builder.append("HR = ").append(heartRate).append(", ");
-            builder.append("Cadence = ").append(cadence).append(", ");
-            builder.append("Temp = ").append(temperature).append(", ");
-            builder.append("Time (seconds) = ").append(time).append(", ");
+            builder.append("distance = ").append(getDistance()).append(", ");
+            builder.append("altitude = ").append(getAltitude()).append(", ");
+            builder.append("HR = ").append(getHeartRate()).append(", ");
+            builder.append("Cadence = ").append(getCadence()).append(", ");
+            builder.append("Temp = ").append(getTemperature()).append(", ");
+            builder.append("Time (seconds) = ").append(getTime()).append(", ");
             return builder.toString();
         }
     }
 
     private List<String> fileContent;
-    private int[] fileContentsBytes;
+    private UnsignedByteReader fileContentsBytes;
     private int nrOfLinesInNote;
     private int sampleInterval;
 
@@ -202,7 +152,7 @@ public class HAC4TURParser extends AbstractExerciseParser {
         // we'll need both as the tur file contains both text (header)
         // and binary (samples) information.
         fileContent = readFileToStringList(filename);
-        fileContentsBytes = readFileToByteArray(filename);
+        fileContentsBytes = readFileToByteReader(filename);
 
         // Create a new exercise file and give it the right type
         EVExercise exercise = new EVExercise(EVExercise.ExerciseFileType.HAC4TUR);
@@ -251,9 +201,9 @@ public class HAC4TURParser extends AbstractExerciseParser {
         exercise.setRecordingInterval((short) sampleInterval);
 
         // read all samples
-        exercise.setSampleList(readSamples(
+        readSamples(exercise.getSampleColumns(),
                 FilePosition.NR_SAMPLES + nrOfLinesInNote,
-                FilePosition.BEGIN_SAMPLES + nrOfLinesInNote));
+                FilePosition.BEGIN_SAMPLES + nrOfLinesInNote);
 
         // now that we have the samples, other values can be calculated.
         exercise.setAltitude(calculateAltitudes(exercise));
@@ -433,23 +383,21 @@ public class HAC4TURParser extends AbstractExerciseParser {
             lengthUntilSamples += fileContent.get(i).length() + 1;
 
         // start reading samples
-        int[] firstSampleBytes = Arrays.copyOfRange(fileContentsBytes, lengthUntilSamples, lengthUntilSamples + 20);
-        int[] secondSampleBytes = Arrays.copyOfRange(fileContentsBytes, lengthUntilSamples + 20, lengthUntilSamples + 40);
-        Sample firstSample = new Sample(firstSampleBytes);
-        Sample secondSample = new Sample(secondSampleBytes);
+        Sample firstSample = new Sample(fileContentsBytes, lengthUntilSamples);
+        Sample secondSample = new Sample(fileContentsBytes, lengthUntilSamples + Sample.SIZE);
         return (int) (secondSample.getTime() - firstSample.getTime());
     }
 
     /**
      * Reads the raw sample data. This uses the private inner Sample class for
-     * temporary storing the samples. It parses the number of samples and the sample
+     * reading the sample bytes. It parses the number of samples and the sample
      * data from the specified file positions.
      *
+     * @param samples the sample columns of the exercise to add the samples to
      * @param fpNrSamples file position for the number of samples
      * @param fpBeginSamples file position for the begin of sample data
-     * @return the created list of exercise samples
      */
-    private List<ExerciseSample> readSamples(int fpNrSamples, int fpBeginSamples) throws EVException {
+    private void readSamples(ExerciseSampleColumns samples, int fpNrSamples, int fpBeginSamples) throws EVException {
 
         int nrSamples = readInteger(fpNrSamples);
         // find length of all strings to this point
@@ -459,33 +407,23 @@ public class HAC4TURParser extends AbstractExerciseParser {
         }
 
         // start reading samples
-        List<Sample> samples = new ArrayList<>();
-        for (int i = 0; i < nrSamples; i++) {
-            int startFrom = lengthUntilSamples + (i * 20);
-            int[] sampleBytes = Arrays.copyOfRange(fileContentsBytes, startFrom, startFrom + 20);
-            samples.add(new Sample(sampleBytes));
-        }
-
-        List<ExerciseSample> eSamples = new ArrayList<>();
         int previousDistance = 0;
-        long firstTimestamp = nrSamples > 0 ? samples.get(0).getTime() : 0;
+        long firstTimestamp = nrSamples > 0 ? new Sample(fileContentsBytes, lengthUntilSamples).getTime() : 0;
+        samples.ensureCapacity(nrSamples);
 
         for (int i = 0; i < nrSamples; i++) {
-            Sample sample = samples.get(i);
-            ExerciseSample eSample = new ExerciseSample();
-            eSamples.add(eSample);
-            eSample.setTimestamp((sample.getTime() - firstTimestamp) * 1000L);
-            eSample.setHeartRate((short) sample.getHeartRate());
-            eSample.setAltitude((short) sample.getAltitude());
-            eSample.setCadence((short) sample.getCadence());
+            Sample sample = new Sample(fileContentsBytes, lengthUntilSamples + (i * Sample.SIZE));
+            int index = samples.addSample();
+            samples.setTimestamp(index, (sample.getTime() - firstTimestamp) * 1000L);
+            samples.setHeartRate(index, (short) sample.getHeartRate());
+            samples.setAltitude(index, (short) sample.getAltitude());
+            samples.setCadence(index, (short) sample.getCadence());
             int distanceDiff = sample.getDistance() - previousDistance;
             previousDistance = sample.getDistance();
-            eSample.setDistance(sample.getDistance() * 10);
-            eSample.setSpeed(((float) distanceDiff / (float) sampleInterval) * (float) 3.6 * 10f);
-            eSample.setTemperature((short) sample.getTemperature());
+            samples.setDistance(index, sample.getDistance() * 10);
+            samples.setSpeed(index, ((float) distanceDiff / (float) sampleInterval) * (float) 3.6 * 10f);
+            samples.setTemperature(index, (short) sample.getTemperature());
         }
-
-        return eSamples;
     }
 
     /**
@@ -5,7 +5,7 @@ import java.util.List;
 
 import de.saring.exerciseviewer.core.EVException;
 import de.saring.exerciseviewer.data.EVExercise;
-import de.saring.exerciseviewer.data.ExerciseSample;
+import de.saring.exerciseviewer.data.ExerciseSampleColumns;
 import de.saring.exerciseviewer.data.ExerciseSpeed;
 import de.saring.exerciseviewer.data.HeartRateLimit;
 import de.saring.exerciseviewer.data.Lap;
@@ -13,6 +13,7 @@ import de.saring.exerciseviewer.data.LapSpeed;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
+import de.saring.exerciseviewer.parser.UnsignedByteReader;
 import de.saring.util.unitcalc.ConvertUtils;
 
 /**
@@ -43,11 +44,11 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
     /**
      * The binary data of the exercise file.
      */
-    private int[] fileContent;
+    private UnsignedByteReader fileContent;
     /**
-     * section data
+     * section data (the sections are parts of the file content, not copies)
      */
-    private int[][] s;
+    private UnsignedByteReader[] s;
 
 
     @Override
@@ -62,12 +63,12 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         if (section >= s.length) {
             throw new EVException(String.format("Error! Section %d does not exist", section));
         }
-        if (index >= s[section].length) {
+        if (index >= s[section].getSize()) {
             throw new EVException(String.format("Error! Byte %d in section %d does not exist (%d)",
-                    index, section, s[section].length));
+                    index, section, s[section].getSize()));
         }
 
-        return s[section][index];
+        return s[section].u8(index);
     }
 
     @Override
@@ -76,7 +77,7 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         short[] interval = {5, 15, 30, 60, 120, 240, 300, 480};
 
         // read binary file content to array
-        fileContent = readFileToByteArray(filename);
+        fileContent = readFileToByteReader(filename);
 
         // create an PVExercise object from this data and set file type
         // TODO - support S410 and S520
@@ -84,30 +85,29 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         exercise.setDeviceName("Polar S4xx/S5xx Series");
 
         // get bytes in file
-        int bytesInFile = (fileContent[1] * 0x100) + fileContent[0];
-        if (bytesInFile != fileContent.length) {
+        int bytesInFile = fileContent.u16le(0);
+        if (bytesInFile != fileContent.getSize()) {
             throw new EVException("The exercise file is not valid, the file length is not correct ...");
         }
 
         // get data bytes
         int bytesInData = bytesInFile - 2;
-        int[] data = new int[bytesInData];
-        System.arraycopy(fileContent, 2, data, 0, bytesInData);
+        UnsignedByteReader data = fileContent.slice(2, bytesInData);
 
         // process data
         int ii = 0;
         int sectionIx = 0;
         int sectionsInData = 0;
-        s = new int[1][1];
+        s = new UnsignedByteReader[0];
 
         while (ii < bytesInData) {
             if (sectionIx == 0) {
                 // get first section
-                if (data[0] == 85) {
-                    sectionsInData = data[3];
+                if (data.u8(0) == 85) {
+                    sectionsInData = data.u8(3);
 
                     // alloc mem
-                    s = new int[sectionsInData + 1][];
+                    s = new UnsignedByteReader[sectionsInData + 1];
 
                     // ok, first section read, continue
                     sectionIx++;
@@ -118,18 +118,15 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
                 }
             } else {
                 // find new section
-                if (data[ii] == 85) {
+                if (data.u8(ii) == 85) {
                     // check section number
-                    if (data[ii + 1] != sectionIx) {
+                    if (data.u8(ii + 1) != sectionIx) {
                         throw new EVException("Wrong section index in file");
                     }
 
-                    // allocate memory for this section
-                    int sectionLength = data[ii + 2];
-                    s[sectionIx] = new int[sectionLength];
-
-                    // set data in sections array (s) 
-                    System.arraycopy(data, ii + 3, s[sectionIx], 0, sectionLength);
+                    // set section data in sections array (s)
+                    int sectionLength = data.u8(ii + 2);
+                    s[sectionIx] = data.slice(ii + 3, sectionLength);
 
                     //System.out.format(">>> new section #%d(%d) found at %d with %d bytes\n", 
                     //        sectionIx, sectionsInData, ii, sectionLength);
@@ -145,7 +142,7 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
             if ((sectionIx - 1) != sectionsInData) {
                 throw new EVException("Could not find all sections");
             }
-            if (data[ii] != 7) {
+            if (data.u8(ii) != 7) {
                 throw new EVException("Could not find no-more-sections byte in file");
             }
             // ok, all set
@@ -179,10 +176,10 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         }
 
         // get exercise date
-        int dateSeconds = decodeBCD(sdata(1, 10));
-        int dateMinutes = decodeBCD(sdata(1, 11));
-        int dateHours = decodeBCD(sdata(1, 12) & 0x7f);
-        int dateDay = decodeBCD(sdata(1, 13) & 0x7f);
+        int dateSeconds = UnsignedByteReader.decodeBCD(sdata(1, 10));
+        int dateMinutes = UnsignedByteReader.decodeBCD(sdata(1, 11));
+        int dateHours = UnsignedByteReader.decodeBCD(sdata(1, 12) & 0x7f);
+        int dateDay = UnsignedByteReader.decodeBCD(sdata(1, 13) & 0x7f);
         int dateYear = (2000 + sdata(1, 14));
         int dateMonth = sdata(1, 15) & 0x0f;
 
@@ -195,9 +192,9 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
 
         // get duration
         int durationTenthSeconds = (sdata(1, 15) >> 4);
-        int durationSeconds = decodeBCD(sdata(1, 16));
-        int durationMinutes = decodeBCD(sdata(1, 17));
-        int durationHours = decodeBCD(sdata(1, 18));
+        int durationSeconds = UnsignedByteReader.decodeBCD(sdata(1, 16));
+        int durationMinutes = UnsignedByteReader.decodeBCD(sdata(1, 17));
+        int durationHours = UnsignedByteReader.decodeBCD(sdata(1, 18));
         exercise.setDuration((durationHours * 60 * 60 * 10) + (durationMinutes * 60 * 10) + durationSeconds * 10 + durationTenthSeconds);
 
         // get heartrate data
@@ -205,8 +202,8 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         exercise.setHeartRateMax((short) sdata(1, 20));
 
         // get number of laps
-        int numberOfMeas = decodeBCD(sdata(1, 21));
-        int numberOfLaps = decodeBCD(sdata(1, 22));
+        int numberOfMeas = UnsignedByteReader.decodeBCD(sdata(1, 21));
+        int numberOfLaps = UnsignedByteReader.decodeBCD(sdata(1, 22));
 
         // get unit format from bit 1 of byte 25
         // => 0 = metric, 1 = english
@@ -252,33 +249,33 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         }
 
         // get energy (in kCal)
-        int energyPart1 = decodeBCD(sdata(1, 69 + 0));
-        int energyPart2 = decodeBCD(sdata(1, 69 + 1));
-        int energyPart3 = decodeBCD(sdata(1, 69 + 2));
+        int energyPart1 = UnsignedByteReader.decodeBCD(sdata(1, 69 + 0));
+        int energyPart2 = UnsignedByteReader.decodeBCD(sdata(1, 69 + 1));
+        int energyPart3 = UnsignedByteReader.decodeBCD(sdata(1, 69 + 2));
         exercise.setEnergy((energyPart1 + (energyPart2 * 100) + (energyPart3 * 10000)) / 10);
 
         // get total energy (in kCal)
-        int energyTotalPart1 = decodeBCD(sdata(1, 72 + 0));
-        int energyTotalPart2 = decodeBCD(sdata(1, 72 + 1));
-        int energyTotalPart3 = decodeBCD(sdata(1, 72 + 2));
+        int energyTotalPart1 = UnsignedByteReader.decodeBCD(sdata(1, 72 + 0));
+        int energyTotalPart2 = UnsignedByteReader.decodeBCD(sdata(1, 72 + 1));
+        int energyTotalPart3 = UnsignedByteReader.decodeBCD(sdata(1, 72 + 2));
         exercise.setEnergyTotal(energyTotalPart1 + (energyTotalPart2 * 100) + (energyTotalPart3 * 10000));
 
         // get cumulative workout time
-        int cumWorkoutPart1 = decodeBCD(sdata(1, 75 + 0));
-        int cumWorkoutPart2 = decodeBCD(sdata(1, 75 + 1));
-        int cumWorkoutPart3 = decodeBCD(sdata(1, 75 + 2));
+        int cumWorkoutPart1 = UnsignedByteReader.decodeBCD(sdata(1, 75 + 0));
+        int cumWorkoutPart2 = UnsignedByteReader.decodeBCD(sdata(1, 75 + 1));
+        int cumWorkoutPart3 = UnsignedByteReader.decodeBCD(sdata(1, 75 + 2));
         exercise.setSumExerciseTime(cumWorkoutPart3 + (cumWorkoutPart1 * 60) + (cumWorkoutPart2 * 60 * 100));
 
         // get cumulative ride time
-        int cumRidePart1 = decodeBCD(sdata(1, 78 + 0));
-        int cumRidePart2 = decodeBCD(sdata(1, 78 + 1));
-        int cumRidePart3 = decodeBCD(sdata(1, 78 + 2));
+        int cumRidePart1 = UnsignedByteReader.decodeBCD(sdata(1, 78 + 0));
+        int cumRidePart2 = UnsignedByteReader.decodeBCD(sdata(1, 78 + 1));
+        int cumRidePart3 = UnsignedByteReader.decodeBCD(sdata(1, 78 + 2));
         exercise.setSumRideTime(cumRidePart3 + (cumRidePart1 * 60) + (cumRidePart2 * 60 * 100));
 
         // get odometer
-        int odometerPart1 = decodeBCD(sdata(1, 81 + 0));
-        int odometerPart2 = decodeBCD(sdata(1, 81 + 1));
-        int odometerPart3 = decodeBCD(sdata(1, 81 + 2));
+        int odometerPart1 = UnsignedByteReader.decodeBCD(sdata(1, 81 + 0));
+        int odometerPart2 = UnsignedByteReader.decodeBCD(sdata(1, 81 + 1));
+        int odometerPart3 = UnsignedByteReader.decodeBCD(sdata(1, 81 + 2));
         int odometer = odometerPart1 + (odometerPart2 * 100) + (odometerPart3 * 10000);
         if (fMetricUnits) {
             exercise.setOdometer(odometer);
@@ -341,9 +338,9 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         int lapseccnt = (int) (((double) (numberOfMeas * lapSize) / 60) + .9999);
 
         // check section size
-        if (s[lapsec + lapseccnt - 1].length != (numberOfMeas * lapSize) % 60) {
+        if (s[lapsec + lapseccnt - 1].getSize() != (numberOfMeas * lapSize) % 60) {
             throw new EVException(String.format("Lap-data section (%d) has wrong size (%d instead of %d)",
-                    lapsec + lapseccnt - 1, s[lapsec + lapseccnt - 1].length, (numberOfMeas * lapSize) % 60));
+                    lapsec + lapseccnt - 1, s[lapsec + lapseccnt - 1].getSize(), (numberOfMeas * lapSize) % 60));
         }
 
         // process all laps
@@ -402,14 +399,15 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         int hrsec = 3;
         int spdsec = 4 + (numberOfSamples - 1) / 60;
 
-        // create sample list => process all recorded samples
+        // create samples => process all recorded samples
+        ExerciseSampleColumns samples = exercise.getSampleColumns();
+        samples.ensureCapacity(numberOfSamples);
         for (int i = 0; i < numberOfSamples; i++) {
-            ExerciseSample exeSample = new ExerciseSample();
-            exeSample.setTimestamp(i * exercise.getRecordingInterval() * 1000L);
-            exercise.getSampleList().add(exeSample);
+            samples.addSample();
+            samples.setTimestamp(i, i * exercise.getRecordingInterval() * 1000L);
 
             // get sample heartrate
-            exeSample.setHeartRate((short) sdata(hrsec, i));
+            samples.setHeartRate(i, (short) sdata(hrsec, i));
 
             // get bicycle related data (if recorded)
             if (recMode.isSpeed()) {
@@ -417,9 +415,9 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
                 // get sample speed
                 float sampleSpeed = (float) (sdata(spdsec, i)) / 2f;
                 if (fMetricUnits) {
-                    exeSample.setSpeed(sampleSpeed);
+                    samples.setSpeed(i, sampleSpeed);
                 } else {
-                    exeSample.setSpeed((float) ConvertUtils.convertMiles2Kilometer(sampleSpeed));
+                    samples.setSpeed(i, (float) ConvertUtils.convertMiles2Kilometer(sampleSpeed));
                 }
             }
         }
@@ -431,10 +429,10 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
             double distanceAccum = 0f;
 
             // process all recorded samples
-            for (ExerciseSample exeSample : exercise.getSampleList()) {
+            for (int i = 0; i < samples.getSize(); i++) {
                 // compute sample distance (it's not recorded)
-                exeSample.setDistance((int) distanceAccum);
-                distanceAccum += (exeSample.getSpeed() * exercise.getRecordingInterval()) / 3.6f;
+                samples.setDistance(i, (int) distanceAccum);
+                distanceAccum += (samples.getSpeed(i) * exercise.getRecordingInterval()) / 3.6f;
             }
         }
 
@@ -470,17 +468,6 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         };
     }
 
-    /**
-     * Decodes a BCD "byte" (in Polar format) to normal int value.
-     *
-     * @param value BCD "byte" to decode
-     * @return normal int value of BCD value
-     */
-    private int decodeBCD(int value) {
-        // (upper 4 bits * 10) + lower 4 bits
-        return ((value >> 4) * 10) + (value & 0x0f);
-    }
-
     /**
      * This method decodes the data for a HeartRateLimit object (limits and times
      * below, within and above) and returns it.
@@ -493,17 +480,17 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         short lowerHeartRate = (short) sdata(1, offsetLimits + 0);
         short upperHeartRate = (short) sdata(1, offsetLimits + 1);
 
-        int hrLimitBelowSecs = decodeBCD(sdata(1, offsetTimes + 0));
-        hrLimitBelowSecs += decodeBCD(sdata(1, offsetTimes + 1)) * 60;
-        hrLimitBelowSecs += decodeBCD(sdata(1, offsetTimes + 2)) * 60 * 60;
+        int hrLimitBelowSecs = UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 0));
+        hrLimitBelowSecs += UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 1)) * 60;
+        hrLimitBelowSecs += UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 2)) * 60 * 60;
 
-        int hrLimitWithinSecs = decodeBCD(sdata(1, offsetTimes + 3));
-        hrLimitWithinSecs += decodeBCD(sdata(1, offsetTimes + 4)) * 60;
-        hrLimitWithinSecs += decodeBCD(sdata(1, offsetTimes + 5)) * 60 * 60;
+        int hrLimitWithinSecs = UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 3));
+        hrLimitWithinSecs += UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 4)) * 60;
+        hrLimitWithinSecs += UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 5)) * 60 * 60;
 
-        int hrLimitAboveSecs = decodeBCD(sdata(1, offsetTimes + 6));
-        hrLimitAboveSecs += decodeBCD(sdata(1, offsetTimes + 7)) * 60;
-        hrLimitAboveSecs += decodeBCD(sdata(1, offsetTimes + 8)) * 60 * 60;
+        int hrLimitAboveSecs = UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 6));
+        hrLimitAboveSecs += UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 7)) * 60;
+        hrLimitAboveSecs += UnsignedByteReader.decodeBCD(sdata(1, offsetTimes + 8)) * 60 * 60;
 
         return new HeartRateLimit(lowerHeartRate, upperHeartRate,
                 hrLimitBelowSecs, hrLimitWithinSecs, hrLimitAboveSecs, true);
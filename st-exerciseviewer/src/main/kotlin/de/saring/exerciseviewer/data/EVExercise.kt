@@ -27,7 +27,7 @@ import java.time.LocalDateTime
  * @property sportTypeFit FIT-protocol specific sport type and subtype info (optional).
  * @property heartRateLimits List of heartrate limit data (can be more then one).
  * @property lapList List containing the data of all exercise laps.
- * @property sampleList List containing the data of all recorded exercise samples (for each interval).
+ * @property sampleColumns Columnar storage of all recorded exercise samples (for each interval).
  *
  * @author Stefan Saring
  */
@@ -56,8 +56,24 @@ data class EVExercise(
 
     var heartRateLimits: MutableList<HeartRateLimit> = mutableListOf(),
     var lapList: MutableList<Lap> = mutableListOf(),
-    var sampleList: MutableList<ExerciseSample> = mutableListOf())
+    val sampleColumns: ExerciseSampleColumns = ExerciseSampleColumns())
 {
+    /**
+     * List containing the data of all recorded exercise samples (for each interval). It's a compatibility view of
+     * the [sampleColumns], setting a new list replaces all the stored samples.
+     */
+    var sampleList: MutableList<ExerciseSample>
+        get() = sampleColumns.sampleList
+        set(value) = sampleColumns.setAll(value)
+
+    /**
+     * Creates the index of the current samples by timestamp, e.g. for correlating laps and samples.
+     * The index must be created again after modifications of the samples.
+     *
+     * @return the sample index
+     */
+    fun createSampleIndex() = ExerciseSampleIndex(sampleColumns)
+
     /**
      * Secondary constructor for easier creation of instances from Java code, otherwise all attributes needs to get passed.
      *
@@ -104,12 +120,12 @@ data class EVExercise(
         }
 
         // calculate relation of exercise distance to last sample distance
-        val (_, _, _, _, _, _, distance) = this.sampleList[this.sampleList.size - 1]
-        val fRelation = distance!! / this.speed!!.distance.toDouble()
+        val samples = this.sampleColumns
+        val fRelation = samples.getDistanceOrNull(samples.size - 1)!! / this.speed!!.distance.toDouble()
 
         // process all samples and recalculate the sample distance in relation to exercise distance
-        for (sample in this.sampleList) {
-            sample.distance = Math.round(sample.distance!! / fRelation).toInt()
+        for (index in 0 until samples.size) {
+            samples.setDistance(index, Math.round(samples.getDistanceOrNull(index)!! / fRelation).toInt())
         }
     }
 
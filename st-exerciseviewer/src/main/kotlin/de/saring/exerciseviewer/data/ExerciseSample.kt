@@ -1,9 +1,21 @@
 package de.saring.exerciseviewer.data
 
+import de.saring.exerciseviewer.data.ExerciseSampleColumns.Channel
+import java.util.ConcurrentModificationException
+
 /**
- * This data class contains all the information recorded at each interval. All the attributes are optional,
+ * This class contains all the information recorded at each interval. All the attributes are optional,
  * it depends on the file type (or heartrate monitor model) whether the data is available or not.
  *
+ * The samples of an exercise are stored in [ExerciseSampleColumns], this class is the compatibility view of a single
+ * sample. A new sample stores its values by itself (unbound) until it gets added to the sample list of an exercise.
+ * Then it's bound to the sample row in the columns, all values are read from and written to the columns. A bound
+ * sample throws a ConcurrentModificationException on access when sample rows have been inserted, removed or cleared
+ * in the columns after binding, because its row index is not valid anymore.
+ *
+ * This class is not a data class anymore (the values of bound samples are not stored in properties), but it still
+ * provides the data class API: [copy], the componentN() functions and the value-based [equals] and [hashCode].
+ *
  * @property timestamp Timestamp since exercise start of this sample (in 1/1000 sec).
  * @property heartRate Heartrate at record moment.
  * @property altitude Altitude at record moment.
@@ -16,14 +28,184 @@ package de.saring.exerciseviewer.data
  *
  * @author Stefan Saring
  */
-data class ExerciseSample(
-
-        var timestamp: Long? = null,
-        var heartRate: Short? = null,
-        var altitude: Short? = null,
-        var speed: Float? = null,
-        var cadence: Short? = null,
-        var power: Short? = null,
-        var distance: Int? = null,
-        var temperature: Short? = null,
-        var position: Position? = null)
+class ExerciseSample(
+        timestamp: Long? = null,
+        heartRate: Short? = null,
+        altitude: Short? = null,
+        speed: Float? = null,
+        cadence: Short? = null,
+        power: Short? = null,
+        distance: Int? = null,
+        temperature: Short? = null,
+        position: Position? = null) {
+
+    // the columns, row index and structure version of the columns of a bound sample (the own values are null then)
+    private var boundColumns: ExerciseSampleColumns? = null
+    private var index = -1
+    private var structureVersion = 0
+
+    /** The columns of a bound sample (null when unbound), it checks whether the row index is still valid. */
+    private val columns: ExerciseSampleColumns?
+        get() = boundColumns?.also {
+            if (it.structureVersion != structureVersion) {
+                throw ConcurrentModificationException(
+                        "The sample rows have been moved or removed, this sample must not be used anymore!")
+            }
+        }
+
+    /** Flag whether this sample is bound to a sample row in columns. */
+    val isBound: Boolean
+        get() = boundColumns != null
+
+    var timestamp: Long? = timestamp
+        get() = columns?.getTimestampOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.TIMESTAMP, value) { setTimestamp(index, it) }) field = value
+        }
+
+    var heartRate: Short? = heartRate
+        get() = columns?.getHeartRateOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.HEART_RATE, value) { setHeartRate(index, it) }) field = value
+        }
+
+    var altitude: Short? = altitude
+        get() = columns?.getAltitudeOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.ALTITUDE, value) { setAltitude(index, it) }) field = value
+        }
+
+    var speed: Float? = speed
+        get() = columns?.getSpeedOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.SPEED, value) { setSpeed(index, it) }) field = value
+        }
+
+    var cadence: Short? = cadence
+        get() = columns?.getCadenceOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.CADENCE, value) { setCadence(index, it) }) field = value
+        }
+
+    var power: Short? = power
+        get() = columns?.getPowerOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.POWER, value) { setPower(index, it) }) field = value
+        }
+
+    var distance: Int? = distance
+        get() = columns?.getDistanceOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.DISTANCE, value) { setDistance(index, it) }) field = value
+        }
+
+    var temperature: Short? = temperature
+        get() = columns?.getTemperatureOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.TEMPERATURE, value) { setTemperature(index, it) }) field = value
+        }
+
+    var position: Position? = position
+        get() = columns?.getPositionOrNull(index) ?: field
+        set(value) {
+            if (!setBoundValue(Channel.POSITION, value) { setPosition(index, it.latitude, it.longitude) }) {
+                field = value
+            }
+        }
+
+    /**
+     * Binds this sample to the specified row of the columns, the values must have been copied to the row before.
+     * Nothing happens when this sample is already bound.
+     */
+    internal fun bindTo(columns: ExerciseSampleColumns, index: Int) {
+        if (boundColumns == null) {
+            clearOwnValues()
+            bind(columns, index)
+        }
+    }
+
+    private fun bind(columns: ExerciseSampleColumns, index: Int) {
+        this.boundColumns = columns
+        this.index = index
+        this.structureVersion = columns.structureVersion
+    }
+
+    private fun clearOwnValues() {
+        // the property getters use the own values as fallback, so the backing fields must be reset
+        timestamp = null
+        heartRate = null
+        altitude = null
+        speed = null
+        cadence = null
+        power = null
+        distance = null
+        temperature = null
+        position = null
+    }
+
+    /**
+     * Sets the specified value in the bound sample row (or removes it when null).
+     *
+     * @return false when this sample is not bound, the value needs to be stored in the backing field then
+     */
+    private inline fun <T> setBoundValue(
+            channel: Channel, value: T?, setter: ExerciseSampleColumns.(T) -> Unit): Boolean {
+        val boundColumns = columns ?: return false
+        if (value != null) boundColumns.setter(value) else boundColumns.clearValue(channel, index)
+        return true
+    }
+
+    /**
+     * Returns a new unbound copy of this sample with the specified changes.
+     */
+    fun copy(
+            timestamp: Long? = this.timestamp,
+            heartRate: Short? = this.heartRate,
+            altitude: Short? = this.altitude,
+            speed: Float? = this.speed,
+            cadence: Short? = this.cadence,
+            power: Short? = this.power,
+            distance: Int? = this.distance,
+            temperature: Short? = this.temperature,
+            position: Position? = this.position) =
+            ExerciseSample(timestamp, heartRate, altitude, speed, cadence, power, distance, temperature, position)
+
+    operator fun component1() = timestamp
+    operator fun component2() = heartRate
+    operator fun component3() = altitude
+    operator fun component4() = speed
+    operator fun component5() = cadence
+    operator fun component6() = power
+    operator fun component7() = distance
+    operator fun component8() = temperature
+    operator fun component9() = position
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is ExerciseSample) return false
+        return timestamp == other.timestamp &&
+                heartRate == other.heartRate &&
+                altitude == other.altitude &&
+                speed == other.speed &&
+                cadence == other.cadence &&
+                power == other.power &&
+                distance == other.distance &&
+                temperature == other.temperature &&
+                position == other.position
+    }
+
+    override fun hashCode(): Int =
+            listOf(timestamp, heartRate, altitude, speed, cadence, power, distance, temperature, position).hashCode()
+
+    override fun toString(): String =
+            "ExerciseSample(timestamp=$timestamp, heartRate=$heartRate, altitude=$altitude, speed=$speed, " +
+                    "cadence=$cadence, power=$power, distance=$distance, temperature=$temperature, position=$position)"
+
+    internal companion object {
+
+        /**
+         * Creates a sample which is bound to the specified row of the columns.
+         */
+        fun bound(columns: ExerciseSampleColumns, index: Int) = ExerciseSample().apply { bind(columns, index) }
+    }
+}
@@ -0,0 +1,453 @@
+package de.saring.exerciseviewer.data
+
+import java.util.BitSet
+import java.util.Objects
+
+/**
+ * Columnar storage of all recorded samples of an exercise. Each sample attribute (channel) is stored in a primitive
+ * array, the presence of the optional values is stored in a BitSet per channel. So there are no boxed values and no
+ * objects per sample, large exercises (e.g. 6 hours with 1 second recording interval) need only a fraction of the
+ * memory of a list of [ExerciseSample] objects and can be processed much faster.
+ *
+ * Parsers append new samples by [addSample] and set the values by the sample index, the GUI panels read the values
+ * by the sample index. The values of a channel are only valid when they are present (see [has]).
+ *
+ * The [sampleList] is a compatibility view for the existing [ExerciseSample] consumers. Its elements are bound to the
+ * sample rows of this storage, changes of the element values are written to the storage. The index of a bound
+ * element is not updated when samples are inserted, removed or cleared, so the elements must not be used after
+ * such modifications. Each of them increments the [structureVersion], the bound elements check it on each access
+ * and throw a ConcurrentModificationException when it has changed. Appending samples does not move any rows, so
+ * the bound elements stay valid.
+ *
+ * @param initialCapacity initial number of samples which can be stored without resizing the arrays
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleColumns(initialCapacity: Int = DEFAULT_CAPACITY) {
+
+    /**
+     * List of all channels (sample attributes) stored in the columns.
+     */
+    enum class Channel {
+        TIMESTAMP,
+        HEART_RATE,
+        ALTITUDE,
+        SPEED,
+        CADENCE,
+        POWER,
+        DISTANCE,
+        TEMPERATURE,
+        POSITION
+    }
+
+    /** Number of stored samples. */
+    var size = 0
+        private set
+
+    private var capacity = maxOf(initialCapacity, 1)
+
+    private var timestamps = LongArray(capacity)
+    private var heartRates = ShortArray(capacity)
+    private var altitudes = ShortArray(capacity)
+    private var speeds = FloatArray(capacity)
+    private var cadences = ShortArray(capacity)
+    private var powers = ShortArray(capacity)
+    private var distances = IntArray(capacity)
+    private var temperatures = ShortArray(capacity)
+    private var latitudes = DoubleArray(capacity)
+    private var longitudes = DoubleArray(capacity)
+
+    private val presence = Array(Channel.values().size) { BitSet() }
+
+    /** Compatibility view of all samples as a list of [ExerciseSample] objects, see class description. */
+    val sampleList: MutableList<ExerciseSample> = SampleListView()
+
+    /** Counter of the modifications which move or remove sample rows (insert, remove and clear). */
+    internal var structureVersion = 0
+        private set
+
+    fun isEmpty() = size == 0
+
+    /**
+     * Makes sure that the specified number of samples can be stored without resizing the arrays.
+     *
+     * @param minCapacity the minimum number of samples
+     */
+    fun ensureCapacity(minCapacity: Int) {
+        if (minCapacity > capacity) {
+            capacity = maxOf(minCapacity, capacity * 2)
+            timestamps = timestamps.copyOf(capacity)
+            heartRates = heartRates.copyOf(capacity)
+            altitudes = altitudes.copyOf(capacity)
+            speeds = speeds.copyOf(capacity)
+            cadences = cadences.copyOf(capacity)
+            powers = powers.copyOf(capacity)
+            distances = distances.copyOf(capacity)
+            temperatures = temperatures.copyOf(capacity)
+            latitudes = latitudes.copyOf(capacity)
+            longitudes = longitudes.copyOf(capacity)
+        }
+    }
+
+    /**
+     * Appends a new sample without any values.
+     *
+     * @return the index of the new sample
+     */
+    fun addSample(): Int {
+        ensureCapacity(size + 1)
+        return size++
+    }
+
+    /**
+     * Appends a new sample with all the values of the specified sample.
+     *
+     * @param sample the sample to copy
+     * @return the index of the new sample
+     */
+    fun addSample(sample: ExerciseSample): Int {
+        val index = addSample()
+        setValues(index, sample)
+        return index
+    }
+
+    /**
+     * Inserts a new sample without any values at the specified index, all following samples are moved.
+     *
+     * @param index the index of the new sample
+     */
+    fun insertSample(index: Int) {
+        Objects.checkIndex(index, size + 1)
+        ensureCapacity(size + 1)
+        val moveCount = size - index
+        System.arraycopy(timestamps, index, timestamps, index + 1, moveCount)
+        System.arraycopy(heartRates, index, heartRates, index + 1, moveCount)
+        System.arraycopy(altitudes, index, altitudes, index + 1, moveCount)
+        System.arraycopy(speeds, index, speeds, index + 1, moveCount)
+        System.arraycopy(cadences, index, cadences, index + 1, moveCount)
+        System.arraycopy(powers, index, powers, index + 1, moveCount)
+        System.arraycopy(distances, index, distances, index + 1, moveCount)
+        System.arraycopy(temperatures, index, temperatures, index + 1, moveCount)
+        System.arraycopy(latitudes, index, latitudes, index + 1, moveCount)
+        System.arraycopy(longitudes, index, longitudes, index + 1, moveCount)
+        presence.forEach { moveBits(it, index, 1) }
+        size++
+        structureVersion++
+    }
+
+    /**
+     * Removes the sample at the specified index, all following samples are moved.
+     *
+     * @param index the index of the sample to remove
+     */
+    fun removeSample(index: Int) {
+        checkIndex(index)
+        val moveCount = size - index - 1
+        System.arraycopy(timestamps, index + 1, timestamps, index, moveCount)
+        System.arraycopy(heartRates, index + 1, heartRates, index, moveCount)
+        System.arraycopy(altitudes, index + 1, altitudes, index, moveCount)
+        System.arraycopy(speeds, index + 1, speeds, index, moveCount)
+        System.arraycopy(cadences, index + 1, cadences, index, moveCount)
+        System.arraycopy(powers, index + 1, powers, index, moveCount)
+        System.arraycopy(distances, index + 1, distances, index, moveCount)
+        System.arraycopy(temperatures, index + 1, temperatures, index, moveCount)
+        System.arraycopy(latitudes, index + 1, latitudes, index, moveCount)
+        System.arraycopy(longitudes, index + 1, longitudes, index, moveCount)
+        presence.forEach { moveBits(it, index + 1, -1) }
+        size--
+        structureVersion++
+    }
+
+    /**
+     * Removes all samples.
+     */
+    fun clear() {
+        presence.forEach { it.clear() }
+        size = 0
+        structureVersion++
+    }
+
+    /**
+     * Replaces all samples by the values of the specified samples. The unbound samples will be bound to their new
+     * rows (same as for adding to the [sampleList]).
+     *
+     * @param samples the new samples
+     */
+    fun setAll(samples: Collection<ExerciseSample>) {
+        if (samples === sampleList) {
+            return
+        }
+        // the values of bound samples needs to be copied before, they could be bound to this columns
+        val sources = samples.map { if (it.isBound) it.copy() else it }
+        clear()
+        ensureCapacity(sources.size)
+        sampleList.addAll(sources)
+    }
+
+    /**
+     * Returns true when the value of the specified channel is present for the sample at the specified index.
+     */
+    fun has(channel: Channel, index: Int): Boolean {
+        checkIndex(index)
+        return presence[channel.ordinal][index]
+    }
+
+    /**
+     * Returns true when the value of the specified channel is present in at least one sample.
+     */
+    fun hasAny(channel: Channel): Boolean = !presence[channel.ordinal].isEmpty
+
+    /**
+     * Removes the value of the specified channel of the sample at the specified index, it's not present anymore.
+     */
+    fun clearValue(channel: Channel, index: Int) {
+        checkIndex(index)
+        presence[channel.ordinal].clear(index)
+    }
+
+    fun getTimestamp(index: Int): Long = timestamps[checkIndex(index)]
+
+    fun setTimestamp(index: Int, timestamp: Long) {
+        timestamps[checkIndex(index)] = timestamp
+        presence[Channel.TIMESTAMP.ordinal].set(index)
+    }
+
+    fun getHeartRate(index: Int): Short = heartRates[checkIndex(index)]
+
+    fun setHeartRate(index: Int, heartRate: Short) {
+        heartRates[checkIndex(index)] = heartRate
+        presence[Channel.HEART_RATE.ordinal].set(index)
+    }
+
+    fun getAltitude(index: Int): Short = altitudes[checkIndex(index)]
+
+    fun setAltitude(index: Int, altitude: Short) {
+        altitudes[checkIndex(index)] = altitude
+        presence[Channel.ALTITUDE.ordinal].set(index)
+    }
+
+    fun getSpeed(index: Int): Float = speeds[checkIndex(index)]
+
+    fun setSpeed(index: Int, speed: Float) {
+        speeds[checkIndex(index)] = speed
+        presence[Channel.SPEED.ordinal].set(index)
+    }
+
+    fun getCadence(index: Int): Short = cadences[checkIndex(index)]
+
+    fun setCadence(index: Int, cadence: Short) {
+        cadences[checkIndex(index)] = cadence
+        presence[Channel.CADENCE.ordinal].set(index)
+    }
+
+    fun getPower(index: Int): Short = powers[checkIndex(index)]
+
+    fun setPower(index: Int, power: Short) {
+        powers[checkIndex(index)] = power
+        presence[Channel.POWER.ordinal].set(index)
+    }
+
+    fun getDistance(index: Int): Int = distances[checkIndex(index)]
+
+    fun setDistance(index: Int, distance: Int) {
+        distances[checkIndex(index)] = distance
+        presence[Channel.DISTANCE.ordinal].set(index)
+    }
+
+    fun getTemperature(index: Int): Short = temperatures[checkIndex(index)]
+
+    fun setTemperature(index: Int, temperature: Short) {
+        temperatures[checkIndex(index)] = temperature
+        presence[Channel.TEMPERATURE.ordinal].set(index)
+    }
+
+    fun getLatitude(index: Int): Double = latitudes[checkIndex(index)]
+
+    fun getLongitude(index: Int): Double = longitudes[checkIndex(index)]
+
+    fun setPosition(index: Int, latitude: Double, longitude: Double) {
+        latitudes[checkIndex(index)] = latitude
+        longitudes[index] = longitude
+        presence[Channel.POSITION.ordinal].set(index)
+    }
+
+    /**
+     * Returns the value of the specified numeric channel of the sample at the specified index as double.
+     *
+     * @param channel the channel, the position is not supported
+     * @param index the sample index
+     * @return the value or null when not present
+     */
+    fun getValue(channel: Channel, index: Int): Double? {
+        if (!has(channel, index)) {
+            return null
+        }
+        return when (channel) {
+            Channel.TIMESTAMP -> timestamps[index].toDouble()
+            Channel.HEART_RATE -> heartRates[index].toDouble()
+            Channel.ALTITUDE -> altitudes[index].toDouble()
+            Channel.SPEED -> speeds[index].toDouble()
+            Channel.CADENCE -> cadences[index].toDouble()
+            Channel.POWER -> powers[index].toDouble()
+            Channel.DISTANCE -> distances[index].toDouble()
+            Channel.TEMPERATURE -> temperatures[index].toDouble()
+            Channel.POSITION -> throw IllegalArgumentException("The position is not a numeric value!")
+        }
+    }
+
+    /**
+     * Returns the values of the specified numeric channel of all samples as a primitive double array, e.g. for
+     * filtering the values. The array values of samples without this value are undefined, see [has].
+     *
+     * @param channel the channel, the position is not supported
+     * @return array with the values of all samples
+     */
+    fun getValues(channel: Channel): DoubleArray = when (channel) {
+        Channel.TIMESTAMP -> DoubleArray(size) { timestamps[it].toDouble() }
+        Channel.HEART_RATE -> DoubleArray(size) { heartRates[it].toDouble() }
+        Channel.ALTITUDE -> DoubleArray(size) { altitudes[it].toDouble() }
+        Channel.SPEED -> DoubleArray(size) { speeds[it].toDouble() }
+        Channel.CADENCE -> DoubleArray(size) { cadences[it].toDouble() }
+        Channel.POWER -> DoubleArray(size) { powers[it].toDouble() }
+        Channel.DISTANCE -> DoubleArray(size) { distances[it].toDouble() }
+        Channel.TEMPERATURE -> DoubleArray(size) { temperatures[it].toDouble() }
+        Channel.POSITION -> throw IllegalArgumentException("The position is not a numeric value!")
+    }
+
+    fun getTimestampOrNull(index: Int): Long? = if (has(Channel.TIMESTAMP, index)) timestamps[index] else null
+
+    fun getHeartRateOrNull(index: Int): Short? = if (has(Channel.HEART_RATE, index)) heartRates[index] else null
+
+    fun getAltitudeOrNull(index: Int): Short? = if (has(Channel.ALTITUDE, index)) altitudes[index] else null
+
+    fun getSpeedOrNull(index: Int): Float? = if (has(Channel.SPEED, index)) speeds[index] else null
+
+    fun getCadenceOrNull(index: Int): Short? = if (has(Channel.CADENCE, index)) cadences[index] else null
+
+    fun getPowerOrNull(index: Int): Short? = if (has(Channel.POWER, index)) powers[index] else null
+
+    fun getDistanceOrNull(index: Int): Int? = if (has(Channel.DISTANCE, index)) distances[index] else null
+
+    fun getTemperatureOrNull(index: Int): Short? =
+            if (has(Channel.TEMPERATURE, index)) temperatures[index] else null
+
+    fun getPositionOrNull(index: Int): Position? =
+            if (has(Channel.POSITION, index)) Position(latitudes[index], longitudes[index]) else null
+
+    /**
+     * Returns a new (unbound) copy of the sample at the specified index.
+     */
+    fun getSample(index: Int) = ExerciseSample(
+            getTimestampOrNull(index),
+            getHeartRateOrNull(index),
+            getAltitudeOrNull(index),
+            getSpeedOrNull(index),
+            getCadenceOrNull(index),
+            getPowerOrNull(index),
+            getDistanceOrNull(index),
+            getTemperatureOrNull(index),
+            getPositionOrNull(index))
+
+    /**
+     * Sets all values of the sample at the specified index to the values of the specified sample.
+     */
+    fun setValues(index: Int, sample: ExerciseSample) {
+        setOrClear(Channel.TIMESTAMP, index, sample.timestamp) { setTimestamp(index, it) }
+        setOrClear(Channel.HEART_RATE, index, sample.heartRate) { setHeartRate(index, it) }
+        setOrClear(Channel.ALTITUDE, index, sample.altitude) { setAltitude(index, it) }
+        setOrClear(Channel.SPEED, index, sample.speed) { setSpeed(index, it) }
+        setOrClear(Channel.CADENCE, index, sample.cadence) { setCadence(index, it) }
+        setOrClear(Channel.POWER, index, sample.power) { setPower(index, it) }
+        setOrClear(Channel.DISTANCE, index, sample.distance) { setDistance(index, it) }
+        setOrClear(Channel.TEMPERATURE, index, sample.temperature) { setTemperature(index, it) }
+        setOrClear(Channel.POSITION, index, sample.position) { setPosition(index, it.latitude, it.longitude) }
+    }
+
+    private inline fun <T> setOrClear(channel: Channel, index: Int, value: T?, setter: (T) -> Unit) {
+        if (value != null) setter(value) else clearValue(channel, index)
+    }
+
+    private fun checkIndex(index: Int): Int = Objects.checkIndex(index, size)
+
+    /**
+     * Moves all bits starting at the specified index by the specified offset.
+     */
+    private fun moveBits(bits: BitSet, fromIndex: Int, offset: Int) {
+        val movedBits = bits.get(fromIndex, size)
+        bits.clear(minOf(fromIndex, fromIndex + offset), size + maxOf(offset, 0))
+        movedBits.stream().forEach { bits.set(fromIndex + offset + it) }
+    }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is ExerciseSampleColumns || size != other.size) return false
+        return (0 until size).all { index -> sampleEquals(index, other, index) }
+    }
+
+    /**
+     * Returns true when the sample at the specified index contains the same values as the specified sample in the
+     * other columns.
+     */
+    internal fun sampleEquals(index: Int, other: ExerciseSampleColumns, otherIndex: Int): Boolean =
+            getTimestampOrNull(index) == other.getTimestampOrNull(otherIndex) &&
+                    getHeartRateOrNull(index) == other.getHeartRateOrNull(otherIndex) &&
+                    getAltitudeOrNull(index) == other.getAltitudeOrNull(otherIndex) &&
+                    getSpeedOrNull(index) == other.getSpeedOrNull(otherIndex) &&
+                    getCadenceOrNull(index) == other.getCadenceOrNull(otherIndex) &&
+                    getPowerOrNull(index) == other.getPowerOrNull(otherIndex) &&
+                    getDistanceOrNull(index) == other.getDistanceOrNull(otherIndex) &&
+                    getTemperatureOrNull(index) == other.getTemperatureOrNull(otherIndex) &&
+                    getPositionOrNull(index) == other.getPositionOrNull(otherIndex)
+
+    override fun hashCode(): Int = sampleList.hashCode()
+
+    override fun toString(): String = sampleList.toString()
+
+    /**
+     * List view of the samples, the elements are bound to the samples rows. Added unbound elements will be bound
+     * to their new rows, added bound elements are copied.
+     */
+    private inner class SampleListView : AbstractMutableList<ExerciseSample>(), RandomAccess {
+
+        override val size: Int
+            get() = this@ExerciseSampleColumns.size
+
+        override fun get(index: Int): ExerciseSample {
+            checkIndex(index)
+            return ExerciseSample.bound(this@ExerciseSampleColumns, index)
+        }
+
+        override fun add(index: Int, element: ExerciseSample) {
+            // the values of bound elements needs to be copied before, the rows can be moved by the insert
+            val source = if (element.isBound) element.copy() else element
+            if (index == this@ExerciseSampleColumns.size) {
+                addSample()
+            } else {
+                insertSample(index)
+            }
+            setValues(index, source)
+            element.bindTo(this@ExerciseSampleColumns, index)
+        }
+
+        override fun removeAt(index: Int): ExerciseSample {
+            val removed = getSample(index)
+            removeSample(index)
+            return removed
+        }
+
+        override fun set(index: Int, element: ExerciseSample): ExerciseSample {
+            val previous = getSample(index)
+            setValues(index, element)
+            element.bindTo(this@ExerciseSampleColumns, index)
+            return previous
+        }
+
+        override fun clear() {
+            this@ExerciseSampleColumns.clear()
+        }
+    }
+
+    private companion object {
+        const val DEFAULT_CAPACITY = 64
+    }
+}
@@ -0,0 +1,101 @@
+package de.saring.exerciseviewer.data
+
+/**
+ * Index of the exercise samples by their timestamps, it's needed for correlating laps and samples (e.g. for the
+ * sample at lap split time). The timestamps are stored in a sorted primitive array with the appropriate sample
+ * indices, so the lookups are binary searches in O(log n). Samples without timestamp are not contained in the index.
+ *
+ * The timestamps of the samples are ascending for almost all exercises, the sorting is only needed for some strange
+ * exercise files (e.g. multisport exercises of the Garmin Forerunner 910XT).
+ *
+ * The index is created for the current samples, it must be recreated when the samples have been modified.
+ *
+ * @param samples the sample storage to create the index for
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleIndex(samples: ExerciseSampleColumns) {
+
+    private val timeValues = SortedValues.create(samples, ExerciseSampleColumns.Channel.TIMESTAMP) {
+        samples.getTimestamp(it)
+    }
+
+    /**
+     * Returns the index of the sample with the timestamp closest to the specified timestamp. The earlier sample
+     * is returned when two samples have the same time distance.
+     *
+     * @param timestamp the timestamp (offset from exercise start in msec)
+     * @return the sample index or -1 when there are no samples with timestamp
+     */
+    fun getSampleClosestToTime(timestamp: Long): Int = timeValues.getClosest(timestamp)
+
+    /**
+     * Sorted values of one channel with the appropriate sample indices.
+     */
+    private class SortedValues(val values: LongArray, val sampleIndices: IntArray) {
+
+        fun getClosest(value: Long): Int {
+            if (values.isEmpty()) {
+                return -1
+            }
+
+            val afterPosition = lowerBound(value)
+            if (afterPosition == 0) {
+                return sampleIndices[0]
+            }
+
+            // use the first of multiple samples with the same value
+            val beforePosition = lowerBound(values[afterPosition - 1])
+            val closestPosition = if (afterPosition == values.size ||
+                    value - values[beforePosition] <= values[afterPosition] - value) beforePosition else afterPosition
+            return sampleIndices[closestPosition]
+        }
+
+        /** Binary search for the position of the first value which is greater or equal than the specified value. */
+        private fun lowerBound(value: Long): Int {
+            var low = 0
+            var high = values.size
+            while (low < high) {
+                val middle = (low + high) ushr 1
+                if (values[middle] < value) {
+                    low = middle + 1
+                } else {
+                    high = middle
+                }
+            }
+            return low
+        }
+
+        companion object {
+
+            inline fun create(samples: ExerciseSampleColumns, channel: ExerciseSampleColumns.Channel,
+                              getValue: (Int) -> Long): SortedValues {
+                var count = 0
+                val values = LongArray(samples.size)
+                val sampleIndices = IntArray(samples.size)
+                var isSorted = true
+
+                for (index in 0 until samples.size) {
+                    if (samples.has(channel, index)) {
+                        values[count] = getValue(index)
+                        sampleIndices[count] = index
+                        if (count > 0 && values[count] < values[count - 1]) {
+                            isSorted = false
+                        }
+                        count++
+                    }
+                }
+
+                if (isSorted) {
+                    return SortedValues(values.copyOf(count), sampleIndices.copyOf(count))
+                }
+
+                // stable sort by value, so samples with the same values stay in the recorded order
+                val sortedPositions = (0 until count).sortedBy { values[it] }
+                return SortedValues(
+                        LongArray(count) { values[sortedPositions[it]] },
+                        IntArray(count) { sampleIndices[sortedPositions[it]] })
+            }
+        }
+    }
+}
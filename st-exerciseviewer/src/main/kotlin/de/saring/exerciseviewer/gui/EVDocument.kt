@@ -3,17 +3,18 @@ package de.saring.exerciseviewer.gui
 import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.core.EVOptions
 import de.saring.exerciseviewer.data.EVExercise
-import de.saring.exerciseviewer.parser.ExerciseParserFactory
+import de.saring.exerciseviewer.parser.ExercisePrefetcher
 import de.saring.util.unitcalc.SpeedMode
 
 /**
  * This class contains all model / document (MVC) related data and functionality of the ExerciseViewer application.
  *
  * @property options The ExerciseViewer options.
+ * @property exercisePrefetcher The prefetcher of the exercise files, it uses the cache of the parsed exercises.
  *
  * @author Stefan Saring
  */
-class EVDocument(val options: EVOptions) {
+class EVDocument(val options: EVOptions, private val exercisePrefetcher: ExercisePrefetcher) {
 
     /** The current exercise to be displayed.  */
     lateinit var exercise: EVExercise
@@ -25,7 +26,8 @@ class EVDocument(val options: EVOptions) {
     lateinit var speedMode: SpeedMode
 
     /**
-     * Reads the specified exercise file and stores it in the document.
+     * Reads the specified exercise file and stores it in the document. The exercise is taken from the cache when
+     * the file has been parsed or prefetched before.
      *
      * @param filename exercise filename
      * @param speedMode the speed mode to be used for showing speed values
@@ -33,8 +35,7 @@ class EVDocument(val options: EVOptions) {
      */
     fun openExerciseFile(filename: String, speedMode: SpeedMode) {
 
-        val parser = ExerciseParserFactory.getParser(filename)
-        exercise = parser.parseExercise(filename)
+        exercise = exercisePrefetcher.getExercise(filename)
         exerciseFilename = filename
         this.speedMode = speedMode
     }
@@ -1,6 +1,7 @@
 package de.saring.exerciseviewer.gui
 
 import de.saring.exerciseviewer.core.EVOptions
+import de.saring.exerciseviewer.parser.ExercisePrefetcher
 import de.saring.util.gui.javafx.WindowBoundsPersistence
 import de.saring.util.unitcalc.SpeedMode
 import javafx.scene.control.Alert
@@ -17,12 +18,14 @@ import jakarta.inject.Inject
  * @constructor constructor for dependency injection
  * @property context the ExerciseViewer UI context
  * @param options the options to be used in ExerciseViewer
+ * @param exercisePrefetcher the prefetcher of the exercise files
  *
  * @author Stefan Saring
  */
 class EVMain @Inject constructor(
         private val context: EVContext,
-        options: EVOptions) {
+        options: EVOptions,
+        exercisePrefetcher: ExercisePrefetcher) {
 
     private val logger = Logger.getLogger(EVMain::class.java.name)
     private val dialogName = "ExerciseViewer"
@@ -31,7 +34,7 @@ class EVMain @Inject constructor(
     // => Guice can't be used here, it does not provide a scope for dialogs
     // => Guice-Workaround would be the use of a new Injector per EV window,
     // but this costs performance and can cause memory leaks
-    private val document = EVDocument(options)
+    private val document = EVDocument(options, exercisePrefetcher)
     private val controller = EVController(context, document)
 
     /**
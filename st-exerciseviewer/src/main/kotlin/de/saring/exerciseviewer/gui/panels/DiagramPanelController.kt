@@ -1,5 +1,6 @@
 package de.saring.exerciseviewer.gui.panels
 
+import de.saring.exerciseviewer.data.ExerciseSampleColumns.Channel
 import de.saring.exerciseviewer.data.HeartRateLimit
 import de.saring.exerciseviewer.data.Lap
 import de.saring.exerciseviewer.gui.EVContext
@@ -92,6 +93,9 @@ class DiagramPanelController(
     /** The size of the average range if smoothed charts are enabled (otherwise 0).  */
     private var averagedRangeSteps: Int = 0
 
+    /** The smoothed sample values of each axis type, computed on first use (only for smoothed charts). */
+    private val smoothedValuesCache = EnumMap<AxisType, DoubleArray>(AxisType::class.java)
+
     /** The list of colored altitude slope ranges. */
     private val altitudeSlopeRanges = listOf(
             AltitudeSlopeRange(0, 5),
@@ -150,7 +154,7 @@ class DiagramPanelController(
 
     private fun isDiagramDataAvailable(): Boolean {
         val recordingMode = document.exercise.recordingMode
-        return !document.exercise.sampleList.isEmpty() && (
+        return !document.exercise.sampleColumns.isEmpty() && (
                 recordingMode.isHeartRate || recordingMode.isAltitude || recordingMode.isSpeed ||
                         recordingMode.isCadence || recordingMode.isPower || recordingMode.isTemperature)
     }
@@ -228,8 +232,9 @@ class DiagramPanelController(
      * the average range depends on the number of samples in the current exercise.
      */
     private fun computeAveragedFilterRange() {
+        smoothedValuesCache.clear()
         if (document.options.isDisplaySmoothedCharts) {
-            val sampleListLength = document.exercise.sampleList.size
+            val sampleListLength = document.exercise.sampleColumns.size
             // results seem to be best when sample count is divided by 800 (tested with many exercises)
             averagedRangeSteps = Math.max(1, Math.round(sampleListLength / 800f))
         } else {
@@ -260,24 +265,24 @@ class DiagramPanelController(
         }
 
         // fill data series with all recorded exercise samples
-        if (!exercise.sampleList.isEmpty()) {
-            for (index in 0 until exercise.sampleList.size) {
+        val samples = exercise.sampleColumns
+        if (!samples.isEmpty()) {
+            for (index in 0 until samples.size) {
 
-                val sample = exercise.sampleList[index]
                 val valueLeft = getConvertedSampleValue(axisTypeLeft, index)
                 val valueRight = getConvertedSampleValue(axisTypeRight, index)
 
                 if (fDomainAxisTime) {
                     // calculate current second
-                    sample.timestamp?.let { timestamp ->
-                        val timeSeconds = (timestamp / 1000).toInt()
+                    if (samples.has(Channel.TIMESTAMP, index)) {
+                        val timeSeconds = (samples.getTimestamp(index) / 1000).toInt()
                         val second = createJFreeChartSecond(timeSeconds)
                         fillDataInTimeSeries(sLeft as TimeSeries, sRight as TimeSeries?, second, valueLeft, valueRight)
                     }
                 } else {
                     // get current distance of this sample
-                    sample.distance?.let { distance ->
-                        var fDistance = (distance / 1000f).toDouble()
+                    if (samples.has(Channel.DISTANCE, index)) {
+                        var fDistance = (samples.getDistance(index) / 1000f).toDouble()
                         if (context.formatUtils.unitSystem != UnitSystem.METRIC) {
                             fDistance = ConvertUtils.convertKilometer2Miles(fDistance, false)
                         }
@@ -576,7 +581,7 @@ class DiagramPanelController(
 
     /**
      * Returns the value specified by the axis type of the exercise sample. If smoothed charts are enabled, then the
-     * smoothed value will be calculated by using the average filter of the computed size.
+     * smoothed value will be returned, the smoothed values of each axis type are computed only once.
      *
      * @param axisType the axis type to be displayed
      * @param sampleIndex index of the sample in the exercise
@@ -586,55 +591,24 @@ class DiagramPanelController(
 
         if (averagedRangeSteps <= 0) {
             // smoothing is disabled, just return the raw value
-            return getRawSampleValue(axisType, sampleIndex)
+            return document.exercise.sampleColumns.getValue(getChannel(axisType), sampleIndex)
         } else {
-
-            // the value of 0 stays 0, otherwise short stops will not be visible
-            val rawSampleValue = getRawSampleValue(axisType, sampleIndex)
-            if (rawSampleValue == 0.0) {
-                return 0.0
-            }
-
-            val rangeLength = 2 * averagedRangeSteps + 1
-            val lastSampleIndex = document.exercise.sampleList.size - 1
-
-            // create sum for all range values
-            var valueSum = 0.0
-            for (i in sampleIndex - averagedRangeSteps..sampleIndex + averagedRangeSteps) {
-                // exclude indices out of range, use first or last sample instead
-                var valueIndex = Math.max(0, i)
-                valueIndex = Math.min(lastSampleIndex, valueIndex)
-
-                // ignore range values of null for the average, use the specified index instead (or 0 if also missing)
-                val valueAtIndex = getRawSampleValue(axisType, valueIndex) ?:
-                getRawSampleValue(axisType, sampleIndex) ?: 0.0
-
-                valueSum += valueAtIndex
+            val smoothedValues = smoothedValuesCache.getOrPut(axisType) {
+                SampleValueSmoother.smooth(document.exercise.sampleColumns, getChannel(axisType), averagedRangeSteps)
             }
-
-            return valueSum / rangeLength
+            return smoothedValues[sampleIndex]
         }
     }
 
-    private fun getRawSampleValue(axisType: AxisType, sampleIndex: Int): Double? {
-        val sample = document.exercise.sampleList[sampleIndex]
-
-        when (axisType) {
-            AxisType.HEARTRATE ->
-                return sample.heartRate?.toDouble()
-            AxisType.ALTITUDE ->
-                return sample.altitude?.toDouble()
-            AxisType.SPEED ->
-                return sample.speed?.toDouble()
-            AxisType.CADENCE ->
-                return sample.cadence?.toDouble()
-            AxisType.POWER ->
-                return sample.power?.toDouble()
-            AxisType.TEMPERATURE ->
-                return sample.temperature?.toDouble()
-            else ->
-                throw IllegalArgumentException("Unknown axis type: $axisType!")
-        }
+    private fun getChannel(axisType: AxisType): Channel = when (axisType) {
+        AxisType.HEARTRATE -> Channel.HEART_RATE
+        AxisType.ALTITUDE -> Channel.ALTITUDE
+        AxisType.SPEED -> Channel.SPEED
+        AxisType.CADENCE -> Channel.CADENCE
+        AxisType.POWER -> Channel.POWER
+        AxisType.TEMPERATURE -> Channel.TEMPERATURE
+        else ->
+            throw IllegalArgumentException("Unknown axis type: $axisType!")
     }
 
     /**
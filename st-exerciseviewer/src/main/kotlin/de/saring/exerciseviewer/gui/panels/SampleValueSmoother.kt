@@ -0,0 +1,72 @@
+package de.saring.exerciseviewer.gui.panels
+
+import de.saring.exerciseviewer.data.ExerciseSampleColumns
+
+/**
+ * Smoother of the sample values of a channel for the smoothed charts. It uses an average filter over the range of
+ * `2 * rangeSteps + 1` samples around each sample. The range sums are computed from prefix sums, so the smoothing
+ * of all samples is done in O(n), independent of the range size.
+ *
+ * Rules of the average filter:
+ * - the value 0 stays 0, otherwise short stops would not be visible
+ * - the range positions before the first and after the last sample use the value of the first or last sample
+ * - missing values in the range are replaced by the value of the smoothed sample (or by 0 if it's also missing)
+ *
+ * @author Stefan Saring
+ */
+internal object SampleValueSmoother {
+
+    /**
+     * Returns the smoothed values of the specified channel for all samples.
+     *
+     * @param samples the exercise samples
+     * @param channel the numeric channel to smooth
+     * @param rangeSteps the number of samples before and after each sample for the average filter
+     * @return array with the smoothed values of all samples
+     */
+    fun smooth(samples: ExerciseSampleColumns, channel: ExerciseSampleColumns.Channel, rangeSteps: Int): DoubleArray {
+        val sampleCount = samples.size
+        val values = samples.getValues(channel)
+        val present = BooleanArray(sampleCount) { samples.has(channel, it) }
+
+        // prefix sums of the present values and prefix counts of the missing values
+        val valueSums = DoubleArray(sampleCount + 1)
+        val missingCounts = IntArray(sampleCount + 1)
+        for (index in 0 until sampleCount) {
+            valueSums[index + 1] = valueSums[index] + if (present[index]) values[index] else 0.0
+            missingCounts[index + 1] = missingCounts[index] + if (present[index]) 0 else 1
+        }
+
+        val rangeLength = 2 * rangeSteps + 1
+
+        return DoubleArray(sampleCount) { index ->
+            if (present[index] && values[index] == 0.0) 0.0
+            else sumRangeValues(values, present, valueSums, missingCounts, index, rangeSteps) / rangeLength
+        }
+    }
+
+    /**
+     * Returns the sum of all values in the range around the specified sample.
+     */
+    private fun sumRangeValues(values: DoubleArray, present: BooleanArray, valueSums: DoubleArray,
+                                missingCounts: IntArray, index: Int, rangeSteps: Int): Double {
+        val lastIndex = values.size - 1
+        val replacementValue = if (present[index]) values[index] else 0.0
+        val rangeStart = index - rangeSteps
+        val rangeEnd = index + rangeSteps
+        val first = maxOf(0, rangeStart)
+        val last = minOf(lastIndex, rangeEnd)
+
+        var valueSum = valueSums[last + 1] - valueSums[first] +
+                (missingCounts[last + 1] - missingCounts[first]) * replacementValue
+
+        // the range positions out of the sample indices use the first or last sample
+        if (rangeStart < 0) {
+            valueSum += -rangeStart * (if (present[0]) values[0] else replacementValue)
+        }
+        if (rangeEnd > lastIndex) {
+            valueSum += (rangeEnd - lastIndex) * (if (present[lastIndex]) values[lastIndex] else replacementValue)
+        }
+        return valueSum
+    }
+}
@@ -1,7 +1,7 @@
 package de.saring.exerciseviewer.gui.panels
 
 import de.saring.exerciseviewer.data.EVExercise
-import de.saring.exerciseviewer.data.ExerciseSample
+import de.saring.exerciseviewer.data.ExerciseSampleColumns.Channel
 import de.saring.exerciseviewer.gui.EVContext
 import de.saring.exerciseviewer.gui.EVDocument
 import de.saring.leafletmap.ColorMarker
@@ -176,8 +176,8 @@ class TrackPanelController(
         }
     }
 
-    private fun getConvertedDistanceForAltitudeGraph(sample: ExerciseSample): Double? {
-        return sample.distance?.let { sampleDistanceInMeters ->
+    private fun getConvertedDistanceForAltitudeGraph(sampleIndex: Int): Double? {
+        return document.exercise.sampleColumns.getDistanceOrNull(sampleIndex)?.let { sampleDistanceInMeters ->
             val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
             val sampleDistanceInCurrentUnit = if (isEnglishUnitSystem)
                 ConvertUtils.convertKilometer2Miles(sampleDistanceInMeters) else sampleDistanceInMeters
@@ -189,11 +189,12 @@ class TrackPanelController(
         val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
         val sAltitude = XYSeries("altitude")
 
-        document.exercise.sampleList.forEach { sample ->
-            val altitudeInMeters = sample.altitude?.toInt() ?: 0
+        val samples = document.exercise.sampleColumns
+        for (index in 0 until samples.size) {
+            val altitudeInMeters = if (samples.has(Channel.ALTITUDE, index)) samples.getAltitude(index).toInt() else 0
             val altitudeInCurrentUnit = if (isEnglishUnitSystem)
                 ConvertUtils.convertMeter2Feet(altitudeInMeters) else altitudeInMeters
-            val distanceInCurrentUnit = getConvertedDistanceForAltitudeGraph(sample) ?: 0.0
+            val distanceInCurrentUnit = getConvertedDistanceForAltitudeGraph(index) ?: 0.0
 
             sAltitude.add(distanceInCurrentUnit, altitudeInCurrentUnit)
         }
@@ -209,11 +210,11 @@ class TrackPanelController(
     }
 
     private fun movePositionMarker(positionIndex: Int) {
-        val samplePosition = document.exercise.sampleList[positionIndex].position
+        val samples = document.exercise.sampleColumns
 
         // some samples could have no position
-        samplePosition?.let {
-            val position = LatLong(it.latitude, it.longitude)
+        if (samples.has(Channel.POSITION, positionIndex)) {
+            val position = LatLong(samples.getLatitude(positionIndex), samples.getLongitude(positionIndex))
 
             if (positionMarkerName == null) {
                 positionMarkerName = mapView!!.addMarker(position, "", ColorMarker.BLUE_MARKER, 0)
@@ -232,7 +233,7 @@ class TrackPanelController(
 
         // move the vertical position marker in the altitude graph to the new track position
         altitudeGraphMarker?.let { marker ->
-            getConvertedDistanceForAltitudeGraph(document.exercise.sampleList[positionIndex])?.let { distance ->
+            getConvertedDistanceForAltitudeGraph(positionIndex)?.let { distance ->
                 marker.value = distance
             }
         }
@@ -255,7 +256,7 @@ class TrackPanelController(
                     if (workerState == Worker.State.SUCCEEDED) {
                         showTrackAndLaps()
                         // enable position slider by setting max. sample count
-                        slPosition.max = (exercise.sampleList.size - 1).toDouble()
+                        slPosition.max = (exercise.sampleColumns.size - 1).toDouble()
                     } else if (throwable != null) {
                         logger.log(Level.SEVERE, "Failed to display map!", throwable)
                     }
@@ -288,11 +289,12 @@ class TrackPanelController(
         }
     }
 
-    private fun createSamplePositionList(exercise: EVExercise): List<LatLong> =
-            exercise.sampleList
-                    .filter { it.position != null }
-                    .map { LatLong(it.position!!.latitude, it.position!!.longitude) }
-                    .toList()
+    private fun createSamplePositionList(exercise: EVExercise): List<LatLong> {
+        val samples = exercise.sampleColumns
+        return (0 until samples.size)
+                .filter { samples.has(Channel.POSITION, it) }
+                .map { LatLong(samples.getLatitude(it), samples.getLongitude(it)) }
+    }
 
     private fun createLapPositionList(exercise: EVExercise): List<LatLong> {
         val lapPositions = mutableListOf<LatLong>()
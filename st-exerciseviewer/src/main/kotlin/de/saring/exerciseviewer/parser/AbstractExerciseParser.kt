@@ -14,20 +14,18 @@ import java.io.File
 abstract class AbstractExerciseParser : ExerciseParser {
 
     /**
-     * Helper method for reading the specified binary exercise file into an Int array. The reason for integers is:
-     * byte values are -128 to 127, int values are converted to 0 to 255, this makes parsing much easier.
+     * Helper method for reading the specified binary exercise file. The content is read once into a byte array,
+     * the returned reader provides the unsigned values from there without any conversions.
      *
      * @param filename filename of exercise file to read
-     * @return int buffer with the file content (one int for each byte)
+     * @return reader for the file content
      * @throws EVException thrown on read problems
      */
     @Throws(EVException::class)
-    protected fun readFileToByteArray(filename: String): IntArray {
+    protected fun readFileToByteReader(filename: String): UnsignedByteReader {
 
         try {
-            return File(filename).readBytes()
-                    .map { unsignedByteToInt(it) }
-                    .toIntArray()
+            return UnsignedByteReader.of(File(filename).readBytes())
         } catch (e: Exception) {
             throw EVException("Failed to read binary content from exercise file '$filename' ...", e)
         }
@@ -50,14 +48,6 @@ abstract class AbstractExerciseParser : ExerciseParser {
         }
     }
 
-    /**
-     * Converts the unsigned Byte value (0..255) to the appropriate Int value.
-     *
-     * @param value unsigned Byte value
-     * @return appropriate Int value
-     */
-    private fun unsignedByteToInt(value: Byte): Int = value.toInt().and(0xff)
-
     /**
      * Calculates the average speed for all laps of the specified exercise. This needs to be done for many models
      * because the average lap speed is not part of the recorded data.
@@ -0,0 +1,264 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.core.EVException
+import de.saring.exerciseviewer.data.EVExercise
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Cache of parsed exercises in front of the [ExerciseParserFactory], so exercise files which are opened again don't
+ * need to be parsed again. The exercises are cached by the path, size and modification time of their files, so
+ * modified files will always be parsed again.
+ *
+ * There are two cache levels:
+ * - an in-memory LRU cache, its size is limited by the total number of samples of the cached exercises
+ * - persistent compact binary snapshots (see [ExerciseSnapshotCodec]) in the snapshot directory, the size of the
+ *   directory is limited too, the least recently used snapshots are deleted first
+ *
+ * The cached exercises are shared by all callers, so they must not be modified. The cache can be used by multiple
+ * threads.
+ *
+ * @property snapshotDirectory directory for the binary snapshots or null when no snapshots should be stored
+ * @property maxMemorySampleCount maximum total number of samples of all exercises in the in-memory cache
+ * @property maxSnapshotDirectorySize maximum total size of all snapshots in bytes
+ *
+ * @author Stefan Saring
+ */
+class ExerciseCache @JvmOverloads constructor(
+        private val snapshotDirectory: File?,
+        private val maxMemorySampleCount: Int = DEFAULT_MAX_MEMORY_SAMPLE_COUNT,
+        private val maxSnapshotDirectorySize: Long = DEFAULT_MAX_SNAPSHOT_DIRECTORY_SIZE) {
+
+    /**
+     * Key of a cached exercise, it identifies the file content.
+     *
+     * @property path the absolute and normalized path of the exercise file
+     * @property size the size of the exercise file in bytes
+     * @property lastModified the modification time of the exercise file
+     */
+    data class Key(val path: String, val size: Long, val lastModified: Long) {
+
+        companion object {
+
+            /**
+             * Creates the key for the specified exercise file.
+             */
+            @JvmStatic
+            fun of(filename: String): Key {
+                val file = File(filename).toPath().toAbsolutePath().normalize().toFile()
+                return Key(file.path, file.length(), file.lastModified())
+            }
+        }
+    }
+
+    /**
+     * Statistics of the cache usage.
+     *
+     * @property memoryHits number of exercises found in the in-memory cache
+     * @property snapshotHits number of exercises read from snapshots
+     * @property misses number of exercises which needed to be parsed
+     */
+    data class Statistics(val memoryHits: Long, val snapshotHits: Long, val misses: Long) {
+
+        /** The ratio of the hits (in-memory or snapshot) to all requests, it's 0 when there were no requests. */
+        val hitRatio: Double
+            get() {
+                val requests = memoryHits + snapshotHits + misses
+                return if (requests == 0L) 0.0 else (memoryHits + snapshotHits).toDouble() / requests
+            }
+    }
+
+    private class MemoryEntry(val key: Key, val exercise: EVExercise, val sampleCount: Int)
+
+    // the access order of the LinkedHashMap is used for the LRU eviction, the map key is the path of the file
+    private val memoryCache = LinkedHashMap<String, MemoryEntry>(16, 0.75f, true)
+    private var memorySampleCount = 0L
+
+    private val memoryHits = AtomicLong()
+    private val snapshotHits = AtomicLong()
+    private val misses = AtomicLong()
+
+    /** The current statistics of the cache usage. */
+    val statistics: Statistics
+        get() = Statistics(memoryHits.get(), snapshotHits.get(), misses.get())
+
+    /**
+     * Returns the exercise for the specified exercise file. It's taken from the in-memory cache or from the snapshot
+     * when available, otherwise the file gets parsed and the exercise is stored in both cache levels.
+     *
+     * @param filename name of exercise file
+     * @return the exercise (must not be modified)
+     * @throws EVException thrown on read/parse problems
+     */
+    @Throws(EVException::class)
+    fun getExercise(filename: String): EVExercise {
+        val key = Key.of(filename)
+        getCachedExercise(key)?.let { return it }
+
+        misses.incrementAndGet()
+        val startTime = System.currentTimeMillis()
+        val exercise = ExerciseParserFactory.createParser(filename).parseExercise(filename)
+        LOGGER.info("Parsed exercise file '${key.path}' in ${System.currentTimeMillis() - startTime} msec")
+
+        putInMemory(key, exercise)
+        writeSnapshot(key, exercise)
+        return exercise
+    }
+
+    /**
+     * Returns the summary of the specified exercise file, e.g. for importing it into an exercise. The complete
+     * exercise is returned when it's cached already, otherwise only the summary gets parsed (it's not cached,
+     * see [ExerciseParser.parseSummary]).
+     *
+     * @param filename name of exercise file
+     * @return the exercise with the summary data (must not be modified)
+     * @throws EVException thrown on read/parse problems
+     */
+    @Throws(EVException::class)
+    fun getSummary(filename: String): EVExercise =
+            getCachedExercise(Key.of(filename)) ?: ExerciseParserFactory.createParser(filename).parseSummary(filename)
+
+    /**
+     * Removes all exercises from the in-memory cache, the snapshots are not deleted.
+     */
+    fun clearMemory() {
+        synchronized(memoryCache) {
+            memoryCache.clear()
+            memorySampleCount = 0
+        }
+    }
+
+    private fun getCachedExercise(key: Key): EVExercise? {
+        synchronized(memoryCache) {
+            val entry = memoryCache[key.path]
+            if (entry != null && entry.key == key) {
+                memoryHits.incrementAndGet()
+                return entry.exercise
+            }
+        }
+
+        return readSnapshot(key)?.also { exercise ->
+            snapshotHits.incrementAndGet()
+            putInMemory(key, exercise)
+        }
+    }
+
+    /**
+     * Stores the exercise in the in-memory cache, it replaces a previous exercise of the same file. The least
+     * recently used exercises are removed when the maximum sample count is exceeded, the new exercise is kept.
+     */
+    private fun putInMemory(key: Key, exercise: EVExercise) {
+        val entry = MemoryEntry(key, exercise, exercise.sampleColumns.size)
+
+        synchronized(memoryCache) {
+            memoryCache.put(key.path, entry)?.let { memorySampleCount -= it.sampleCount }
+            memorySampleCount += entry.sampleCount
+
+            val iterator = memoryCache.values.iterator()
+            while (memorySampleCount > maxMemorySampleCount && memoryCache.size > 1) {
+                val eldest = iterator.next()
+                iterator.remove()
+                memorySampleCount -= eldest.sampleCount
+            }
+        }
+    }
+
+    private fun readSnapshot(key: Key): EVExercise? {
+        val snapshotFile = getSnapshotFile(key) ?: return null
+        if (!snapshotFile.exists()) {
+            return null
+        }
+
+        try {
+            val exercise = DataInputStream(BufferedInputStream(snapshotFile.inputStream())).use {
+                ExerciseSnapshotCodec.read(it, key)
+            }
+            if (exercise != null) {
+                // the modification time is used for deleting the least recently used snapshots
+                snapshotFile.setLastModified(System.currentTimeMillis())
+            }
+            return exercise
+        } catch (e: Exception) {
+            LOGGER.log(Level.WARNING, "Failed to read exercise snapshot '$snapshotFile', deleting it!", e)
+            snapshotFile.delete()
+            return null
+        }
+    }
+
+    /**
+     * Writes the snapshot of the exercise to a temporary file first, so the existing snapshot will only be replaced
+     * by complete snapshots.
+     */
+    private fun writeSnapshot(key: Key, exercise: EVExercise) {
+        val snapshotFile = getSnapshotFile(key) ?: return
+
+        try {
+            snapshotDirectory!!.mkdirs()
+            val tempFile = File.createTempFile("snapshot", ".tmp", snapshotDirectory)
+            try {
+                DataOutputStream(BufferedOutputStream(tempFile.outputStream())).use {
+                    ExerciseSnapshotCodec.write(it, key, exercise)
+                }
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING)
+            } finally {
+                tempFile.delete()
+            }
+            deleteLeastRecentlyUsedSnapshots()
+        } catch (e: Exception) {
+            LOGGER.log(Level.WARNING, "Failed to write exercise snapshot '$snapshotFile'!", e)
+        }
+    }
+
+    private fun deleteLeastRecentlyUsedSnapshots() {
+        val snapshotFiles = snapshotDirectory!!.listFiles { file -> file.name.endsWith(SNAPSHOT_SUFFIX) } ?: return
+        var directorySize = snapshotFiles.sumOf { it.length() }
+        if (directorySize <= maxSnapshotDirectorySize) {
+            return
+        }
+
+        for (snapshotFile in snapshotFiles.sortedBy { it.lastModified() }) {
+            if (directorySize <= maxSnapshotDirectorySize) {
+                break
+            }
+            val fileSize = snapshotFile.length()
+            if (snapshotFile.delete()) {
+                directorySize -= fileSize
+            }
+        }
+    }
+
+    /**
+     * Returns the snapshot file for the exercise file, its name is the hash of the exercise file path. So there is
+     * only one snapshot per exercise file, a snapshot of a modified file gets replaced.
+     */
+    private fun getSnapshotFile(key: Key): File? {
+        if (snapshotDirectory == null) {
+            return null
+        }
+
+        val hash = MessageDigest.getInstance("SHA-256").digest(key.path.toByteArray(Charsets.UTF_8))
+        val hashName = hash.take(16).joinToString("") { "%02x".format(it) }
+        return File(snapshotDirectory, hashName + SNAPSHOT_SUFFIX)
+    }
+
+    companion object {
+        private val LOGGER = Logger.getLogger(ExerciseCache::class.java.name)
+
+        private const val SNAPSHOT_SUFFIX = ".evs"
+
+        /** Default maximum sample count of the in-memory cache, e.g. 4 exercises of 6 hours with 1 sec interval. */
+        const val DEFAULT_MAX_MEMORY_SAMPLE_COUNT = 100_000
+
+        /** Default maximum size of the snapshot directory (200 MB). */
+        const val DEFAULT_MAX_SNAPSHOT_DIRECTORY_SIZE = 200L * 1024 * 1024
+    }
+}
@@ -27,4 +27,20 @@ interface ExerciseParser {
      */
     @Throws(EVException::class)
     fun parseExercise(filename: String): EVExercise
+
+    /**
+     * This method parses the summary data of the specified exercise file, e.g. for importing it into an exercise.
+     * The created EVExercise object contains (when available in the file) the date and time, duration, average
+     * heartrate, energy, distance, average speed, ascent, descent and the FIT sport type. The samples, laps and all
+     * other values might be missing.
+     *
+     * The default implementation parses the complete exercise file, parsers which can skip the sample data should
+     * override it.
+     *
+     * @param filename name of exercise file to parse
+     * @return the parsed PVExercise object with the summary data
+     * @throws EVException thrown on read/parse problems
+     */
+    @Throws(EVException::class)
+    fun parseSummary(filename: String): EVExercise = parseExercise(filename)
 }
@@ -14,8 +14,11 @@ import java.util.ServiceLoader
  */
 object ExerciseParserFactory {
 
-    /** The ServiceLoader instance for all ExerciseParser implementations. */
-    private val exerciseParserLoader: ServiceLoader<ExerciseParser> = ServiceLoader.load(ExerciseParser::class.java)
+    /**
+     * The instances of all ExerciseParser implementations. They are loaded once by the ServiceLoader, the list can be
+     * accessed by multiple threads (the ServiceLoader can't).
+     */
+    private val exerciseParsers: List<ExerciseParser> = ServiceLoader.load(ExerciseParser::class.java).toList()
 
     /**
      * Returns the instance of the appropriate exercise parser for the specified exercise filename.
@@ -27,18 +30,30 @@ object ExerciseParserFactory {
      */
     @Throws(EVException::class)
     fun getParser(filename: String): ExerciseParser =
-            exerciseParserLoader.find { isFileSupportedByParser(it, filename) } ?:
+            exerciseParsers.find { isFileSupportedByParser(it, filename) } ?:
                     throw EVException("No parser has been found for filename '$filename'!")
 
+    /**
+     * Creates a new instance of the appropriate exercise parser for the specified exercise filename. Some parser
+     * implementations store the state of the current parse in the instance, so a new instance must be used when
+     * multiple files are parsed concurrently.
+     *
+     * @param filename name of the exercise file to parse
+     * @return new instance of the appropriate exercise parser
+     * @throws EVException when no proper parser has been found
+     */
+    @Throws(EVException::class)
+    fun createParser(filename: String): ExerciseParser =
+            getParser(filename).javaClass.getDeclaredConstructor().newInstance()
+
     /**
      * Returns the list of all ExerciseParserInfo objects for all available parser implementations
      * (useful e.g. for File Open dialogs for list of suffixes).
      *
      * @return list of ExerciseParserInfo objects for all parser implementations
      */
-    val exerciseParserInfos: List<ExerciseParserInfo> = exerciseParserLoader
+    val exerciseParserInfos: List<ExerciseParserInfo> = exerciseParsers
             .map { parser -> parser.info }
-            .toList()
 
     private fun isFileSupportedByParser(parser: ExerciseParser, filename: String): Boolean =
             parser.info.suffixes.any { filename.endsWith(".$it") }
@@ -0,0 +1,132 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.core.EVException
+import de.saring.exerciseviewer.data.EVExercise
+import java.io.File
+import java.util.concurrent.Callable
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.logging.Level
+import java.util.logging.Logger
+
+/**
+ * Speculative prefetcher of exercise files, e.g. for the exercise file of the currently selected exercise. So the
+ * exercise is parsed already when the user wants to view it and the ExerciseViewer can be opened without waiting.
+ *
+ * The exercise files are parsed by a single low-priority daemon thread and stored in the [ExerciseCache]. Each
+ * prefetch starts after a short delay, so the files are not parsed while the user moves the selection quickly.
+ * A new prefetch cancels the previous one when it has not been started yet, an already running prefetch will be
+ * completed (the exercise is still cached then).
+ *
+ * @property exerciseCache the cache for storing the prefetched exercises
+ * @property delayMillis the delay in msec before the exercise file gets parsed
+ *
+ * @author Stefan Saring
+ */
+class ExercisePrefetcher @JvmOverloads constructor(
+        private val exerciseCache: ExerciseCache,
+        private val delayMillis: Long = DEFAULT_DELAY_MILLIS) {
+
+    /**
+     * Prefetch of a single exercise file. The started flag is set by the executor thread when it starts parsing or
+     * by the caller of getExercise() when it takes over the prefetch before it has been started.
+     */
+    private class PrefetchJob(val path: String) {
+        val started = AtomicBoolean(false)
+        lateinit var future: Future<EVExercise?>
+    }
+
+    private val executor = ScheduledThreadPoolExecutor(1) { runnable ->
+        Thread(runnable, "ExercisePrefetcher").apply {
+            isDaemon = true
+            priority = Thread.MIN_PRIORITY
+        }
+    }.apply { removeOnCancelPolicy = true }
+
+    private var currentJob: PrefetchJob? = null
+
+    /**
+     * Starts the prefetch of the specified exercise file. It replaces the current prefetch, nothing happens when
+     * it's the same exercise file.
+     *
+     * @param filename name of the exercise file or null when nothing needs to be prefetched (e.g. no selection)
+     */
+    @Synchronized
+    fun prefetch(filename: String?) {
+        val path = filename?.let { getNormalizedPath(it) }
+        if (path == currentJob?.path) {
+            return
+        }
+
+        currentJob?.future?.cancel(false)
+        currentJob = null
+
+        if (filename != null && path != null) {
+            val job = PrefetchJob(path)
+            job.future = executor.schedule(Callable { executePrefetch(job, filename) },
+                    delayMillis, TimeUnit.MILLISECONDS)
+            currentJob = job
+        }
+    }
+
+    /**
+     * Returns the exercise for the specified exercise file, see [ExerciseCache.getExercise]. When the file is
+     * being prefetched, then the result of the prefetch will be used instead of parsing the file again.
+     *
+     * @param filename name of exercise file
+     * @return the exercise (must not be modified)
+     * @throws EVException thrown on read/parse problems
+     */
+    @Throws(EVException::class)
+    fun getExercise(filename: String): EVExercise {
+        val path = getNormalizedPath(filename)
+        val job = synchronized(this) { currentJob?.takeIf { it.path == path } }
+
+        // wait for the result of the prefetch when it has been started already, otherwise the prefetch is not needed
+        if (job != null && !job.started.compareAndSet(false, true)) {
+            try {
+                job.future.get()?.let { return it }
+            } catch (e: ExecutionException) {
+                // the file gets parsed again below, so the error can be handled by the caller
+            } catch (e: CancellationException) {
+                // the executor has been shut down, the file gets parsed below
+            }
+        }
+        return exerciseCache.getExercise(filename)
+    }
+
+    /**
+     * Stops the prefetch executor, the current prefetch is cancelled.
+     */
+    fun shutdown() {
+        executor.shutdownNow()
+    }
+
+    private fun executePrefetch(job: PrefetchJob, filename: String): EVExercise? {
+        if (!job.started.compareAndSet(false, true)) {
+            // the exercise is requested already, the caller parses it by itself
+            return null
+        }
+
+        try {
+            return exerciseCache.getExercise(filename)
+        } catch (e: Exception) {
+            LOGGER.log(Level.FINE, "Failed to prefetch exercise file '$filename'!", e)
+            throw e
+        }
+    }
+
+    private fun getNormalizedPath(filename: String): String =
+            File(filename).toPath().toAbsolutePath().normalize().toString()
+
+    companion object {
+        private val LOGGER = Logger.getLogger(ExercisePrefetcher::class.java.name)
+
+        /** Default delay before the prefetch starts, it's short enough to complete before the user reacts. */
+        const val DEFAULT_DELAY_MILLIS = 300L
+    }
+}
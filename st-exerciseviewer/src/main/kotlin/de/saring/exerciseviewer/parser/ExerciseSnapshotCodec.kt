@@ -0,0 +1,371 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.data.EVExercise
+import de.saring.exerciseviewer.data.ExerciseAltitude
+import de.saring.exerciseviewer.data.ExerciseCadence
+import de.saring.exerciseviewer.data.ExercisePower
+import de.saring.exerciseviewer.data.ExerciseSampleColumns
+import de.saring.exerciseviewer.data.ExerciseSampleColumns.Channel
+import de.saring.exerciseviewer.data.ExerciseSpeed
+import de.saring.exerciseviewer.data.ExerciseTemperature
+import de.saring.exerciseviewer.data.HeartRateLimit
+import de.saring.exerciseviewer.data.Lap
+import de.saring.exerciseviewer.data.LapAltitude
+import de.saring.exerciseviewer.data.LapPower
+import de.saring.exerciseviewer.data.LapSpeed
+import de.saring.exerciseviewer.data.LapTemperature
+import de.saring.exerciseviewer.data.Position
+import de.saring.exerciseviewer.data.RecordingMode
+import de.saring.exerciseviewer.data.SportTypeFit
+import java.io.DataInput
+import java.io.DataOutput
+import java.io.IOException
+import java.time.LocalDateTime
+import java.util.BitSet
+
+/**
+ * Encoder and decoder of the compact binary snapshots of parsed exercises, they are stored by the [ExerciseCache].
+ * A snapshot contains the key of the exercise file (path, size and modification time) and all the exercise data.
+ *
+ * The samples are stored by channel: the presence of the values is stored as bit set, the values are stored as
+ * deltas to the previous value of the channel in the variable length ZigZag encoding. So the typical small changes
+ * between the samples need 1 or 2 bytes only. The float and double values (speed and position) are encoded by the
+ * deltas of their raw bits, so all values are restored without any loss.
+ *
+ * @author Stefan Saring
+ */
+object ExerciseSnapshotCodec {
+
+    private const val MAGIC = 0x45565358 // "EVSX"
+    private const val FORMAT_VERSION = 1
+
+    /**
+     * Writes the snapshot of the specified exercise.
+     *
+     * @param output the output to write to
+     * @param key key of the exercise file
+     * @param exercise the parsed exercise
+     * @throws IOException on write problems
+     */
+    @Throws(IOException::class)
+    fun write(output: DataOutput, key: ExerciseCache.Key, exercise: EVExercise) {
+        output.writeInt(MAGIC)
+        output.writeInt(FORMAT_VERSION)
+        output.writeUTF(key.path)
+        output.writeLong(key.size)
+        output.writeLong(key.lastModified)
+
+        writeSummary(output, exercise)
+        output.writeVarInt(exercise.heartRateLimits.size)
+        exercise.heartRateLimits.forEach { writeHeartRateLimit(output, it) }
+        output.writeVarInt(exercise.lapList.size)
+        exercise.lapList.forEach { writeLap(output, it) }
+        writeSamples(output, exercise.sampleColumns)
+    }
+
+    /**
+     * Reads the snapshot for the specified key.
+     *
+     * @param input the input to read from
+     * @param key key of the exercise file
+     * @return the exercise or null when the snapshot was created for another file, file version or format version
+     * @throws IOException on read problems or invalid snapshot data
+     */
+    @Throws(IOException::class)
+    fun read(input: DataInput, key: ExerciseCache.Key): EVExercise? {
+        if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION ||
+                input.readUTF() != key.path || input.readLong() != key.size || input.readLong() != key.lastModified) {
+            return null
+        }
+
+        val exercise = readSummary(input)
+        repeat(input.readVarInt()) { exercise.heartRateLimits.add(readHeartRateLimit(input)) }
+        repeat(input.readVarInt()) { exercise.lapList.add(readLap(input)) }
+        readSamples(input, exercise.sampleColumns)
+        return exercise
+    }
+
+    private fun writeSummary(output: DataOutput, exercise: EVExercise) {
+        output.writeUTF(exercise.fileType.name)
+        output.writeNullable(exercise.deviceName) { writeUTF(it) }
+        output.writeNullable(exercise.dateTime) { writeUTF(it.toString()) }
+
+        val mode = exercise.recordingMode
+        val modeFlags = listOf(mode.isHeartRate, mode.isSpeed, mode.isAltitude, mode.isCadence, mode.isPower,
+                mode.isTemperature, mode.isLocation, mode.isIntervalExercise)
+        output.writeByte(modeFlags.foldIndexed(0) { bit, flags, flag -> if (flag) flags or (1 shl bit) else flags })
+        output.writeNullable(mode.bikeNumber) { writeByte(it.toInt()) }
+
+        output.writeNullable(exercise.duration) { writeInt(it) }
+        output.writeNullable(exercise.recordingInterval) { writeShort(it.toInt()) }
+        output.writeNullable(exercise.heartRateAVG) { writeShort(it.toInt()) }
+        output.writeNullable(exercise.heartRateMax) { writeShort(it.toInt()) }
+        output.writeNullable(exercise.speed) {
+            writeFloat(it.speedAvg)
+            writeFloat(it.speedMax)
+            writeInt(it.distance)
+        }
+        output.writeNullable(exercise.cadence) {
+            writeShort(it.cadenceAvg.toInt())
+            writeShort(it.cadenceMax.toInt())
+            writeNullable(it.cyclesTotal) { cycles -> writeLong(cycles) }
+        }
+        output.writeNullable(exercise.altitude) {
+            writeShort(it.altitudeMin.toInt())
+            writeShort(it.altitudeAvg.toInt())
+            writeShort(it.altitudeMax.toInt())
+            writeInt(it.ascent)
+            writeInt(it.descent)
+        }
+        output.writeNullable(exercise.temperature) {
+            writeShort(it.temperatureMin.toInt())
+            writeShort(it.temperatureAvg.toInt())
+            writeShort(it.temperatureMax.toInt())
+        }
+        output.writeNullable(exercise.power) {
+            writeShort(it.powerAvg.toInt())
+            writeNullable(it.powerMax) { value -> writeShort(value.toInt()) }
+            writeNullable(it.powerNormalized) { value -> writeShort(value.toInt()) }
+        }
+        output.writeNullable(exercise.energy) { writeInt(it) }
+        output.writeNullable(exercise.energyTotal) { writeInt(it) }
+        output.writeNullable(exercise.sumExerciseTime) { writeInt(it) }
+        output.writeNullable(exercise.sumRideTime) { writeInt(it) }
+        output.writeNullable(exercise.odometer) { writeInt(it) }
+        output.writeNullable(exercise.sportType) { writeUTF(it) }
+        output.writeNullable(exercise.sportTypeFit) {
+            writeInt(it.sportTypeId)
+            writeNullable(it.sportSubTypeId) { subTypeId -> writeInt(subTypeId) }
+        }
+    }
+
+    private fun readSummary(input: DataInput): EVExercise {
+        val exercise = EVExercise(EVExercise.ExerciseFileType.valueOf(input.readUTF()))
+        exercise.deviceName = input.readNullable { readUTF() }
+        exercise.dateTime = input.readNullable { LocalDateTime.parse(readUTF()) }
+
+        val modeFlags = input.readUnsignedByte()
+        val isFlag = { bit: Int -> modeFlags and (1 shl bit) != 0 }
+        exercise.recordingMode = RecordingMode(isFlag(0), isFlag(1), isFlag(2), isFlag(3), isFlag(4), isFlag(5),
+                isFlag(6), isFlag(7), input.readNullable { readByte() })
+
+        exercise.duration = input.readNullable { readInt() }
+        exercise.recordingInterval = input.readNullable { readShort() }
+        exercise.heartRateAVG = input.readNullable { readShort() }
+        exercise.heartRateMax = input.readNullable { readShort() }
+        exercise.speed = input.readNullable { ExerciseSpeed(readFloat(), readFloat(), readInt()) }
+        exercise.cadence = input.readNullable {
+            ExerciseCadence(readShort(), readShort(), readNullable { readLong() })
+        }
+        exercise.altitude = input.readNullable {
+            ExerciseAltitude(readShort(), readShort(), readShort(), readInt(), readInt())
+        }
+        exercise.temperature = input.readNullable { ExerciseTemperature(readShort(), readShort(), readShort()) }
+        exercise.power = input.readNullable {
+            ExercisePower(readShort(), readNullable { readShort() }, readNullable { readShort() })
+        }
+        exercise.energy = input.readNullable { readInt() }
+        exercise.energyTotal = input.readNullable { readInt() }
+        exercise.sumExerciseTime = input.readNullable { readInt() }
+        exercise.sumRideTime = input.readNullable { readInt() }
+        exercise.odometer = input.readNullable { readInt() }
+        exercise.sportType = input.readNullable { readUTF() }
+        exercise.sportTypeFit = input.readNullable { SportTypeFit(readInt(), readNullable { readInt() }) }
+        return exercise
+    }
+
+    private fun writeHeartRateLimit(output: DataOutput, limit: HeartRateLimit) {
+        output.writeShort(limit.lowerHeartRate.toInt())
+        output.writeShort(limit.upperHeartRate.toInt())
+        output.writeNullable(limit.timeBelow) { writeInt(it) }
+        output.writeInt(limit.timeWithin)
+        output.writeNullable(limit.timeAbove) { writeInt(it) }
+        output.writeBoolean(limit.isAbsoluteRange)
+    }
+
+    private fun readHeartRateLimit(input: DataInput) = HeartRateLimit(
+            input.readShort(),
+            input.readShort(),
+            input.readNullable { readInt() },
+            input.readInt(),
+            input.readNullable { readInt() },
+            input.readBoolean())
+
+    private fun writeLap(output: DataOutput, lap: Lap) {
+        output.writeInt(lap.timeSplit)
+        output.writeNullable(lap.heartRateSplit) { writeShort(it.toInt()) }
+        output.writeNullable(lap.heartRateAVG) { writeShort(it.toInt()) }
+        output.writeNullable(lap.heartRateMax) { writeShort(it.toInt()) }
+        output.writeNullable(lap.speed) {
+            writeFloat(it.speedEnd)
+            writeFloat(it.speedAVG)
+            writeInt(it.distance)
+            writeNullable(it.cadence) { cadence -> writeShort(cadence.toInt()) }
+        }
+        output.writeNullable(lap.altitude) {
+            writeShort(it.altitude.toInt())
+            writeInt(it.ascent)
+            writeInt(it.descent)
+        }
+        output.writeNullable(lap.temperature) { writeShort(it.temperature.toInt()) }
+        output.writeNullable(lap.power) {
+            writeShort(it.powerAvg.toInt())
+            writeNullable(it.powerMax) { value -> writeShort(value.toInt()) }
+            writeNullable(it.powerNormalized) { value -> writeShort(value.toInt()) }
+        }
+        output.writeNullable(lap.positionSplit) {
+            writeDouble(it.latitude)
+            writeDouble(it.longitude)
+        }
+    }
+
+    private fun readLap(input: DataInput) = Lap(
+            input.readInt(),
+            input.readNullable { readShort() },
+            input.readNullable { readShort() },
+            input.readNullable { readShort() },
+            input.readNullable { LapSpeed(readFloat(), readFloat(), readInt(), readNullable { readShort() }) },
+            input.readNullable { LapAltitude(readShort(), readInt(), readInt()) },
+            input.readNullable { LapTemperature(readShort()) },
+            input.readNullable { LapPower(readShort(), readNullable { readShort() }, readNullable { readShort() }) },
+            input.readNullable { Position(readDouble(), readDouble()) })
+
+    /**
+     * Writes the samples channel by channel, each channel starts with the bit set of the present values.
+     */
+    private fun writeSamples(output: DataOutput, samples: ExerciseSampleColumns) {
+        output.writeVarInt(samples.size)
+
+        for (channel in Channel.values()) {
+            val presence = BitSet(samples.size)
+            for (index in 0 until samples.size) {
+                if (samples.has(channel, index)) {
+                    presence.set(index)
+                }
+            }
+
+            val presenceWords = presence.toLongArray()
+            output.writeVarInt(presenceWords.size)
+            presenceWords.forEach { output.writeLong(it) }
+
+            var previous = 0L
+            var previousLongitude = 0L
+            var index = presence.nextSetBit(0)
+            while (index >= 0) {
+                if (channel == Channel.POSITION) {
+                    val longitude = samples.getLongitude(index).toRawBits()
+                    output.writeVarLong(zigZag(longitude - previousLongitude))
+                    previousLongitude = longitude
+                }
+                val value = getRawValue(samples, channel, index)
+                output.writeVarLong(zigZag(value - previous))
+                previous = value
+                index = presence.nextSetBit(index + 1)
+            }
+        }
+    }
+
+    private fun readSamples(input: DataInput, samples: ExerciseSampleColumns) {
+        val size = input.readVarInt()
+        samples.ensureCapacity(size)
+        repeat(size) { samples.addSample() }
+
+        for (channel in Channel.values()) {
+            val presence = BitSet.valueOf(LongArray(input.readVarInt()) { input.readLong() })
+            if (presence.length() > size) {
+                throw IOException("Invalid sample presence of channel $channel!")
+            }
+
+            var previous = 0L
+            var previousLongitude = 0L
+            var index = presence.nextSetBit(0)
+            while (index >= 0) {
+                if (channel == Channel.POSITION) {
+                    previousLongitude += unZigZag(input.readVarLong())
+                }
+                previous += unZigZag(input.readVarLong())
+                setRawValue(samples, channel, index, previous, previousLongitude)
+                index = presence.nextSetBit(index + 1)
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the channel as long, float and double values are returned by their raw bits. The position
+     * returns the latitude only, the longitude is handled separately.
+     */
+    private fun getRawValue(samples: ExerciseSampleColumns, channel: Channel, index: Int): Long = when (channel) {
+        Channel.TIMESTAMP -> samples.getTimestamp(index)
+        Channel.HEART_RATE -> samples.getHeartRate(index).toLong()
+        Channel.ALTITUDE -> samples.getAltitude(index).toLong()
+        Channel.SPEED -> samples.getSpeed(index).toRawBits().toLong()
+        Channel.CADENCE -> samples.getCadence(index).toLong()
+        Channel.POWER -> samples.getPower(index).toLong()
+        Channel.DISTANCE -> samples.getDistance(index).toLong()
+        Channel.TEMPERATURE -> samples.getTemperature(index).toLong()
+        Channel.POSITION -> samples.getLatitude(index).toRawBits()
+    }
+
+    private fun setRawValue(samples: ExerciseSampleColumns, channel: Channel, index: Int, value: Long,
+                            longitude: Long) = when (channel) {
+        Channel.TIMESTAMP -> samples.setTimestamp(index, value)
+        Channel.HEART_RATE -> samples.setHeartRate(index, value.toShort())
+        Channel.ALTITUDE -> samples.setAltitude(index, value.toShort())
+        Channel.SPEED -> samples.setSpeed(index, Float.fromBits(value.toInt()))
+        Channel.CADENCE -> samples.setCadence(index, value.toShort())
+        Channel.POWER -> samples.setPower(index, value.toShort())
+        Channel.DISTANCE -> samples.setDistance(index, value.toInt())
+        Channel.TEMPERATURE -> samples.setTemperature(index, value.toShort())
+        Channel.POSITION -> samples.setPosition(index, Double.fromBits(value), Double.fromBits(longitude))
+    }
+
+    private fun zigZag(value: Long): Long = (value shl 1) xor (value shr 63)
+
+    private fun unZigZag(value: Long): Long = (value ushr 1) xor -(value and 1)
+
+    private fun DataOutput.writeVarInt(value: Int) = writeVarLong(value.toLong())
+
+    /**
+     * Writes the unsigned value in the variable length encoding: 7 bits per byte, the highest bit is set when
+     * more bytes are following.
+     */
+    private fun DataOutput.writeVarLong(value: Long) {
+        var remaining = value
+        while (remaining and 0x7FL.inv() != 0L) {
+            writeByte(((remaining and 0x7F) or 0x80).toInt())
+            remaining = remaining ushr 7
+        }
+        writeByte(remaining.toInt())
+    }
+
+    private fun DataInput.readVarInt(): Int {
+        val value = readVarLong()
+        if (value < 0 || value > Int.MAX_VALUE) {
+            throw IOException("Invalid count value $value!")
+        }
+        return value.toInt()
+    }
+
+    private fun DataInput.readVarLong(): Long {
+        var value = 0L
+        var shift = 0
+        while (shift < 64) {
+            val b = readUnsignedByte()
+            value = value or ((b and 0x7F).toLong() shl shift)
+            if (b and 0x80 == 0) {
+                return value
+            }
+            shift += 7
+        }
+        throw IOException("Invalid variable length value!")
+    }
+
+    private inline fun <T> DataOutput.writeNullable(value: T?, write: DataOutput.(T) -> Unit) {
+        writeBoolean(value != null)
+        if (value != null) {
+            write(value)
+        }
+    }
+
+    private inline fun <T> DataInput.readNullable(read: DataInput.() -> T): T? = if (readBoolean()) read() else null
+}
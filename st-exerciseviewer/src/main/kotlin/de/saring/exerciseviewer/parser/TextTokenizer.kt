@@ -0,0 +1,366 @@
+package de.saring.exerciseviewer.parser
+
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.Charset
+
+/**
+ * Tokenizer for text-based exercise files. The line offsets and the offsets of all blocks (lines like "[Params]")
+ * are found in a single scan of the content. The lines can be split into tokens and the integer values of the tokens
+ * are parsed directly from the content, so there are no substrings and no allocations while parsing the lines.
+ *
+ * The token offsets of the last split are stored in reusable arrays, so an instance must not be used concurrently.
+ *
+ * @param content the text content, position 0 is offset 0 of this tokenizer
+ *
+ * @author Stefan Saring
+ */
+class TextTokenizer(private val content: CharBuffer) {
+
+    /** Number of lines of the content. */
+    var lineCount = 0
+        private set
+
+    private var lineStarts = IntArray(INITIAL_LINE_CAPACITY)
+    private var lineEnds = IntArray(INITIAL_LINE_CAPACITY)
+
+    // first line index and line count of all blocks, the key is the block name
+    private val blocks = HashMap<String, Block>()
+
+    /** Number of tokens of the last split line. */
+    var tokenCount = 0
+        private set
+
+    private var tokenStarts = IntArray(INITIAL_TOKEN_CAPACITY)
+    private var tokenEnds = IntArray(INITIAL_TOKEN_CAPACITY)
+
+    private class Block(val firstLine: Int, var lineCount: Int = 0)
+
+    init {
+        scanLines()
+    }
+
+    /**
+     * Finds the start and end offsets of all lines (LF, CRLF or CR terminated) and the content lines of all blocks.
+     * A block starts after a line "[name]" and ends before the next blank line or line starting with '['.
+     */
+    private fun scanLines() {
+        val length = content.limit()
+        var openBlock: Block? = null
+        var lineStart = 0
+        var offset = 0
+
+        while (offset < length || lineStart < length) {
+            val c = if (offset < length) content.get(offset) else '\n'
+            if (c != '\n' && c != '\r') {
+                offset++
+                continue
+            }
+
+            val line = addLine(lineStart, minOf(offset, length))
+            if (isBlockStart(line)) {
+                val name = getBlockName(line)
+                openBlock = if (blocks.containsKey(name)) null else Block(line + 1).also { blocks[name] = it }
+            } else if (openBlock != null) {
+                if (isBlank(line) || charAt(line, 0) == '[') {
+                    openBlock = null
+                } else {
+                    openBlock.lineCount++
+                }
+            }
+
+            offset++
+            if (c == '\r' && offset < length && content.get(offset) == '\n') {
+                offset++
+            }
+            lineStart = offset
+        }
+    }
+
+    private fun addLine(start: Int, end: Int): Int {
+        if (lineCount == lineStarts.size) {
+            lineStarts = lineStarts.copyOf(lineCount * 2)
+            lineEnds = lineEnds.copyOf(lineCount * 2)
+        }
+        lineStarts[lineCount] = start
+        lineEnds[lineCount] = end
+        return lineCount++
+    }
+
+    private fun isBlockStart(line: Int): Boolean =
+            lineLength(line) > 1 && charAt(line, 0) == '[' && indexOf(line, ']', 1) > 0
+
+    private fun getBlockName(line: Int): String = substring(line, 1, indexOf(line, ']', 1))
+
+    /**
+     * Returns the line range of the content of the specified block. It's the range of lines after the line "[name]"
+     * and before the next blank line or line starting with '['. When the block is contained multiple times, then the
+     * first one is used.
+     *
+     * @param name name of the block
+     * @return the line range or null when the block was not found
+     */
+    fun getBlockLines(name: String): IntRange? =
+            blocks[name]?.let { it.firstLine until it.firstLine + it.lineCount }
+
+    /**
+     * Returns the length of the specified line (without the line terminator).
+     */
+    fun lineLength(line: Int): Int = lineEnds[checkLine(line)] - lineStarts[line]
+
+    /**
+     * Returns the character of the specified line at the specified column.
+     */
+    fun charAt(line: Int, column: Int): Char {
+        if (column < 0 || column >= lineLength(line)) {
+            throw IndexOutOfBoundsException("Column $column is not in line $line!")
+        }
+        return content.get(lineStarts[line] + column)
+    }
+
+    /**
+     * Returns true when the specified line contains whitespace characters only.
+     */
+    fun isBlank(line: Int): Boolean {
+        for (offset in lineStarts[checkLine(line)] until lineEnds[line]) {
+            if (!content.get(offset).isWhitespace()) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /**
+     * Returns true when the specified line starts with the specified prefix.
+     */
+    fun startsWith(line: Int, prefix: String): Boolean {
+        if (lineLength(line) < prefix.length) {
+            return false
+        }
+        val start = lineStarts[line]
+        for (i in prefix.indices) {
+            if (content.get(start + i) != prefix[i]) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /**
+     * Returns true when the specified line is equal to the specified text.
+     */
+    fun lineEquals(line: Int, text: String): Boolean = lineLength(line) == text.length && startsWith(line, text)
+
+    /**
+     * Returns the column of the first occurrence of the specified character in the line, starting at the specified
+     * column. It returns -1 when the character was not found.
+     */
+    fun indexOf(line: Int, c: Char, fromColumn: Int = 0): Int {
+        val start = lineStarts[checkLine(line)]
+        for (offset in start + maxOf(fromColumn, 0) until lineEnds[line]) {
+            if (content.get(offset) == c) {
+                return offset - start
+            }
+        }
+        return -1
+    }
+
+    /**
+     * Returns the specified part of the line as String. This creates a new String, so it should be used for single
+     * values only and not for the sample data.
+     *
+     * @param line the line index
+     * @param fromColumn the start column (inclusive)
+     * @param toColumn the end column (exclusive), default is the line end
+     */
+    fun substring(line: Int, fromColumn: Int, toColumn: Int = lineLength(line)): String {
+        checkColumns(line, fromColumn, toColumn)
+        val start = lineStarts[line]
+        return content.subSequence(start + fromColumn, start + toColumn).toString()
+    }
+
+    /**
+     * Returns the index of the first line in the specified line range with the prefix "$name=". The value starts
+     * at column name.length + 1 of this line.
+     *
+     * @param lines the line range to search in
+     * @param name name of the value
+     * @return the line index or -1 when not found
+     */
+    fun findValueLine(lines: IntRange, name: String): Int {
+        for (line in lines) {
+            if (startsWith(line, name) && lineLength(line) > name.length && charAt(line, name.length) == '=') {
+                return line
+            }
+        }
+        return -1
+    }
+
+    /**
+     * Returns the value of the first line in the specified line range with the prefix "$name=".
+     * Example: if name is "Version" this method returns "106" for the line "Version=106".
+     *
+     * @param lines the line range to search in
+     * @param name name of the value
+     * @return the value or null when not found
+     */
+    fun findValue(lines: IntRange, name: String): String? {
+        val line = findValueLine(lines, name)
+        return if (line >= 0) substring(line, name.length + 1) else null
+    }
+
+    /**
+     * Splits the specified line into tokens. Each of the separator characters ends a token, so the number of tokens
+     * is always the number of separators + 1 (as in String.split()). The offsets of the tokens are stored in this
+     * tokenizer, the tokens can be accessed until the next split.
+     *
+     * @param line the line index
+     * @param separators the separator characters
+     * @param fromColumn the column where the first token starts
+     * @return the number of tokens
+     */
+    fun split(line: Int, separators: String, fromColumn: Int = 0): Int {
+        checkColumns(line, fromColumn, lineLength(line))
+        val end = lineEnds[line]
+        var tokenStart = lineStarts[line] + fromColumn
+        tokenCount = 0
+
+        for (offset in tokenStart until end) {
+            if (separators.indexOf(content.get(offset)) >= 0) {
+                addToken(tokenStart, offset)
+                tokenStart = offset + 1
+            }
+        }
+        addToken(tokenStart, end)
+        return tokenCount
+    }
+
+    private fun addToken(start: Int, end: Int) {
+        if (tokenCount == tokenStarts.size) {
+            tokenStarts = tokenStarts.copyOf(tokenCount * 2)
+            tokenEnds = tokenEnds.copyOf(tokenCount * 2)
+        }
+        tokenStarts[tokenCount] = start
+        tokenEnds[tokenCount] = end
+        tokenCount++
+    }
+
+    /**
+     * Parses the specified token of the last split as Int.
+     *
+     * @throws NumberFormatException when the token is not a valid number
+     */
+    fun intToken(index: Int): Int {
+        checkToken(index)
+        return parseInt(tokenStarts[index], tokenEnds[index])
+    }
+
+    /**
+     * Parses the specified token of the last split as Short.
+     *
+     * @throws NumberFormatException when the token is not a valid number or out of range
+     */
+    fun shortToken(index: Int): Short = toShort(intToken(index))
+
+    /**
+     * Parses the specified part of the line as Int.
+     *
+     * @param line the line index
+     * @param fromColumn the start column (inclusive)
+     * @param toColumn the end column (exclusive), default is the line end
+     * @throws NumberFormatException when the part is not a valid number
+     */
+    fun parseInt(line: Int, fromColumn: Int, toColumn: Int = lineLength(line)): Int {
+        checkColumns(line, fromColumn, toColumn)
+        val start = lineStarts[line]
+        return parseInt(start + fromColumn, start + toColumn)
+    }
+
+    /**
+     * Parses the specified part of the line as Short.
+     *
+     * @throws NumberFormatException when the part is not a valid number or out of range
+     */
+    fun parseShort(line: Int, fromColumn: Int, toColumn: Int = lineLength(line)): Short =
+            toShort(parseInt(line, fromColumn, toColumn))
+
+    /**
+     * Parses the decimal Int value of the content from start (inclusive) to end (exclusive) offset. The value
+     * can have a leading sign, no other characters are allowed (same as String.toInt()).
+     */
+    private fun parseInt(start: Int, end: Int): Int {
+        if (start >= end) {
+            throw NumberFormatException("Empty number value!")
+        }
+
+        var offset = start
+        val firstChar = content.get(offset)
+        val negative = firstChar == '-'
+        if (negative || firstChar == '+') {
+            offset++
+            if (offset == end) {
+                throw numberFormatException(start, end)
+            }
+        }
+
+        // the value is accumulated negative, so Int.MIN_VALUE can be parsed too
+        val limit = if (negative) Int.MIN_VALUE else -Int.MAX_VALUE
+        var result = 0
+        while (offset < end) {
+            val digit = content.get(offset) - '0'
+            if (digit < 0 || digit > 9 || result < (limit + digit) / 10) {
+                throw numberFormatException(start, end)
+            }
+            result = result * 10 - digit
+            offset++
+        }
+        return if (negative) result else -result
+    }
+
+    private fun toShort(value: Int): Short {
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw NumberFormatException("Value $value is out of range for a Short!")
+        }
+        return value.toShort()
+    }
+
+    private fun numberFormatException(start: Int, end: Int) =
+            NumberFormatException("Invalid number value '${content.subSequence(start, end)}'!")
+
+    private fun checkLine(line: Int): Int {
+        if (line < 0 || line >= lineCount) {
+            throw IndexOutOfBoundsException("Line $line does not exist, line count is $lineCount!")
+        }
+        return line
+    }
+
+    private fun checkColumns(line: Int, fromColumn: Int, toColumn: Int) {
+        if (fromColumn < 0 || fromColumn > toColumn || toColumn > lineLength(line)) {
+            throw IndexOutOfBoundsException("Columns $fromColumn..$toColumn are not in line $line!")
+        }
+    }
+
+    private fun checkToken(index: Int) {
+        if (index < 0 || index >= tokenCount) {
+            throw IndexOutOfBoundsException("Token $index does not exist, token count is $tokenCount!")
+        }
+    }
+
+    companion object {
+
+        private const val INITIAL_LINE_CAPACITY = 256
+        private const val INITIAL_TOKEN_CAPACITY = 16
+
+        /**
+         * Creates the tokenizer for the specified text, it is not copied.
+         */
+        @JvmStatic
+        fun of(text: CharSequence) = TextTokenizer(CharBuffer.wrap(text))
+
+        /**
+         * Creates the tokenizer for the specified bytes, they are decoded once with the specified charset.
+         */
+        @JvmStatic
+        fun of(bytes: ByteArray, charset: Charset = Charsets.UTF_8) = TextTokenizer(charset.decode(ByteBuffer.wrap(bytes)))
+    }
+}
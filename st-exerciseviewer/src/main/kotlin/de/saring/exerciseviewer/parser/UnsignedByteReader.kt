@@ -0,0 +1,82 @@
+package de.saring.exerciseviewer.parser
+
+import java.nio.ByteBuffer
+
+/**
+ * Reader for unsigned values of binary exercise files. The values are read directly from the ByteBuffer by absolute
+ * offsets, so there are no conversions of the complete content and no allocations while parsing.
+ *
+ * The values of the Polar devices are stored in little endian order, the time values are often BCD encoded.
+ *
+ * @param buffer the buffer with the binary content, position 0 is offset 0 of this reader
+ *
+ * @author Stefan Saring
+ */
+class UnsignedByteReader(private val buffer: ByteBuffer) {
+
+    /** Number of bytes which can be read. */
+    val size: Int
+        get() = buffer.limit()
+
+    /**
+     * Returns the unsigned byte (0..255) at the specified offset.
+     */
+    fun u8(offset: Int): Int = buffer.get(offset).toInt() and 0xff
+
+    /**
+     * Returns the unsigned 16 bit value (little endian) starting at the specified offset.
+     */
+    fun u16le(offset: Int): Int = u8(offset) or (u8(offset + 1) shl 8)
+
+    /**
+     * Returns the unsigned 32 bit value (little endian) starting at the specified offset.
+     */
+    fun u32le(offset: Int): Long = u16le(offset).toLong() or (u16le(offset + 2).toLong() shl 16)
+
+    /**
+     * Returns the decoded BCD value of the byte at the specified offset (upper 4 bits * 10 + lower 4 bits).
+     */
+    fun bcd(offset: Int): Int = decodeBCD(u8(offset))
+
+    /**
+     * Returns the value of the specified bit field of the byte at the specified offset.
+     *
+     * @param offset the offset of the byte
+     * @param shift the index of the lowest bit of the field (0 is the least significant bit)
+     * @param count the number of bits of the field
+     * @return the unsigned value of the bit field
+     */
+    fun bits(offset: Int, shift: Int, count: Int): Int = (u8(offset) ushr shift) and ((1 shl count) - 1)
+
+    /**
+     * Returns true when the specified bit of the byte at the specified offset is set.
+     *
+     * @param offset the offset of the byte
+     * @param bit the index of the bit (0 is the least significant bit)
+     */
+    fun isBitSet(offset: Int, bit: Int): Boolean = bits(offset, bit, 1) == 1
+
+    /**
+     * Returns a reader for the specified part of this reader, the content is shared and not copied.
+     *
+     * @param offset the offset where the part starts
+     * @param length the length of the part
+     * @return the reader of the part, its offset 0 is the specified offset
+     */
+    fun slice(offset: Int, length: Int) = UnsignedByteReader(buffer.slice(offset, length))
+
+    companion object {
+
+        /**
+         * Decodes the specified BCD byte value (upper 4 bits * 10 + lower 4 bits).
+         */
+        @JvmStatic
+        fun decodeBCD(value: Int): Int = ((value shr 4) * 10) + (value and 0x0f)
+
+        /**
+         * Creates the reader for the specified bytes, they are not copied.
+         */
+        @JvmStatic
+        fun of(bytes: ByteArray) = UnsignedByteReader(ByteBuffer.wrap(bytes))
+    }
+}
@@ -4,43 +4,57 @@ import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseAltitude
 import de.saring.exerciseviewer.data.ExerciseCadence
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.data.ExerciseSpeed
 import de.saring.exerciseviewer.data.Lap
 import de.saring.exerciseviewer.data.LapAltitude
 import de.saring.exerciseviewer.data.LapSpeed
-import de.saring.exerciseviewer.data.Position
 import de.saring.exerciseviewer.data.RecordingMode
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
-import org.jdom2.Element
-import org.jdom2.Namespace
-import org.jdom2.input.SAXBuilder
+import java.io.FileInputStream
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamReader
 
 /**
  * ExerciseParser implementation for reading Garmin TCX v2 exercise files (XML-based). Documentation about the format
  * can be found at the Garmin website ( http://developer.garmin.com/schemas/tcx/v2/ ).
  *
+ * The file is read by a streaming StAX parser, the laps and samples are created while reading. So the memory usage
+ * does not depend on the file size, apart from the parsed exercise.
+ *
  * @author Stefan Saring
  */
 class GarminTcxParser : AbstractExerciseParser() {
 
-    private val namespace = Namespace.getNamespace("http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2")
-    private val namespaceExt = Namespace.getNamespace("ext", "http://www.garmin.com/xmlschemas/ActivityExtension/v2")
-
     override
     val info = ExerciseParserInfo("Garmin TCX", listOf("tcx", "TCX"))
 
     override
-    fun parseExercise(filename: String): EVExercise {
+    fun parseExercise(filename: String): EVExercise = parse(filename, false)
+
+    /**
+     * Parses the summary data of the TCX file, no samples are created. Only the time and altitude of the trackpoints
+     * are read, they are needed for the lap durations and the ascent.
+     */
+    override
+    fun parseSummary(filename: String): EVExercise = parse(filename, true)
+
+    private fun parse(filename: String, summaryOnly: Boolean): EVExercise {
 
         try {
-            val document = SAXBuilder().build(filename)
-            return parseExerciseElement(document.rootElement)
+            FileInputStream(filename).buffered().use { input ->
+                val reader = XML_INPUT_FACTORY.get().createXMLStreamReader(input)
+                try {
+                    return ActivityReader(reader, summaryOnly).read()
+                } finally {
+                    reader.close()
+                }
+            }
         }
         catch (e: Exception) {
             throw EVException("Failed to read the Garmin TCX exercise file '$filename'!", e)
@@ -48,243 +62,379 @@ class GarminTcxParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the exercise data from the specified element (root element).
-     *
-     * @param eExercise exercise DOM element
+     * Streaming reader of the first Activity element of a TCX file. The laps and samples are created while reading
+     * the XML events, so no document tree is needed. The values of the current lap and trackpoint are collected
+     * until the end of their element is reached, because the lap duration depends on its last trackpoint.
+     * When reading the summary only, then no samples are created. A new instance is needed for each file.
      */
-    private fun parseExerciseElement(eExercise: Element): EVExercise {
-
-        // parse basic exercise data
-        val exercise = EVExercise(EVExercise.ExerciseFileType.GARMIN_TCX)
-        exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
-        exercise.recordingMode = RecordingMode()
-        exercise.recordingMode.isSpeed = true
-        exercise.duration = 0
-        exercise.speed = ExerciseSpeed(0f, 0f, 0)
-        exercise.energy = 0
-
-        val eActivity = eExercise.getChild("Activities", namespace).getChild("Activity", namespace)
-        val exerciseDateTime = parseDateTime(eActivity.getChildText("Id", namespace))
-        exercise.dateTime = exerciseDateTime
-
-        var trackpointCount: Int = 0
-        var altitudeMetersTotal: Double = 0.0
-
-        var cadenceCount: Int = 0
-        var cadenceSum: Long = 0
-
-        var totalTimeGapBetweenLaps: Long = 0
-        var lastTrackpointTimestamp: Long = 0
-
-        // no summary data, everything is stored in laps
-        // parse each lap and create a ExerciseViewer Lap object
-        for (eLap in eActivity.getChildren("Lap", namespace)) {
-            val evLap = parseLapData(exercise, eLap)
-            exercise.lapList.add(evLap)
+    private inner class ActivityReader(private val reader: XMLStreamReader, private val summaryOnly: Boolean) {
+
+        private val exercise = EVExercise(EVExercise.ExerciseFileType.GARMIN_TCX)
+        private val samples = exercise.sampleColumns
+
+        private var inActivity = false
+        private var inCreator = false
+        private var heartRateElement: String? = null
+
+        private var exerciseDateTimeMillis: Long = 0
+        private var deviceName: String? = null
+
+        private var trackpointCount: Int = 0
+        private var altitudeMetersTotal: Double = 0.0
+
+        private var cadenceCount: Int = 0
+        private var cadenceSum: Long = 0
+
+        private var totalTimeGapBetweenLaps: Long = 0
+        private var lastTrackpointTimestamp: Long = 0
+
+        // state of the current lap
+        private var lap: Lap? = null
+        private var lapStartMillis: Long = 0
+        private var lapDistanceMeters: String? = null
+        private var lapCalories: String? = null
+        private var lapAltitude: Short? = null
+        private var lapAscentMeters: Double = 0.0
+        private var lapLastTrackpointMillis: Long? = null
+        private var lapLastTrackpointTime: String? = null
+        private var previousTrackpointTimestamp = Long.MIN_VALUE
+        private var previousTrackpointDistanceMeters = Double.MIN_VALUE
+        private var previousTrackpointAltitudeMeters = Double.MIN_VALUE
+
+        // values of the current trackpoint
+        private val trackpoint = TrackpointValues()
+
+        fun read(): EVExercise {
+            exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
+            exercise.recordingMode = RecordingMode()
+            exercise.recordingMode.isSpeed = true
+            exercise.duration = 0
+            exercise.speed = ExerciseSpeed(0f, 0f, 0)
+            exercise.energy = 0
+
+            // only the first Activity element will be read
+            while (reader.hasNext()) {
+                when (reader.next()) {
+                    XMLStreamConstants.START_ELEMENT -> startElement()
+                    XMLStreamConstants.END_ELEMENT -> if (endElement()) break
+                }
+            }
+            if (exercise.dateTime == null) {
+                throw EVException("The TCX file does not contain an Activity!")
+            }
+
+            // device model name, it's always an Garmin
+            exercise.deviceName = "Garmin $deviceName"
+
+            calculateAvgSpeed(exercise)
+            calculateAvgHeartrate(exercise)
+            calculateAvgAltitude(exercise, altitudeMetersTotal, trackpointCount)
+            return exercise
+        }
+
+        private fun startElement() {
+            val name = reader.localName
+            if (reader.namespaceURI == NAMESPACE_EXT) {
+                if (trackpoint.active && name == "RunCadence") {
+                    trackpoint.runCadence = reader.elementText
+                }
+                return
+            }
+            if (reader.namespaceURI != NAMESPACE) {
+                return
+            }
+
+            if (!inActivity) {
+                inActivity = name == "Activity"
+            }
+            else if (trackpoint.active && summaryOnly) {
+                when (name) {
+                    "Time" -> trackpoint.time = reader.elementText
+                    "AltitudeMeters" -> trackpoint.altitude = reader.elementText
+                }
+            }
+            else if (trackpoint.active) {
+                when (name) {
+                    "Time" -> trackpoint.time = reader.elementText
+                    "Position" -> trackpoint.hasPosition = true
+                    "LatitudeDegrees" -> trackpoint.latitude = reader.elementText
+                    "LongitudeDegrees" -> trackpoint.longitude = reader.elementText
+                    "AltitudeMeters" -> trackpoint.altitude = reader.elementText
+                    "DistanceMeters" -> trackpoint.distance = reader.elementText
+                    "HeartRateBpm" -> heartRateElement = name
+                    "Value" -> if (heartRateElement != null) trackpoint.heartRate = reader.elementText
+                    "Cadence" -> trackpoint.cadence = reader.elementText
+                }
+            }
+            else if (lap != null) {
+                when (name) {
+                    "Trackpoint" -> trackpoint.start()
+                    "DistanceMeters" -> lapDistanceMeters = reader.elementText
+                    "Calories" -> lapCalories = reader.elementText
+                    "AverageHeartRateBpm", "MaximumHeartRateBpm" -> heartRateElement = name
+                    "Value" -> readLapHeartRate(reader.elementText)
+                }
+            }
+            else if (inCreator) {
+                if (name == "Name") {
+                    deviceName = reader.elementText
+                }
+            }
+            else {
+                when (name) {
+                    "Id" -> {
+                        val exerciseDateTime = parseDateTime(reader.elementText)
+                        exercise.dateTime = exerciseDateTime
+                        exerciseDateTimeMillis = Date310Utils.getMilliseconds(exerciseDateTime)
+                    }
+                    "Lap" -> startLap(reader.getAttributeValue(null, "StartTime"))
+                    "Creator" -> inCreator = true
+                }
+            }
+        }
+
+        /**
+         * Handles the end of the current element.
+         *
+         * @return true when the end of the Activity element has been reached
+         */
+        private fun endElement(): Boolean {
+            if (!inActivity || reader.namespaceURI != NAMESPACE) {
+                return false
+            }
+
+            when (reader.localName) {
+                "HeartRateBpm", "AverageHeartRateBpm", "MaximumHeartRateBpm" -> heartRateElement = null
+                "Trackpoint" -> if (summaryOnly) readTrackpointSummary() else readTrackpoint()
+                "Lap" -> finishLap()
+                "Creator" -> inCreator = false
+                "Activity" -> return true
+            }
+            return false
+        }
+
+        private fun startLap(strStartTime: String) {
+            lapStartMillis = Date310Utils.getMilliseconds(parseDateTime(strStartTime))
 
             // compute the total time gap between all laps
             if (lastTrackpointTimestamp > 0) {
-                val lapStart = parseDateTime(eLap.getAttributeValue("StartTime"))
-                val lapStartMillis = Date310Utils.getMilliseconds(lapStart)
                 totalTimeGapBetweenLaps += lapStartMillis - lastTrackpointTimestamp
             }
 
-            var lapAltitude: Short? = null
-            var lapAscentMeters: Double = 0.0
-            var previousTrackpointTimestamp = Long.MIN_VALUE
-            var previousTrackpointDistanceMeters = Double.MIN_VALUE
-            var previousTrackpointAltitudeMeters = Double.MIN_VALUE
-            val exerciseDateTimeMillis = Date310Utils.getMilliseconds(exerciseDateTime)
-
-            // parse all Track elements
-            for (eTrack in eLap.getChildren("Track", namespace)) {
-
-                // parse all Trackpoint elements (= ExerciseSamples)
-                for (eTrackpoint in eTrack.getChildren("Trackpoint", namespace)) {
-                    trackpointCount++
-
-                    val evSample = ExerciseSample()
-                    exercise.sampleList.add(evSample)
-
-                    // calculate sample timestamp (time gap between laps must be substracted here)
-                    val tpDateTime = parseDateTime(eTrackpoint.getChildText("Time", namespace))
-                    val tpMillis = Date310Utils.getMilliseconds(tpDateTime)
-                    lastTrackpointTimestamp = tpMillis
-
-                    evSample.timestamp = tpMillis - exerciseDateTimeMillis - totalTimeGapBetweenLaps
-
-                    parseTrackpointPositionData(exercise, evSample, eTrackpoint)
-                    parseTrackpointHeartRateData(exercise, evLap, evSample, eTrackpoint)
-
-                    // get distance data (some trackpoints might not have distance data!)
-                    val strDistanceMeters = eTrackpoint.getChildText("DistanceMeters", namespace)
-                    if (strDistanceMeters != null) {
-                        val tpDistanceMeters = strDistanceMeters.toDouble()
-                        evSample.distance = Math.round(tpDistanceMeters).toInt()
-
-                        // calculate speed between current and previous trackpoint
-                        evSample.speed = 0f
-                        if (previousTrackpointTimestamp > Long.MIN_VALUE) {
-                            val tpTimestampDiff = tpMillis - previousTrackpointTimestamp
-                            // sometimes computed difference is < 0 => impossible, use 0 instead
-                            val tpDistanceDiff = Math.max(tpDistanceMeters - previousTrackpointDistanceMeters, 0.0)
-
-                            evSample.speed = CalculationUtils.calculateAvgSpeed(
-                                    tpDistanceDiff / 1000.0, Math.round(tpTimestampDiff / 1000.0).toInt()).toFloat()
-                        }
-                        previousTrackpointTimestamp = tpMillis
-                        previousTrackpointDistanceMeters = tpDistanceMeters
-
-                        evLap.speed!!.speedEnd = evSample.speed ?: 0f
-                        exercise.speed!!.speedMax = Math.max(evSample.speed ?: 0f, exercise.speed!!.speedMax)
-                    }
-
-                    // get optional altitude data
-                    val strAltitudeMeters = eTrackpoint.getChildText("AltitudeMeters", namespace)
-                    if (strAltitudeMeters != null) {
-                        val tpAltitude = strAltitudeMeters.toDouble()
-                        evSample.altitude = Math.round(tpAltitude).toShort()
-                        altitudeMetersTotal += Math.round(tpAltitude)
-
-                        // create altitude objects for exercise and current lap if not done yet
-                        if (exercise.altitude == null) {
-                            exercise.recordingMode.isAltitude = true
-                            exercise.altitude = ExerciseAltitude(
-                                    altitudeMin = Short.MAX_VALUE,
-                                    altitudeAvg = Math.round(altitudeMetersTotal / trackpointCount).toShort(),
-                                    altitudeMax = Short.MIN_VALUE,
-                                    ascent = 0,
-                                    descent = 0)
-                        }
-
-                        lapAltitude = Math.round(tpAltitude).toShort()
-
-                        exercise.altitude!!.altitudeMin = Math.min(tpAltitude.toInt(), exercise.altitude!!.altitudeMin.toInt()).toShort()
-                        exercise.altitude!!.altitudeMax = Math.max(tpAltitude.toInt(), exercise.altitude!!.altitudeMax.toInt()).toShort()
-
-                        // calculate lap ascent (need to use double precision here)
-                        if (previousTrackpointAltitudeMeters > Double.MIN_VALUE &&
-                                tpAltitude > previousTrackpointAltitudeMeters) {
-                            val tpAscent = tpAltitude - previousTrackpointAltitudeMeters
-                            lapAscentMeters += tpAscent
-                        }
-                        previousTrackpointAltitudeMeters = tpAltitude
-                    }
+            // the lap summary values will be set at the end of the lap
+            val evLap = Lap()
+            evLap.speed = LapSpeed(0f, 0f, 0)
+            exercise.lapList.add(evLap)
+            lap = evLap
+
+            lapDistanceMeters = null
+            lapCalories = null
+            lapAltitude = null
+            lapAscentMeters = 0.0
+            lapLastTrackpointMillis = null
+            lapLastTrackpointTime = null
+            previousTrackpointTimestamp = Long.MIN_VALUE
+            previousTrackpointDistanceMeters = Double.MIN_VALUE
+            previousTrackpointAltitudeMeters = Double.MIN_VALUE
+        }
 
-                    // get optional cadence data
-                    val cadence = getCadenceOfTrackpoint(eTrackpoint)
-                    if (cadence != null) {
-                        evSample.cadence = cadence
-                        evLap.speed!!.cadence = evSample.cadence ?: 0
-
-                        // create cadence object for exercise if not done yet
-                        if (exercise.cadence == null) {
-                            exercise.cadence = ExerciseCadence(0, 0)
-                            exercise.recordingMode.isCadence = true
-                        }
-
-                        // compute max and average cadence if present
-                        exercise.cadence!!.cadenceMax = Math.max(cadence.toInt(), exercise.cadence!!.cadenceMax.toInt()).toShort()
-                        if (cadence > 0) {
-                            cadenceSum += cadence
-                            exercise.cadence!!.cadenceAvg = Math.round(cadenceSum / (++cadenceCount).toDouble()).toShort()
-                        }
-                    }
+        private fun readLapHeartRate(strValue: String) {
+            val evLap = lap!!
+            when (heartRateElement) {
+                "AverageHeartRateBpm" -> evLap.heartRateAVG = strValue.toShort()
+                "MaximumHeartRateBpm" -> {
+                    evLap.heartRateMax = strValue.toShort()
+                    exercise.heartRateMax = Math.max(evLap.heartRateMax!!.toInt(), exercise.heartRateMax?.toInt() ?: 0).toShort()
                 }
             }
+        }
+
+        private fun finishLap() {
+            val evLap = lap!!
+            lap = null
+
+            // for the summary only the time of the last lap trackpoint is parsed
+            lapLastTrackpointTime?.let {
+                lapLastTrackpointMillis = Date310Utils.getMilliseconds(parseDateTime(it))
+            }
+
+            // stored lap duration in XML is often wrong, needs to be calculated:
+            // "Last TrackPoint of Lap".Time - Lap.StartTime
+            val lastTpMillis = lapLastTrackpointMillis ?: throw EVException("The TCX lap does not contain trackpoints!")
+            val lapDurationSeconds = (lastTpMillis - lapStartMillis) / 1000.0
+
+            val distanceMeters = lapDistanceMeters!!.toDouble()
+            exercise.duration = exercise.duration!! + Math.round(lapDurationSeconds * 10).toInt()
+            evLap.timeSplit = exercise.duration!!
+            exercise.speed!!.distance += Math.round(distanceMeters).toInt()
+            exercise.energy = exercise.energy!! + lapCalories!!.toInt()
+
+            // stored maximum lap speed in XML is wrong, it has been calculated from the trackpoints
+            evLap.speed!!.speedAVG = CalculationUtils.calculateAvgSpeed(
+                    distanceMeters / 1000.0,
+                    Math.round(lapDurationSeconds).toInt()).toFloat()
+            evLap.speed!!.distance = exercise.speed!!.distance
 
             if (lapAltitude != null) {
-                evLap.altitude = LapAltitude(lapAltitude, Math.round(lapAscentMeters).toInt(), 0)
+                evLap.altitude = LapAltitude(lapAltitude!!, Math.round(lapAscentMeters).toInt(), 0)
             }
 
             // store position of last sample as lap split position
-            if (!exercise.sampleList.isEmpty()) {
-                evLap.positionSplit = exercise.sampleList.last().position
+            if (!samples.isEmpty()) {
+                evLap.positionSplit = samples.getPositionOrNull(samples.size - 1)
             }
         }
 
-        // parse device model name, it's always an Garmin
-        exercise.deviceName = "Garmin ${eActivity.getChild("Creator", namespace).getChildText("Name", namespace)}"
+        /**
+         * Creates the exercise sample for the collected values of the current trackpoint.
+         */
+        private fun readTrackpoint() {
+            val evLap = lap!!
+            trackpoint.active = false
+            trackpointCount++
 
-        calculateAvgSpeed(exercise)
-        calculateAvgHeartrate(exercise)
-        calculateAvgAltitude(exercise, altitudeMetersTotal, trackpointCount)
+            val index = samples.addSample()
 
-        return exercise
-    }
+            // calculate sample timestamp (time gap between laps must be substracted here)
+            val tpMillis = Date310Utils.getMilliseconds(parseDateTime(trackpoint.time!!))
+            lastTrackpointTimestamp = tpMillis
+            lapLastTrackpointMillis = tpMillis
 
-    private fun parseLapData(exercise: EVExercise, lapElement: Element): Lap {
-        val evLap = Lap()
+            samples.setTimestamp(index, tpMillis - exerciseDateTimeMillis - totalTimeGapBetweenLaps)
 
-        // stored lap duration in XML is often wrong, needs to be calculated
-        val lapDurationSeconds = calculateLapDuration(lapElement)
-        val distanceMeters = lapElement.getChildText("DistanceMeters", namespace).toDouble()
-        exercise.duration = exercise.duration!! + Math.round(lapDurationSeconds * 10).toInt()
-        evLap.timeSplit = exercise.duration!!
-        exercise.speed!!.distance += Math.round(distanceMeters).toInt()
-        val lapSpeedDistance = exercise.speed!!.distance
-        exercise.energy = exercise.energy!! + lapElement.getChildText("Calories", namespace).toInt()
+            if (trackpoint.hasPosition) {
+                exercise.recordingMode.isLocation = true
+                samples.setPosition(index, trackpoint.latitude!!.toDouble(), trackpoint.longitude!!.toDouble())
+            }
 
-        // stored maximum lap speed in XML is wrong, will be calculated
+            trackpoint.heartRate?.let {
+                val heartRate = it.toShort()
+                samples.setHeartRate(index, heartRate)
+                evLap.heartRateSplit = heartRate
+                exercise.recordingMode.isHeartRate = true
+            }
 
-        // calculate average speed of lap
-        val lapSpeedAVG = CalculationUtils.calculateAvgSpeed(
-                distanceMeters / 1000.0,
-                Math.round(lapDurationSeconds).toInt()).toFloat()
+            // get distance data (some trackpoints might not have distance data!)
+            trackpoint.distance?.let {
+                val tpDistanceMeters = it.toDouble()
+                samples.setDistance(index, Math.round(tpDistanceMeters).toInt())
 
-        evLap.speed = LapSpeed(0f, lapSpeedAVG, lapSpeedDistance)
+                // calculate speed between current and previous trackpoint
+                var speed = 0f
+                if (previousTrackpointTimestamp > Long.MIN_VALUE) {
+                    val tpTimestampDiff = tpMillis - previousTrackpointTimestamp
+                    // sometimes computed difference is < 0 => impossible, use 0 instead
+                    val tpDistanceDiff = Math.max(tpDistanceMeters - previousTrackpointDistanceMeters, 0.0)
 
-        // parse optional heartrate data of lap
-        parseLapHeartRateData(exercise, evLap, lapElement)
-        return evLap
-    }
+                    speed = CalculationUtils.calculateAvgSpeed(
+                            tpDistanceDiff / 1000.0, Math.round(tpTimestampDiff / 1000.0).toInt()).toFloat()
+                }
+                samples.setSpeed(index, speed)
+                previousTrackpointTimestamp = tpMillis
+                previousTrackpointDistanceMeters = tpDistanceMeters
 
-    private fun parseLapHeartRateData(exercise: EVExercise, evLap: Lap, lapElement: Element) {
-        val eAverageHeartRateBpm = lapElement.getChild("AverageHeartRateBpm", namespace)
-        if (eAverageHeartRateBpm != null) {
-            evLap.heartRateAVG = eAverageHeartRateBpm.getChildText("Value", namespace).toShort()
-        }
+                evLap.speed!!.speedEnd = speed
+                exercise.speed!!.speedMax = Math.max(speed, exercise.speed!!.speedMax)
+            }
+
+            // get optional altitude data
+            trackpoint.altitude?.let {
+                val tpAltitude = it.toDouble()
+                samples.setAltitude(index, Math.round(tpAltitude).toShort())
+                addAltitude(tpAltitude)
+            }
+
+            // get optional cadence data, it looks first for the cycling cadence, then for the run cadence extension
+            (trackpoint.cadence ?: trackpoint.runCadence)?.let {
+                val cadence = it.toShort()
+                samples.setCadence(index, cadence)
+                evLap.speed!!.cadence = cadence
 
-        val eMaximumHeartRateBpm = lapElement.getChild("MaximumHeartRateBpm", namespace)
-        if (eMaximumHeartRateBpm != null) {
-            evLap.heartRateMax = eMaximumHeartRateBpm.getChildText("Value", namespace).toShort()
-            exercise.heartRateMax = Math.max(evLap.heartRateMax!!.toInt(), exercise.heartRateMax?.toInt() ?: 0).toShort()
+                // create cadence object for exercise if not done yet
+                if (exercise.cadence == null) {
+                    exercise.cadence = ExerciseCadence(0, 0)
+                    exercise.recordingMode.isCadence = true
+                }
+
+                // compute max and average cadence if present
+                exercise.cadence!!.cadenceMax = Math.max(cadence.toInt(), exercise.cadence!!.cadenceMax.toInt()).toShort()
+                if (cadence > 0) {
+                    cadenceSum += cadence
+                    exercise.cadence!!.cadenceAvg = Math.round(cadenceSum / (++cadenceCount).toDouble()).toShort()
+                }
+            }
         }
-    }
 
-    private fun parseTrackpointPositionData(exercise: EVExercise, evSample: ExerciseSample, tpElement: Element) {
-        val ePosition = tpElement.getChild("Position", namespace)
-        if (ePosition != null) {
-            exercise.recordingMode.isLocation = true
-            val latitude = ePosition.getChildText("LatitudeDegrees", namespace).toDouble()
-            val longitude = ePosition.getChildText("LongitudeDegrees", namespace).toDouble()
-            evSample.position = Position(latitude, longitude)
+        /**
+         * Reads the collected values of the current trackpoint for the summary, no sample is created.
+         */
+        private fun readTrackpointSummary() {
+            trackpoint.active = false
+            trackpointCount++
+
+            lapLastTrackpointTime = trackpoint.time!!
+            trackpoint.altitude?.let { addAltitude(it.toDouble()) }
         }
-    }
 
-    private fun parseTrackpointHeartRateData(evExercise: EVExercise, evLap: Lap, evSample: ExerciseSample, tpElement: Element) {
-        val eHeartRateBpm = tpElement.getChild("HeartRateBpm", namespace)
-        if (eHeartRateBpm != null) {
-            val heartRate = eHeartRateBpm.getChildText("Value", namespace).toShort()
-            evSample.heartRate = heartRate
-            evLap.heartRateSplit = heartRate
-            evExercise.recordingMode.isHeartRate = true
+        /**
+         * Updates the exercise altitude and the lap ascent with the altitude of the current trackpoint.
+         */
+        private fun addAltitude(tpAltitude: Double) {
+            altitudeMetersTotal += Math.round(tpAltitude)
+
+            // create altitude object for exercise if not done yet
+            if (exercise.altitude == null) {
+                exercise.recordingMode.isAltitude = true
+                exercise.altitude = ExerciseAltitude(
+                        altitudeMin = Short.MAX_VALUE,
+                        altitudeAvg = Math.round(altitudeMetersTotal / trackpointCount).toShort(),
+                        altitudeMax = Short.MIN_VALUE,
+                        ascent = 0,
+                        descent = 0)
+            }
+
+            lapAltitude = Math.round(tpAltitude).toShort()
+
+            exercise.altitude!!.altitudeMin = Math.min(tpAltitude.toInt(), exercise.altitude!!.altitudeMin.toInt()).toShort()
+            exercise.altitude!!.altitudeMax = Math.max(tpAltitude.toInt(), exercise.altitude!!.altitudeMax.toInt()).toShort()
+
+            // calculate lap ascent (need to use double precision here)
+            if (previousTrackpointAltitudeMeters > Double.MIN_VALUE &&
+                    tpAltitude > previousTrackpointAltitudeMeters) {
+                val tpAscent = tpAltitude - previousTrackpointAltitudeMeters
+                lapAscentMeters += tpAscent
+            }
+            previousTrackpointAltitudeMeters = tpAltitude
         }
     }
 
     /**
-     * Calculates the duration of the specified lap in seconds:
-     * "Last TrackPoint of Lap".Time - Lap.StartTime
+     * Text values of a Trackpoint element, the instance is reused for all trackpoints.
      */
-    private fun calculateLapDuration(lapElement: Element): Double {
-        val lastTrack = lapElement.getChildren("Track", namespace).last()
-        var lastTrackpoint = lastTrack.getChildren("Trackpoint", namespace).last()
-
-        val lapStart = parseDateTime(lapElement.getAttributeValue("StartTime"))
-        val lastTp = parseDateTime(lastTrackpoint.getChildText("Time", namespace))
-        val lapStartMillis = Date310Utils.getMilliseconds(lapStart)
-        val lastTpMillis = Date310Utils.getMilliseconds(lastTp)
-        return (lastTpMillis - lapStartMillis) / 1000.0
+    private class TrackpointValues {
+        var active = false
+        var time: String? = null
+        var hasPosition = false
+        var latitude: String? = null
+        var longitude: String? = null
+        var altitude: String? = null
+        var distance: String? = null
+        var heartRate: String? = null
+        var cadence: String? = null
+        var runCadence: String? = null
+
+        fun start() {
+            active = true
+            time = null
+            hasPosition = false
+            latitude = null
+            longitude = null
+            altitude = null
+            distance = null
+            heartRate = null
+            cadence = null
+            runCadence = null
+        }
     }
 
     private fun calculateAvgSpeed(exercise: EVExercise) {
@@ -292,30 +442,6 @@ class GarminTcxParser : AbstractExerciseParser() {
                 exercise.speed!!.distance / 1000.0, Math.round(exercise.duration!! / 10f)).toFloat()
     }
 
-    /**
-     * Returns the optional cadence value if present. It looks first for the cycling cadence. If not found it looks for
-     * the run cadence extension.
-     *
-     * @param eTrackpoint element to check
-     * @return cadence or null
-     */
-    private fun getCadenceOfTrackpoint(eTrackpoint: Element): Short? {
-
-        val strCadence = eTrackpoint.getChildText("Cadence", namespace)
-        if (strCadence != null) {
-            return strCadence.toShort()
-        }
-
-        val strRunCadence = eTrackpoint.getChild("Extensions", namespace)
-                ?.getChild("TPX", namespaceExt)
-                ?.getChildText("RunCadence", namespaceExt)
-        if (strRunCadence != null) {
-            return strRunCadence.toShort()
-        }
-
-        return null
-    }
-
     /**
      * Calculates the average heartrate for the specified exercise (if available). It's computed
      * as the average of all laps average heartrates. Laps without heartrate data will be ignored.
@@ -364,4 +490,18 @@ class GarminTcxParser : AbstractExerciseParser() {
             dateTimeText
         return LocalDateTime.parse(dateTimeTextFixed, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
     }
+
+    companion object {
+        private const val NAMESPACE = "http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2"
+        private const val NAMESPACE_EXT = "http://www.garmin.com/xmlschemas/ActivityExtension/v2"
+
+        /** XMLInputFactory for each thread, the factory is not thread-safe and files are parsed in parallel. */
+        private val XML_INPUT_FACTORY = ThreadLocal.withInitial {
+            XMLInputFactory.newInstance().apply {
+                setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true)
+                setProperty(XMLInputFactory.SUPPORT_DTD, false)
+                setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+            }
+        }
+    }
 }
@@ -4,7 +4,6 @@ import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseAltitude
 import de.saring.exerciseviewer.data.ExerciseCadence
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.data.ExerciseSpeed
 import de.saring.exerciseviewer.data.HeartRateLimit
 import de.saring.exerciseviewer.data.Lap
@@ -14,6 +13,7 @@ import de.saring.exerciseviewer.data.LapTemperature
 import de.saring.exerciseviewer.data.RecordingMode
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
+import de.saring.exerciseviewer.parser.TextTokenizer
 import de.saring.util.unitcalc.ConvertUtils
 import java.io.File
 import java.time.LocalDateTime
@@ -23,6 +23,9 @@ import java.time.LocalDateTime
  * the extension ".hrm". They can be read from the Polar device using the software shipped with most Polar devices.
  * The format description is taken from the file "Polar_HRM2_file_format.pdf".
  *
+ * The file content is read by a [TextTokenizer], it finds all blocks in a single scan. The sample lines are parsed
+ * in place without creating substrings, the samples are stored directly in the sample columns of the exercise.
+ *
  * @author Stefan Saring
  */
 class PolarHRMParser : AbstractExerciseParser() {
@@ -31,29 +34,46 @@ class PolarHRMParser : AbstractExerciseParser() {
     val info = ExerciseParserInfo("Polar HRM", listOf("hrm", "HRM"))
 
     override
-    fun parseExercise(filename: String): EVExercise {
+    fun parseExercise(filename: String): EVExercise = parse(filename, false)
+
+    /**
+     * Parses the summary data of the HRM file. The laps and heartrate limits are not parsed and no samples are
+     * created, only the heartrates of the samples are read for computing the average heartrate.
+     */
+    override
+    fun parseSummary(filename: String): EVExercise = parse(filename, true)
+
+    private fun parse(filename: String, summaryOnly: Boolean): EVExercise {
 
         try {
-            val fileContent = File(filename).readLines()
-            return parseExerciseFromContent(fileContent)
+            val tokenizer = TextTokenizer.of(File(filename).readBytes())
+            return parseExerciseFromContent(tokenizer, summaryOnly)
         } catch (e: Exception) {
             throw EVException("Failed to read the HRM exercise file '$filename' ...", e)
         }
     }
 
-    private fun parseExerciseFromContent(fileContent: List<String>): EVExercise
+    private fun parseExerciseFromContent(tokenizer: TextTokenizer, summaryOnly: Boolean): EVExercise
     {
         // parse basic exercise data
         val exercise = EVExercise(EVExercise.ExerciseFileType.HRM)
         exercise.deviceName = "Polar HRM"
 
+        // parse the summary blocks only when requested
+        if (summaryOnly) {
+            val fMetricUnits = parseBlockParams(tokenizer, exercise)
+            parseBlockTrip(tokenizer, exercise, fMetricUnits)
+            parseBlockHrDataHeartRates(tokenizer, exercise)
+            return exercise
+        }
+
         // parse exercise file blocks
-        val fMetricUnits = parseBlockParams(fileContent, exercise)
-        parseBlockIntTimes(fileContent, exercise, fMetricUnits)
-        parseBlockSummaryTimes(fileContent, exercise)
+        val fMetricUnits = parseBlockParams(tokenizer, exercise)
+        parseBlockIntTimes(tokenizer, exercise, fMetricUnits)
+        parseBlockSummaryTimes(tokenizer, exercise)
         // ignore 'Summary-TH', 'HRZones' and 'SwapTimes' block
-        parseBlockTrip(fileContent, exercise, fMetricUnits)
-        parseBlockHrData(fileContent, exercise, fMetricUnits)
+        parseBlockTrip(tokenizer, exercise, fMetricUnits)
+        parseBlockHrData(tokenizer, exercise, fMetricUnits)
 
         // calculate average lap speed, the data was not recorded here
         calculateAverageLapSpeed(exercise)
@@ -64,24 +84,24 @@ class PolarHRMParser : AbstractExerciseParser() {
     /**
      * Parses the 'Params' block of the exercise file.
      *
-     * @param fileContent all exercise file lines
+     * @param tokenizer tokenizer of the exercise file content
      * @param exercise the created exercise
      * @return flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun parseBlockParams(fileContent: List<String>, exercise: EVExercise): Boolean {
+    private fun parseBlockParams(tokenizer: TextTokenizer, exercise: EVExercise): Boolean {
 
         // get lines of 'Params' block
-        val lParamsBlock = getBlockLines(fileContent, "Params", true)
+        val lParamsBlock = getBlockLines(tokenizer, "Params", true)
 
         // check HRM file version
-        val strVersion = getValueFromBlock(lParamsBlock, "Version")
+        val strVersion = getValueFromBlock(tokenizer, lParamsBlock, "Version")
         if (strVersion != "106" && strVersion != "107") {
             throw EVException("Failed to read HRM file, the version needs to be '106' or '107'!")
         }
 
         // parse recording mode informations
         // (since Polar S720 the length can be 9 instead of 8, althought the HRM version is still 1.06)
-        val strSMode = getValueFromBlock(lParamsBlock, "SMode")
+        val strSMode = getValueFromBlock(tokenizer, lParamsBlock, "SMode")
         exercise.recordingMode.isHeartRate = true
         exercise.recordingMode.isSpeed = strSMode[0] == '1'
         exercise.recordingMode.isCadence = strSMode[1] == '1'
@@ -96,41 +116,34 @@ class PolarHRMParser : AbstractExerciseParser() {
         val fMetricUnits = strSMode[7] == '0'
 
         // parse exercise dateTime (yyyymmdd)
-        val strDate = getValueFromBlock(lParamsBlock, "Date")
-        val exeYear = strDate.substring(0, 4).toInt()
-        val exeMonth = strDate.substring(4, 6).toInt()
-        val exeDay = strDate.substring(6, 8).toInt()
+        val dateLine = getValueLineFromBlock(tokenizer, lParamsBlock, "Date")
+        val dateColumn = "Date".length + 1
+        val exeYear = tokenizer.parseInt(dateLine, dateColumn, dateColumn + 4)
+        val exeMonth = tokenizer.parseInt(dateLine, dateColumn + 4, dateColumn + 6)
+        val exeDay = tokenizer.parseInt(dateLine, dateColumn + 6, dateColumn + 8)
 
         // parse exercise start time (can be either h:mm:ss.d or hh:mm:ss.d !)
-        val strStartTime = getValueFromBlock(lParamsBlock, "StartTime")
-        val startTimeSplitted = strStartTime.split(":", ".")
-        if (startTimeSplitted.size != 4) {
+        val startTimeLine = getValueLineFromBlock(tokenizer, lParamsBlock, "StartTime")
+        if (tokenizer.split(startTimeLine, ":.", "StartTime".length + 1) != 4) {
             throw EVException("Failed to read HRM file, can't parse exercise start time (wrong format)!");
         }
 
         // parse start time (the 1/10th second part will be ignored)
-        val exeHour = startTimeSplitted[0].toInt()
-        val exeMinute = startTimeSplitted[1].toInt()
-        val exeSecond = startTimeSplitted[2].toInt()
+        val exeHour = tokenizer.intToken(0)
+        val exeMinute = tokenizer.intToken(1)
+        val exeSecond = tokenizer.intToken(2)
         exercise.dateTime = LocalDateTime.of(exeYear, exeMonth, exeDay, exeHour, exeMinute, exeSecond)
 
         // parse exercise duration (can be either h:mm:ss.d or hh:mm:ss.d !)
-        val strDuration = getValueFromBlock(lParamsBlock, "Length")
-        val durationSplitted = strDuration.split(":", ".")
-        if (durationSplitted.size != 4) {
+        val durationLine = getValueLineFromBlock(tokenizer, lParamsBlock, "Length")
+        if (tokenizer.split(durationLine, ":.", "Length".length + 1) != 4) {
             throw EVException("Failed to read HRM file, can't parse exercise duration (wrong format)!")
         }
-
-        // parse start time (the 1/10th second part will be ignored)
-        val durHour = durationSplitted[0].toInt()
-        val durMinute = durationSplitted[1].toInt()
-        val durSecond = durationSplitted[2].toInt()
-        val durTenthOfSecond = durationSplitted[3].toInt()
-        exercise.duration = (durHour * 60 * 60 * 10) + (durMinute * 60 * 10) + durSecond * 10 + durTenthOfSecond
+        exercise.duration = parseTimeTokens(tokenizer, 0)
 
         // parse interval
-        val strInterval = getValueFromBlock(lParamsBlock, "Interval")
-        exercise.recordingInterval = strInterval.toShort()
+        val intervalLine = getValueLineFromBlock(tokenizer, lParamsBlock, "Interval")
+        exercise.recordingInterval = tokenizer.parseShort(intervalLine, "Interval".length + 1)
 
         // ignore Upper1, Lower1, ... Lower3, they're again in block Summary-123
         // ignore Timer1,Timer2,Timer3, ActiveLimit, MaxHR, RestHR, StartDelay, VO2max, Weight
@@ -140,73 +153,67 @@ class PolarHRMParser : AbstractExerciseParser() {
     /**
      * Parses the 'IntTimes' block of the exercise file, which contains the lap information.
      *
-     * @param fileContent all exercise file lines
+     * @param tokenizer tokenizer of the exercise file content
      * @param exercise the created exercise
      * @param fMetricUnits flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun  parseBlockIntTimes(fileContent: List<String>, exercise: EVExercise, fMetricUnits: Boolean) {
+    private fun  parseBlockIntTimes(tokenizer: TextTokenizer, exercise: EVExercise, fMetricUnits: Boolean) {
         //////////////////////////////////////////////////////////////////////
         // parse 'IntTimes' block (Lap times)
 
         // get lines of 'IntTimes' block (can be empty when 0 laps, e.g. for Polar S510)
-        val lIntTimesBlock = getBlockLines(fileContent, "IntTimes", false)
-        if (lIntTimesBlock.size % 5 != 0) {
+        val lIntTimesBlock = getBlockLines(tokenizer, "IntTimes", false)
+        if (lIntTimesBlock.count() % 5 != 0) {
             throw EVException("Failed to read HRM file, invalid number of lines in block 'IntTimes'!")
         }
 
         // parse all laps of exercise (each lap consists of 5 lines)
-        val numberOfLaps = lIntTimesBlock.size / 5
+        val numberOfLaps = lIntTimesBlock.count() / 5
         var lapDistanceAccumulated = 0
 
         for (i in 0..(numberOfLaps - 1)) {
             val lap = Lap()
             exercise.lapList.add(lap)
+            val firstLapLine = lIntTimesBlock.first + (i * 5)
 
             // 1. lap line needs to be of 5 parts
-            var currLapLineSplitted = lIntTimesBlock[i * 5].split("\t")
-            if (currLapLineSplitted.size != 5) {
+            if (tokenizer.split(firstLapLine, "\t") != 5) {
                 throw EVException("Failed to read HRM file, can't parse 1. line of current lap in block 'IntTimes'!")
             }
 
-            // parse lap split time (1. part) (can be either h:mm:ss.d or hh:mm:ss.d !)
-            val lapSplitTimeSplitted = currLapLineSplitted[0].split(":", ".")
-            if (lapSplitTimeSplitted.size != 4) {
+            // parse lap split time (1. part) (can be either h:mm:ss.d or hh:mm:ss.d !),
+            // the split time parts are the first 4 tokens, the other 4 parts follow
+            if (tokenizer.split(firstLapLine, ":.\t") != 8) {
                 throw EVException("Failed to read HRM file, can't parse lap split time of current lap (wrong format)!")
             }
-
-            val lapSplitTimeHour = lapSplitTimeSplitted[0].toInt()
-            val lapSplitTimeMinute = lapSplitTimeSplitted[1].toInt()
-            val lapSplitTimeSecond = lapSplitTimeSplitted[2].toInt()
-            val lapSplitTimeTenthSecond = lapSplitTimeSplitted[3].toInt()
-            lap.timeSplit = (lapSplitTimeHour * 60 * 60 * 10) + (lapSplitTimeMinute * 60 * 10) + (lapSplitTimeSecond * 10) + lapSplitTimeTenthSecond
+            lap.timeSplit = parseTimeTokens(tokenizer, 0)
 
             // get lap heartrate values (the other parts of the first line)
-            lap.heartRateSplit = currLapLineSplitted[1].toShort()
+            lap.heartRateSplit = tokenizer.shortToken(4)
             // minimum lap heartrate will be ignored
-            lap.heartRateAVG = currLapLineSplitted[3].toShort()
-            lap.heartRateMax = currLapLineSplitted[4].toShort()
+            lap.heartRateAVG = tokenizer.shortToken(6)
+            lap.heartRateMax = tokenizer.shortToken(7)
 
             // parse 2. lap line (needs to be of 6 parts)
-            currLapLineSplitted = lIntTimesBlock[(i * 5) + 1].split("\t")
-            if (currLapLineSplitted.size != 6) {
+            if (tokenizer.split(firstLapLine + 1, "\t") != 6) {
                 throw EVException("Failed to read HRM file, can't parse 2. line of current lap in block 'IntTimes'!")
             }
 
             // parse speed and cadence at lap split
             if (exercise.recordingMode.isSpeed) {
-                var lapSpeed = currLapLineSplitted[3].toInt() / 10.0
+                var lapSpeed = tokenizer.intToken(3) / 10.0
                 if (!fMetricUnits) {
                     lapSpeed = ConvertUtils.convertMiles2Kilometer(lapSpeed)
                 }
 
                 val lapSpeedCadence = if (exercise.recordingMode.isCadence)
-                    currLapLineSplitted[4].toShort() else null
+                    tokenizer.shortToken(4) else null
                 lap.speed = LapSpeed(lapSpeed.toFloat(), 0f, 0, lapSpeedCadence)
             }
 
             // parse altitude at lap split
             if (exercise.recordingMode.isAltitude) {
-                var lapAltitude = currLapLineSplitted[5].toInt()
+                var lapAltitude = tokenizer.intToken(5)
                 if (!fMetricUnits) {
                     lapAltitude = ConvertUtils.convertFeet2Meter(lapAltitude)
                 }
@@ -218,14 +225,13 @@ class PolarHRMParser : AbstractExerciseParser() {
             // the 3. lap line can be ignored completely
 
             // parse 4. lap line (needs to be of 6 parts)
-            currLapLineSplitted = lIntTimesBlock[(i * 5) + 3].split("\t")
-            if (currLapLineSplitted.size != 6) {
+            if (tokenizer.split(firstLapLine + 3, "\t") != 6) {
                 throw EVException("Failed to read HRM file, can't parse 4. line of current lap in block 'IntTimes'!")
             }
 
             // get lap distance
             if (exercise.recordingMode.isSpeed) {
-                val lapDistance = currLapLineSplitted[1].toInt()
+                val lapDistance = tokenizer.intToken(1)
                 if (!fMetricUnits) {
                     // TODO: is not consistent for english units -
                     // documentation says, it's in yards => so meters = yards * 0.9144),
@@ -242,11 +248,11 @@ class PolarHRMParser : AbstractExerciseParser() {
 
                 val lapTemperature = if (fMetricUnits) {
                     // temperature is C / 10
-                    val lapTemperature = currLapLineSplitted[3].toInt()
+                    val lapTemperature = tokenizer.intToken(3)
                     (lapTemperature / 10).toShort()
                 } else {
                     // temperature is Fahreinheit / 10
-                    val lapTemperature = currLapLineSplitted[3].toInt() / 10
+                    val lapTemperature = tokenizer.intToken(3) / 10
                     ConvertUtils.convertFahrenheit2Celsius(lapTemperature.toShort())
                 }
 
@@ -260,42 +266,41 @@ class PolarHRMParser : AbstractExerciseParser() {
     /**
      * Parses the 'Summary-123' block of the exercise file, which contains the heart rate range information.
      *
-     * @param fileContent all exercise file lines
+     * @param tokenizer tokenizer of the exercise file content
      * @param exercise the created exercise
      */
-    private fun parseBlockSummaryTimes(fileContent: List<String>, exercise: EVExercise) {
+    private fun parseBlockSummaryTimes(tokenizer: TextTokenizer, exercise: EVExercise) {
 
         // get lines of 'Summary-123' block
         // (mostly 7 lines, 8 lines for Polar CS600, data of last line is unknown)
         // (HRM export of Polar RCX3 does contain 6 lines only)
-        val lSummary123Block = getBlockLines(fileContent, "Summary-123", true)
-        if (lSummary123Block.size < 6) {
+        val lSummary123Block = getBlockLines(tokenizer, "Summary-123", true)
+        if (lSummary123Block.count() < 6) {
             throw EVException("Failed to read HRM file, can't find block 'Summary-123' or block is not valid!")
         }
 
         // parse data for 3 heartrate limit ranges
         // TODO: second and third HR ranges does not have sensefull content
         for (i in 0..(3-1)) {
+            val firstHRLLine = lSummary123Block.first + (i * 2)
 
             // 1. heratrate limits info line needs to be of 6 parts
-            val firstHRLLineSplitted = lSummary123Block[i * 2].split("\t")
-            if (firstHRLLineSplitted.size != 6) {
+            if (tokenizer.split(firstHRLLine, "\t") != 6) {
                 throw EVException("Failed to read HRM file, can't parse 1. line of current heartrate limits in block 'Summary-123'!")
             }
 
             // get seconds below, within and above current heartrate range
-            val timeAbove = firstHRLLineSplitted[2].toInt()
-            val timeWithin = firstHRLLineSplitted[3].toInt()
-            val timeBelow = firstHRLLineSplitted[4].toInt()
+            val timeAbove = tokenizer.intToken(2)
+            val timeWithin = tokenizer.intToken(3)
+            val timeBelow = tokenizer.intToken(4)
 
             // 2. heratrate limits info line needs to be of 4 parts
-            val secondHRLLineSplitted = lSummary123Block[(i * 2) + 1].split("\t")
-            if (secondHRLLineSplitted.size != 4) {
+            if (tokenizer.split(firstHRLLine + 1, "\t") != 4) {
                 throw EVException("Failed to read HRM file, can't parse 2. line of current heartrate limits in block 'Summary-123'!")
             }
 
-            val upperHeartRate = secondHRLLineSplitted[1].toShort()
-            val lowerHeartRate = secondHRLLineSplitted[2].toShort()
+            val upperHeartRate = tokenizer.shortToken(1)
+            val lowerHeartRate = tokenizer.shortToken(2)
 
             exercise.heartRateLimits.add(HeartRateLimit(lowerHeartRate, upperHeartRate, timeBelow, timeWithin, timeAbove))
 
@@ -306,7 +311,7 @@ class PolarHRMParser : AbstractExerciseParser() {
             //
             // if ('are values stored in percent instead of bpm') {
             //     // => calculate the BPM with help of max. heartrate => this should work ...
-            //     val maxHR = secondHRLLineSplitted[0].toInt()
+            //     val maxHR = tokenizer.intToken(0)
             //     exercise.heartRateLimits[i].lowerHeartRate = (maxHR * exercise.heartRateLimits[i].lowerHeartRate) / 100f
             //     exercise.heartRateLimits[i].upperHeartRate = (maxHR * exercise.heartRateLimits[i].upperHeartRate) / 100f
             // }
@@ -317,19 +322,21 @@ class PolarHRMParser : AbstractExerciseParser() {
      * Parses the 'Trip' block of the exercise file, which contains the speed and altitude information. This block is
      * not contained in all files (e.g. missing on S410 or S610).
      *
-     * @param fileContent all exercise file lines
+     * @param tokenizer tokenizer of the exercise file content
      * @param exercise the created exercise
      * @param fMetricUnits flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun parseBlockTrip(fileContent: List<String>, exercise: EVExercise, fMetricUnits: Boolean) {
+    private fun parseBlockTrip(tokenizer: TextTokenizer, exercise: EVExercise, fMetricUnits: Boolean) {
 
         // get lines of 'Trip' block
-        val lTripBlock = getBlockLines(fileContent, "Trip", false)
-        if (lTripBlock.size == 8) {
+        val lTripBlock = getBlockLines(tokenizer, "Trip", false)
+        if (lTripBlock.count() == 8) {
+            val tripValue = { index: Int -> tokenizer.parseInt(lTripBlock.first + index, 0) }
+
             // parse speed informations
             if (exercise.recordingMode.isSpeed) {
-                exercise.speed!!.distance = lTripBlock[0].toInt() * 100
-                exercise.speed!!.speedAvg = lTripBlock[5].toInt() / 128f
+                exercise.speed!!.distance = tripValue(0) * 100
+                exercise.speed!!.speedAvg = tripValue(5) / 128f
                 // ignore maximum speed data, it is often wrong for many Polar models (will be calculated later)
 
                 if (!fMetricUnits) {
@@ -347,10 +354,10 @@ class PolarHRMParser : AbstractExerciseParser() {
 
             // parse altitude informations
             if (exercise.recordingMode.isAltitude) {
-                var ascent = lTripBlock[1].toInt()
+                var ascent = tripValue(1)
                 // minimum exercise altitude is not available in HRM files
-                var altitudeAvg = lTripBlock[3].toInt()
-                var altitudeMax = lTripBlock[4].toInt()
+                var altitudeAvg = tripValue(3)
+                var altitudeMax = tripValue(4)
 
                 if (!fMetricUnits) {
                     ascent = ConvertUtils.convertFeet2Meter(ascent)
@@ -362,7 +369,7 @@ class PolarHRMParser : AbstractExerciseParser() {
             }
 
             // parse odometer value
-            exercise.odometer = lTripBlock[7].toInt()
+            exercise.odometer = tripValue(7)
             if (!fMetricUnits) {
                 exercise.odometer = ConvertUtils.convertMiles2Kilometer(exercise.odometer!!)
             }
@@ -370,116 +377,110 @@ class PolarHRMParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the 'HRData' block of the exercise file, which contains the exercise sample information.
+     * Parses the 'HRData' block of the exercise file, which contains the exercise sample information. The samples
+     * are stored in the sample columns, the statistic data is computed in the same pass.
      *
-     * @param fileContent all exercise file lines
+     * @param tokenizer tokenizer of the exercise file content
      * @param exercise the created exercise
      * @param fMetricUnits flag whether the exercise file uses metric (true) or english (false) units
      */
-    private fun parseBlockHrData(fileContent: List<String>, exercise: EVExercise, fMetricUnits: Boolean) {
+    private fun parseBlockHrData(tokenizer: TextTokenizer, exercise: EVExercise, fMetricUnits: Boolean) {
 
         // get lines of 'HRData' block
-        val lHRDataBlock = getBlockLines(fileContent, "HRData", true)
-        val sampleCount = lHRDataBlock.size
+        val lHRDataBlock = getBlockLines(tokenizer, "HRData", true)
+        val samples = exercise.sampleColumns
+        samples.ensureCapacity(lHRDataBlock.count())
+
+        val recordingMode = exercise.recordingMode
+        val recordingInterval = exercise.recordingInterval!!
+
+        // statistic data, it's not in the HRM file
+        // (the max speed is stored in HRM files, but often a wrong value)
+        var distanceAccum = 0.0
+        var speedMax = 0f
+        var avgHeartrateSum = 0
+        var heartRateMax: Short = 0
+        var altitudeMin = Short.MAX_VALUE
+        var avgCadenceSum = 0
+        var avgCadenceSamples = 0
+        var cadenceMax: Short = 0
 
         // parse each exercise sample line
-        for (i in 0..(sampleCount - 1)) {
+        for (line in lHRDataBlock) {
             var tokenIndex = 0
-            val sample = ExerciseSample()
-            exercise.sampleList.add(sample)
-            sample.timestamp = i * exercise.recordingInterval!! * 1000L
+            val index = samples.addSample()
+            samples.setTimestamp(index, index * recordingInterval * 1000L)
 
             // split sample line into parts
-            val currSampleSplitted = lHRDataBlock[i].split("\t")
+            val tokenCount = tokenizer.split(line, "\t")
 
             // 1. part is heartrate
-            sample.heartRate = currSampleSplitted[tokenIndex].toShort()
+            val heartRate = tokenizer.shortToken(tokenIndex)
+            samples.setHeartRate(index, heartRate)
+            avgHeartrateSum += heartRate
+            heartRateMax = maxShort(heartRate, heartRateMax)
             tokenIndex++
 
             // next part can be speed, when recorded
-            if (currSampleSplitted.size > tokenIndex && exercise.recordingMode.isSpeed) {
+            var sampleSpeed = 0f
+            if (tokenCount > tokenIndex && recordingMode.isSpeed) {
                 // speed is km/h or m/h * 10
-                var speedX10 = currSampleSplitted[tokenIndex].toInt()
+                var speedX10 = tokenizer.intToken(tokenIndex)
                 if (!fMetricUnits) {
                     speedX10 = ConvertUtils.convertMiles2Kilometer(speedX10)
                 }
 
-                sample.speed = speedX10 / 10f
+                sampleSpeed = speedX10 / 10f
+                samples.setSpeed(index, sampleSpeed)
                 tokenIndex++
             }
 
             // next part can be cadence, when recorded
-            if (currSampleSplitted.size > tokenIndex && exercise.recordingMode.isCadence) {
-                sample.cadence = currSampleSplitted[tokenIndex].toShort()
+            if (tokenCount > tokenIndex && recordingMode.isCadence) {
+                val cadence = tokenizer.shortToken(tokenIndex)
+                samples.setCadence(index, cadence)
+                avgCadenceSum += cadence
+                avgCadenceSamples++
+                cadenceMax = maxShort(cadence, cadenceMax)
                 tokenIndex++
             }
 
             // next part can be altitude, when recorded
-            if (currSampleSplitted.size > tokenIndex && exercise.recordingMode.isAltitude) {
-                var altitude = currSampleSplitted[tokenIndex].toInt()
+            if (tokenCount > tokenIndex && recordingMode.isAltitude) {
+                var altitude = tokenizer.intToken(tokenIndex)
                 if (!fMetricUnits) {
                     altitude = ConvertUtils.convertFeet2Meter(altitude)
                 }
 
-                sample.altitude = altitude.toShort()
+                samples.setAltitude(index, altitude.toShort())
+                altitudeMin = minShort(altitudeMin, altitude.toShort())
             }
-        }
 
-        // when speed is recorded:
-        // - calculate distance for each recorded sample (distance is not recorded for each sample)
-        // - find the maximum speed from samples (max speed is stored in HRM files, but often a wrong value)
-        if (exercise.recordingMode.isSpeed) {
-            var distanceAccum = 0.0
-            exercise.speed!!.speedMax = 0f
-
-            for (sample in exercise.sampleList) {
-                val sampleSpeed = sample.speed ?: 0f
-                sample.distance = distanceAccum.toInt()
-                distanceAccum += (sampleSpeed * exercise.recordingInterval!!) / 3.6
-                exercise.speed!!.speedMax = Math.max(sampleSpeed, exercise.speed!!.speedMax)
+            // when speed is recorded: calculate distance for each recorded sample
+            // (distance is not recorded for each sample)
+            if (recordingMode.isSpeed) {
+                samples.setDistance(index, distanceAccum.toInt())
+                distanceAccum += (sampleSpeed * recordingInterval) / 3.6
+                speedMax = Math.max(sampleSpeed, speedMax)
             }
         }
 
-        // compute average/maximum heartrate of exercise (not in HRM file)
-        var avgHeartrateSum = 0
-        exercise.heartRateMax = 0
-
-        for (sample in exercise.sampleList) {
-            val sampleHeartRate = sample.heartRate ?: 0
-            avgHeartrateSum += sampleHeartRate
-            exercise.heartRateMax = maxShort(sampleHeartRate, exercise.heartRateMax ?: 0)
+        if (recordingMode.isSpeed) {
+            exercise.speed!!.speedMax = speedMax
         }
 
-        // calculate AVG heartrate
-        exercise.heartRateAVG = Math.round(avgHeartrateSum / exercise.sampleList.size.toDouble()).toShort()
+        // store average/maximum heartrate of exercise
+        exercise.heartRateMax = heartRateMax
+        exercise.heartRateAVG = Math.round(avgHeartrateSum / samples.size.toDouble()).toShort()
 
-        // when altitude is recorded => search minimum altitude of exercise (is not in HRM file)
-        if (exercise.recordingMode.isAltitude) {
-            exercise.altitude!!.altitudeMin = Short.MAX_VALUE
-
-            for (sample in exercise.sampleList) {
-                exercise.altitude!!.altitudeMin = minShort(exercise.altitude!!.altitudeMin, sample.altitude ?: Short.MAX_VALUE)
-            }
+        // when altitude is recorded => store minimum altitude of exercise
+        if (recordingMode.isAltitude) {
+            exercise.altitude!!.altitudeMin = altitudeMin
         }
 
-        // compute min and max cadence when recorded (not in HRM file)
-        if (exercise.recordingMode.isCadence) {
-
-            // compute average cadence from all samples, where cadence > 0
-            var avgCadenceSum = 0
-            var avgCadenceSamples = 0
+        // store average cadence of all samples with cadence and max cadence when recorded
+        if (recordingMode.isCadence) {
             var cadenceAvg: Short = 0
-            var cadenceMax: Short = 0
-
-            for (sample in exercise.sampleList) {
-                sample.cadence?.let { sampleCadence ->
-                    avgCadenceSum += sampleCadence
-                    avgCadenceSamples++
-                }
-
-                cadenceMax = maxShort(sample.cadence ?: 0, cadenceMax)
-            }
-
             if (avgCadenceSum > 0 && avgCadenceSamples > 0) {
                 cadenceAvg = Math.round(avgCadenceSum / avgCadenceSamples.toDouble()).toShort()
             }
@@ -492,38 +493,60 @@ class PolarHRMParser : AbstractExerciseParser() {
     }
 
     /**
-     * This method returns the list of all content lines of the specified block in the exercise file (e.g. when
+     * Parses only the heartrates of the 'HRData' block of the exercise file for computing the average and maximum
+     * heartrate, no samples are created.
+     *
+     * @param tokenizer tokenizer of the exercise file content
+     * @param exercise the created exercise
+     */
+    private fun parseBlockHrDataHeartRates(tokenizer: TextTokenizer, exercise: EVExercise) {
+
+        // get lines of 'HRData' block
+        val lHRDataBlock = getBlockLines(tokenizer, "HRData", true)
+        var avgHeartrateSum = 0
+        var heartRateMax: Short = 0
+
+        for (line in lHRDataBlock) {
+            // the heartrate is the 1. part of the sample line
+            val heartRateEnd = tokenizer.indexOf(line, '\t')
+            val heartRate = if (heartRateEnd >= 0) tokenizer.parseShort(line, 0, heartRateEnd)
+                else tokenizer.parseShort(line, 0)
+
+            avgHeartrateSum += heartRate
+            heartRateMax = maxShort(heartRate, heartRateMax)
+        }
+
+        exercise.heartRateMax = heartRateMax
+        exercise.heartRateAVG = Math.round(avgHeartrateSum / lHRDataBlock.count().toDouble()).toShort()
+    }
+
+    /**
+     * Returns the time in 1/10 seconds of the time tokens h:mm:ss.d starting at the specified token index of the
+     * last split.
+     */
+    private fun parseTimeTokens(tokenizer: TextTokenizer, firstToken: Int): Int {
+        val hour = tokenizer.intToken(firstToken)
+        val minute = tokenizer.intToken(firstToken + 1)
+        val second = tokenizer.intToken(firstToken + 2)
+        val tenthOfSecond = tokenizer.intToken(firstToken + 3)
+        return (hour * 60 * 60 * 10) + (minute * 60 * 10) + (second * 10) + tenthOfSecond
+    }
+
+    /**
+     * This method returns the range of all content lines of the specified block in the exercise file (e.g. when
      * blockName="Params" it returns all lines after the line "[Params]" and before next block start.
-     * An empty list will be returned when the block can't be found or is empty. When the fRequired flag is true and
+     * An empty range will be returned when the block can't be found or is empty. When the fRequired flag is true and
      * nothing was found then a EVException will be thrown.
      *
-     * @param fileContent list of lines from the exercise files
+     * @param tokenizer tokenizer of the exercise file content
      * @param blockName name of the block
      * @param required flag whether the specified block is required
-     * return lines of the found block
+     * return line range of the found block
      * @throws EVException when the block was required and was not found
      */
-    private fun getBlockLines(fileContent: List<String>, blockName: String, required: Boolean): List<String> {
-
-        val strBlockLine = "[$blockName]"
-        var foundLines = mutableListOf<String>()
-        var found = false
+    private fun getBlockLines(tokenizer: TextTokenizer, blockName: String, required: Boolean): IntRange {
 
-        // collect all lines from the block start to end
-        for (line in fileContent) {
-
-            if (line.startsWith(strBlockLine)) {
-                found = true
-                continue
-            }
-
-            if (found) {
-                if (line.isBlank() || line.startsWith('[')) {
-                    break
-                }
-                foundLines.add(line)
-            }
-        }
+        val foundLines = tokenizer.getBlockLines(blockName) ?: IntRange.EMPTY
 
         return if (required && foundLines.isEmpty())
             throw EVException("Failed to read HRM file, can't find block '$blockName'!")
@@ -531,18 +554,33 @@ class PolarHRMParser : AbstractExerciseParser() {
     }
 
     /**
-     * Searches for the specified value in the passed list of block lines (Strings).
+     * Searches for the specified value in the passed range of block lines.
      * Example: if name is "Version" this method return "106" if the line "Version=106" is in blockLines.
      *
-     * @param blockLines list of lines of a block
+     * @param tokenizer tokenizer of the exercise file content
+     * @param blockLines range of lines of a block
      * @param name name of the value
      * @return value
      * @throws EVException when the value can't be found
      */
-    private fun getValueFromBlock(blockLines: List<String>, name: String): String {
-        return blockLines.find { it.startsWith("$name=") }
-                ?.substring(name.length + 1)
+    private fun getValueFromBlock(tokenizer: TextTokenizer, blockLines: IntRange, name: String): String =
+            tokenizer.findValue(blockLines, name)
                 ?: throw EVException("Failed to read HRM file, can't find value for '$name'!")
+
+    /**
+     * Searches for the line of the specified value in the passed range of block lines, the value starts at column
+     * name.length + 1.
+     *
+     * @param tokenizer tokenizer of the exercise file content
+     * @param blockLines range of lines of a block
+     * @param name name of the value
+     * @return line index
+     * @throws EVException when the value can't be found
+     */
+    private fun getValueLineFromBlock(tokenizer: TextTokenizer, blockLines: IntRange, name: String): Int {
+        val line = tokenizer.findValueLine(blockLines, name)
+        return if (line >= 0) line
+            else throw EVException("Failed to read HRM file, can't find value for '$name'!")
     }
 
     private fun minShort(value1: Short, value2: Short): Short =
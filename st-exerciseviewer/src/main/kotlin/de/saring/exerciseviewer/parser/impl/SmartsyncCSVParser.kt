@@ -2,9 +2,9 @@ package de.saring.exerciseviewer.parser.impl
 
 import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
+import de.saring.exerciseviewer.parser.TextTokenizer
 import java.io.File
 import java.time.LocalDateTime
 
@@ -26,20 +26,21 @@ class SmartsyncCSVParser : AbstractExerciseParser() {
     fun parseExercise(filename: String): EVExercise {
 
         try {
-            val fileContent = File(filename).readLines()
-            return parseExerciseFromContent(fileContent)
+            val tokenizer = TextTokenizer.of(File(filename).readBytes())
+            return parseExerciseFromContent(tokenizer)
         }
         catch (e: Exception) {
             throw EVException("Failed to read the Smartsync CSV exercise file '$filename'!", e)
         }
     }
 
-    private fun parseExerciseFromContent(fileContent: List<String>): EVExercise {
+    private fun parseExerciseFromContent(tokenizer: TextTokenizer): EVExercise {
 
         // parse basic exercise data
         val exercise = EVExercise(EVExercise.ExerciseFileType.SSCSV) // FIXME
         exercise.deviceName = "Oregon Scientific Smartsync"
         exercise.recordingMode.isHeartRate = true
+        val samples = exercise.sampleColumns
 
         val now = LocalDateTime.now()
         var exeYear = now.year
@@ -49,55 +50,54 @@ class SmartsyncCSVParser : AbstractExerciseParser() {
         var exeMinute = 0
         var exeSecond = 0
 
-        for (line in fileContent) {
+        // the heartrate statistic is not in the CSV file, it's computed while reading the samples
+        var heartRateSum = 0L
+        var heartRateMax: Short = 0
+
+        for (line in 0 until tokenizer.lineCount) {
             // most frequent element first
-            if (line.startsWith(",")) {
-                val exeSample = ExerciseSample()
-                exeSample.heartRate = line.substring(1).toShort()
-                exercise.sampleList.add(exeSample)
-            } else if (line.startsWith("Name,")) {
+            if (tokenizer.startsWith(line, ",")) {
+                val heartRate = tokenizer.parseShort(line, 1)
+                samples.setHeartRate(samples.addSample(), heartRate)
+                heartRateSum += heartRate
+                heartRateMax = maxOf(heartRateMax, heartRate)
+            } else if (tokenizer.startsWith(line, "Name,")) {
                 // not supported in EVExercise
-            } else if (line.startsWith("Description,")) {
+            } else if (tokenizer.startsWith(line, "Description,")) {
                 // not supported in EVExercise
-            } else if (line.startsWith("Date,")) {
+            } else if (tokenizer.startsWith(line, "Date,")) {
                 // parse exercise dateTime (mm/dd/yyyy)
-                exeMonth = line.substring(5, 7).toInt()
-                exeDay = line.substring(8, 10).toInt()
-                exeYear = line.substring(11, 15).toInt()
-            } else if (line.startsWith("Time,")) {
+                exeMonth = tokenizer.parseInt(line, 5, 7)
+                exeDay = tokenizer.parseInt(line, 8, 10)
+                exeYear = tokenizer.parseInt(line, 11, 15)
+            } else if (tokenizer.startsWith(line, "Time,")) {
                 // parse exercise start time (can be either h:mm:ss or hh:mm:ss !)
-                val startTimeSplitted = line.substring(5).split(":")
-                if (startTimeSplitted.size != 3) {
+                if (tokenizer.split(line, ":", 5) != 3) {
                     throw EVException ("Failed to read CSV file, can't parse exercise start time (wrong format) ...");
                 }
 
                 // parse start time
-                exeHour = startTimeSplitted[0].toInt()
-                exeMinute = startTimeSplitted[1].toInt()
-                exeSecond = startTimeSplitted[2].toInt()
-            } else if (line.startsWith("SamplingRate,")) {
-                exercise.recordingInterval = line.substring(13).toShort()
-            } else if (line == "HeartRate") {
+                exeHour = tokenizer.intToken(0)
+                exeMinute = tokenizer.intToken(1)
+                exeSecond = tokenizer.intToken(2)
+            } else if (tokenizer.startsWith(line, "SamplingRate,")) {
+                exercise.recordingInterval = tokenizer.parseShort(line, 13)
+            } else if (tokenizer.lineEquals(line, "HeartRate")) {
                 // no value
             }
         }
 
         exercise.dateTime = LocalDateTime.of(exeYear, exeMonth, exeDay, exeHour, exeMinute, exeSecond)
 
-        exercise.duration = (exercise.sampleList.size - 1) * exercise.recordingInterval!! * 10
-
-        // compute average/maximum heartrate of exercise (not in HRM file)
-        exercise.heartRateAVG = Math.round(exercise.sampleList
-                .map { it.heartRate ?: 0 }
-                .average()).toShort()
+        exercise.duration = (samples.size - 1) * exercise.recordingInterval!! * 10
 
-        exercise.heartRateMax = exercise.sampleList
-                .map { it.heartRate ?: 0}
-                .maxOrNull() ?: 0
+        // store average/maximum heartrate of exercise (not in CSV file)
+        exercise.heartRateAVG = Math.round(heartRateSum / samples.size.toDouble()).toShort()
+        exercise.heartRateMax = heartRateMax
 
         // compute timestamps for all recorded exercise samples
-        for (i in 0..exercise.sampleList.size - 1) {
-            exercise.sampleList[i].timestamp = i * exercise.recordingInterval!! * 1000L
+        for (index in 0 until samples.size) {
+            samples.setTimestamp(index, index * exercise.recordingInterval!! * 1000L)
         }
 
         // done :-)
@@ -3,25 +3,28 @@ package de.saring.exerciseviewer.parser.impl
 import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseAltitude
-import de.saring.exerciseviewer.data.ExerciseSample
+import de.saring.exerciseviewer.data.ExerciseSampleColumns.Channel
 import de.saring.exerciseviewer.data.ExerciseSpeed
-import de.saring.exerciseviewer.data.Position
 import de.saring.exerciseviewer.data.RecordingMode
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
-import org.jdom2.Element
-import org.jdom2.Namespace
-import org.jdom2.input.SAXBuilder
+import java.io.FileInputStream
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamReader
 import kotlin.math.roundToInt
 
 /**
  * ExerciseParser implementation for reading TopoGrafix GPX v1.1 exercise files (XML-based). Documentation about the
  * format can be found at the TopoGrafix website ( http://www.topografix.com/gpx.asp ).
  *
+ * The file is read by a streaming StAX parser in a single pass, so large GPX files can be read fast and the memory
+ * usage does not depend on the file size, apart from the parsed exercise.
+ *
  * @author Stefan Saring
  * @author Alex Wulms
  */
@@ -30,18 +33,30 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     private val degreeToRadianDivider: Double = 57.29577951
     private val earthRadiosInMeter: Double = 6371000.0
 
-    private val namespace = Namespace.getNamespace("http://www.topografix.com/GPX/1/1")
-    private val namespaceExt = Namespace.getNamespace("http://www.garmin.com/xmlschemas/TrackPointExtension/v1")
-
     override
     val info = ExerciseParserInfo("TopoGrafix GPX", listOf("gpx", "GPX"))
 
     override
-    fun parseExercise(filename: String): EVExercise {
+    fun parseExercise(filename: String): EVExercise = parse(filename, false)
+
+    /**
+     * Parses the summary data of the GPX file, the summaries are computed from all trackpoints but no samples
+     * are created.
+     */
+    override
+    fun parseSummary(filename: String): EVExercise = parse(filename, true)
+
+    private fun parse(filename: String, summaryOnly: Boolean): EVExercise {
 
         try {
-            val document = SAXBuilder().build(filename)
-            return parseExerciseElement(document.rootElement)
+            FileInputStream(filename).buffered().use { input ->
+                val reader = XML_INPUT_FACTORY.get().createXMLStreamReader(input)
+                try {
+                    return GpxReader(reader, summaryOnly).read()
+                } finally {
+                    reader.close()
+                }
+            }
         }
         catch (e: Exception) {
             throw EVException("Failed to read the TopoGrafix GPX exercise file '$filename'!", e)
@@ -49,192 +64,275 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the exercise data from the specified gpx (root) element.
+     * Streaming reader of a GPX file. The samples are created for each trackpoint while reading the XML events, the
+     * distance, speed, altitude and heartrate summaries are updated for each sample. So only one pass is needed and
+     * no document tree. When reading the summary only, then no samples are stored. A new instance is needed for
+     * each file.
      */
-    private fun parseExerciseElement(eGpx: Element): EVExercise {
-
-        val exercise = createExercise(eGpx)
-        exercise.sampleList = parseSampleTrackpoints(eGpx, exercise)
-        calculateDistanceAndSpeedPerPoint(exercise)
-        exercise.speed = null;
-        if (exercise.recordingMode.isAltitude) {
-            calculateAltitudeSummary(exercise)
-        }
-        if (exercise.dateTime != null) {
-            calculateDuration(exercise)
-        }
-        if (exercise.recordingMode.isSpeed) {
-            calculateSpeedSummary(exercise)
-        }
-        if (exercise.recordingMode.isHeartRate) {
-            calculateHeartRateSummary(exercise)
-        }
-
-        return exercise
-    }
+    private inner class GpxReader(private val reader: XMLStreamReader, private val summaryOnly: Boolean) {
+
+        private val exercise = EVExercise(EVExercise.ExerciseFileType.GPX)
+        private val samples = exercise.sampleColumns
+
+        // element depth (1 = gpx root element) and the parent elements of interest
+        private var depth = 0
+        private var inMetadata = false
+        private var inTrk = false
+        private var inTrkSeg = false
+        private var inExtensions = false
+        private var inTrackPointExtension = false
+
+        // values of the current trackpoint
+        private var inTrkPt = false
+        private var latitude: String? = null
+        private var longitude: String? = null
+        private var strElevation: String? = null
+        private var strTime: String? = null
+        private var strHeartrateGarmin: String? = null
+        private var strHeartrateHolux: String? = null
+        private var strHeartrateGadgetBridge: String? = null
+
+        // number of trackpoints and timestamp of the last one
+        private var trackpointCount = 0
+        private var lastTimestamp: Long? = null
+
+        // distance and speed
+        private var totalDistanceInMeter = 0.0
+        private var prevLatitude = 0.0
+        private var prevLongitude = 0.0
+        private var prevTimestamp: Long? = null
+        private var speedMax = 0f
+
+        // altitude summary
+        private var altitudeCount = 0
+        private var altitudeMin = Int.MAX_VALUE
+        private var altitudeMax = Int.MIN_VALUE
+        private var ascent = 0
+        private var altitudeSum = 0L
+        private var previousAltitude: Short = 0
+
+        // heartrate summary
+        private var heartRateCount = 0
+        private var heartRateSum = 0.0
+        private var heartRateMax: Short? = null
+
+        fun read(): EVExercise {
+            exercise.deviceName = "Garmin GPX"
+            exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
+            exercise.recordingMode = RecordingMode()
+            exercise.recordingMode.isLocation = true
+
+            while (reader.hasNext()) {
+                when (reader.next()) {
+                    XMLStreamConstants.START_ELEMENT -> {
+                        depth++
+                        startElement()
+                    }
+                    XMLStreamConstants.END_ELEMENT -> {
+                        endElement()
+                        depth--
+                    }
+                }
+            }
 
-    /**
-     * Creates the EVExercise with basic exercise data.
-     */
-    private fun createExercise(eGpx: Element): EVExercise {
-
-        val exercise = EVExercise(EVExercise.ExerciseFileType.GPX)
-        exercise.deviceName = "Garmin GPX"
-        exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
-        exercise.recordingMode = RecordingMode()
-        exercise.recordingMode.isLocation = true
-
-        // get dateTime and time (optional)
-        val strTime = eGpx.getChild("metadata")?.getChildText("time")
-        if (strTime != null) {
-            exercise.dateTime = parseDateTime(strTime)
+            finishSummary()
+            return exercise
         }
 
-        return exercise
-    }
-
-    /**
-     * Parses all trackpoints in all tracks and track segments under the "gpx" element and returns the exercise samples.
-     */
-    private fun parseSampleTrackpoints(eGpx: Element, exercise: EVExercise): MutableList<ExerciseSample> {
-        val samples = mutableListOf<ExerciseSample>()
-
-        for (eTrk in eGpx.getChildren("trk", namespace)) {
-            for (eTrkSeg in eTrk.getChildren("trkseg", namespace)) {
-                for (eTrkPt in eTrkSeg.getChildren("trkpt", namespace)) {
-
-                    val sample = ExerciseSample()
-                    samples.add(sample)
-
-                    // get position
-                    sample.position = Position(eTrkPt.getAttributeValue("lat").toDouble(), eTrkPt.getAttributeValue("lon").toDouble())
-
-                    // get altitude (optional)
-                    val strElevation = eTrkPt.getChildText("ele", namespace)
-                    if (strElevation != null) {
-                        exercise.recordingMode.isAltitude = true
-                        sample.altitude = Math.round(strElevation.toDouble()).toShort()
-                    }
+        /**
+         * Returns the text of the current element, the reader is at the end of the element afterwards.
+         */
+        private fun readText(): String {
+            val text = reader.elementText
+            depth--
+            return text
+        }
 
-                    // get timestamp and calculate sample time offset (optional)
-                    val strTime = eTrkPt.getChildText("time", namespace)
-                    if (strTime != null) {
-                        val timestampSample = parseDateTime(strTime)
-
-                        // store first timestamp as exercise start time when missing
-                        // or when exercise timestamp larger then (first) track time stamp
-                        // (In some GPX files track metadata is missing, while in some other
-                        //  GPX file, the time stamp in the meta data is the time the track
-                        //  was saved -thus after the exercise- and not the time the track
-                        //  was started)
-                        if (exercise.dateTime == null || exercise.dateTime!!.isAfter(timestampSample)) {
-                            exercise.dateTime = timestampSample
-                        }
-                        sample.timestamp = Date310Utils.getMilliseconds(timestampSample) -
-                                Date310Utils.getMilliseconds(exercise.dateTime!!)
-                    }
+        private fun startElement() {
+            val name = reader.localName
+            val namespaceURI = reader.namespaceURI ?: ""
+            val isGpx = namespaceURI == NAMESPACE
 
-                    // try to get heartrate in Garmin Oregon format if present
-                    var strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChild("TrackPointExtension", namespaceExt)?.getChildText("hr", namespaceExt)
-                    // if not present, try to get heartrate in Holux FunTrek 130 pro format if present
-                    if (strHeartrate == null) {
-                        strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChildText("bpm", namespace)
+            when (depth) {
+                2 -> {
+                    // the metadata element is only read without a namespace
+                    inMetadata = name == "metadata" && namespaceURI.isEmpty()
+                    inTrk = isGpx && name == "trk"
+                }
+                3 -> if (inMetadata && name == "time" && namespaceURI.isEmpty()) {
+                    exercise.dateTime = parseDateTime(readText())
+                } else {
+                    inTrkSeg = inTrk && isGpx && name == "trkseg"
+                }
+                4 -> if (inTrkSeg && isGpx && name == "trkpt") {
+                    startTrackpoint()
+                }
+                5 -> if (inTrkPt && isGpx) {
+                    when (name) {
+                        "ele" -> strElevation = strElevation ?: readText()
+                        "time" -> strTime = strTime ?: readText()
+                        "extensions" -> inExtensions = true
                     }
-                    // if not present, try to get heartrate in GatdetBridge format if present (Android Bridge App)
-                    if (strHeartrate == null) {
-                        strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChildText("hr", namespace)
+                }
+                6 -> if (inExtensions) {
+                    if (namespaceURI == NAMESPACE_EXT && name == "TrackPointExtension") {
+                        inTrackPointExtension = true
+                    } else if (isGpx && name == "bpm") {
+                        strHeartrateHolux = strHeartrateHolux ?: readText()
+                    } else if (isGpx && name == "hr") {
+                        strHeartrateGadgetBridge = strHeartrateGadgetBridge ?: readText()
                     }
+                }
+                7 -> if (inTrackPointExtension && namespaceURI == NAMESPACE_EXT && name == "hr") {
+                    strHeartrateGarmin = strHeartrateGarmin ?: readText()
+                }
+            }
+        }
 
-                    if (strHeartrate != null) {
-                        exercise.recordingMode.isHeartRate = true
-                        sample.heartRate = strHeartrate.toShort()
-                    }
+        private fun endElement() {
+            when (depth) {
+                2 -> {
+                    inMetadata = false
+                    inTrk = false
+                }
+                3 -> inTrkSeg = false
+                4 -> if (inTrkPt) {
+                    readTrackpoint()
                 }
+                5 -> inExtensions = false
+                6 -> inTrackPointExtension = false
             }
         }
 
-        return samples
-    }
+        private fun startTrackpoint() {
+            inTrkPt = true
+            latitude = reader.getAttributeValue(null, "lat")
+            longitude = reader.getAttributeValue(null, "lon")
+            strElevation = null
+            strTime = null
+            strHeartrateGarmin = null
+            strHeartrateHolux = null
+            strHeartrateGadgetBridge = null
+        }
 
-    /**
-     * Calculates the distance and speed for each sample point, based on the GPS coordinates and timestamp.
-     * Speed and distance tags do not seem to be part of GPX standard. Some GPS devices do log for example the speed
-     * but they don't indicate the unit used, like km/h our mile/hour and as such, those speed data are useless anyway.
-     */
-    private fun calculateDistanceAndSpeedPerPoint(exercise: EVExercise) {
-        var totalDistanceInMeter = 0.0
-        var prevPosition: Position? = null
-        var prevTimestamp: Long? = null
+        /**
+         * Updates the summaries with the collected values of the current trackpoint and creates the exercise sample.
+         */
+        private fun readTrackpoint() {
+            inTrkPt = false
+            val index = trackpointCount++
+
+            // get position
+            val currLatitude = latitude!!.toDouble()
+            val currLongitude = longitude!!.toDouble()
+
+            // get altitude (optional)
+            val sampleAltitude = strElevation?.let {
+                exercise.recordingMode.isAltitude = true
+                val sampleAltitude = Math.round(it.toDouble()).toShort()
+                addAltitude(sampleAltitude)
+                sampleAltitude
+            }
+
+            // get timestamp and calculate sample time offset (optional)
+            var timestamp: Long? = null
+            strTime?.let {
+                val timestampSample = parseDateTime(it)
+
+                // store first timestamp as exercise start time when missing
+                // or when exercise timestamp larger then (first) track time stamp
+                // (In some GPX files track metadata is missing, while in some other
+                //  GPX file, the time stamp in the meta data is the time the track
+                //  was saved -thus after the exercise- and not the time the track
+                //  was started)
+                if (exercise.dateTime == null || exercise.dateTime!!.isAfter(timestampSample)) {
+                    exercise.dateTime = timestampSample
+                }
+                timestamp = Date310Utils.getMilliseconds(timestampSample) -
+                        Date310Utils.getMilliseconds(exercise.dateTime!!)
+            }
+            lastTimestamp = timestamp
+
+            // heartrate in Garmin Oregon format, if not present in Holux FunTrek 130 pro format,
+            // if not present in GadgetBridge format (Android Bridge App)
+            val heartRate = (strHeartrateGarmin ?: strHeartrateHolux ?: strHeartrateGadgetBridge)?.let {
+                exercise.recordingMode.isHeartRate = true
+                val heartRate = it.toShort()
+                heartRateCount++
+                heartRateSum += heartRate
+                heartRateMax = if (heartRateMax == null) heartRate else maxOf(heartRateMax!!, heartRate)
+                heartRate
+            }
 
-        for (sample in exercise.sampleList) {
+            val speed = calculateDistanceAndSpeed(index, currLatitude, currLongitude, timestamp)
+
+            if (!summaryOnly) {
+                val sampleIndex = samples.addSample()
+                samples.setPosition(sampleIndex, currLatitude, currLongitude)
+                sampleAltitude?.let { samples.setAltitude(sampleIndex, it) }
+                timestamp?.let { samples.setTimestamp(sampleIndex, it) }
+                heartRate?.let { samples.setHeartRate(sampleIndex, it) }
+                samples.setDistance(sampleIndex, Math.round(totalDistanceInMeter).toInt())
+                samples.setSpeed(sampleIndex, speed)
+            }
+        }
+
+        /**
+         * Calculates the distance and speed of the sample, based on the GPS coordinates and timestamp.
+         * Speed and distance tags do not seem to be part of GPX standard. Some GPS devices do log for example the
+         * speed but they don't indicate the unit used, like km/h our mile/hour and as such, those speed data are
+         * useless anyway.
+         *
+         * @return the speed of the sample
+         */
+        private fun calculateDistanceAndSpeed(index: Int, currLatitude: Double, currLongitude: Double, timestamp: Long?): Float {
             var distanceInMeter = 0.0
-            if (prevPosition != null) {
+            if (index > 0) {
                 // Calculate distance based on GPS coordinates, using haversine formula
-                val dLat = (sample.position!!.latitude - prevPosition.latitude) / degreeToRadianDivider
-                val dLon = (sample.position!!.longitude - prevPosition.longitude) / degreeToRadianDivider
-                val prevLat = prevPosition.latitude / degreeToRadianDivider
-                val currLat = sample.position!!.latitude / degreeToRadianDivider
+                val dLat = (currLatitude - prevLatitude) / degreeToRadianDivider
+                val dLon = (currLongitude - prevLongitude) / degreeToRadianDivider
+                val prevLat = prevLatitude / degreeToRadianDivider
+                val currLat = currLatitude / degreeToRadianDivider
                 val a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
                         Math.sin(dLon / 2) * Math.sin(dLon / 2) * Math.cos(prevLat) * Math.cos(currLat)
                 distanceInMeter = earthRadiosInMeter * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a))
-                totalDistanceInMeter += distanceInMeter;
+                totalDistanceInMeter += distanceInMeter
             }
-            sample.distance = Math.round(totalDistanceInMeter).toInt()
-            prevPosition = sample.position
+            prevLatitude = currLatitude
+            prevLongitude = currLongitude
 
+            var speed = 0f
             if (prevTimestamp != null) {
                 // Calculate speed. Don't use CalculateUtils.calculateAvgSpeed, because
                 // that one gives 'infinity' when rounded time-difference is 0
                 // (e.g. when two timestamps are less then 500 milliseconds apart)
                 // Note that timestamps are in milliseconds
                 // Note that speed is in km/h
-                val deltaTime = sample.timestamp!! - prevTimestamp
+                val deltaTime = timestamp!! - prevTimestamp!!
                 // Note that deltaTime can be 0, either when GPX file contains two
                 // consecutive points with same timestamp or when it does not contain
                 // any timestamps at all. In both cases, speed will be set to 0 for
                 // the sample
                 if (deltaTime != 0L) {
                     exercise.recordingMode.isSpeed = true
-                    sample.speed = (3600 * distanceInMeter / deltaTime).toFloat()
-                } else {
-                    sample.speed = 0f
+                    speed = (3600 * distanceInMeter / deltaTime).toFloat()
                 }
-            } else {
-                // First sample point; speed not known yet. Assume person did not start
-                // the training yet and is standing still
-                sample.speed = 0f
             }
-            prevTimestamp = sample.timestamp
+            // for the first sample point the speed is not known yet. Assume person did not start
+            // the training yet and is standing still
+            speedMax = if (index == 0) speed else maxOf(speedMax, speed)
+            prevTimestamp = timestamp
+            return speed
         }
 
-        // speed and distance data in samples will be 0 if no timestamps were available => set them to null
-        if (!exercise.recordingMode.isSpeed) {
-            exercise.sampleList.forEach {
-                it.speed = null
-                it.distance = null
+        private fun addAltitude(sampleAltitude: Short) {
+            if (altitudeCount++ == 0) {
+                previousAltitude = sampleAltitude
             }
-        }
-    }
-
-    /**
-     * Calculates the min, avg and max altitude and the ascent of the exercise.
-     */
-    private fun calculateAltitudeSummary(exercise: EVExercise) {
-
-        var altitudeMin = Int.MAX_VALUE
-        var altitudeMax = Int.MIN_VALUE
-        var ascent = 0
-        var altitudeSum = 0L
-
-        val samplesWithAltitude = exercise.sampleList.filter { it.altitude != null }.toList()
-        var previousAltitude:Short = samplesWithAltitude[0].altitude!!
-
-        for (sample in samplesWithAltitude) {
-            val sampleAltitude = sample.altitude!!
 
             altitudeMin = Math.min(sampleAltitude.toInt(), altitudeMin)
             altitudeMax = Math.max(sampleAltitude.toInt(), altitudeMax)
-            altitudeSum += sample.altitude!!
+            altitudeSum += sampleAltitude
 
             if (previousAltitude < sampleAltitude) {
                 ascent += sampleAltitude - previousAltitude
@@ -242,58 +340,51 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
             previousAltitude = sampleAltitude
         }
 
-        exercise.altitude = ExerciseAltitude(
-                altitudeMin = altitudeMin.toShort(),
-                altitudeAvg = Math.round(altitudeSum / samplesWithAltitude.size.toDouble()).toShort(),
-                altitudeMax = altitudeMax.toShort(),
-                ascent = ascent,
-                descent = 0)
-    }
-
-    /**
-     * Calculates the exercise duration (only when samples contain timestamps).
-     */
-    private fun calculateDuration(exercise: EVExercise) {
-        val sampleCount = exercise.sampleList.size
-
-        if (sampleCount > 0) {
-            val lastSampleTimestamp = exercise.sampleList[sampleCount - 1].timestamp!!
-            if (lastSampleTimestamp > 0) {
-                exercise.duration = (lastSampleTimestamp / 100).toInt()
+        /**
+         * Stores the summaries of all samples in the exercise.
+         */
+        private fun finishSummary() {
+            // speed and distance data in samples will be 0 if no timestamps were available => remove them
+            if (!exercise.recordingMode.isSpeed) {
+                for (index in 0 until samples.size) {
+                    samples.clearValue(Channel.SPEED, index)
+                    samples.clearValue(Channel.DISTANCE, index)
+                }
             }
-        }
-    }
-
-    /**
-     * Calculates the speed summary (only when samples contain timestamps, from which speed is derived).
-     */
-    private fun calculateSpeedSummary(exercise: EVExercise) {
-        if (!exercise.sampleList.isEmpty()) {
-
-            val speedMax = exercise.sampleList
-                    .map { it.speed!! }
-                    .maxOrNull()!!
 
-            val lastSample = exercise.sampleList[exercise.sampleList.size - 1]
-            val distance = lastSample.distance!!
-            val speedAvg = CalculationUtils.calculateAvgSpeed(
-                    distance / 1000.0, Math.round(lastSample.timestamp!! / 1000f)).toFloat()
+            if (exercise.recordingMode.isAltitude) {
+                exercise.altitude = ExerciseAltitude(
+                        altitudeMin = altitudeMin.toShort(),
+                        altitudeAvg = Math.round(altitudeSum / altitudeCount.toDouble()).toShort(),
+                        altitudeMax = altitudeMax.toShort(),
+                        ascent = ascent,
+                        descent = 0)
+            }
 
-            exercise.speed = ExerciseSpeed(speedAvg, speedMax, distance)
-        }
-    }
+            if (trackpointCount == 0) {
+                return
+            }
 
-    /**
-     * Calculates heart rate summary data of the exercise (only when samples contain heart rate data).
-     */
-    private fun calculateHeartRateSummary(exercise: EVExercise) {
+            // calculate the exercise duration (only when samples contain timestamps)
+            if (exercise.dateTime != null) {
+                val lastSampleTimestamp = lastTimestamp!!
+                if (lastSampleTimestamp > 0) {
+                    exercise.duration = (lastSampleTimestamp / 100).toInt()
+                }
+            }
 
-        val sampleHeartrates:List<Short> = exercise.sampleList
-                .mapNotNull { it.heartRate }
+            // speed summary (only when samples contain timestamps, from which speed is derived)
+            if (exercise.recordingMode.isSpeed) {
+                val distance = Math.round(totalDistanceInMeter).toInt()
+                val speedAvg = CalculationUtils.calculateAvgSpeed(
+                        distance / 1000.0, Math.round(lastTimestamp!! / 1000f)).toFloat()
+                exercise.speed = ExerciseSpeed(speedAvg, speedMax, distance)
+            }
 
-        if (!sampleHeartrates.isEmpty()) {
-            exercise.heartRateAVG = sampleHeartrates.average().roundToInt().toShort()
-            exercise.heartRateMax = sampleHeartrates.maxOrNull()
+            if (heartRateCount > 0) {
+                exercise.heartRateAVG = (heartRateSum / heartRateCount).roundToInt().toShort()
+                exercise.heartRateMax = heartRateMax
+            }
         }
     }
 
@@ -308,4 +399,18 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
             dateTimeText
         return LocalDateTime.parse(dateTimeTextFixed, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
     }
+
+    companion object {
+        private const val NAMESPACE = "http://www.topografix.com/GPX/1/1"
+        private const val NAMESPACE_EXT = "http://www.garmin.com/xmlschemas/TrackPointExtension/v1"
+
+        /** XMLInputFactory for each thread, the factory is not thread-safe and files are parsed in parallel. */
+        private val XML_INPUT_FACTORY = ThreadLocal.withInitial {
+            XMLInputFactory.newInstance().apply {
+                setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true)
+                setProperty(XMLInputFactory.SUPPORT_DTD, false)
+                setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+            }
+        }
+    }
 }
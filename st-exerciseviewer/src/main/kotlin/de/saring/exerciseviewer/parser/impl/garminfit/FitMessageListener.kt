@@ -13,9 +13,15 @@ import kotlin.math.roundToInt
 /**
  * Message listener implementation for creating the EVExercise object from the FIT messages send by the decoder/parser.
  *
+ * @param summaryOnly when true, then only the exercise summary will be created from the Session messages, there are
+ * no laps and samples (the Record messages are only used for the missing average heartrate)
+ * @param expectedSampleCount the estimated number of samples, the sample storage is pre-sized for it
+ *
  * @author Stefan Saring
  */
-internal class FitMessageListener : MesgListener {
+internal class FitMessageListener(
+        private val summaryOnly: Boolean = false,
+        expectedSampleCount: Int = 0) : MesgListener {
 
     /** The parsed exercise. */
     private val exercise = EVExercise(EVExercise.ExerciseFileType.GARMIN_FIT)
@@ -23,14 +29,28 @@ internal class FitMessageListener : MesgListener {
     /** List of created laps (collected in a LinkedList and not in EVExercise array, much faster). */
     private val lFitLaps = LinkedList<FitLap>()
 
-    /** List of created exercise samples (collected in a LinkedList and not in EVExercise array, much faster). */
-    private val lSamples = LinkedList<ExerciseSample>()
+    /** Columnar storage of the exercise samples, the values are written directly without sample objects. */
+    private val samples = exercise.sampleColumns
+
+    /** Accumulator of the sample values for the missing summary values, updated for each Record message. */
+    private val sampleSummary = FitSampleSummary()
 
-    /** Flag for availability of temperature data. */
-    private var temperatureAvailable = false
+    init {
+        if (!summaryOnly) {
+            samples.ensureCapacity(expectedSampleCount)
+        }
+    }
 
     override fun onMesg(mesg: Mesg) {
 
+        if (summaryOnly) {
+            when (mesg.num) {
+                MesgNum.SESSION -> readSessionMessage(SessionMesg(mesg))
+                MesgNum.RECORD -> readRecordHeartRate(mesg)
+            }
+            return
+        }
+
         // delegate interesting messages to appropriate handler methods
         when (mesg.num) {
             MesgNum.SESSION -> readSessionMessage(SessionMesg(mesg))
@@ -180,41 +200,46 @@ internal class FitMessageListener : MesgListener {
      */
     private fun readRecordMessage(mesg: RecordMesg) {
 
-        val sample = ExerciseSample()
-        lSamples.add(sample)
+        val index = samples.addSample()
+        sampleSummary.addSample()
 
         // sample timestamp must be the offset from start time, will be corrected later
         // (in some cases the timestamp is missing and will be read from the next Length message)
-        mesg.timestamp?.let { sample.timestamp = it.date.time }
+        mesg.timestamp?.let { samples.setTimestamp(index, it.date.time) }
 
         mesg.heartRate?.let {
-            sample.heartRate = it
+            samples.setHeartRate(index, it)
+            sampleSummary.addHeartRate(it)
             exercise.recordingMode.isHeartRate = true
         }
 
-        mesg.distance?.let { sample.distance = Math.round(it) }
-        mesg.cadence?.let { sample.cadence = it }
-        mesg.power?.let { sample.power = it.toShort() }
+        mesg.distance?.let { samples.setDistance(index, Math.round(it)) }
+        mesg.cadence?.let { samples.setCadence(index, it) }
+        mesg.power?.let { samples.setPower(index, it.toShort()) }
 
         // on newer high-end Garmin devices (e.g. Fenix 6 or 5X) the speed and altitude is stored in the
         // enhancedSpeed or enhancedAltitude attributes => get it from there
         val mesgSpeed: Float? = if (mesg.enhancedSpeed != null) mesg.enhancedSpeed else mesg.speed
         mesgSpeed?.let {
-            sample.speed = ConvertUtils.convertMeterPerSecond2KilometerPerHour(it)
+            val speed = ConvertUtils.convertMeterPerSecond2KilometerPerHour(it)
+            samples.setSpeed(index, speed)
+            sampleSummary.addSpeed(speed)
         }
 
         val mesgAltitude: Float? = if (mesg.enhancedAltitude != null) mesg.enhancedAltitude else mesg.altitude
         mesgAltitude?.let {
-            sample.altitude = Math.round(it).toShort()
+            val altitude = Math.round(it).toShort()
+            samples.setAltitude(index, altitude)
+            sampleSummary.addAltitude(altitude)
         }
 
         mesg.temperature?.let {
-            temperatureAvailable = true
-            sample.temperature = it.toShort()
+            samples.setTemperature(index, it.toShort())
+            sampleSummary.addTemperature(it.toShort())
         }
 
         if (mesg.positionLat != null && mesg.positionLong != null) {
-            sample.position = Position(
+            samples.setPosition(index,
                     ConvertUtils.convertSemicircle2Degree(mesg.positionLat!!),
                     ConvertUtils.convertSemicircle2Degree(mesg.positionLong!!))
 
@@ -224,6 +249,21 @@ internal class FitMessageListener : MesgListener {
         }
     }
 
+    /**
+     * Reads only the heartrate from the specified Record message for the summary, the message is not converted to a
+     * RecordMesg and no sample is created.
+     *
+     * @param mesg Record message
+     */
+    private fun readRecordHeartRate(mesg: Mesg) {
+        sampleSummary.addSample()
+
+        mesg.getFieldShortValue(RecordMesg.HeartRateFieldNum)?.let {
+            sampleSummary.addHeartRate(it)
+            exercise.recordingMode.isHeartRate = true
+        }
+    }
+
     /**
      * Special handling for Garmin Forerunner 910XT exercise files: Length messages are stored mostly in swimming
      * exercises, they contain information for a "length". For some reason the previous read Record message does
@@ -234,14 +274,13 @@ internal class FitMessageListener : MesgListener {
      */
     private fun readLengthMessage(mesg: LengthMesg) {
         // swimming exercises of Garmin Forerunner 645 don't contain any samples
-        if (lSamples.isNotEmpty()) {
+        if (!samples.isEmpty()) {
 
             val startTimestamp = mesg.startTime.date.time
             val totalElapsedTime = Math.round(mesg.totalElapsedTime.toDouble() * 1000.0)
             val endTimestamp = startTimestamp + totalElapsedTime
 
-            val lastSample = lSamples[lSamples.size - 1]
-            lastSample.timestamp = endTimestamp
+            samples.setTimestamp(samples.size - 1, endTimestamp)
         }
     }
 
@@ -335,8 +374,8 @@ internal class FitMessageListener : MesgListener {
     private fun convertMillisToSeconds(msec: Long) = (msec / 1000.0).roundToInt()
 
     /**
-     * Returns the EVExercise created from the received message. It sets up all lap and sample data and calculates the
-     * missing data before.
+     * Returns the EVExercise created from the received message. It sets up all lap and sample data and stores the
+     * missing data before (the sample values are summarized already while reading the Record messages).
      *
      * @return exercise
      */
@@ -347,31 +386,35 @@ internal class FitMessageListener : MesgListener {
             throw EVException("The FIT file does not contain any exercise (activity) data...")
         }
 
+        if (summaryOnly) {
+            calculateMissingAverageSpeed()
+            if (exercise.heartRateAVG == null && sampleSummary.sampleCount > 0) {
+                exercise.heartRateAVG = sampleSummary.heartRateAvg
+            }
+            return exercise
+        }
+
         storeSamples()
         storeLaps()
 
         calculateMissingAverageSpeed()
-        if (!exercise.sampleList.isEmpty()) {
-            calculateAltitudeSummary()
-            calculateTemperatureSummary()
-            calculateMissingMaxSpeed()
-            calculateMissingHeartRateAVG()
-            calculateMissingHeartRateMax()
+        if (!samples.isEmpty()) {
+            sampleSummary.applyTo(exercise)
         }
 
         return exercise
     }
 
     /**
-     * Stores the sample data in the exercise. It also fixes the timestamps in all ExerciseSamples, it must be the
-     * offset from the start time.
+     * Fixes the timestamps in all stored samples, it must be the offset from the start time.
      */
     private fun storeSamples() {
         val startTime = Date310Utils.getMilliseconds(exercise.dateTime!!)
-        for (sample in lSamples) {
-            sample.timestamp?.let { sample.timestamp = it - startTime }
+        for (index in 0 until samples.size) {
+            if (samples.has(ExerciseSampleColumns.Channel.TIMESTAMP, index)) {
+                samples.setTimestamp(index, samples.getTimestamp(index) - startTime)
+            }
         }
-        exercise.sampleList.addAll(lSamples)
     }
 
     /**
@@ -381,117 +424,42 @@ internal class FitMessageListener : MesgListener {
         var lapDistanceSum = 0
 
         // convert FitLap to Lap objects
-        val lLaps = LinkedList<Lap>()
         val startTime = Date310Utils.getMilliseconds(exercise.dateTime!!)
+        val sampleIndex = exercise.createSampleIndex()
 
         for (fitLap in lFitLaps) {
             val lap = fitLap.lap
-            lLaps.add(lap)
+            exercise.lapList.add(lap)
 
             // fix the split time in all Laps, it must be the offset from the start time
             val lapSplitDateTimeMillis = Date310Utils.getMilliseconds(fitLap.splitDatTime)
             lap.timeSplit = ((lapSplitDateTimeMillis - startTime) / 100).toInt()
 
-            // get all the missing lap data from the sample at lap end time
-            val sampleAtLapEnd = getExerciseSampleForLapEnd(lap)
-            if (sampleAtLapEnd != null) {
-                lap.heartRateSplit = sampleAtLapEnd.heartRate
+            // get all the missing lap data from the closest sample at lap end time
+            val sampleAtLapEnd = sampleIndex.getSampleClosestToTime(lap.timeSplit * 100L)
+            if (sampleAtLapEnd >= 0) {
+                lap.heartRateSplit = samples.getHeartRateOrNull(sampleAtLapEnd)
 
                 lap.speed?.let { lapSpeed ->
                     // fix lap distance, it must be the distance from exercise start (FIT stores from Lap start)
                     lapDistanceSum += lapSpeed.distance
                     lapSpeed.distance = lapDistanceSum
 
-                    lapSpeed.speedEnd = sampleAtLapEnd.speed ?: 0f
-                    lapSpeed.cadence = sampleAtLapEnd.cadence
+                    lapSpeed.speedEnd = samples.getSpeedOrNull(sampleAtLapEnd) ?: 0f
+                    lapSpeed.cadence = samples.getCadenceOrNull(sampleAtLapEnd)
                 }
 
                 lap.altitude?.let {
-                    if (sampleAtLapEnd.altitude != null) {
-                        lap.altitude = it.copy(altitude = sampleAtLapEnd.altitude as Short, ascent = lap.altitude!!.ascent)
+                    samples.getAltitudeOrNull(sampleAtLapEnd)?.let { altitude ->
+                        lap.altitude = it.copy(altitude = altitude)
                     }
                 }
 
-                if (temperatureAvailable) {
-                    sampleAtLapEnd.temperature?.let { lap.temperature = LapTemperature(it) }
+                if (sampleSummary.isTemperatureAvailable) {
+                    samples.getTemperatureOrNull(sampleAtLapEnd)?.let { lap.temperature = LapTemperature(it) }
                 }
             }
         }
-
-        exercise.lapList.addAll(lLaps)
-    }
-
-    /**
-     * Returns the closest ExerciseSample for the lap end time.
-     *
-     * @param lap the lap for search
-     * @return the closest ExerciseSample
-     */
-    private fun getExerciseSampleForLapEnd(lap: Lap): ExerciseSample? {
-        val lapSplitTimestamp = lap.timeSplit * 100L
-        var closestSample: ExerciseSample? = null
-        var closestTimeDistance = java.lang.Long.MAX_VALUE
-
-        for (sample in exercise.sampleList) {
-            sample.timestamp?.let {
-                val timeDistance = Math.abs(it - lapSplitTimestamp)
-                if (timeDistance < closestTimeDistance) {
-                    closestTimeDistance = timeDistance
-                    closestSample = sample
-                }
-            }
-        }
-        return closestSample
-    }
-
-    /**
-     * Calculates the min, max and average altitude (if available) from the sample data.
-     */
-    private fun calculateAltitudeSummary() {
-
-        exercise.altitude?.let { exerciseAltitude ->
-            var altMin = Short.MAX_VALUE
-            var altMax = Short.MIN_VALUE
-            var altitudeSum = 0
-
-            for (sample in exercise.sampleList) {
-                val sampleAltitude = sample.altitude ?: 0
-                altMin = Math.min(sampleAltitude.toInt(), altMin.toInt()).toShort()
-                altMax = Math.max(sampleAltitude.toInt(), altMax.toInt()).toShort()
-                altitudeSum += sampleAltitude.toInt()
-            }
-
-            exerciseAltitude.altitudeMin = altMin
-            exerciseAltitude.altitudeMax = altMax
-            exerciseAltitude.altitudeAvg = Math.round(altitudeSum / exercise.sampleList.size.toDouble()).toShort()
-        }
-    }
-
-    /**
-     * Calculates the min, max and average temperature (if available) from the sample data.
-     */
-    private fun calculateTemperatureSummary() {
-        if (temperatureAvailable) {
-            exercise.recordingMode.isTemperature = true
-
-            var tempMin = Short.MAX_VALUE
-            var tempMax = Short.MIN_VALUE
-            var temperatureSum = 0
-            var temperatureCount = 0
-
-            for (sample in exercise.sampleList) {
-                // it's possible that just a few samples contain no temperature (e.g. for Edge 800)
-                sample.temperature?.let {sampleTemperature ->
-                    tempMin = Math.min(sampleTemperature.toInt(), tempMin.toInt()).toShort()
-                    tempMax = Math.max(sampleTemperature.toInt(), tempMax.toInt()).toShort()
-                    temperatureSum += sampleTemperature.toInt()
-                    temperatureCount++
-                }
-            }
-
-            val tempAvg = Math.round(temperatureSum / temperatureCount.toDouble()).toShort()
-            exercise.temperature = ExerciseTemperature(tempMin, tempAvg, tempMax)
-        }
     }
 
     /**
@@ -519,48 +487,6 @@ internal class FitMessageListener : MesgListener {
         }
     }
 
-    /**
-     * Calculates the max speed of the exercise, if missing (e.g. in Fenix exercise files).
-     */
-    private fun calculateMissingMaxSpeed() {
-        exercise.speed?.let { exerciseSpeed ->
-            if (exerciseSpeed.speedMax < 0.01) {
-
-                exercise.sampleList
-                        .map { it.speed ?: 0f }
-                        .maxOrNull()
-                        ?.let { exerciseSpeed.speedMax = it }
-            }
-        }
-    }
-
-    /**
-     * Calculates the average heartrate of the exercise, if missing (e.g. in Fenix exercise files).
-     */
-    private fun calculateMissingHeartRateAVG() {
-        if (exercise.heartRateAVG == null) {
-
-            exercise.sampleList
-                    .filter { it.heartRate != null }
-                    .map { it.heartRate ?: 0 }
-                    .average()
-                    .let { exercise.heartRateAVG = Math.round(it).toShort() }
-        }
-    }
-
-    /**
-     * Calculates the maximum heartrate of the exercise, if missing (e.g. in Fenix exercise files).
-     */
-    private fun calculateMissingHeartRateMax() {
-        if (exercise.heartRateMax == null) {
-
-            exercise.sampleList
-                    .map { it.heartRate ?: 0 }
-                    .maxOrNull()
-                    ?.let { exercise.heartRateMax = it }
-        }
-    }
-
     private companion object {
 
         /**
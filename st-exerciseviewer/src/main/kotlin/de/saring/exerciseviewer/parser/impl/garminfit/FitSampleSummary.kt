@@ -0,0 +1,121 @@
+package de.saring.exerciseviewer.parser.impl.garminfit
+
+import de.saring.exerciseviewer.data.EVExercise
+import de.saring.exerciseviewer.data.ExerciseTemperature
+
+/**
+ * Running accumulator of the sample values for the exercise summary. It's updated for each Record message while
+ * decoding, so the missing summary values can be set at the end without processing all samples again.
+ *
+ * Missing altitude, speed and heartrate values of a sample are counted as 0 for the minimum and maximum values,
+ * samples without heartrate or temperature are ignored for the averages.
+ */
+internal class FitSampleSummary {
+
+    /** Number of added samples. */
+    var sampleCount = 0
+        private set
+
+    private var heartRateCount = 0
+    private var heartRateSum = 0L
+    private var heartRateMax: Short = 0
+
+    private var altitudeCount = 0
+    private var altitudeSum = 0L
+    private var altitudeMin = Short.MAX_VALUE
+    private var altitudeMax = Short.MIN_VALUE
+
+    private var temperatureCount = 0
+    private var temperatureSum = 0L
+    private var temperatureMin = Short.MAX_VALUE
+    private var temperatureMax = Short.MIN_VALUE
+
+    private var speedMax = 0f
+
+    /** Flag for availability of temperature data. */
+    val isTemperatureAvailable: Boolean
+        get() = temperatureCount > 0
+
+    /** The average heartrate of all samples with heartrate, it's 0 when there are no heartrate values. */
+    val heartRateAvg: Short
+        get() = if (heartRateCount > 0) Math.round(heartRateSum / heartRateCount.toDouble()).toShort() else 0
+
+    /**
+     * Adds a new sample, the available values must be added afterwards.
+     */
+    fun addSample() {
+        sampleCount++
+    }
+
+    fun addHeartRate(heartRate: Short) {
+        heartRateCount++
+        heartRateSum += heartRate
+        if (heartRate > heartRateMax) {
+            heartRateMax = heartRate
+        }
+    }
+
+    fun addAltitude(altitude: Short) {
+        altitudeCount++
+        altitudeSum += altitude
+        if (altitude < altitudeMin) {
+            altitudeMin = altitude
+        }
+        if (altitude > altitudeMax) {
+            altitudeMax = altitude
+        }
+    }
+
+    fun addTemperature(temperature: Short) {
+        temperatureCount++
+        temperatureSum += temperature
+        if (temperature < temperatureMin) {
+            temperatureMin = temperature
+        }
+        if (temperature > temperatureMax) {
+            temperatureMax = temperature
+        }
+    }
+
+    fun addSpeed(speed: Float) {
+        if (speed > speedMax) {
+            speedMax = speed
+        }
+    }
+
+    /**
+     * Stores the summary values in the exercise: the min, max and average altitude (if available), the temperature
+     * summary and the missing max speed, average and max heartrate. Must only be called when samples were added.
+     *
+     * @param exercise the exercise to update
+     */
+    fun applyTo(exercise: EVExercise) {
+
+        exercise.altitude?.let { exerciseAltitude ->
+            // samples without altitude are counted as altitude 0
+            val hasMissingAltitudes = altitudeCount < sampleCount
+            exerciseAltitude.altitudeMin = if (hasMissingAltitudes) minOf(altitudeMin, 0.toShort()) else altitudeMin
+            exerciseAltitude.altitudeMax = if (hasMissingAltitudes) maxOf(altitudeMax, 0.toShort()) else altitudeMax
+            exerciseAltitude.altitudeAvg = Math.round(altitudeSum / sampleCount.toDouble()).toShort()
+        }
+
+        if (isTemperatureAvailable) {
+            exercise.recordingMode.isTemperature = true
+            val temperatureAvg = Math.round(temperatureSum / temperatureCount.toDouble()).toShort()
+            exercise.temperature = ExerciseTemperature(temperatureMin, temperatureAvg, temperatureMax)
+        }
+
+        exercise.speed?.let { exerciseSpeed ->
+            if (exerciseSpeed.speedMax < 0.01) {
+                exerciseSpeed.speedMax = speedMax
+            }
+        }
+
+        if (exercise.heartRateAVG == null) {
+            exercise.heartRateAVG = heartRateAvg
+        }
+        if (exercise.heartRateMax == null) {
+            exercise.heartRateMax = heartRateMax
+        }
+    }
+}
@@ -29,7 +29,16 @@ class GarminFitParser : AbstractExerciseParser() {
     override val info = ExerciseParserInfo("Garmin FIT", listOf("fit", "FIT"))
 
     override fun parseExercise(filename: String): EVExercise {
-        val mesgListener = FitMessageListener()
+        val mesgListener = FitMessageListener(expectedSampleCount = estimateSampleCount(filename))
+        readFitFile(filename, mesgListener)
+        return mesgListener.getExercise()
+    }
+
+    /**
+     * Parses the summary data of the FIT file, the lap, sample and device messages are not processed.
+     */
+    override fun parseSummary(filename: String): EVExercise {
+        val mesgListener = FitMessageListener(summaryOnly = true)
         readFitFile(filename, mesgListener)
         return mesgListener.getExercise()
     }
@@ -48,4 +57,18 @@ class GarminFitParser : AbstractExerciseParser() {
             throw EVException("Failed to read FIT file '$filename'...", ioe)
         }
     }
+
+    /**
+     * Estimates the number of samples (Record messages) from the size of the FIT file, so the sample storage does
+     * not need to grow repeatedly while decoding. The Record messages are the majority of the FIT file content. The
+     * estimation doesn't need to be exact, the storage still grows when there are more samples.
+     */
+    private fun estimateSampleCount(filename: String): Int =
+            (File(filename).length() / ESTIMATED_BYTES_PER_RECORD).toInt()
+
+    private companion object {
+
+        /** Estimated average size of the Record message in FIT files (incl. the other messages). */
+        const val ESTIMATED_BYTES_PER_RECORD = 48
+    }
 }
@@ -0,0 +1,136 @@
+package de.saring.exerciseviewer.data
+
+import de.saring.exerciseviewer.data.ExerciseSampleColumns.Channel
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.ConcurrentModificationException
+
+/**
+ * This class contains all unit tests for the ExerciseSampleColumns class.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleColumnsTest {
+
+    /**
+     * Test of the write and read API: values must only be present when they were set.
+     */
+    @Test
+    fun testAddAndReadValues() {
+        val columns = ExerciseSampleColumns(2)
+        repeat(100) { index ->
+            val sampleIndex = columns.addSample()
+            columns.setTimestamp(sampleIndex, index * 1000L)
+            if (index % 2 == 0) {
+                columns.setHeartRate(sampleIndex, (100 + index).toShort())
+            }
+        }
+        columns.setPosition(50, 51.05, 13.74)
+
+        assertEquals(100, columns.size)
+        assertEquals(99000L, columns.getTimestamp(99))
+        assertTrue(columns.has(Channel.HEART_RATE, 98))
+        assertEquals(198.toShort(), columns.getHeartRate(98))
+        assertNull(columns.getHeartRateOrNull(99))
+        assertEquals(150.0, columns.getValue(Channel.HEART_RATE, 50))
+        assertEquals(Position(51.05, 13.74), columns.getPositionOrNull(50))
+        assertNull(columns.getPositionOrNull(51))
+        assertTrue(columns.hasAny(Channel.POSITION))
+        assertFalse(columns.hasAny(Channel.SPEED))
+
+        assertThrows(IndexOutOfBoundsException::class.java) { columns.getTimestamp(100) }
+    }
+
+    /**
+     * Test of the compatibility view: added samples must be bound to the columns, so later changes of the
+     * sample values must be stored in the columns.
+     */
+    @Test
+    fun testSampleListView() {
+        val columns = ExerciseSampleColumns()
+        val sample = ExerciseSample(timestamp = 1000, heartRate = 120)
+        columns.sampleList.add(sample)
+        assertTrue(sample.isBound)
+
+        sample.speed = 25.5f
+        sample.heartRate = null
+        assertEquals(25.5f, columns.getSpeed(0))
+        assertFalse(columns.has(Channel.HEART_RATE, 0))
+
+        columns.setDistance(0, 300)
+        assertEquals(ExerciseSample(timestamp = 1000, speed = 25.5f, distance = 300), columns.sampleList[0])
+        assertEquals(300, sample.distance)
+    }
+
+    /**
+     * Test of inserting and removing samples: the values and presence of the following samples must be moved.
+     */
+    @Test
+    fun testInsertAndRemove() {
+        val columns = ExerciseSampleColumns()
+        columns.sampleList.add(ExerciseSample(timestamp = 2000, altitude = 200))
+        columns.sampleList.add(ExerciseSample(timestamp = 3000))
+        columns.sampleList.add(0, ExerciseSample(timestamp = 1000, cadence = 80))
+
+        assertEquals(listOf(1000L, 2000L, 3000L), columns.sampleList.map { it.timestamp })
+        assertEquals(listOf(null, 200.toShort(), null), columns.sampleList.map { it.altitude })
+        assertEquals(80.toShort(), columns.getCadenceOrNull(0))
+
+        assertEquals(ExerciseSample(timestamp = 2000, altitude = 200), columns.sampleList.removeAt(1))
+        assertEquals(listOf(1000L, 3000L), columns.sampleList.map { it.timestamp })
+        assertFalse(columns.hasAny(Channel.ALTITUDE))
+    }
+
+    /**
+     * Bound samples must stay valid when samples are appended, but must fail fast when the sample rows have been
+     * moved or removed.
+     */
+    @Test
+    fun testBoundSampleAfterModification() {
+        val columns = ExerciseSampleColumns()
+        columns.sampleList.add(ExerciseSample(timestamp = 1000))
+        val sample = columns.sampleList[0]
+
+        columns.sampleList.add(ExerciseSample(timestamp = 2000))
+        assertEquals(1000L, sample.timestamp)
+
+        columns.insertSample(0)
+        assertThrows(ConcurrentModificationException::class.java) { sample.timestamp }
+        assertThrows(ConcurrentModificationException::class.java) { sample.heartRate = 120 }
+
+        val sample2 = columns.sampleList[2]
+        columns.clear()
+        assertThrows(ConcurrentModificationException::class.java) { sample2.timestamp }
+    }
+
+    /**
+     * Test of the componentN() functions of the sample.
+     */
+    @Test
+    fun testSampleComponents() {
+        val (timestamp, heartRate, _, speed) = ExerciseSample(timestamp = 1000, heartRate = 120, speed = 20f)
+        assertEquals(1000L, timestamp)
+        assertEquals(120.toShort(), heartRate)
+        assertEquals(20f, speed)
+    }
+
+    /**
+     * Test of setting a new sample list in the exercise: the samples must be replaced, also when the new list
+     * contains samples of the previous list.
+     */
+    @Test
+    fun testSetSampleListOfExercise() {
+        val exercise = EVExercise(EVExercise.ExerciseFileType.GPX)
+        (1..5).forEach { exercise.sampleList.add(ExerciseSample(timestamp = it * 1000L, distance = it * 10)) }
+
+        exercise.sampleList = exercise.sampleList.filter { it.distance!! > 20 }.toMutableList()
+        assertEquals(listOf(30, 40, 50), exercise.sampleList.map { it.distance })
+
+        val other = EVExercise(EVExercise.ExerciseFileType.GPX)
+        other.sampleList = mutableListOf(ExerciseSample(3000, distance = 30), ExerciseSample(4000, distance = 40),
+                ExerciseSample(5000, distance = 50))
+        assertEquals(exercise.sampleColumns, other.sampleColumns)
+        assertEquals(exercise, other)
+    }
+}
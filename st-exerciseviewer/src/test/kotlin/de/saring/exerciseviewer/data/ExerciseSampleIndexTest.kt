@@ -0,0 +1,67 @@
+package de.saring.exerciseviewer.data
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the ExerciseSampleIndex class.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSampleIndexTest {
+
+    /**
+     * Creates 10 samples with a timestamp every 10 seconds, starting with 0. The sample at index 5 contains no
+     * timestamp.
+     */
+    private fun createSamples(): ExerciseSampleColumns {
+        val samples = ExerciseSampleColumns()
+        repeat(10) { index ->
+            val sampleIndex = samples.addSample()
+            if (index != 5) {
+                samples.setTimestamp(sampleIndex, index * 10_000L)
+            }
+        }
+        return samples
+    }
+
+    /**
+     * Test of the time lookup, the samples without timestamp must be ignored.
+     */
+    @Test
+    fun testTimeLookup() {
+        val index = ExerciseSampleIndex(createSamples())
+
+        assertEquals(0, index.getSampleClosestToTime(-5_000))
+        assertEquals(2, index.getSampleClosestToTime(24_000))
+        assertEquals(2, index.getSampleClosestToTime(25_000))
+        assertEquals(3, index.getSampleClosestToTime(26_000))
+        assertEquals(6, index.getSampleClosestToTime(53_000))
+        assertEquals(9, index.getSampleClosestToTime(1_000_000))
+    }
+
+    /**
+     * Test of the lookup for samples without ascending timestamps, the first of samples with the same timestamp
+     * must be used.
+     */
+    @Test
+    fun testUnsortedTimestamps() {
+        val samples = ExerciseSampleColumns()
+        longArrayOf(0, 20_000, 10_000, 20_000, 30_000).forEach { samples.setTimestamp(samples.addSample(), it) }
+        val index = ExerciseSampleIndex(samples)
+
+        assertEquals(2, index.getSampleClosestToTime(14_000))
+        assertEquals(1, index.getSampleClosestToTime(21_000))
+        assertEquals(4, index.getSampleClosestToTime(29_000))
+    }
+
+    /**
+     * The lookup must return no sample for an exercise without samples.
+     */
+    @Test
+    fun testEmptySamples() {
+        val index = EVExercise(EVExercise.ExerciseFileType.GARMIN_FIT).createSampleIndex()
+
+        assertEquals(-1, index.getSampleClosestToTime(1000))
+    }
+}
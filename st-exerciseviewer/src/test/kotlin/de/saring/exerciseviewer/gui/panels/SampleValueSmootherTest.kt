@@ -0,0 +1,94 @@
+package de.saring.exerciseviewer.gui.panels
+
+import de.saring.exerciseviewer.data.ExerciseSampleColumns
+import de.saring.exerciseviewer.data.ExerciseSampleColumns.Channel
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+/**
+ * This class contains all unit tests for the SampleValueSmoother class.
+ *
+ * @author Stefan Saring
+ */
+class SampleValueSmootherTest {
+
+    /**
+     * Test of smooth() for a few samples: the value 0 must stay 0, missing values must be replaced by the value of
+     * the smoothed sample, the first and last samples must be used for the positions out of range.
+     */
+    @Test
+    fun testSmooth() {
+        val samples = createHeartRateSamples(100, null, 0, 130, 160)
+
+        val smoothedValues = SampleValueSmoother.smooth(samples, Channel.HEART_RATE, 1)
+
+        assertArrayEquals(doubleArrayOf(
+                (100 + 100 + 100) / 3.0,
+                (100 + 0 + 0) / 3.0,
+                0.0,
+                (130 + 0 + 160) / 3.0,
+                (160 + 130 + 160) / 3.0), smoothedValues, 0.0001)
+    }
+
+    /**
+     * Test of smooth() for random samples, the result must be the same as for the average filter which sums up all
+     * range values for each sample.
+     */
+    @Test
+    fun testSmoothRandomSamples() {
+        val random = Random(42)
+        val samples = ExerciseSampleColumns()
+        repeat(2000) {
+            val index = samples.addSample()
+            when (random.nextInt(10)) {
+                0 -> {}
+                1 -> samples.setSpeed(index, 0f)
+                else -> samples.setSpeed(index, random.nextFloat() * 40f)
+            }
+        }
+
+        for (rangeSteps in listOf(1, 3, 25)) {
+            val smoothedValues = SampleValueSmoother.smooth(samples, Channel.SPEED, rangeSteps)
+
+            for (index in 0 until samples.size) {
+                assertEquals(smoothBySum(samples, index, rangeSteps), smoothedValues[index], 0.0001)
+            }
+        }
+    }
+
+    /**
+     * Test of smooth() for an exercise without samples.
+     */
+    @Test
+    fun testSmoothEmpty() {
+        assertEquals(0, SampleValueSmoother.smooth(ExerciseSampleColumns(), Channel.ALTITUDE, 2).size)
+    }
+
+    private fun createHeartRateSamples(vararg heartRates: Int?): ExerciseSampleColumns {
+        val samples = ExerciseSampleColumns()
+        heartRates.forEach { heartRate ->
+            val index = samples.addSample()
+            heartRate?.let { samples.setHeartRate(index, it.toShort()) }
+        }
+        return samples
+    }
+
+    /**
+     * Reference implementation of the average filter: sums up all range values of the sample.
+     */
+    private fun smoothBySum(samples: ExerciseSampleColumns, sampleIndex: Int, rangeSteps: Int): Double {
+        val rawValue = samples.getValue(Channel.SPEED, sampleIndex)
+        if (rawValue == 0.0) {
+            return 0.0
+        }
+
+        var valueSum = 0.0
+        for (i in sampleIndex - rangeSteps..sampleIndex + rangeSteps) {
+            val valueIndex = i.coerceIn(0, samples.size - 1)
+            valueSum += samples.getValue(Channel.SPEED, valueIndex) ?: rawValue ?: 0.0
+        }
+        return valueSum / (2 * rangeSteps + 1)
+    }
+}
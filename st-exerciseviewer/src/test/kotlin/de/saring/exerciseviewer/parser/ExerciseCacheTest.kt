@@ -0,0 +1,120 @@
+package de.saring.exerciseviewer.parser
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+/**
+ * This class contains all unit tests for the ExerciseCache class.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseCacheTest {
+
+    private val fitFile = File("misc/testdata/garmin-fit/Garmin_Fenix_6-Running.fit")
+    private val gpxFile = File("misc/testdata/gpx/bike-tour-garmin-oregon-with-heartrate.gpx")
+
+    @TempDir
+    lateinit var tempDirectory: File
+
+    /**
+     * The exercise must be parsed on first access and taken from the in-memory cache afterwards.
+     */
+    @Test
+    fun testMemoryCache() {
+        val cache = ExerciseCache(null)
+
+        val exercise = cache.getExercise(fitFile.path)
+        assertEquals(ExerciseCache.Statistics(0, 0, 1), cache.statistics)
+
+        assertSame(exercise, cache.getExercise(fitFile.absolutePath))
+        assertSame(exercise, cache.getSummary(fitFile.path))
+        assertEquals(ExerciseCache.Statistics(2, 0, 1), cache.statistics)
+        assertEquals(2 / 3.0, cache.statistics.hitRatio, 0.001)
+    }
+
+    /**
+     * The exercises read from the snapshots must be equal to the parsed exercises, the sample data included.
+     */
+    @Test
+    fun testSnapshots() {
+        val snapshotDirectory = File(tempDirectory, "snapshots")
+        val parsedFitExercise = ExerciseCache(snapshotDirectory).getExercise(fitFile.path)
+        val parsedGpxExercise = ExerciseCache(snapshotDirectory).getExercise(gpxFile.path)
+        assertEquals(2, snapshotDirectory.listFiles()!!.size)
+
+        val cache = ExerciseCache(snapshotDirectory)
+        val fitExercise = cache.getExercise(fitFile.path)
+        val gpxExercise = cache.getExercise(gpxFile.path)
+        assertEquals(ExerciseCache.Statistics(0, 2, 0), cache.statistics)
+
+        assertNotSame(parsedFitExercise, fitExercise)
+        assertEquals(parsedFitExercise, fitExercise)
+        assertTrue(fitExercise.sampleColumns.size > 0)
+        assertEquals(parsedGpxExercise, gpxExercise)
+        assertEquals(parsedGpxExercise.sampleColumns.getLatitude(10), gpxExercise.sampleColumns.getLatitude(10))
+
+        // the snapshots are smaller than the exercise files
+        val snapshotSize = snapshotDirectory.listFiles()!!.sumOf { it.length() }
+        assertTrue(snapshotSize < fitFile.length() + gpxFile.length())
+    }
+
+    /**
+     * Modified exercise files must be parsed again, the invalid snapshot must be replaced.
+     */
+    @Test
+    fun testModifiedFile() {
+        val snapshotDirectory = File(tempDirectory, "snapshots")
+        val exerciseFile = File(tempDirectory, "exercise.fit")
+        fitFile.copyTo(exerciseFile)
+
+        val cache = ExerciseCache(snapshotDirectory)
+        val exercise = cache.getExercise(exerciseFile.path)
+
+        exerciseFile.setLastModified(exerciseFile.lastModified() - 60_000)
+        assertNotSame(exercise, cache.getExercise(exerciseFile.path))
+        assertEquals(ExerciseCache.Statistics(0, 0, 2), cache.statistics)
+
+        ExerciseCache(snapshotDirectory).getExercise(exerciseFile.path)
+        assertEquals(1, snapshotDirectory.listFiles()!!.size)
+    }
+
+    /**
+     * The least recently used exercises must be removed from the in-memory cache when the sample count is exceeded.
+     */
+    @Test
+    fun testMemoryEviction() {
+        val fitSampleCount = ExerciseCache(null).getExercise(fitFile.path).sampleColumns.size
+        val cache = ExerciseCache(null, fitSampleCount)
+
+        cache.getExercise(fitFile.path)
+        cache.getExercise(fitFile.path)
+        cache.getExercise(gpxFile.path)
+        cache.getExercise(fitFile.path)
+        assertEquals(ExerciseCache.Statistics(1, 0, 3), cache.statistics)
+    }
+
+    /**
+     * The least recently used snapshots must be deleted when the maximum directory size is exceeded.
+     */
+    @Test
+    fun testSnapshotDirectorySize() {
+        val snapshotDirectory = File(tempDirectory, "snapshots")
+        ExerciseCache(snapshotDirectory).getExercise(gpxFile.path)
+        val gpxSnapshot = snapshotDirectory.listFiles()!![0]
+        gpxSnapshot.setLastModified(System.currentTimeMillis() - 60_000)
+
+        ExerciseCache(snapshotDirectory, maxSnapshotDirectorySize = gpxSnapshot.length()).getExercise(fitFile.path)
+        assertEquals(1, snapshotDirectory.listFiles()!!.size)
+        assertFalse(gpxSnapshot.exists())
+
+        val cache = ExerciseCache(snapshotDirectory)
+        cache.getExercise(fitFile.path)
+        assertEquals(ExerciseCache.Statistics(0, 1, 0), cache.statistics)
+    }
+}
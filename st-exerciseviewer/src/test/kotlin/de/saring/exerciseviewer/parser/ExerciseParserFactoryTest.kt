@@ -6,6 +6,7 @@ import de.saring.exerciseviewer.parser.impl.TimexPwxParser
 import de.saring.exerciseviewer.parser.impl.garminfit.GarminFitParser
 
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
 import org.junit.jupiter.api.Assertions.assertThrows
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
@@ -50,4 +51,22 @@ class ExerciseParserFactoryTest {
             ExerciseParserFactory.getParser("exercises/exercise1.xyz")
         }
     }
+
+    /**
+     * Tests of createParser() method, it must return a new parser instance for each call.
+     */
+    @Test
+    fun testCreateParser() {
+
+        val parser1 = ExerciseParserFactory.createParser("exercises/exercise1.srd")
+        val parser2 = ExerciseParserFactory.createParser("exercises/exercise2.srd")
+        assertTrue(parser1 is PolarSRawParser)
+        assertTrue(parser2 is PolarSRawParser)
+        assertNotSame(parser1, parser2)
+        assertNotSame(ExerciseParserFactory.getParser("exercises/exercise1.srd"), parser1)
+
+        assertThrows(EVException::class.java) {
+            ExerciseParserFactory.createParser("exercises/exercise1.xyz")
+        }
+    }
 }
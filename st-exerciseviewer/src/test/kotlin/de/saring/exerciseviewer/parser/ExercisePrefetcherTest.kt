@@ -0,0 +1,72 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.core.EVException
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the ExercisePrefetcher class.
+ *
+ * @author Stefan Saring
+ */
+class ExercisePrefetcherTest {
+
+    private val fitFilename = "misc/testdata/garmin-fit/Garmin_Fenix_6-Running.fit"
+    private val gpxFilename = "misc/testdata/gpx/bike-tour-garmin-oregon-with-heartrate.gpx"
+
+    private val cache = ExerciseCache(null)
+    private lateinit var prefetcher: ExercisePrefetcher
+
+    @AfterEach
+    fun tearDown() {
+        prefetcher.shutdown()
+    }
+
+    /**
+     * The prefetched exercise must be used by getExercise(), the file must be parsed only once.
+     */
+    @Test
+    fun testPrefetch() {
+        prefetcher = ExercisePrefetcher(cache, 0)
+        prefetcher.prefetch(fitFilename)
+
+        val exercise = prefetcher.getExercise(fitFilename)
+        assertEquals(1, cache.statistics.misses)
+        assertEquals(0, cache.statistics.memoryHits)
+
+        assertSame(exercise, prefetcher.getExercise(fitFilename))
+        assertEquals(ExerciseCache.Statistics(1, 0, 1), cache.statistics)
+    }
+
+    /**
+     * A prefetch which has not been started yet must be cancelled when the next file gets prefetched or when the
+     * exercise is requested before.
+     */
+    @Test
+    fun testPrefetchNotStarted() {
+        prefetcher = ExercisePrefetcher(cache, 60_000)
+        prefetcher.prefetch(fitFilename)
+        prefetcher.prefetch(gpxFilename)
+
+        prefetcher.getExercise(gpxFilename)
+        assertEquals(ExerciseCache.Statistics(0, 0, 1), cache.statistics)
+
+        prefetcher.prefetch(null)
+        prefetcher.getExercise(fitFilename)
+        assertEquals(ExerciseCache.Statistics(0, 0, 2), cache.statistics)
+    }
+
+    /**
+     * The error of a failed prefetch must be thrown by getExercise().
+     */
+    @Test
+    fun testPrefetchInvalidFile() {
+        prefetcher = ExercisePrefetcher(cache, 0)
+        prefetcher.prefetch("misc/testdata/missing-file.fit")
+
+        assertThrows(EVException::class.java) { prefetcher.getExercise("misc/testdata/missing-file.fit") }
+    }
+}
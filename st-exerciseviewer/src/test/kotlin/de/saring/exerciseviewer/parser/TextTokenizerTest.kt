@@ -0,0 +1,78 @@
+package de.saring.exerciseviewer.parser
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the TextTokenizer class.
+ *
+ * @author Stefan Saring
+ */
+class TextTokenizerTest {
+
+    private val tokenizer = TextTokenizer.of(
+            "[Params]\r\nVersion=106\r\nStartTime=9:47:33.0\r\n\r\n" +
+            "[HRData]\n101\t42\t-240\n147\t171\t278\n[Empty]\n\n[HRData]\n1\t2\t3\rLast line")
+
+    /**
+     * Test of the line and block scan: all line terminators must be supported, the first block of a name is used.
+     */
+    @Test
+    fun testLinesAndBlocks() {
+        assertEquals(12, tokenizer.lineCount)
+        assertEquals("Version=106", tokenizer.substring(1, 0))
+        assertTrue(tokenizer.isBlank(3))
+        assertTrue(tokenizer.lineEquals(11, "Last line"))
+        assertTrue(tokenizer.startsWith(5, "101\t"))
+        assertFalse(tokenizer.startsWith(5, "102"))
+
+        assertEquals(1..2, tokenizer.getBlockLines("Params"))
+        assertEquals(5..6, tokenizer.getBlockLines("HRData"))
+        assertTrue(tokenizer.getBlockLines("Empty")!!.isEmpty())
+        assertNull(tokenizer.getBlockLines("Trip"))
+
+        assertEquals("106", tokenizer.findValue(1..2, "Version"))
+        assertEquals(2, tokenizer.findValueLine(1..2, "StartTime"))
+        assertNull(tokenizer.findValue(1..2, "Start"))
+
+        assertThrows(IndexOutOfBoundsException::class.java) { tokenizer.lineLength(12) }
+    }
+
+    /**
+     * Test of split() and the parsing of the token values.
+     */
+    @Test
+    fun testSplitAndParse() {
+        assertEquals(3, tokenizer.split(5, "\t"))
+        assertEquals(101, tokenizer.intToken(0))
+        assertEquals(42.toShort(), tokenizer.shortToken(1))
+        assertEquals(-240, tokenizer.intToken(2))
+        assertThrows(IndexOutOfBoundsException::class.java) { tokenizer.intToken(3) }
+
+        // each of the separators ends a token, an empty line contains one empty token
+        assertEquals(4, tokenizer.split(2, ":.", "StartTime".length + 1))
+        assertEquals(9, tokenizer.intToken(0))
+        assertEquals(33, tokenizer.intToken(2))
+        assertEquals(1, tokenizer.split(3, "\t"))
+        assertThrows(NumberFormatException::class.java) { tokenizer.intToken(0) }
+
+        assertEquals(106, tokenizer.parseInt(1, 8))
+        assertEquals(10, tokenizer.parseShort(1, 8, 10).toInt())
+        assertThrows(NumberFormatException::class.java) { tokenizer.parseInt(1, 0) }
+    }
+
+    /**
+     * Test of the number parsing limits, the results must be the same as for String.toInt().
+     */
+    @Test
+    fun testNumberLimits() {
+        val limits = TextTokenizer.of("2147483647,-2147483648,2147483648,+7,-,40000")
+        assertEquals(6, limits.split(0, ","))
+        assertEquals(Int.MAX_VALUE, limits.intToken(0))
+        assertEquals(Int.MIN_VALUE, limits.intToken(1))
+        assertThrows(NumberFormatException::class.java) { limits.intToken(2) }
+        assertEquals(7, limits.intToken(3))
+        assertThrows(NumberFormatException::class.java) { limits.intToken(4) }
+        assertThrows(NumberFormatException::class.java) { limits.shortToken(5) }
+    }
+}
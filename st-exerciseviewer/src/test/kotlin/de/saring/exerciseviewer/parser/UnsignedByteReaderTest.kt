@@ -0,0 +1,59 @@
+package de.saring.exerciseviewer.parser
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the UnsignedByteReader class.
+ *
+ * @author Stefan Saring
+ */
+class UnsignedByteReaderTest {
+
+    private val reader = UnsignedByteReader.of(
+            byteArrayOf(0x00, 0xff.toByte(), 0x34, 0x12, 0x59, 0xa5.toByte(), 0x78, 0x56, 0x34, 0xf2.toByte()))
+
+    /**
+     * Test of the unsigned value methods: the values must be positive and in little endian order.
+     */
+    @Test
+    fun testUnsignedValues() {
+        assertEquals(10, reader.size)
+        assertEquals(0, reader.u8(0))
+        assertEquals(255, reader.u8(1))
+        assertEquals(0x1234, reader.u16le(2))
+        assertEquals(0xff00, reader.u16le(0))
+        assertEquals(0xf2345678L, reader.u32le(6))
+
+        assertThrows(IndexOutOfBoundsException::class.java) { reader.u16le(9) }
+    }
+
+    /**
+     * Test of the BCD and bit field methods.
+     */
+    @Test
+    fun testBcdAndBits() {
+        assertEquals(59, reader.bcd(4))
+        assertEquals(12, UnsignedByteReader.decodeBCD(0x12))
+
+        // 0xa5 = 1010 0101
+        assertEquals(0x5, reader.bits(5, 0, 4))
+        assertEquals(0xa, reader.bits(5, 4, 4))
+        assertEquals(0x2, reader.bits(5, 6, 2))
+        assertTrue(reader.isBitSet(5, 7))
+        assertFalse(reader.isBitSet(5, 6))
+    }
+
+    /**
+     * Test of slice(): the part must be read with offsets relative to the part start.
+     */
+    @Test
+    fun testSlice() {
+        val slice = reader.slice(2, 4)
+        assertEquals(4, slice.size)
+        assertEquals(0x1234, slice.u16le(0))
+        assertEquals(59, slice.bcd(2))
+
+        assertThrows(IndexOutOfBoundsException::class.java) { slice.u8(4) }
+    }
+}
@@ -79,6 +79,16 @@ class GarminFitParserTest {
         }
     }
 
+    /**
+     * This method tests the summary parsing, the summary values must be the same as for the complete exercise.
+     */
+    @Test
+    fun testParseSummary() {
+        assertSummaryOfExercise(parser, "misc/testdata/garmin-fit/2010-07-04-06-07-36.fit")
+        assertSummaryOfExercise(parser, "misc/testdata/garmin-fit/Garmin_Forerunner_910XT-Running.fit")
+        assertSummaryOfExercise(parser, "misc/testdata/garmin-fit/Garmin_Fenix_6-Running.fit")
+    }
+
     /**
      * This method tests the parser with an exercise file with cycling data
      * (contains speed, heartrate, altitude and cadence data).
@@ -27,6 +27,15 @@ class GarminTcxParserTest {
         }
     }
 
+    /**
+     * This method tests the summary parsing, the summary values must be the same as for the complete exercise.
+     */
+    @Test
+    fun testParseSummary() {
+        assertSummaryOfExercise(parser, "misc/testdata/garmin-tcx/Forerunner305-Running-NoHeartrate-1Lap.tcx")
+        assertSummaryOfExercise(parser, "misc/testdata/garmin-tcx/Edge705-Running-Heartrate-2Laps.tcx")
+    }
+
     /**
      * This test parses a TCX file from a Garmin Forerunner 305 (Running, no heartrate data, 1 lap).
      */
@@ -29,6 +29,16 @@ class PolarHRMParserTest {
         }
     }
 
+    /**
+     * This method tests the summary parsing, the summary values must be the same as for the complete exercise.
+     */
+    @Test
+    fun testParseSummary() {
+        assertSummaryOfExercise(parser, "misc/testdata/s710/cycling-metric.hrm")
+        assertSummaryOfExercise(parser, "misc/testdata/s710/cycling-english.hrm")
+        assertSummaryOfExercise(parser, "misc/testdata/s710/running-metric.hrm")
+    }
+
     /**
      * This method tests the parser by with an cycling exercise file recorded in metric units.
      */
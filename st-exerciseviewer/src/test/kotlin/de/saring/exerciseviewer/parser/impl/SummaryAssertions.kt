@@ -0,0 +1,29 @@
+package de.saring.exerciseviewer.parser.impl
+
+import de.saring.exerciseviewer.data.EVExercise
+import de.saring.exerciseviewer.parser.ExerciseParser
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+
+/**
+ * Asserts that the summary parsed by ExerciseParser.parseSummary() contains the same summary values as the
+ * completely parsed exercise, and that it does not contain any samples.
+ *
+ * @param parser the parser to test
+ * @param filename name of the exercise file
+ */
+fun assertSummaryOfExercise(parser: ExerciseParser, filename: String) {
+    val exercise = parser.parseExercise(filename)
+    val summary = parser.parseSummary(filename)
+
+    assertEquals(exercise.dateTime, summary.dateTime)
+    assertEquals(exercise.duration, summary.duration)
+    assertEquals(exercise.heartRateAVG, summary.heartRateAVG)
+    assertEquals(exercise.energy, summary.energy)
+    assertEquals(exercise.speed?.distance, summary.speed?.distance)
+    assertEquals(exercise.speed?.speedAvg, summary.speed?.speedAvg)
+    assertEquals(exercise.altitude?.ascent, summary.altitude?.ascent)
+    assertEquals(exercise.altitude?.descent, summary.altitude?.descent)
+    assertEquals(exercise.sportTypeFit, summary.sportTypeFit)
+    assertTrue(summary.sampleList.isEmpty())
+}
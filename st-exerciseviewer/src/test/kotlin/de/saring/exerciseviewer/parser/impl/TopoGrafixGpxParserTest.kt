@@ -29,6 +29,16 @@ class TopoGrafixGpxParserTest {
         }
     }
 
+    /**
+     * This method tests the summary parsing, the summary values must be the same as for the complete exercise.
+     */
+    @Test
+    fun testParseSummary() {
+        assertSummaryOfExercise(parser, "misc/testdata/gpx/bike-tour-gpsies.gpx")
+        assertSummaryOfExercise(parser, "misc/testdata/gpx/bike-tour-garmin-oregon-with-heartrate.gpx")
+        assertSummaryOfExercise(parser, "misc/testdata/gpx/bike-tour-track_only.gpx")
+    }
+
     /**
      * This test parses a GPX file for a bike tour created by GPSies.com.
      * It contains track (location), time and altitude data.
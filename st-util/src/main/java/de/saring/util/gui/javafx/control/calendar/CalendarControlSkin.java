@@ -196,6 +196,12 @@ public class CalendarControlSkin extends SkinBase<CalendarControl> implements Ca
      * Updates the content of the calendar component (all header, day and summary cells).
      */
     private void updateContent() {
+        final CalendarDataProvider dataProvider = getSkinnable().getCalendarDataProvider();
+        if (dataProvider != null) {
+            final LocalDate firstDisplayedDay = getSkinnable().getFirstDisplayedDay();
+            dataProvider.prepareDateRange(firstDisplayedDay, firstDisplayedDay.plusDays(dayCells.length - 1));
+        }
+
         updateHeaderCells();
         updateDayCells();
         updateSummaryCells();
@@ -10,6 +10,18 @@ import java.util.List;
  */
 public interface CalendarDataProvider {
 
+    /**
+     * Prepares the provider for the requests of all days in the specified date range, it's called
+     * whenever the calendar displays a new month. The provider can read all entries of the displayed
+     * weeks at once here, instead of reading them for each day separately. The default implementation
+     * does nothing.
+     *
+     * @param dateStart first displayed day
+     * @param dateEnd last displayed day
+     */
+    default void prepareDateRange(LocalDate dateStart, LocalDate dateEnd) {
+    }
+
     /**
      * Returns the calendar entries to be shown for the specified date.
      *
@@ -1,11 +1,14 @@
 package de.saring.util.data
 
 import java.time.LocalDate
-import java.util.stream.Collectors
+import java.util.IdentityHashMap
+import java.util.TreeMap
 
 /**
  * This list extends IdObjectList and contains unique entries of IdDateObject subclasses. It provides query methods for
  * getting entries in specific date ranges.
+ * All entries are additionally indexed by their date, so these queries don't need to process the full list. The date
+ * of the contained entries must not be modified directly, the entry needs to be stored again by using set() then.
  *
  * @param <T> the object type to store in this list, must be a subclass of IdDateObject
  *
@@ -13,9 +16,51 @@ import java.util.stream.Collectors
  */
 open class IdDateObjectList<T : IdDateObject> : IdObjectList<T>() {
 
+    /**
+     * Date index of all entries, sorted by date (key is the date, value is the list of all entries of this date).
+     */
+    private val dateIndex = TreeMap<LocalDate, MutableList<T>>()
+
+    /**
+     * Map of the indexed date of each entry. It's needed for removing entries from the date index, even when their
+     * date has been modified before.
+     */
+    private val indexedDates = IdentityHashMap<T, LocalDate>()
+
+    override fun set(t: T) {
+        val index = indexOf(t)
+        val replacedEntry = if (index >= 0) getAt(index) else null
+
+        super.set(t)
+        replacedEntry?.let { removeFromDateIndex(it) }
+        addToDateIndex(t)
+    }
+
+    override fun clearAndAddAll(entries: List<T>) {
+        super.clearAndAddAll(entries)
+
+        dateIndex.clear()
+        indexedDates.clear()
+        entries.forEach { addToDateIndex(it) }
+    }
+
+    override fun removeByID(id: Long): Boolean {
+        val entry = getByID(id) ?: return false
+
+        super.removeByID(id)
+        removeFromDateIndex(entry)
+        return true
+    }
+
+    override fun removeByIDs(ids: LongArray): List<T> {
+        val removedEntries = super.removeByIDs(ids)
+        removedEntries.forEach { removeFromDateIndex(it) }
+        return removedEntries
+    }
+
     /**
      * Returns all IdDateObject entries of this list for which their datetime is in the specified date range.
-     *
+     * The returned entries are in the same order as in this list.
      *
      * @param dStart start date of the time range (inclusive)
      * @param dEnd end date of the time range (inclusive)
@@ -27,8 +72,46 @@ open class IdDateObjectList<T : IdDateObject> : IdObjectList<T>() {
             throw IllegalArgumentException("Start date is after end date!")
         }
 
-        return stream()
-                .filter { !it.dateTime.toLocalDate().isBefore(dStart) && !it.dateTime.toLocalDate().isAfter(dEnd) }
-                .collect(Collectors.toList())
+        val entriesInRange = mutableListOf<T>()
+        dateIndex.subMap(dStart, true, dEnd, true).values.forEach { entriesInRange.addAll(it) }
+
+        if (entriesInRange.size > 1) {
+            entriesInRange.sortBy { indexOf(it) }
+        }
+        return entriesInRange
+    }
+
+    /**
+     * Returns the latest entry of this list with a date before the specified date.
+     *
+     * @param date the date to search before (exclusive)
+     * @return the found entry or null
+     */
+    fun getLastEntryBefore(date: LocalDate): T? =
+        dateIndex.lowerEntry(date)?.value?.maxByOrNull { it.dateTime }
+
+    /**
+     * Returns the earliest entry of this list with a date after the specified date.
+     *
+     * @param date the date to search after (exclusive)
+     * @return the found entry or null
+     */
+    fun getFirstEntryAfter(date: LocalDate): T? =
+        dateIndex.higherEntry(date)?.value?.minByOrNull { it.dateTime }
+
+    private fun addToDateIndex(entry: T) {
+        val date = entry.dateTime.toLocalDate()
+        dateIndex.getOrPut(date) { ArrayList(1) }.add(entry)
+        indexedDates[entry] = date
+    }
+
+    private fun removeFromDateIndex(entry: T) {
+        val date = indexedDates.remove(entry) ?: return
+        dateIndex[date]?.let { entriesOfDate ->
+            entriesOfDate.removeIf { it === entry }
+            if (entriesOfDate.isEmpty()) {
+                dateIndex.remove(date)
+            }
+        }
     }
 }
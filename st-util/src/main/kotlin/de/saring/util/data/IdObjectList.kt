@@ -5,6 +5,7 @@ import java.util.stream.Stream
 /**
  * This list contains unique instances of IdObject subclasses. It will never contain multiple instances with the same
  * ID. It also provides useful methods for getting and removing instances by ID or by their index.
+ * The list positions of all objects are indexed by their ID, so the access by ID is possible in constant time.
  *
  * @param <T> the object type to store in this list, must be a subclass of IdObject
  *
@@ -13,10 +14,17 @@ import java.util.stream.Stream
 open class IdObjectList<T : IdObject> : Iterable<T> {
 
     /**
-     * Generic list of subclasses of IdObject. Only subclasses can directly access this list.
+     * Generic list of subclasses of IdObject. Only subclasses can directly access this list, but they must not modify
+     * it directly (the ID index map would be invalid then).
      */
     protected val idObjects = mutableListOf<T>()
 
+    /**
+     * Index map for fast access of the list positions by the object ID (key is the ID, value is the position in list
+     * idObjects). Objects without an ID are not contained in the map. It must be updated on each list modification.
+     */
+    private val idIndexMap = HashMap<Long, Int>()
+
     /**
      * Returns the IdObject with the specified ID.
      *
@@ -24,10 +32,8 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @return the IdObject object or null
      */
     fun getByID(id: Long): T? {
-        return stream()
-                .filter { o -> o.id == id }
-                .findFirst()
-                .orElse(null)
+        val index = idIndexMap[id]
+        return if (index == null) null else idObjects[index]
     }
 
     /**
@@ -44,7 +50,13 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param t the object to lookup in the list
      * @return the index of the object or -1
      */
-    fun indexOf(t: T): Int = idObjects.indexOf(t)
+    fun indexOf(t: T): Int {
+        val id = t.id ?: return idObjects.indexOf(t)
+
+        // the IdObject in the list must also be of the same type (see IdObject.equals())
+        val index = idIndexMap[id]
+        return if (index != null && idObjects[index] == t) index else -1
+    }
 
     /**
      * Checks whether the specified object is contained in list.
@@ -52,7 +64,7 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param t the object to lookup in the list
      * @return true if the list contains the specified object
      */
-    fun contains(t: T): Boolean = idObjects.contains(t)
+    fun contains(t: T): Boolean = indexOf(t) >= 0
 
     /**
      * Stores the specified IdObject in the list. If there is already an IDObject with that ID then the old object will
@@ -60,15 +72,16 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      *
      * @param t the IdObject to store
      */
-    fun set(t: T) {
+    open fun set(t: T) {
 
-        val index = idObjects.indexOf(t)
+        val index = indexOf(t)
         if (index >= 0) {
             // replace old IdObject if there is one with the ID of the new one
             this.idObjects[index] = t
         } else {
             // the object has a new ID => add to end of list
             this.idObjects.add(t)
+            t.id?.let { idIndexMap[it] = idObjects.size - 1 }
         }
     }
 
@@ -78,9 +91,10 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      *
      * @param entries list of IdObjects to store (must not be null, entries must not be null and all entries and must have a valid ID)
      */
-    fun clearAndAddAll(entries: List<T>) {
+    open fun clearAndAddAll(entries: List<T>) {
         idObjects.clear()
         idObjects.addAll(entries)
+        rebuildIdIndexMap(0)
     }
 
     /**
@@ -89,14 +103,32 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param id ID of IdObject to remove
      * @return true on success
      */
-    fun removeByID(id: Long): Boolean {
-        var removed = false
+    open fun removeByID(id: Long): Boolean {
+        val index = idIndexMap.remove(id) ?: return false
 
-        val idObject = getByID(id)
-        if (idObject != null) {
-            removed = this.idObjects.remove(idObject)
+        // all following objects are moving one position up => their index entries need to be updated
+        idObjects.removeAt(index)
+        rebuildIdIndexMap(index)
+        return true
+    }
+
+    /**
+     * Removes all IdObjects with the specified IDs from the list. The ID index map is updated only once after removal,
+     * so it's much faster than calling [removeByID] for each ID. Unknown IDs will be ignored.
+     *
+     * @param ids IDs of the IdObjects to remove
+     * @return list of the removed IdObjects, in the order of the specified IDs
+     */
+    open fun removeByIDs(ids: LongArray): List<T> {
+        val removedObjects = ids.distinct().mapNotNull { getByID(it) }
+        if (removedObjects.isEmpty()) {
+            return removedObjects
         }
-        return removed
+
+        val removedIds = removedObjects.mapTo(HashSet(removedObjects.size)) { it.id }
+        idObjects.removeIf { it.id in removedIds }
+        rebuildIdIndexMap(0)
+        return removedObjects
     }
 
     /**
@@ -120,6 +152,22 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      */
     fun stream(): Stream<T> = idObjects.stream()
 
+    /**
+     * Updates the ID index map entries for all list objects starting at the specified position. The index map will be
+     * cleared before, when the full list needs to be processed.
+     *
+     * @param startIndex list position of the first object to update
+     */
+    private fun rebuildIdIndexMap(startIndex: Int) {
+        if (startIndex == 0) {
+            idIndexMap.clear()
+        }
+
+        for (index in startIndex until idObjects.size) {
+            idObjects[index].id?.let { idIndexMap[it] = index }
+        }
+    }
+
     /**
      * Returns a string representation of this object.
      *
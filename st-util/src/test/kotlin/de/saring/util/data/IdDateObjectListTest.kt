@@ -64,6 +64,74 @@ class IdDateObjectListTest {
         }
     }
 
+    /**
+     * Test of getEntriesInDateRange(): the date index must be updated when entries are replaced or removed.
+     */
+    @Test
+    fun testGetEntriesInDateRangeAfterModification() {
+        list.set(DateNameObject(2, LocalDateTime.of(2009, 2, 6, 10, 0, 0), "two"))
+        list.set(DateNameObject(4, LocalDateTime.of(2009, 2, 6, 18, 0, 0), "four"))
+        assertTrue(list.removeByID(1))
+
+        val lFound = list.getEntriesInDateRange(
+                LocalDate.of(2009, 2, 5), LocalDate.of(2009, 2, 6))
+
+        assertEquals(2, lFound.size)
+        assertEquals("two", lFound[0].name)
+        assertEquals("four", lFound[1].name)
+
+        assertTrue(list.getEntriesInDateRange(LocalDate.of(2008, 12, 11), LocalDate.of(2008, 12, 11)).isEmpty())
+    }
+
+    /**
+     * Test of getEntriesInDateRange(): the date index must be updated when multiple entries are removed at once.
+     */
+    @Test
+    fun testGetEntriesInDateRangeAfterRemoveByIDs() {
+        assertEquals(2, list.removeByIDs(longArrayOf(1, 2)).size)
+
+        val lFound = list.getEntriesInDateRange(LocalDate.of(2008, 1, 1), LocalDate.of(2009, 12, 31))
+        assertEquals(1, lFound.size)
+        assertEquals("three", lFound[0].name)
+    }
+
+    /**
+     * Test of getEntriesInDateRange(): the date index must contain the new entries only after clearAndAddAll().
+     */
+    @Test
+    fun testGetEntriesInDateRangeAfterClearAndAddAll() {
+        list.clearAndAddAll(listOf(DateNameObject(5, LocalDateTime.of(2010, 1, 1, 12, 0, 0), "five")))
+
+        assertTrue(list.getEntriesInDateRange(LocalDate.of(2008, 1, 1), LocalDate.of(2009, 12, 31)).isEmpty())
+        assertEquals("five", list.getEntriesInDateRange(LocalDate.of(2010, 1, 1), LocalDate.of(2010, 1, 1))[0].name)
+    }
+
+    /**
+     * Test of getLastEntryBefore(): must find the latest entry before the specified date.
+     */
+    @Test
+    fun testGetLastEntryBefore() {
+        list.set(DateNameObject(4, LocalDateTime.of(2009, 2, 5, 8, 0, 0), "four"))
+
+        assertNull(list.getLastEntryBefore(LocalDate.of(2008, 12, 11)))
+        assertEquals("two", list.getLastEntryBefore(LocalDate.of(2009, 2, 5))?.name)
+        assertEquals("one", list.getLastEntryBefore(LocalDate.of(2009, 2, 7))?.name)
+        assertEquals("three", list.getLastEntryBefore(LocalDate.of(2010, 1, 1))?.name)
+    }
+
+    /**
+     * Test of getFirstEntryAfter(): must find the earliest entry after the specified date.
+     */
+    @Test
+    fun testGetFirstEntryAfter() {
+        list.set(DateNameObject(4, LocalDateTime.of(2009, 2, 5, 8, 0, 0), "four"))
+
+        assertEquals("two", list.getFirstEntryAfter(LocalDate.of(2008, 1, 1))?.name)
+        assertEquals("four", list.getFirstEntryAfter(LocalDate.of(2008, 12, 11))?.name)
+        assertEquals("three", list.getFirstEntryAfter(LocalDate.of(2009, 2, 5))?.name)
+        assertNull(list.getFirstEntryAfter(LocalDate.of(2009, 2, 7)))
+    }
+
     /**
      * Subclass of abstract class IdDateObject for testing.
      */
@@ -96,6 +96,11 @@ class IdObjectListTest {
         assertEquals(2, list.size())
         assertEquals("five", list.getAt(0).name)
         assertEquals("six", list.getAt(1).name)
+
+        // the previous entries must not be accessible by ID anymore
+        assertNull(list.getByID(1))
+        assertEquals("six", list.getByID(6)?.name)
+        assertEquals(1, list.indexOf(NameObject(6, "six")))
     }
 
     /**
@@ -114,8 +119,66 @@ class IdObjectListTest {
         assertEquals(2, list.size())
     }
 
+    /**
+     * Test of removeByID method: all entries after the removed entry must be still accessible by ID and index.
+     */
+    @Test
+    fun removeByIDFirstEntry() {
+
+        assertTrue(list.removeByID(1))
+        assertEquals(2, list.size())
+        assertNull(list.getByID(1))
+        assertEquals("two", list.getByID(2)?.name)
+        assertEquals("three", list.getByID(3)?.name)
+        assertEquals(0, list.indexOf(NameObject(2, "two")))
+        assertEquals(1, list.indexOf(NameObject(3, "three")))
+
+        // replacing an entry must still work after removal
+        list.set(NameObject(3, "drei"))
+        assertEquals(2, list.size())
+        assertEquals("drei", list.getAt(1).name)
+    }
+
+    /**
+     * Test of removeByIDs method: all existing entries must be removed, unknown IDs must be ignored. The remaining
+     * entries must be still accessible by ID and index.
+     */
+    @Test
+    fun removeByIDs() {
+        list.set(NameObject(4, "four"))
+
+        val removedObjects = list.removeByIDs(longArrayOf(3, 1, 5, 3))
+        assertEquals(listOf("three", "one"), removedObjects.map { it.name })
+        assertEquals(2, list.size())
+        assertNull(list.getByID(1))
+        assertNull(list.getByID(3))
+        assertEquals(0, list.indexOf(NameObject(2, "two")))
+        assertEquals(1, list.indexOf(NameObject(4, "four")))
+
+        assertTrue(list.removeByIDs(longArrayOf(1, 3)).isEmpty())
+        assertEquals(2, list.size())
+    }
+
+    /**
+     * Test of set method for objects without an ID: they are never replaced, only the same instance is contained.
+     */
+    @Test
+    fun setWithoutID() {
+        val noIdObject1 = NameObject(null, "none 1")
+        val noIdObject2 = NameObject(null, "none 2")
+        list.set(noIdObject1)
+        list.set(noIdObject2)
+        list.set(noIdObject1)
+
+        assertEquals(5, list.size())
+        assertEquals(3, list.indexOf(noIdObject1))
+        assertEquals(4, list.indexOf(noIdObject2))
+        assertTrue(list.contains(noIdObject2))
+        assertFalse(list.contains(NameObject(null, "none 1")))
+    }
+
     /**
      * Subclass of abstract class IdObject for testing.
      */
-    internal class NameObject(id: Long, val name: String) : IdObject(id)
+    internal class NameObject(id: Long?, val name: String) : IdObject(id)
 }